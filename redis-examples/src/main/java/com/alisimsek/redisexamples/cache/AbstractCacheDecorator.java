@@ -0,0 +1,106 @@
+package com.alisimsek.redisexamples.cache;
+
+import org.springframework.cache.Cache;
+
+import java.util.concurrent.Callable;
+
+/**
+ * Base class for cache layers that wrap another {@link Cache}.
+ * Every operation is forwarded to the delegate unless a subclass overrides it.
+ */
+public abstract class AbstractCacheDecorator implements Cache {
+
+    protected final Cache delegate;
+
+    protected AbstractCacheDecorator(Cache delegate) {
+        this.delegate = delegate;
+    }
+
+    public Cache getDelegate() {
+        return delegate;
+    }
+
+    /**
+     * Drops the given key from any in-process copy held by this layer or the layers below it.
+     * Shared (Redis) state is left untouched.
+     */
+    public void evictLocal(Object key) {
+        if (delegate instanceof AbstractCacheDecorator decorator) {
+            decorator.evictLocal(key);
+        }
+    }
+
+    /**
+     * Stores a value in any in-process copy held by this layer or the layers below it, e.g. to
+     * warm a node up with values already in Redis. Shared (Redis) state is left untouched.
+     */
+    public void putLocal(Object key, Object value) {
+        if (delegate instanceof AbstractCacheDecorator decorator) {
+            decorator.putLocal(key, value);
+        }
+    }
+
+    /**
+     * Drops every in-process copy held by this layer or the layers below it.
+     */
+    public void clearLocal() {
+        if (delegate instanceof AbstractCacheDecorator decorator) {
+            decorator.clearLocal();
+        }
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return delegate.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        return delegate.get(key);
+    }
+
+    @Override
+    public <T> T get(Object key, Class<T> type) {
+        return delegate.get(key, type);
+    }
+
+    @Override
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        return delegate.get(key, valueLoader);
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        delegate.put(key, value);
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        return delegate.putIfAbsent(key, value);
+    }
+
+    @Override
+    public void evict(Object key) {
+        delegate.evict(key);
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        return delegate.evictIfPresent(key);
+    }
+
+    @Override
+    public void clear() {
+        delegate.clear();
+    }
+
+    @Override
+    public boolean invalidate() {
+        return delegate.invalidate();
+    }
+}
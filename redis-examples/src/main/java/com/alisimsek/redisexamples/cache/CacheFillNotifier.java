@@ -0,0 +1,55 @@
+package com.alisimsek.redisexamples.cache;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Lets callers on this node wait until another node has finished filling a cache entry.
+ * Completion is signalled by {@link CacheInvalidationListener} when a fill message arrives.
+ */
+public class CacheFillNotifier {
+
+    private final ConcurrentMap<String, CompletableFuture<Void>> waiters = new ConcurrentHashMap<>();
+
+    /**
+     * Registers interest in the given entry. Register before checking the cache a last time,
+     * so a fill that completes in between is not missed.
+     */
+    public CompletableFuture<Void> register(String cacheName, String key) {
+        return waiters.computeIfAbsent(waiterKey(cacheName, key), k -> new CompletableFuture<>());
+    }
+
+    /**
+     * Waits for the signal registered with {@link #register}.
+     *
+     * @return true if the fill completed, false if the timeout elapsed first
+     */
+    public boolean await(String cacheName, String key, CompletableFuture<Void> signal, Duration timeout)
+            throws InterruptedException {
+        try {
+            signal.get(timeout.toNanos(), TimeUnit.NANOSECONDS);
+            return true;
+        } catch (TimeoutException e) {
+            waiters.remove(waiterKey(cacheName, key), signal);
+            return false;
+        } catch (ExecutionException e) {
+            return true;
+        }
+    }
+
+    public void complete(String cacheName, String key) {
+        CompletableFuture<Void> signal = waiters.remove(waiterKey(cacheName, key));
+        if (signal != null) {
+            signal.complete(null);
+        }
+    }
+
+    private static String waiterKey(String cacheName, String key) {
+        return cacheName + "::" + key;
+    }
+}
@@ -0,0 +1,52 @@
+package com.alisimsek.redisexamples.cache;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+
+import java.nio.charset.StandardCharsets;
+import java.util.regex.Pattern;
+
+/**
+ * Applies invalidations published by other nodes to the local tiers of the matching cache
+ * and wakes callers waiting for an entry another node has just filled.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class CacheInvalidationListener implements MessageListener {
+
+    private static final Pattern SEPARATOR = Pattern.compile(Pattern.quote(CacheInvalidationPublisher.SEPARATOR));
+
+    private final CacheManager cacheManager;
+    private final CacheInvalidationPublisher publisher;
+    private final CacheFillNotifier fillNotifier;
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        String[] parts = SEPARATOR.split(body, 4);
+        if (parts.length != 4) {
+            log.warn("Ignoring malformed cache invalidation: '{}'", body);
+            return;
+        }
+        if (publisher.getNodeId().equals(parts[0])) {
+            return;
+        }
+        if (CacheInvalidationPublisher.FILLED.equals(parts[1])) {
+            fillNotifier.complete(parts[2], parts[3]);
+        }
+        Cache cache = cacheManager.getCache(parts[2]);
+        if (!(cache instanceof AbstractCacheDecorator decorator)) {
+            return;
+        }
+        if (CacheInvalidationPublisher.CLEAR.equals(parts[1])) {
+            decorator.clearLocal();
+        } else {
+            decorator.evictLocal(parts[3]);
+        }
+        log.debug("Applied cache invalidation: '{}'", body);
+    }
+}
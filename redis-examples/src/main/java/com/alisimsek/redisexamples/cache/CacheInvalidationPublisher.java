@@ -0,0 +1,57 @@
+package com.alisimsek.redisexamples.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.UUID;
+
+/**
+ * Broadcasts near-cache invalidations over a Redis channel so every node drops its L1 copy.
+ * Messages have the form {@code <nodeId>|<EVICT|CLEAR|FILLED>|<cacheName>|<key>}.
+ */
+@Slf4j
+public class CacheInvalidationPublisher {
+
+    static final String EVICT = "EVICT";
+    static final String CLEAR = "CLEAR";
+    static final String FILLED = "FILLED";
+    static final String SEPARATOR = "|";
+
+    private final StringRedisTemplate redisTemplate;
+    private final String channel;
+    private final String nodeId = UUID.randomUUID().toString();
+
+    public CacheInvalidationPublisher(StringRedisTemplate redisTemplate, String channel) {
+        this.redisTemplate = redisTemplate;
+        this.channel = channel;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public void publishEvict(String cacheName, String key) {
+        publish(String.join(SEPARATOR, nodeId, EVICT, cacheName, key));
+    }
+
+    public void publishClear(String cacheName) {
+        publish(String.join(SEPARATOR, nodeId, CLEAR, cacheName, ""));
+    }
+
+    /**
+     * Announces that an entry has been rebuilt, waking callers waiting on it and
+     * dropping any stale L1 copy handed out while the rebuild was running.
+     */
+    public void publishFilled(String cacheName, String key) {
+        publish(String.join(SEPARATOR, nodeId, FILLED, cacheName, key));
+    }
+
+    private void publish(String message) {
+        try {
+            redisTemplate.convertAndSend(channel, message);
+        } catch (Exception e) {
+            // Remote L1 copies still expire through their own TTL.
+            log.error("Error publishing cache invalidation: {}", message, e);
+        }
+    }
+}
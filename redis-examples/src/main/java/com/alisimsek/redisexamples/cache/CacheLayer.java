@@ -0,0 +1,12 @@
+package com.alisimsek.redisexamples.cache;
+
+import org.springframework.cache.Cache;
+
+/**
+ * A single layer of the {@link LayeredCacheManager}. Receives the cache built so far
+ * and returns it either unchanged or wrapped.
+ */
+@FunctionalInterface
+public interface CacheLayer {
+    Cache decorate(Cache cache);
+}
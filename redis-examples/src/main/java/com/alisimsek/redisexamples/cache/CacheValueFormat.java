@@ -0,0 +1,42 @@
+package com.alisimsek.redisexamples.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+/**
+ * Encoding used for cached values in Redis.
+ */
+public enum CacheValueFormat {
+    /**
+     * Plain JSON with an {@code @class} property on every object.
+     */
+    JSON {
+        @Override
+        public RedisSerializer<Object> createSerializer() {
+            return new GenericJackson2JsonRedisSerializer();
+        }
+    },
+    /**
+     * Binary Smile encoding of the same Jackson model. Property names and repeated
+     * string values (such as the {@code @class} hints in a list) are written once and
+     * back-referenced afterwards.
+     */
+    SMILE {
+        @Override
+        public RedisSerializer<Object> createSerializer() {
+            SmileFactory smileFactory = SmileFactory.builder()
+                    .enable(SmileGenerator.Feature.CHECK_SHARED_NAMES)
+                    .enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES)
+                    .build();
+            return GenericJackson2JsonRedisSerializer.builder()
+                    .objectMapper(new ObjectMapper(smileFactory))
+                    .defaultTyping(true)
+                    .build();
+        }
+    };
+
+    public abstract RedisSerializer<Object> createSerializer();
+}
@@ -0,0 +1,160 @@
+package com.alisimsek.redisexamples.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.NullValue;
+import org.springframework.cache.support.SimpleValueWrapper;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.concurrent.Callable;
+
+/**
+ * Redis cache whose reads are answered from local copies kept valid by Redis key tracking
+ * (see {@link ClientSideCacheStore}); misses are read over the tracking connection. Writes go
+ * to the Redis cache below, and Redis then invalidates the copies of every node, this one
+ * included. Local hits do not reset a time-to-idle in Redis.
+ */
+public class ClientSideCache extends AbstractCacheDecorator {
+
+    private final ClientSideCacheStore store;
+    private final RedisCacheConfiguration configuration;
+    private final String keyPrefix;
+    private final Counter localHits;
+    private final Counter localMisses;
+
+    public ClientSideCache(Cache delegate, ClientSideCacheStore store, RedisCacheConfiguration configuration,
+                           MeterRegistry meterRegistry) {
+        super(delegate);
+        this.store = store;
+        this.configuration = configuration;
+        this.keyPrefix = configuration.getKeyPrefixFor(delegate.getName());
+        this.localHits = counter(meterRegistry, "hit");
+        this.localMisses = counter(meterRegistry, "miss");
+        Gauge.builder("cache.client.side.hit.ratio", this, ClientSideCache::hitRatio)
+                .description("Share of reads answered by a local copy")
+                .tag("cache", getName())
+                .register(meterRegistry);
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        String redisKey = redisKey(key);
+        Object value = store.getLocal(redisKey);
+        if (value != null) {
+            localHits.increment();
+        } else {
+            localMisses.increment();
+            Duration idleTtl = configuration.isTimeToIdleEnabled()
+                    ? configuration.getTtlFunction().getTimeToLive(key, null) : Duration.ZERO;
+            value = store.read(redisKey, this::deserialize, idleTtl);
+        }
+        if (value == null) {
+            return null;
+        }
+        return new SimpleValueWrapper(value instanceof NullValue ? null : value);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper wrapper = get(key);
+        Object value = wrapper != null ? wrapper.get() : null;
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException("Cached value is not of required type [" + type.getName() + "]: " + value);
+        }
+        return (T) value;
+    }
+
+    /**
+     * A loaded value is not kept locally; the next read fetches it over the tracking connection.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper wrapper = get(key);
+        if (wrapper != null) {
+            return (T) wrapper.get();
+        }
+        return delegate.get(key, valueLoader);
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        delegate.put(key, value);
+        store.invalidate(redisKey(key));
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        ValueWrapper existing = delegate.putIfAbsent(key, value);
+        store.invalidate(redisKey(key));
+        return existing;
+    }
+
+    @Override
+    public void evict(Object key) {
+        delegate.evict(key);
+        store.invalidate(redisKey(key));
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        boolean evicted = delegate.evictIfPresent(key);
+        store.invalidate(redisKey(key));
+        return evicted;
+    }
+
+    @Override
+    public void clear() {
+        delegate.clear();
+        store.invalidateAll(keyPrefix);
+    }
+
+    @Override
+    public boolean invalidate() {
+        boolean invalidated = delegate.invalidate();
+        store.invalidateAll(keyPrefix);
+        return invalidated;
+    }
+
+    @Override
+    public void evictLocal(Object key) {
+        store.invalidate(redisKey(key));
+        super.evictLocal(key);
+    }
+
+    @Override
+    public void clearLocal() {
+        store.invalidateAll(keyPrefix);
+        super.clearLocal();
+    }
+
+    /**
+     * The key as stored in Redis, which is how invalidations name it.
+     */
+    private String redisKey(Object key) {
+        return keyPrefix + configuration.getConversionService().convert(key, String.class);
+    }
+
+    private Object deserialize(byte[] value) {
+        return configuration.getValueSerializationPair().read(ByteBuffer.wrap(value));
+    }
+
+    private double hitRatio() {
+        double hits = localHits.count();
+        double total = hits + localMisses.count();
+        return total == 0 ? 0 : hits / total;
+    }
+
+    private Counter counter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("cache.client.side.gets")
+                .description("Reads of client-side cached keys by whether a local copy answered them")
+                .tag("cache", getName())
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
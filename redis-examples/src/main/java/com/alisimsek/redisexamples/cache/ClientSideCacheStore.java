@@ -0,0 +1,202 @@
+package com.alisimsek.redisexamples.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.lettuce.core.AbstractRedisClient;
+import io.lettuce.core.GetExArgs;
+import io.lettuce.core.RedisChannelHandler;
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.RedisConnectionStateListener;
+import io.lettuce.core.TrackingArgs;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.api.push.PushListener;
+import io.lettuce.core.api.push.PushMessage;
+import io.lettuce.core.codec.ByteArrayCodec;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+import java.net.SocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+/**
+ * Local copies of Redis keys kept valid by Redis itself (server-assisted client-side caching).
+ * Keys are read over a dedicated RESP3 connection with {@code CLIENT TRACKING} on, so the
+ * server remembers which keys this node read and pushes an invalidation on that connection
+ * when any client changes, deletes or expires one of them.
+ * <p>
+ * A value read is kept only if no invalidation for its key arrived meanwhile. Redis forgets
+ * what a connection tracked when it drops, so the local copies are dropped on disconnect and
+ * nothing is kept until tracking is on again after Lettuce reconnected.
+ */
+@Slf4j
+public class ClientSideCacheStore implements PushListener, RedisConnectionStateListener {
+
+    private final AbstractRedisClient client;
+    private final boolean enabled;
+    private final Cache<String, Object> local;
+    // Keys being read, with a marker per read; an invalidation removes the key, so the read is not kept.
+    private final ConcurrentMap<String, Object> reads = new ConcurrentHashMap<>();
+    private final Counter keyInvalidations;
+    private final Counter flushInvalidations;
+    private StatefulRedisConnection<byte[], byte[]> connection;
+    private volatile boolean tracking;
+
+    public ClientSideCacheStore(AbstractRedisClient client, boolean enabled, long maximumSize, Duration ttl,
+                                MeterRegistry meterRegistry) {
+        this.client = client;
+        this.enabled = enabled;
+        this.local = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .build();
+        this.keyInvalidations = invalidationCounter(meterRegistry, "key");
+        this.flushInvalidations = invalidationCounter(meterRegistry, "all");
+        Gauge.builder("cache.client.side.size", local, Cache::estimatedSize)
+                .description("Local copies of tracked Redis keys")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Opens the tracking connection, if client-side caching is enabled.
+     */
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            return;
+        }
+        if (!(client instanceof RedisClient redisClient)) {
+            throw new IllegalStateException("Client-side caching needs a standalone Redis connection");
+        }
+        connection = redisClient.connect(ByteArrayCodec.INSTANCE);
+        connection.addListener((PushListener) this);
+        connection.addListener((RedisConnectionStateListener) this);
+        // Fails on a RESP2 connection, where invalidations would need a separate Pub/Sub connection.
+        connection.sync().clientTracking(TrackingArgs.Builder.enabled());
+        tracking = true;
+        log.info("Client-side caching enabled; tracking keys on connection {}", connection);
+    }
+
+    @PreDestroy
+    void close() {
+        if (connection != null) {
+            connection.close();
+        }
+    }
+
+    /**
+     * @return the local copy of the key, or null if there is none
+     */
+    public Object getLocal(String key) {
+        return local.getIfPresent(key);
+    }
+
+    /**
+     * Reads a key from Redis, tracked, and keeps the value locally until Redis invalidates it.
+     *
+     * @param reader  turns the stored bytes into the value kept locally
+     * @param idleTtl if positive, the key's expiry is reset on read, as for time-to-idle caches
+     * @return the value, or null if the key is missing
+     */
+    public Object read(String key, Function<byte[], Object> reader, Duration idleTtl) {
+        Object marker = new Object();
+        boolean keep = tracking;
+        if (keep) {
+            reads.put(key, marker);
+        }
+        try {
+            byte[] rawKey = key.getBytes(StandardCharsets.UTF_8);
+            byte[] raw = idleTtl.isPositive()
+                    ? connection.sync().getex(rawKey, GetExArgs.Builder.px(idleTtl))
+                    : connection.sync().get(rawKey);
+            if (raw == null) {
+                return null;
+            }
+            Object value = reader.apply(raw);
+            if (keep) {
+                // Atomic with the invalidation removing the key, so a value it invalidated is never kept.
+                reads.computeIfPresent(key, (k, current) -> {
+                    if (current != marker) {
+                        return current;
+                    }
+                    local.put(k, value);
+                    return null;
+                });
+            }
+            return value;
+        } finally {
+            reads.remove(key, marker);
+        }
+    }
+
+    public void invalidate(String key) {
+        reads.remove(key);
+        local.invalidate(key);
+    }
+
+    public void invalidateAll(String keyPrefix) {
+        reads.keySet().removeIf(key -> key.startsWith(keyPrefix));
+        local.asMap().keySet().removeIf(key -> key.startsWith(keyPrefix));
+    }
+
+    /**
+     * Handles the invalidation messages Redis pushes for tracked keys. Runs on the I/O thread.
+     */
+    @Override
+    public void onPushMessage(PushMessage message) {
+        if (!"invalidate".equals(message.getType())) {
+            return;
+        }
+        List<Object> content = message.getContent(buffer -> StandardCharsets.UTF_8.decode(buffer).toString());
+        if (content.size() < 2 || !(content.get(1) instanceof List<?> keys)) {
+            // No keys: the server flushed its data, or ran out of memory to track keys.
+            reads.clear();
+            local.invalidateAll();
+            flushInvalidations.increment();
+            return;
+        }
+        keys.forEach(key -> invalidate((String) key));
+        keyInvalidations.increment(keys.size());
+    }
+
+    @Override
+    public void onRedisDisconnected(RedisChannelHandler<?, ?> handler) {
+        tracking = false;
+        reads.clear();
+        local.invalidateAll();
+        log.warn("Client-side caching connection lost; local copies dropped until it reconnects");
+    }
+
+    @Override
+    public void onRedisConnected(RedisChannelHandler<?, ?> handler, SocketAddress address) {
+        // Called on the I/O thread, so tracking is turned on again without waiting for the reply.
+        connection.async().clientTracking(TrackingArgs.Builder.enabled()).whenComplete((reply, e) -> {
+            if (e != null) {
+                log.error("Could not re-enable key tracking; client-side caching stays off until the next reconnect", e);
+                return;
+            }
+            local.invalidateAll();
+            tracking = true;
+            log.info("Key tracking re-enabled after reconnecting to Redis");
+        });
+    }
+
+    private static Counter invalidationCounter(MeterRegistry meterRegistry, String scope) {
+        return Counter.builder("cache.client.side.invalidations")
+                .description("Local copies dropped on invalidations pushed by Redis")
+                .tag("scope", scope)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,70 @@
+package com.alisimsek.redisexamples.cache;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Count-min sketch: approximate per-key counts in fixed memory. Estimates never undercount,
+ * and overcount only when keys share counters in every row. {@link #halve(int)} ages all counts.
+ */
+public class FrequencySketch {
+
+    private final AtomicIntegerArray[] rows;
+    private final int width;
+
+    public FrequencySketch(int width, int depth) {
+        this.width = width;
+        this.rows = new AtomicIntegerArray[depth];
+        for (int i = 0; i < depth; i++) {
+            rows[i] = new AtomicIntegerArray(width);
+        }
+    }
+
+    /**
+     * Counts one occurrence of the key.
+     *
+     * @return the key's estimate after counting
+     */
+    public int increment(Object key) {
+        int hash = key.hashCode();
+        int estimate = estimate(hash);
+        // Conservative update: only counters at the current minimum can be exact, so only those grow.
+        for (int i = 0; i < rows.length; i++) {
+            int index = index(hash, i);
+            int current = rows[i].get(index);
+            if (current == estimate) {
+                rows[i].compareAndSet(index, current, current + 1);
+            }
+        }
+        return estimate + 1;
+    }
+
+    public int estimate(Object key) {
+        return estimate(key.hashCode());
+    }
+
+    /**
+     * Halves every counter the given number of times, so a key's estimate reflects mostly
+     * recent occurrences.
+     */
+    public void halve(int times) {
+        int shift = Math.min(times, Integer.SIZE - 1);
+        for (AtomicIntegerArray row : rows) {
+            for (int i = 0; i < width; i++) {
+                row.updateAndGet(i, count -> count >>> shift);
+            }
+        }
+    }
+
+    private int estimate(int hash) {
+        int min = Integer.MAX_VALUE;
+        for (int i = 0; i < rows.length; i++) {
+            min = Math.min(min, rows[i].get(index(hash, i)));
+        }
+        return min;
+    }
+
+    private int index(int hash, int row) {
+        long mixed = (hash + (long) row * 0x9E3779B97F4A7C15L) * 0xBF58476D1CE4E5B9L;
+        return (int) Math.floorMod(mixed ^ (mixed >>> 31), (long) width);
+    }
+}
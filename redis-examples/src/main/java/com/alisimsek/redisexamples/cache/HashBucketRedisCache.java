@@ -0,0 +1,120 @@
+package com.alisimsek.redisexamples.cache;
+
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.concurrent.Callable;
+
+/**
+ * Redis tier of a cache stored in hash buckets by {@link HashBucketStore}; takes the place of
+ * the {@code RedisCache} that {@code RedisCacheManager} builds, with the same configuration
+ * for serialization, TTL and time-to-idle.
+ */
+public class HashBucketRedisCache extends AbstractValueAdaptingCache {
+
+    private static final int LOCK_STRIPES = 64;
+
+    private final String name;
+    private final HashBucketStore store;
+    private final RedisCacheConfiguration configuration;
+    private final Object[] locks = new Object[LOCK_STRIPES];
+
+    public HashBucketRedisCache(String name, HashBucketStore store, RedisCacheConfiguration configuration) {
+        super(configuration.getAllowCacheNullValues());
+        this.name = name;
+        this.store = store;
+        this.configuration = configuration;
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return store;
+    }
+
+    @Override
+    protected Object lookup(Object key) {
+        Duration idleTtl = configuration.isTimeToIdleEnabled() ? ttl(key, null) : Duration.ZERO;
+        byte[] value = store.get(name, key, idleTtl);
+        return value == null ? null : deserialize(value);
+    }
+
+    /**
+     * Loads a missing value once per key on this node; {@link SingleFlightCache} coalesces
+     * loads across nodes.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper cached = get(key);
+        if (cached != null) {
+            return (T) cached.get();
+        }
+        synchronized (locks[Math.floorMod(key.hashCode(), LOCK_STRIPES)]) {
+            cached = get(key);
+            if (cached != null) {
+                return (T) cached.get();
+            }
+            T value;
+            try {
+                value = valueLoader.call();
+            } catch (Exception e) {
+                throw new ValueRetrievalException(key, valueLoader, e);
+            }
+            put(key, value);
+            return value;
+        }
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        Object storeValue = toStoreValue(value);
+        store.put(name, key, serialize(storeValue), ttl(key, value));
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        Object storeValue = toStoreValue(value);
+        byte[] existing = store.putIfAbsent(name, key, serialize(storeValue), ttl(key, value));
+        return existing == null ? null : toValueWrapper(deserialize(existing));
+    }
+
+    @Override
+    public void evict(Object key) {
+        store.evict(name, key);
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        return store.evict(name, key);
+    }
+
+    @Override
+    public void clear() {
+        store.clear(name);
+    }
+
+    private Duration ttl(Object key, Object value) {
+        return configuration.getTtlFunction().getTimeToLive(key, value);
+    }
+
+    private byte[] serialize(Object value) {
+        ByteBuffer buffer = configuration.getValueSerializationPair().write(value);
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    private Object deserialize(byte[] value) {
+        return configuration.getValueSerializationPair().read(ByteBuffer.wrap(value));
+    }
+}
@@ -0,0 +1,277 @@
+package com.alisimsek.redisexamples.cache;
+
+import com.alisimsek.redisexamples.config.HashBucketProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+/**
+ * Stores cache entries as fields of small Redis hashes, one hash per range of
+ * {@code cache.hash-buckets.bucket-size} IDs, e.g. {@code userById::bucket:42} holds the
+ * entries of IDs 4200 to 4299. Small hashes use Redis's compact listpack (ziplist) encoding,
+ * which costs a few bytes per field instead of the dozens a top-level key with a TTL costs.
+ * <p>
+ * Redis cannot expire single fields before 7.4, so each value is prefixed with its expiry time
+ * and the scripts treat expired fields as missing and delete them. A bucket expires with its
+ * longest-lived field. Values longer than the server's {@code hash-max-listpack-value} turn
+ * their bucket into a regular hash table and lose most of the saving.
+ */
+@Component
+@Slf4j
+public class HashBucketStore {
+
+    private static final int EXPIRY_DIGITS = 13;
+    private static final RedisScript<byte[]> GET_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/hash-bucket-get.lua"), byte[].class);
+    private static final RedisScript<byte[]> PUT_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/hash-bucket-put.lua"), byte[].class);
+    private static final byte[] SET = bytes("set");
+    private static final byte[] NX = bytes("nx");
+
+    private final StringRedisTemplate redisTemplate;
+    private final RedisCacheConfiguration cacheConfiguration;
+    private final HashBucketProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final AtomicBoolean oversizedWarned = new AtomicBoolean();
+    // The server's limits for compact hashes, read on startup; Redis's defaults until then.
+    private volatile int maxCompactEntries = 128;
+    private volatile int maxCompactValue = 64;
+
+    public HashBucketStore(StringRedisTemplate redisTemplate, RedisCacheConfiguration cacheConfiguration,
+                           HashBucketProperties properties, MeterRegistry meterRegistry) {
+        this.redisTemplate = redisTemplate;
+        this.cacheConfiguration = cacheConfiguration;
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    public boolean isBucketed(String cacheName) {
+        return properties.isEnabled() && properties.getCaches().contains(cacheName);
+    }
+
+    /**
+     * Checks that buckets fit the server's limits for compact hashes.
+     */
+    @PostConstruct
+    void readServerLimits() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        try {
+            // The ziplist names are kept as aliases of the listpack ones from Redis 7 on.
+            Properties config = redisTemplate.execute((RedisCallback<Properties>) connection ->
+                    connection.serverCommands().getConfig("hash-max-ziplist-*"));
+            if (config != null) {
+                maxCompactEntries = Integer.parseInt(config.getProperty("hash-max-ziplist-entries", "128"));
+                maxCompactValue = Integer.parseInt(config.getProperty("hash-max-ziplist-value", "64"));
+            }
+        } catch (Exception e) {
+            log.warn("Could not read the hash encoding limits of the Redis server, assuming its defaults", e);
+        }
+        if (properties.getBucketSize() > maxCompactEntries) {
+            log.warn("Hash buckets of {} entries exceed the server's hash-max-listpack-entries of {}; "
+                    + "lower cache.hash-buckets.bucket-size or raise the server limit",
+                    properties.getBucketSize(), maxCompactEntries);
+        }
+    }
+
+    /**
+     * Reads one entry; if {@code idleTtl} is positive, the entry's expiry is pushed back on read.
+     *
+     * @return the serialized value, or null if it is missing or expired
+     */
+    public byte[] get(String cacheName, Object key, Duration idleTtl) {
+        byte[] stored = redisTemplate.execute(GET_SCRIPT, RedisSerializer.byteArray(), RedisSerializer.byteArray(),
+                List.of(bucketKey(cacheName, key)), field(key), bytes(String.valueOf(idleTtl.toMillis())));
+        return stored == null ? null : payload(stored);
+    }
+
+    /**
+     * Reads several entries with one HMGET per bucket, all in one pipeline.
+     *
+     * @return the serialized values by key; missing and expired keys are absent
+     */
+    public <K> Map<K, byte[]> getAll(String cacheName, Collection<K> keys) {
+        Map<String, List<K>> byBucket = groupByBucket(cacheName, keys);
+        List<Object> results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            byBucket.forEach((bucketKey, bucketKeys) -> connection.hashCommands().hMGet(bytes(bucketKey),
+                    bucketKeys.stream().map(HashBucketStore::field).toArray(byte[][]::new)));
+            return null;
+        }, RedisSerializer.byteArray());
+        Map<K, byte[]> values = new LinkedHashMap<>();
+        long now = System.currentTimeMillis();
+        int index = 0;
+        for (List<K> bucketKeys : byBucket.values()) {
+            List<?> stored = (List<?>) results.get(index++);
+            for (int i = 0; i < bucketKeys.size(); i++) {
+                if (stored.get(i) instanceof byte[] value && !isExpired(value, now)) {
+                    values.put(bucketKeys.get(i), payload(value));
+                }
+            }
+        }
+        return values;
+    }
+
+    public void put(String cacheName, Object key, byte[] value, Duration ttl) {
+        redisTemplate.execute(PUT_SCRIPT, RedisSerializer.byteArray(), RedisSerializer.byteArray(),
+                List.of(bucketKey(cacheName, key)), SET, field(key), ttlArg(ttl), checkSize(cacheName, value));
+    }
+
+    /**
+     * @return the serialized value already stored, or null if the given one was written
+     */
+    public byte[] putIfAbsent(String cacheName, Object key, byte[] value, Duration ttl) {
+        byte[] stored = redisTemplate.execute(PUT_SCRIPT, RedisSerializer.byteArray(), RedisSerializer.byteArray(),
+                List.of(bucketKey(cacheName, key)), NX, field(key), ttlArg(ttl), checkSize(cacheName, value));
+        return stored == null ? null : payload(stored);
+    }
+
+    /**
+     * Writes several entries with one script call per bucket, all in one pipeline.
+     */
+    public void putAll(String cacheName, Map<?, byte[]> values, Function<Object, Duration> ttl) {
+        Map<String, List<Object>> byBucket = groupByBucket(cacheName, new ArrayList<>(values.keySet()));
+        byte[] script = bytes(PUT_SCRIPT.getScriptAsString());
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            byBucket.forEach((bucketKey, bucketKeys) -> {
+                List<byte[]> keysAndArgs = new ArrayList<>(2 + 3 * bucketKeys.size());
+                keysAndArgs.add(bytes(bucketKey));
+                keysAndArgs.add(SET);
+                for (Object key : bucketKeys) {
+                    keysAndArgs.add(field(key));
+                    keysAndArgs.add(ttlArg(ttl.apply(key)));
+                    keysAndArgs.add(checkSize(cacheName, values.get(key)));
+                }
+                connection.scriptingCommands().eval(script, ReturnType.VALUE, 1, keysAndArgs.toArray(byte[][]::new));
+            });
+            return null;
+        });
+    }
+
+    /**
+     * @return whether the entry was present
+     */
+    public boolean evict(String cacheName, Object key) {
+        Long removed = redisTemplate.execute((RedisCallback<Long>) connection ->
+                connection.hashCommands().hDel(bytes(bucketKey(cacheName, key)), field(key)));
+        return removed != null && removed > 0;
+    }
+
+    public void clear(String cacheName) {
+        ScanOptions options = ScanOptions.scanOptions().match(keyPrefix(cacheName) + "*").count(1000).build();
+        redisTemplate.execute((RedisCallback<Object>) connection -> {
+            List<byte[]> batch = new ArrayList<>();
+            try (Cursor<byte[]> cursor = connection.keyCommands().scan(options)) {
+                while (cursor.hasNext()) {
+                    batch.add(cursor.next());
+                    if (batch.size() == 1000) {
+                        connection.keyCommands().unlink(batch.toArray(byte[][]::new));
+                        batch.clear();
+                    }
+                }
+            }
+            if (!batch.isEmpty()) {
+                connection.keyCommands().unlink(batch.toArray(byte[][]::new));
+            }
+            return null;
+        });
+    }
+
+    /**
+     * @return the entry's remaining time to live in milliseconds, -1 if it does not expire,
+     * or -2 if it is missing, like PTTL
+     */
+    public long pTtl(String cacheName, Object key) {
+        byte[] stored = redisTemplate.execute((RedisCallback<byte[]>) connection ->
+                connection.hashCommands().hGet(bytes(bucketKey(cacheName, key)), field(key)));
+        if (stored == null) {
+            return -2;
+        }
+        long expiresAt = expiresAt(stored);
+        if (expiresAt == 0) {
+            return -1;
+        }
+        long remaining = expiresAt - System.currentTimeMillis();
+        return remaining > 0 ? remaining : -2;
+    }
+
+    String bucketKey(String cacheName, Object key) {
+        if (!(key instanceof Number id)) {
+            throw new IllegalArgumentException("Cache " + cacheName + " is stored in hash buckets and needs numeric keys, got: " + key);
+        }
+        return keyPrefix(cacheName) + "bucket:" + Math.floorDiv(id.longValue(), properties.getBucketSize());
+    }
+
+    private String keyPrefix(String cacheName) {
+        return cacheConfiguration.getKeyPrefixFor(cacheName);
+    }
+
+    private <K> Map<String, List<K>> groupByBucket(String cacheName, Collection<K> keys) {
+        Map<String, List<K>> byBucket = new LinkedHashMap<>();
+        keys.forEach(key -> byBucket.computeIfAbsent(bucketKey(cacheName, key), k -> new ArrayList<>()).add(key));
+        return byBucket;
+    }
+
+    private byte[] checkSize(String cacheName, byte[] value) {
+        if (value.length + EXPIRY_DIGITS > maxCompactValue) {
+            Counter.builder("cache.hash.buckets.oversized")
+                    .description("Values too long for the compact hash encoding")
+                    .tag("cache", cacheName)
+                    .register(meterRegistry)
+                    .increment();
+            if (oversizedWarned.compareAndSet(false, true)) {
+                log.warn("Cache {} stores values of {} bytes, more than the server's hash-max-listpack-value of {}; "
+                        + "their buckets lose the compact encoding", cacheName, value.length + EXPIRY_DIGITS, maxCompactValue);
+            }
+        }
+        return value;
+    }
+
+    private static byte[] field(Object key) {
+        return bytes(String.valueOf(((Number) key).longValue()));
+    }
+
+    private static byte[] ttlArg(Duration ttl) {
+        return bytes(String.valueOf(ttl == null || ttl.isNegative() ? 0 : ttl.toMillis()));
+    }
+
+    private static boolean isExpired(byte[] stored, long now) {
+        long expiresAt = expiresAt(stored);
+        return expiresAt > 0 && expiresAt <= now;
+    }
+
+    private static long expiresAt(byte[] stored) {
+        return Long.parseLong(new String(stored, 0, EXPIRY_DIGITS, StandardCharsets.US_ASCII));
+    }
+
+    private static byte[] payload(byte[] stored) {
+        return Arrays.copyOfRange(stored, EXPIRY_DIGITS, stored.length);
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,232 @@
+package com.alisimsek.redisexamples.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Detects keys that take a large share of reads and serves them from a short-lived
+ * in-process replica, so a handful of very popular keys do not all land on one Redis node.
+ * <p>
+ * A sample of reads is counted in a {@link FrequencySketch} whose counts are halved every
+ * decay interval. A key whose estimate reaches the threshold is promoted; once it falls below
+ * half the threshold it is demoted again. Replicated values expire after the replica TTL and
+ * are dropped on local writes and on invalidations from other nodes.
+ */
+public class HotKeyCache extends AbstractCacheDecorator {
+
+    private final FrequencySketch sketch;
+    private final double sampleRate;
+    private final int threshold;
+    private final int maxHotKeys;
+    private final long decayIntervalNanos;
+    private final AtomicLong nextDecay;
+    private final Set<String> hotKeys = ConcurrentHashMap.newKeySet();
+    private final com.github.benmanes.caffeine.cache.Cache<String, ValueWrapper> replica;
+    private final LongAdder replicaHits = new LongAdder();
+    private final LongAdder replicaMisses = new LongAdder();
+    private final Counter promotions;
+    private final Counter demotions;
+
+    public HotKeyCache(Cache delegate, FrequencySketch sketch, double sampleRate, int threshold, int maxHotKeys,
+                       Duration decayInterval, Duration replicaTtl, MeterRegistry meterRegistry) {
+        super(delegate);
+        this.sketch = sketch;
+        this.sampleRate = sampleRate;
+        this.threshold = threshold;
+        this.maxHotKeys = maxHotKeys;
+        this.decayIntervalNanos = decayInterval.toNanos();
+        this.nextDecay = new AtomicLong(System.nanoTime() + decayIntervalNanos);
+        this.replica = Caffeine.newBuilder()
+                .maximumSize(maxHotKeys)
+                .expireAfterWrite(replicaTtl)
+                .build();
+        this.promotions = counter(meterRegistry, "promoted");
+        this.demotions = counter(meterRegistry, "demoted");
+        Gauge.builder("cache.hotkeys.size", hotKeys, Set::size)
+                .description("Keys currently served from the in-process replica")
+                .tag("cache", getName())
+                .register(meterRegistry);
+        Gauge.builder("cache.hotkeys.replica.hit.ratio", this, cache -> cache.snapshot().hitRatio())
+                .description("Share of reads of hot keys answered by the in-process replica")
+                .tag("cache", getName())
+                .register(meterRegistry);
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        String localKey = localKey(key);
+        if (!record(localKey)) {
+            return delegate.get(key);
+        }
+        ValueWrapper wrapper = replica.getIfPresent(localKey);
+        if (wrapper != null) {
+            replicaHits.increment();
+            return wrapper;
+        }
+        replicaMisses.increment();
+        wrapper = delegate.get(key);
+        if (wrapper != null) {
+            replica.put(localKey, wrapper);
+        }
+        return wrapper;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper wrapper = get(key);
+        Object value = wrapper != null ? wrapper.get() : null;
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException("Cached value is not of required type [" + type.getName() + "]: " + value);
+        }
+        return (T) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        String localKey = localKey(key);
+        if (!record(localKey)) {
+            return delegate.get(key, valueLoader);
+        }
+        ValueWrapper wrapper = replica.getIfPresent(localKey);
+        if (wrapper != null) {
+            replicaHits.increment();
+            return (T) wrapper.get();
+        }
+        replicaMisses.increment();
+        T value = delegate.get(key, valueLoader);
+        replica.put(localKey, new SimpleValueWrapper(value));
+        return value;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        replica.invalidate(localKey(key));
+        delegate.put(key, value);
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        replica.invalidate(localKey(key));
+        return delegate.putIfAbsent(key, value);
+    }
+
+    @Override
+    public void evict(Object key) {
+        replica.invalidate(localKey(key));
+        delegate.evict(key);
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        replica.invalidate(localKey(key));
+        return delegate.evictIfPresent(key);
+    }
+
+    @Override
+    public void clear() {
+        replica.invalidateAll();
+        delegate.clear();
+    }
+
+    @Override
+    public boolean invalidate() {
+        replica.invalidateAll();
+        return delegate.invalidate();
+    }
+
+    @Override
+    public void evictLocal(Object key) {
+        replica.invalidate(localKey(key));
+        super.evictLocal(key);
+    }
+
+    @Override
+    public void clearLocal() {
+        replica.invalidateAll();
+        super.clearLocal();
+    }
+
+    /**
+     * @return the current hot keys, hottest first, with replica statistics since startup
+     */
+    public Snapshot snapshot() {
+        long hits = replicaHits.sum();
+        long misses = replicaMisses.sum();
+        List<HotKey> keys = hotKeys.stream()
+                .map(key -> new HotKey(key, sketch.estimate(key)))
+                .sorted(Comparator.comparingInt(HotKey::estimate).reversed())
+                .toList();
+        return new Snapshot(keys, hits, misses, hits + misses == 0 ? 0 : (double) hits / (hits + misses));
+    }
+
+    /**
+     * Samples the read and promotes the key if it crossed the threshold.
+     *
+     * @return whether the key is hot
+     */
+    private boolean record(String key) {
+        decayIfDue();
+        if (ThreadLocalRandom.current().nextDouble() < sampleRate) {
+            int estimate = sketch.increment(key);
+            if (estimate >= threshold && hotKeys.size() < maxHotKeys && hotKeys.add(key)) {
+                promotions.increment();
+            }
+        }
+        return hotKeys.contains(key);
+    }
+
+    private void decayIfDue() {
+        long due = nextDecay.get();
+        long now = System.nanoTime();
+        if (now - due < 0 || !nextDecay.compareAndSet(due, now + decayIntervalNanos)) {
+            return;
+        }
+        // Decay only happens on reads, so catch up on every interval that passed without one.
+        sketch.halve((int) Math.min(Integer.MAX_VALUE, (now - due) / decayIntervalNanos + 1));
+        hotKeys.forEach(key -> {
+            if (sketch.estimate(key) < threshold / 2) {
+                hotKeys.remove(key);
+                replica.invalidate(key);
+                demotions.increment();
+            }
+        });
+    }
+
+    private static String localKey(Object key) {
+        return String.valueOf(key);
+    }
+
+    private Counter counter(MeterRegistry meterRegistry, String change) {
+        return Counter.builder("cache.hotkeys.changes")
+                .description("Keys promoted to or demoted from the in-process replica")
+                .tag("cache", getName())
+                .tag("change", change)
+                .register(meterRegistry);
+    }
+
+    public record HotKey(String key, int estimate) {
+    }
+
+    /**
+     * @param replicaHits   reads of hot keys answered by the replica
+     * @param replicaMisses reads of hot keys that had to go to the layers below
+     */
+    public record Snapshot(List<HotKey> hotKeys, long replicaHits, long replicaMisses, double hitRatio) {
+    }
+}
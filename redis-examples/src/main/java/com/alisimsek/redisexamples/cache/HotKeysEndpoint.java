@@ -0,0 +1,37 @@
+package com.alisimsek.redisexamples.cache;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * {@code /actuator/hotkeys}: the hot keys of every cache with hot-key detection on this node,
+ * and how often their replica answered reads.
+ */
+@Endpoint(id = "hotkeys")
+@RequiredArgsConstructor
+public class HotKeysEndpoint {
+
+    private final CacheManager cacheManager;
+
+    @ReadOperation
+    public Map<String, HotKeyCache.Snapshot> hotKeys() {
+        Map<String, HotKeyCache.Snapshot> snapshots = new TreeMap<>();
+        for (String name : cacheManager.getCacheNames()) {
+            Cache cache = cacheManager.getCache(name);
+            while (cache instanceof AbstractCacheDecorator decorator) {
+                if (decorator instanceof HotKeyCache hotKeyCache) {
+                    snapshots.put(name, hotKeyCache.snapshot());
+                    break;
+                }
+                cache = decorator.getDelegate();
+            }
+        }
+        return snapshots;
+    }
+}
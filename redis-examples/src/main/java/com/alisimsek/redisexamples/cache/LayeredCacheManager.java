@@ -0,0 +1,46 @@
+package com.alisimsek.redisexamples.cache;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * {@link CacheManager} that builds each cache by taking the cache of the target manager
+ * (the Redis tier) and applying the configured layers on top of it, innermost first.
+ */
+public class LayeredCacheManager implements CacheManager {
+
+    private final CacheManager target;
+    private final List<CacheLayer> layers;
+    private final ConcurrentMap<String, Cache> caches = new ConcurrentHashMap<>();
+
+    public LayeredCacheManager(CacheManager target, List<CacheLayer> layers) {
+        this.target = target;
+        this.layers = List.copyOf(layers);
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        return caches.computeIfAbsent(name, this::buildCache);
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return target.getCacheNames();
+    }
+
+    private Cache buildCache(String name) {
+        Cache cache = target.getCache(name);
+        if (cache == null) {
+            return null;
+        }
+        for (CacheLayer layer : layers) {
+            cache = layer.decorate(cache);
+        }
+        return cache;
+    }
+}
@@ -0,0 +1,68 @@
+package com.alisimsek.redisexamples.cache;
+
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4FastDecompressor;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Wraps another serializer and LZ4-compresses payloads larger than a threshold.
+ * Every value starts with a one-byte header: {@code 0} for a raw payload, {@code 1}
+ * for an LZ4 block preceded by the uncompressed length.
+ */
+public class Lz4CompressingRedisSerializer implements RedisSerializer<Object> {
+
+    private static final byte RAW = 0;
+    private static final byte LZ4 = 1;
+
+    private final RedisSerializer<Object> delegate;
+    private final int threshold;
+    private final LZ4Compressor compressor = LZ4Factory.fastestInstance().fastCompressor();
+    private final LZ4FastDecompressor decompressor = LZ4Factory.fastestInstance().fastDecompressor();
+
+    public Lz4CompressingRedisSerializer(RedisSerializer<Object> delegate, int threshold) {
+        this.delegate = delegate;
+        this.threshold = threshold;
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        byte[] payload = delegate.serialize(value);
+        if (payload == null || payload.length == 0) {
+            return payload;
+        }
+        if (payload.length < threshold) {
+            byte[] result = new byte[payload.length + 1];
+            result[0] = RAW;
+            System.arraycopy(payload, 0, result, 1, payload.length);
+            return result;
+        }
+        int maxLength = compressor.maxCompressedLength(payload.length);
+        ByteBuffer result = ByteBuffer.allocate(1 + Integer.BYTES + maxLength);
+        result.put(LZ4).putInt(payload.length);
+        int compressedLength = compressor.compress(payload, 0, payload.length,
+                result.array(), result.position(), maxLength);
+        return Arrays.copyOf(result.array(), result.position() + compressedLength);
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return delegate.deserialize(bytes);
+        }
+        return switch (bytes[0]) {
+            case RAW -> delegate.deserialize(Arrays.copyOfRange(bytes, 1, bytes.length));
+            case LZ4 -> {
+                int length = ByteBuffer.wrap(bytes, 1, Integer.BYTES).getInt();
+                byte[] payload = new byte[length];
+                decompressor.decompress(bytes, 1 + Integer.BYTES, payload, 0, length);
+                yield delegate.deserialize(payload);
+            }
+            default -> throw new SerializationException("Unknown cache value header: " + bytes[0]);
+        };
+    }
+}
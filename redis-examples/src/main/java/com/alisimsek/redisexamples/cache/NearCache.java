@@ -0,0 +1,215 @@
+package com.alisimsek.redisexamples.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Two-tier cache: a bounded in-process L1 (Caffeine) in front of the shared Redis L2.
+ * Every local write or eviction is broadcast so other nodes drop their L1 copy.
+ * <p>
+ * A value read from L2 is only kept in L1 if no eviction of its key arrived during the read,
+ * since the value may predate it.
+ */
+public class NearCache extends AbstractCacheDecorator {
+
+    private final com.github.benmanes.caffeine.cache.Cache<String, ValueWrapper> local;
+    // Keys being read from L2, with a marker per read; an eviction removes the key, so the read is not kept.
+    private final ConcurrentMap<String, Object> reads = new ConcurrentHashMap<>();
+    private final CacheInvalidationPublisher invalidationPublisher;
+    private final Counter l1Hits;
+    private final Counter l1Misses;
+    private final Counter l2Hits;
+    private final Counter l2Misses;
+
+    public NearCache(Cache delegate, long maximumSize, Duration ttl,
+                     CacheInvalidationPublisher invalidationPublisher, MeterRegistry meterRegistry) {
+        super(delegate);
+        this.local = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .build();
+        this.invalidationPublisher = invalidationPublisher;
+        this.l1Hits = counter(meterRegistry, "l1", "hit");
+        this.l1Misses = counter(meterRegistry, "l1", "miss");
+        this.l2Hits = counter(meterRegistry, "l2", "hit");
+        this.l2Misses = counter(meterRegistry, "l2", "miss");
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        String localKey = localKey(key);
+        ValueWrapper wrapper = local.getIfPresent(localKey);
+        if (wrapper != null) {
+            l1Hits.increment();
+            return wrapper;
+        }
+        l1Misses.increment();
+        Object marker = new Object();
+        reads.put(localKey, marker);
+        try {
+            wrapper = delegate.get(key);
+            if (wrapper == null) {
+                l2Misses.increment();
+                return null;
+            }
+            l2Hits.increment();
+            fill(localKey, marker, wrapper);
+            return wrapper;
+        } finally {
+            reads.remove(localKey, marker);
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper wrapper = get(key);
+        Object value = wrapper != null ? wrapper.get() : null;
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException("Cached value is not of required type [" + type.getName() + "]: " + value);
+        }
+        return (T) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        String localKey = localKey(key);
+        ValueWrapper wrapper = local.getIfPresent(localKey);
+        if (wrapper != null) {
+            l1Hits.increment();
+            return (T) wrapper.get();
+        }
+        l1Misses.increment();
+        Object marker = new Object();
+        reads.put(localKey, marker);
+        try {
+            AtomicBoolean loaded = new AtomicBoolean();
+            T value = delegate.get(key, () -> {
+                loaded.set(true);
+                return valueLoader.call();
+            });
+            (loaded.get() ? l2Misses : l2Hits).increment();
+            fill(localKey, marker, new SimpleValueWrapper(value));
+            return value;
+        } finally {
+            reads.remove(localKey, marker);
+        }
+    }
+
+    /**
+     * Keeps a value read from L2 in L1, unless the key was evicted or written since the read started.
+     * Atomic with the eviction removing the key, so a value it invalidated is never kept.
+     */
+    private void fill(String localKey, Object marker, ValueWrapper wrapper) {
+        reads.computeIfPresent(localKey, (k, current) -> {
+            if (current != marker) {
+                return current;
+            }
+            local.put(k, wrapper);
+            return null;
+        });
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        delegate.put(key, value);
+        reads.remove(localKey(key));
+        local.put(localKey(key), new SimpleValueWrapper(value));
+        invalidationPublisher.publishEvict(getName(), localKey(key));
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        ValueWrapper existing = delegate.putIfAbsent(key, value);
+        invalidateLocal(localKey(key));
+        if (existing == null) {
+            invalidationPublisher.publishEvict(getName(), localKey(key));
+        }
+        return existing;
+    }
+
+    @Override
+    public void evict(Object key) {
+        delegate.evict(key);
+        invalidateLocal(localKey(key));
+        invalidationPublisher.publishEvict(getName(), localKey(key));
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        boolean evicted = delegate.evictIfPresent(key);
+        invalidateLocal(localKey(key));
+        invalidationPublisher.publishEvict(getName(), localKey(key));
+        return evicted;
+    }
+
+    @Override
+    public void clear() {
+        delegate.clear();
+        invalidateAllLocal();
+        invalidationPublisher.publishClear(getName());
+    }
+
+    @Override
+    public boolean invalidate() {
+        boolean invalidated = delegate.invalidate();
+        invalidateAllLocal();
+        invalidationPublisher.publishClear(getName());
+        return invalidated;
+    }
+
+    @Override
+    public void evictLocal(Object key) {
+        invalidateLocal(localKey(key));
+        super.evictLocal(key);
+    }
+
+    @Override
+    public void putLocal(Object key, Object value) {
+        reads.remove(localKey(key));
+        local.put(localKey(key), new SimpleValueWrapper(value));
+        super.putLocal(key, value);
+    }
+
+    @Override
+    public void clearLocal() {
+        invalidateAllLocal();
+        super.clearLocal();
+    }
+
+    private void invalidateLocal(String localKey) {
+        reads.remove(localKey);
+        local.invalidate(localKey);
+    }
+
+    private void invalidateAllLocal() {
+        reads.clear();
+        local.invalidateAll();
+    }
+
+    /**
+     * L1 entries are keyed by the string form of the cache key so that keys arriving
+     * over the invalidation channel match the ones stored locally.
+     */
+    private static String localKey(Object key) {
+        return String.valueOf(key);
+    }
+
+    private Counter counter(MeterRegistry meterRegistry, String tier, String result) {
+        return Counter.builder("cache.near.gets")
+                .tag("cache", getName())
+                .tag("tier", tier)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,247 @@
+package com.alisimsek.redisexamples.cache;
+
+import com.alisimsek.redisexamples.config.RedisResilienceProperties;
+import com.alisimsek.redisexamples.resilience.RedisCircuitBreaker;
+import com.alisimsek.redisexamples.sharding.RedisShards;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.support.NullValue;
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.ReactiveValueOperations;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Non-blocking cache-aside over the Redis caches managed by {@code RedisCacheManager}, for
+ * reactive callers. Entries are read and written with {@link ReactiveRedisTemplate} using the
+ * key prefix, serialization, TTL and time-to-idle of each cache's {@link RedisCacheConfiguration},
+ * so they are shared with {@code @Cacheable} and {@link RedisCacheBatchOperations}. Keys of
+ * sharded caches go to the node that owns them. Caches stored in hash buckets have no reactive
+ * client and are read and written through {@link RedisCacheBatchOperations} on the bounded elastic scheduler.
+ * <p>
+ * Only the Redis tier is used; the in-process layers of the {@code cacheManager} are bypassed.
+ * Calls go through {@link RedisCircuitBreaker}: reads that fail come back empty and writes are skipped.
+ * <p>
+ * Concurrent misses for the same key on this node share one load, and loaded values are written
+ * with SET NX, so a newer value written meanwhile is kept. Unlike {@link SingleFlightCache},
+ * misses are not coalesced across nodes and no stale copy is served while a load runs.
+ */
+@Component
+@RequiredArgsConstructor
+public class ReactiveCacheAside {
+
+    private final RedisShards redisShards;
+    private final RedisCacheManager redisCacheManager;
+    private final RedisCacheBatchOperations batchOperations;
+    private final RedisCircuitBreaker circuitBreaker;
+    private final RedisResilienceProperties resilienceProperties;
+    private final MeterRegistry meterRegistry;
+    private final Map<LettuceConnectionFactory, ReactiveRedisTemplate<byte[], byte[]>> templates =
+            new ConcurrentHashMap<>();
+    // Loads in progress by cache key; callers that miss meanwhile subscribe to the same load.
+    private final Map<String, Mono<?>> loads = new ConcurrentHashMap<>();
+
+    /**
+     * Reads a value, or on a miss subscribes to the loader and caches what it emits, unless a
+     * value was cached meanwhile. Callers missing the same key while a load runs share it.
+     * An empty loader leaves the cache untouched.
+     */
+    public <V> Mono<V> get(String cacheName, Object key, Class<V> type, Supplier<Mono<V>> loader) {
+        return get(cacheName, key, type).switchIfEmpty(Mono.defer(() -> load(cacheName, key, loader)));
+    }
+
+    @SuppressWarnings("unchecked")
+    private <V> Mono<V> load(String cacheName, Object key, Supplier<Mono<V>> loader) {
+        String loadKey = cacheName + "::" + key;
+        Mono<?> load = loads.computeIfAbsent(loadKey, k -> loader.get()
+                .flatMap(value -> putIfAbsent(cacheName, key, value).thenReturn(value))
+                .doFinally(signal -> loads.remove(k))
+                .cache());
+        return (Mono<V>) load;
+    }
+
+    /**
+     * Reads a value, resetting its expiry if the cache has time-to-idle enabled.
+     *
+     * @return the cached value; empty if it is not cached, cached as null, or Redis did not answer
+     */
+    public <V> Mono<V> get(String cacheName, Object key, Class<V> type) {
+        Mono<V> value;
+        if (batchOperations.isBucketed(cacheName)) {
+            value = blocking(() -> batchOperations.getAll(cacheName, List.of(key), type).get(key));
+        } else {
+            RedisCacheConfiguration configuration = configuration(cacheName);
+            String cacheKey = cacheKey(configuration, cacheName, key);
+            ReactiveValueOperations<byte[], byte[]> operations = template(cacheName, cacheKey).opsForValue();
+            byte[] rawKey = rawKey(configuration, cacheKey);
+            Duration ttl = configuration.getTtlFunction().getTimeToLive(key, null);
+            Mono<byte[]> read = configuration.isTimeToIdleEnabled() && isExpiring(ttl)
+                    ? operations.getAndExpire(rawKey, ttl)
+                    : operations.get(rawKey);
+            value = circuitBreaker.execute("cache_get", resilienceProperties.getCacheTimeout(), read, Mono.empty())
+                    .mapNotNull(rawValue -> value(configuration, rawValue, type));
+        }
+        return value
+                .doOnNext(hit -> getCounter(cacheName, "hit").increment())
+                .switchIfEmpty(Mono.fromRunnable(() -> getCounter(cacheName, "miss").increment()));
+    }
+
+    /**
+     * Reads all given keys with a single MGET per node, the nodes in parallel.
+     *
+     * @return the cached values by key; keys that are not cached are absent from the map
+     */
+    public <K, V> Mono<Map<K, V>> getAll(String cacheName, Collection<K> keys, Class<V> type) {
+        if (keys.isEmpty()) {
+            return Mono.fromSupplier(LinkedHashMap::new);
+        }
+        if (batchOperations.isBucketed(cacheName)) {
+            return blocking(() -> batchOperations.getAll(cacheName, keys, type));
+        }
+        RedisCacheConfiguration configuration = configuration(cacheName);
+        Map<ReactiveRedisTemplate<byte[], byte[]>, List<K>> byNode = new LinkedHashMap<>();
+        for (K key : keys) {
+            byNode.computeIfAbsent(template(cacheName, cacheKey(configuration, cacheName, key)),
+                    template -> new ArrayList<>()).add(key);
+        }
+        Mono<Map<K, V>> read = Flux.fromIterable(byNode.entrySet())
+                .flatMap(node -> node.getKey().opsForValue()
+                        .multiGet(node.getValue().stream()
+                                .map(key -> rawKey(configuration, cacheKey(configuration, cacheName, key)))
+                                .toList())
+                        .flatMapIterable(rawValues -> {
+                            List<Map.Entry<K, V>> values = new ArrayList<>();
+                            for (int i = 0; i < rawValues.size(); i++) {
+                                V value = rawValues.get(i) == null ? null : value(configuration, rawValues.get(i), type);
+                                if (value != null) {
+                                    values.add(new AbstractMap.SimpleImmutableEntry<>(node.getValue().get(i), value));
+                                }
+                            }
+                            return values;
+                        }))
+                .collectMap(Map.Entry::getKey, Map.Entry::getValue, LinkedHashMap::new);
+        return circuitBreaker.execute("cache_get", resilienceProperties.getCacheTimeout(), read,
+                Mono.fromSupplier(LinkedHashMap::new));
+    }
+
+    public Mono<Void> put(String cacheName, Object key, Object value) {
+        return putAll(cacheName, Map.of(key, value));
+    }
+
+    /**
+     * Writes all entries, each with the TTL the cache configuration assigns to it. The writes are
+     * sent without waiting for each other's replies, so they are pipelined on the shared connection.
+     */
+    public Mono<Void> putAll(String cacheName, Map<?, ?> entries) {
+        if (entries.isEmpty()) {
+            return Mono.empty();
+        }
+        if (batchOperations.isBucketed(cacheName)) {
+            return blocking(() -> {
+                batchOperations.putAll(cacheName, entries);
+                return null;
+            }).then();
+        }
+        RedisCacheConfiguration configuration = configuration(cacheName);
+        Mono<Void> write = Flux.fromIterable(entries.entrySet())
+                .flatMap(entry -> {
+                    String cacheKey = cacheKey(configuration, cacheName, entry.getKey());
+                    ReactiveValueOperations<byte[], byte[]> operations = template(cacheName, cacheKey).opsForValue();
+                    byte[] rawKey = rawKey(configuration, cacheKey);
+                    byte[] rawValue = toBytes(configuration.getValueSerializationPair()
+                            .write(entry.getValue() == null ? NullValue.INSTANCE : entry.getValue()));
+                    Duration ttl = configuration.getTtlFunction().getTimeToLive(entry.getKey(), entry.getValue());
+                    return isExpiring(ttl) ? operations.set(rawKey, rawValue, ttl) : operations.set(rawKey, rawValue);
+                })
+                .then();
+        return circuitBreaker.execute("cache_put", resilienceProperties.getCacheTimeout(), write, Mono.empty());
+    }
+
+    /**
+     * Writes a value unless the key is already cached, e.g. by a writer that saw a newer value.
+     */
+    public Mono<Void> putIfAbsent(String cacheName, Object key, Object value) {
+        if (batchOperations.isBucketed(cacheName)) {
+            return blocking(() -> batchOperations.putAllIfAbsent(cacheName, Map.of(key, value))).then();
+        }
+        RedisCacheConfiguration configuration = configuration(cacheName);
+        String cacheKey = cacheKey(configuration, cacheName, key);
+        ReactiveValueOperations<byte[], byte[]> operations = template(cacheName, cacheKey).opsForValue();
+        byte[] rawKey = rawKey(configuration, cacheKey);
+        byte[] rawValue = toBytes(configuration.getValueSerializationPair().write(value == null ? NullValue.INSTANCE : value));
+        Duration ttl = configuration.getTtlFunction().getTimeToLive(key, value);
+        Mono<Boolean> write = isExpiring(ttl)
+                ? operations.setIfAbsent(rawKey, rawValue, ttl)
+                : operations.setIfAbsent(rawKey, rawValue);
+        return circuitBreaker.execute("cache_put", resilienceProperties.getCacheTimeout(), write, Mono.empty()).then();
+    }
+
+    /**
+     * The configuration the blocking cache of the same name was created with.
+     */
+    private RedisCacheConfiguration configuration(String cacheName) {
+        RedisCache cache = (RedisCache) Objects.requireNonNull(redisCacheManager.getCache(cacheName));
+        return cache.getCacheConfiguration();
+    }
+
+    private ReactiveRedisTemplate<byte[], byte[]> template(String cacheName, String cacheKey) {
+        return templates.computeIfAbsent(redisShards.connectionFactoryForCacheKey(cacheName, cacheKey),
+                connectionFactory -> new ReactiveRedisTemplate<>(connectionFactory, RedisSerializationContext.byteArray()));
+    }
+
+    private static <T> Mono<T> blocking(Callable<T> call) {
+        return Mono.fromCallable(call).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private static <V> V value(RedisCacheConfiguration configuration, byte[] rawValue, Class<V> type) {
+        Object value = configuration.getValueSerializationPair().read(ByteBuffer.wrap(rawValue));
+        return !(value instanceof NullValue) && type.isInstance(value) ? type.cast(value) : null;
+    }
+
+    private static String cacheKey(RedisCacheConfiguration configuration, String cacheName, Object key) {
+        return configuration.getKeyPrefixFor(cacheName) + configuration.getConversionService().convert(key, String.class);
+    }
+
+    private static byte[] rawKey(RedisCacheConfiguration configuration, String cacheKey) {
+        return toBytes(configuration.getKeySerializationPair().write(cacheKey));
+    }
+
+    private static boolean isExpiring(Duration ttl) {
+        return ttl != null && !ttl.isZero() && !ttl.isNegative();
+    }
+
+    private static byte[] toBytes(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    private Counter getCounter(String cacheName, String result) {
+        return Counter.builder("cache.reactive.gets")
+                .description("Reads of the Redis caches by reactive callers")
+                .tag("cache", cacheName)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
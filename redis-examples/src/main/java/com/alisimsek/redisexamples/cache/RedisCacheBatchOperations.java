@@ -0,0 +1,295 @@
+package com.alisimsek.redisexamples.cache;
+
+import com.alisimsek.redisexamples.config.RedisResilienceProperties;
+import com.alisimsek.redisexamples.resilience.RedisCircuitBreaker;
+import com.alisimsek.redisexamples.sharding.RedisShards;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.support.NullValue;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Multi-key reads and writes against the Redis caches managed by {@code RedisCacheManager}.
+ * Keys and values are encoded with the same {@link RedisCacheConfiguration} the caches use,
+ * so entries written here are readable through {@code @Cacheable} and vice versa.
+ * Caches stored in hash buckets are read and written through {@link HashBucketStore}, and the
+ * keys of sharded caches are grouped by the node that owns them, with one round trip per node.
+ * Calls go through {@link RedisCircuitBreaker}: reads that fail come back empty and writes are skipped;
+ * a failed clear throws, so the caller can remember it.
+ */
+@Component
+@RequiredArgsConstructor
+public class RedisCacheBatchOperations {
+
+    private final RedisShards redisShards;
+    private final RedisCacheConfiguration cacheConfiguration;
+    private final RedisCircuitBreaker circuitBreaker;
+    private final RedisResilienceProperties resilienceProperties;
+    private final HashBucketStore hashBucketStore;
+
+    private static final int CLEAR_BATCH_SIZE = 1000;
+
+    /**
+     * Reads all given keys with a single MGET per node.
+     *
+     * @return the cached values by key; keys that are not cached are absent from the map
+     */
+    public <K, V> Map<K, V> getAll(String cacheName, Collection<K> keys, Class<V> type) {
+        Map<K, V> result = new LinkedHashMap<>();
+        if (keys.isEmpty()) {
+            return result;
+        }
+        List<K> keyList = new ArrayList<>(keys);
+        List<byte[]> rawValues = circuitBreaker.execute("cache_get", resilienceProperties.getCacheTimeout(),
+                () -> readAll(cacheName, keyList), () -> null);
+        if (rawValues == null) {
+            return result;
+        }
+        for (int i = 0; i < keyList.size(); i++) {
+            byte[] rawValue = rawValues.get(i);
+            if (rawValue == null) {
+                continue;
+            }
+            Object value = cacheConfiguration.getValueSerializationPair().read(ByteBuffer.wrap(rawValue));
+            if (!(value instanceof NullValue) && type.isInstance(value)) {
+                result.put(keyList.get(i), type.cast(value));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Writes all entries in one pipeline, each with the TTL the cache configuration assigns to it.
+     */
+    public void putAll(String cacheName, Map<?, ?> entries) {
+        putAll(cacheName, entries, null);
+    }
+
+    /**
+     * Writes all entries in one pipeline with a fixed TTL, or the configured one if {@code ttl} is null.
+     */
+    public void putAll(String cacheName, Map<?, ?> entries, Duration ttl) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        if (isBucketed(cacheName)) {
+            Map<Object, byte[]> rawValues = new LinkedHashMap<>();
+            entries.forEach((key, value) -> rawValues.put(key, rawValue(value)));
+            circuitBreaker.execute("cache_put", resilienceProperties.getCacheTimeout(), () -> {
+                hashBucketStore.putAll(cacheName, rawValues,
+                        key -> ttl != null ? ttl : cacheConfiguration.getTtlFunction().getTimeToLive(key, entries.get(key)));
+                return null;
+            }, () -> null);
+            return;
+        }
+        List<?> keys = new ArrayList<>(entries.keySet());
+        circuitBreaker.execute("cache_put", resilienceProperties.getCacheTimeout(), () -> {
+            groupByNode(cacheName, keys).forEach((template, indexes) ->
+                    template.executePipelined((RedisCallback<Object>) connection -> {
+                        for (int index : indexes) {
+                            Object key = keys.get(index);
+                            Object value = entries.get(key);
+                            Duration entryTtl = ttl != null ? ttl : cacheConfiguration.getTtlFunction().getTimeToLive(key, value);
+                            Expiration expiration = entryTtl.isZero() || entryTtl.isNegative()
+                                    ? Expiration.persistent() : Expiration.from(entryTtl);
+                            connection.stringCommands().set(rawKey(cacheName, key), rawValue(value),
+                                    expiration, RedisStringCommands.SetOption.upsert());
+                        }
+                        return null;
+                    }));
+            return null;
+        }, () -> null);
+    }
+
+    /**
+     * Writes each entry that is not cached yet, with SET NX in one pipeline per node and the TTL
+     * the cache configuration assigns to it. Entries cached meanwhile, e.g. by a read after an
+     * update, are kept instead of being overwritten with an older copy.
+     *
+     * @return the keys that were written; empty if Redis is unavailable
+     */
+    public <K> Set<K> putAllIfAbsent(String cacheName, Map<K, ?> entries) {
+        if (entries.isEmpty()) {
+            return Set.of();
+        }
+        List<K> keys = new ArrayList<>(entries.keySet());
+        return circuitBreaker.execute("cache_put", resilienceProperties.getCacheTimeout(), () -> {
+            Set<K> result = new LinkedHashSet<>();
+            if (isBucketed(cacheName)) {
+                for (K key : keys) {
+                    Object value = entries.get(key);
+                    if (hashBucketStore.putIfAbsent(cacheName, key, rawValue(value),
+                            cacheConfiguration.getTtlFunction().getTimeToLive(key, value)) == null) {
+                        result.add(key);
+                    }
+                }
+                return result;
+            }
+            groupByNode(cacheName, keys).forEach((template, indexes) -> {
+                List<Object> replies = template.executePipelined((RedisCallback<Object>) connection -> {
+                    for (int index : indexes) {
+                        K key = keys.get(index);
+                        Object value = entries.get(key);
+                        Duration entryTtl = cacheConfiguration.getTtlFunction().getTimeToLive(key, value);
+                        Expiration expiration = entryTtl.isZero() || entryTtl.isNegative()
+                                ? Expiration.persistent() : Expiration.from(entryTtl);
+                        connection.stringCommands().set(rawKey(cacheName, key), rawValue(value),
+                                expiration, RedisStringCommands.SetOption.ifAbsent());
+                    }
+                    return null;
+                });
+                for (int i = 0; i < indexes.size(); i++) {
+                    if (Boolean.TRUE.equals(replies.get(i))) {
+                        result.add(keys.get(indexes.get(i)));
+                    }
+                }
+            });
+            return result;
+        }, Set::of);
+    }
+
+    /**
+     * Deletes the given entries with one UNLINK per node.
+     */
+    public void removeAll(String cacheName, Collection<?> keys) {
+        if (keys.isEmpty()) {
+            return;
+        }
+        List<?> keyList = new ArrayList<>(keys);
+        circuitBreaker.execute("cache_evict", resilienceProperties.getCacheTimeout(), () -> {
+            if (isBucketed(cacheName)) {
+                keyList.forEach(key -> hashBucketStore.evict(cacheName, key));
+                return null;
+            }
+            groupByNode(cacheName, keyList).forEach((template, indexes) -> {
+                byte[][] rawKeys = indexes.stream().map(index -> rawKey(cacheName, keyList.get(index))).toArray(byte[][]::new);
+                template.execute((RedisCallback<Long>) connection -> connection.keyCommands().unlink(rawKeys));
+            });
+            return null;
+        }, () -> null);
+    }
+
+    /**
+     * Deletes every entry of the cache, scanning each node that holds entries of it.
+     *
+     * @throws RedisConnectionFailureException if Redis is unavailable, so callers can retry the clear
+     */
+    public void clear(String cacheName) {
+        circuitBreaker.execute("cache_evict", resilienceProperties.getCacheTimeout(), () -> {
+            if (isBucketed(cacheName)) {
+                hashBucketStore.clear(cacheName);
+                return null;
+            }
+            ScanOptions options = ScanOptions.scanOptions()
+                    .match(cacheConfiguration.getKeyPrefixFor(cacheName) + "*").count(CLEAR_BATCH_SIZE).build();
+            for (StringRedisTemplate template : redisShards.forCache(cacheName)) {
+                template.execute((RedisCallback<Object>) connection -> {
+                    List<byte[]> batch = new ArrayList<>();
+                    try (Cursor<byte[]> cursor = connection.keyCommands().scan(options)) {
+                        while (cursor.hasNext()) {
+                            batch.add(cursor.next());
+                            if (batch.size() == CLEAR_BATCH_SIZE) {
+                                connection.keyCommands().unlink(batch.toArray(byte[][]::new));
+                                batch.clear();
+                            }
+                        }
+                    }
+                    if (!batch.isEmpty()) {
+                        connection.keyCommands().unlink(batch.toArray(byte[][]::new));
+                    }
+                    return null;
+                });
+            }
+            return null;
+        }, () -> {
+            throw new RedisConnectionFailureException("Redis is unavailable, cache " + cacheName + " was not cleared");
+        });
+    }
+
+    /**
+     * @return the remaining time to live of an entry in milliseconds, -1 if it does not expire,
+     * or -2 if it is missing, like PTTL; also -2 if Redis is unavailable
+     */
+    public long pTtl(String cacheName, Object key) {
+        return circuitBreaker.execute("cache_get", resilienceProperties.getCacheTimeout(), () -> {
+            if (isBucketed(cacheName)) {
+                return hashBucketStore.pTtl(cacheName, key);
+            }
+            byte[] rawKey = rawKey(cacheName, key);
+            Long pttl = redisShards.forCacheKey(cacheName, cacheKey(cacheName, key))
+                    .execute((RedisCallback<Long>) connection -> connection.keyCommands().pTtl(rawKey));
+            return pttl == null ? -2L : pttl;
+        }, () -> -2L);
+    }
+
+    private List<byte[]> readAll(String cacheName, List<?> keys) {
+        if (isBucketed(cacheName)) {
+            Map<?, byte[]> values = hashBucketStore.getAll(cacheName, keys);
+            return keys.stream().map(values::get).toList();
+        }
+        byte[][] values = new byte[keys.size()][];
+        groupByNode(cacheName, keys).forEach((template, indexes) -> {
+            byte[][] rawKeys = indexes.stream().map(index -> rawKey(cacheName, keys.get(index))).toArray(byte[][]::new);
+            List<byte[]> nodeValues = template.execute((RedisCallback<List<byte[]>>) connection ->
+                    connection.stringCommands().mGet(rawKeys));
+            for (int i = 0; i < indexes.size(); i++) {
+                values[indexes.get(i)] = nodeValues.get(i);
+            }
+        });
+        return Arrays.asList(values);
+    }
+
+    /**
+     * @return the positions of the keys in the list, by the node that owns them
+     */
+    private Map<StringRedisTemplate, List<Integer>> groupByNode(String cacheName, List<?> keys) {
+        Map<StringRedisTemplate, List<Integer>> byNode = new LinkedHashMap<>();
+        for (int i = 0; i < keys.size(); i++) {
+            byNode.computeIfAbsent(redisShards.forCacheKey(cacheName, cacheKey(cacheName, keys.get(i))),
+                    template -> new ArrayList<>()).add(i);
+        }
+        return byNode;
+    }
+
+    boolean isBucketed(String cacheName) {
+        // Sharded caches keep one key per entry, see CacheConfig.
+        return hashBucketStore.isBucketed(cacheName) && !redisShards.isSharded(cacheName);
+    }
+
+    private String cacheKey(String cacheName, Object key) {
+        return cacheConfiguration.getKeyPrefixFor(cacheName)
+                + cacheConfiguration.getConversionService().convert(key, String.class);
+    }
+
+    byte[] rawKey(String cacheName, Object key) {
+        return toBytes(cacheConfiguration.getKeySerializationPair().write(cacheKey(cacheName, key)));
+    }
+
+    byte[] rawValue(Object value) {
+        return toBytes(cacheConfiguration.getValueSerializationPair().write(value == null ? NullValue.INSTANCE : value));
+    }
+
+    private static byte[] toBytes(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+}
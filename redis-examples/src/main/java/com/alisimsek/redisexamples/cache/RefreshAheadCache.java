@@ -0,0 +1,227 @@
+package com.alisimsek.redisexamples.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Probabilistic early refresh (XFetch) for {@code @Cacheable(sync = true)} methods.
+ * On every read the entry is reloaded in the background with a probability that grows
+ * as its expiry approaches, scaled by how long the value took to load. Callers keep
+ * getting the current value while the reload runs. A reload that overlaps a put or evict of
+ * its key is discarded, so it cannot bring back the value the write replaced.
+ */
+@Slf4j
+public class RefreshAheadCache extends AbstractCacheDecorator {
+
+    private final RedisCacheBatchOperations batchOperations;
+    private final Duration ttl;
+    private final double beta;
+    private final long defaultLoadTimeMillis;
+    private final Executor executor;
+    private final Semaphore permits;
+    private final com.github.benmanes.caffeine.cache.Cache<String, EntryTiming> timings;
+    // Keys being reloaded, each with a flag set once the entry was written or evicted meanwhile.
+    private final ConcurrentHashMap<String, AtomicBoolean> refreshing = new ConcurrentHashMap<>();
+    private final Counter refreshed;
+    private final Counter failed;
+    private final Counter skipped;
+    private final Counter discarded;
+    private final Timer latencySaved;
+
+    public RefreshAheadCache(Cache delegate, RedisCacheBatchOperations batchOperations, Duration ttl,
+                             double beta, Duration defaultLoadTime, long maxTrackedKeys, Executor executor,
+                             Semaphore permits, MeterRegistry meterRegistry) {
+        super(delegate);
+        this.batchOperations = batchOperations;
+        this.ttl = ttl;
+        this.beta = beta;
+        this.defaultLoadTimeMillis = defaultLoadTime.toMillis();
+        this.executor = executor;
+        this.permits = permits;
+        this.timings = Caffeine.newBuilder().maximumSize(maxTrackedKeys).build();
+        this.refreshed = refreshCounter(meterRegistry, "refreshed");
+        this.failed = refreshCounter(meterRegistry, "failed");
+        this.skipped = refreshCounter(meterRegistry, "skipped");
+        this.discarded = refreshCounter(meterRegistry, "discarded");
+        this.latencySaved = Timer.builder("cache.refresh.ahead.latency.saved")
+                .description("Load time absorbed by background refreshes instead of callers")
+                .tag("cache", getName())
+                .register(meterRegistry);
+    }
+
+    @Override
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        String timingKey = String.valueOf(key);
+        EntryTiming timing = timings.getIfPresent(timingKey);
+        boolean[] loaded = new boolean[1];
+        T value = delegate.get(key, () -> {
+            loaded[0] = true;
+            long start = System.currentTimeMillis();
+            T result = valueLoader.call();
+            timings.put(timingKey, EntryTiming.loadedAt(start, System.currentTimeMillis(), ttl));
+            return result;
+        });
+        if (loaded[0]) {
+            return value;
+        }
+        if (timing == null) {
+            timing = lookupTiming(key, timingKey);
+        }
+        if (timing != null && shouldRefresh(timing)) {
+            refreshAsync(key, timingKey, valueLoader);
+        }
+        return value;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        superseded(key);
+        super.put(key, value);
+    }
+
+    @Override
+    public void evict(Object key) {
+        superseded(key);
+        super.evict(key);
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        superseded(key);
+        return super.evictIfPresent(key);
+    }
+
+    @Override
+    public void clear() {
+        supersededAll();
+        super.clear();
+    }
+
+    @Override
+    public boolean invalidate() {
+        supersededAll();
+        return super.invalidate();
+    }
+
+    @Override
+    public void evictLocal(Object key) {
+        // Another node rewrote the entry, so its expiry is no longer the one recorded here.
+        superseded(key);
+        super.evictLocal(key);
+    }
+
+    @Override
+    public void clearLocal() {
+        supersededAll();
+        super.clearLocal();
+    }
+
+    /**
+     * Forgets the timing of an entry that was written or evicted, and discards its running reload.
+     */
+    private void superseded(Object key) {
+        String timingKey = String.valueOf(key);
+        timings.invalidate(timingKey);
+        AtomicBoolean reload = refreshing.get(timingKey);
+        if (reload != null) {
+            reload.set(true);
+        }
+    }
+
+    private void supersededAll() {
+        timings.invalidateAll();
+        refreshing.values().forEach(reload -> reload.set(true));
+    }
+
+    /**
+     * XFetch: refresh when {@code now - loadTime * beta * ln(rand)} reaches the expiry.
+     */
+    private boolean shouldRefresh(EntryTiming timing) {
+        double random = ThreadLocalRandom.current().nextDouble();
+        double gap = timing.loadTimeMillis() * beta * -Math.log(random == 0 ? Double.MIN_VALUE : random);
+        return System.currentTimeMillis() + gap >= timing.expiresAtMillis();
+    }
+
+    /**
+     * Reads the remaining TTL of an entry another node wrote, once per key.
+     */
+    private EntryTiming lookupTiming(Object key, String timingKey) {
+        long pttl = batchOperations.pTtl(getName(), key);
+        if (pttl < 0) {
+            return null;
+        }
+        EntryTiming timing = new EntryTiming(System.currentTimeMillis() + pttl, defaultLoadTimeMillis);
+        timings.put(timingKey, timing);
+        return timing;
+    }
+
+    private void refreshAsync(Object key, String timingKey, Callable<?> valueLoader) {
+        AtomicBoolean superseded = new AtomicBoolean();
+        if (refreshing.putIfAbsent(timingKey, superseded) != null) {
+            return;
+        }
+        if (!permits.tryAcquire()) {
+            refreshing.remove(timingKey, superseded);
+            skipped.increment();
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    long start = System.currentTimeMillis();
+                    Object value = valueLoader.call();
+                    long end = System.currentTimeMillis();
+                    if (superseded.get()) {
+                        discarded.increment();
+                        return;
+                    }
+                    delegate.put(key, value);
+                    if (superseded.get()) {
+                        // A write or evict landed between the check and the put; drop what may be older.
+                        delegate.evict(key);
+                        discarded.increment();
+                        return;
+                    }
+                    timings.put(timingKey, EntryTiming.loadedAt(start, end, ttl));
+                    latencySaved.record(Duration.ofMillis(end - start));
+                    refreshed.increment();
+                } catch (Exception e) {
+                    failed.increment();
+                    log.warn("Refresh-ahead failed for cache: {}, key: {}", getName(), key, e);
+                } finally {
+                    refreshing.remove(timingKey, superseded);
+                    permits.release();
+                }
+            });
+        } catch (RuntimeException e) {
+            refreshing.remove(timingKey, superseded);
+            permits.release();
+            skipped.increment();
+        }
+    }
+
+    private Counter refreshCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("cache.refresh.ahead")
+                .tag("cache", getName())
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private record EntryTiming(long expiresAtMillis, long loadTimeMillis) {
+        static EntryTiming loadedAt(long start, long end, Duration ttl) {
+            return new EntryTiming(end + ttl.toMillis(), Math.max(1, end - start));
+        }
+    }
+}
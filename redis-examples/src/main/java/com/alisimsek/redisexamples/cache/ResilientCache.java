@@ -0,0 +1,201 @@
+package com.alisimsek.redisexamples.cache;
+
+import com.alisimsek.redisexamples.resilience.Deadline;
+import com.alisimsek.redisexamples.resilience.RedisCircuitBreaker;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Outermost cache layer that keeps reads working while Redis is slow or down. Every operation
+ * goes through {@link RedisCircuitBreaker} with a deadline of {@code redis.resilience.cache-timeout};
+ * time spent in a value loader is not counted.
+ * <p>
+ * A read that fails, times out or is made while the breaker is open is a miss, so the value is
+ * loaded from the DB. Writes are skipped. Evictions, and writes that may have left an older
+ * value behind, are remembered and replayed after the next call that reaches Redis, or when a
+ * probe reaches it again after the breaker opened, so no stale entry outlives the outage.
+ * Other nodes' near caches miss the invalidations sent meanwhile and catch up within their TTL.
+ */
+@Slf4j
+public class ResilientCache extends AbstractCacheDecorator {
+
+    private final RedisCircuitBreaker circuitBreaker;
+    private final Duration timeout;
+    private final int maxPendingEvictions;
+    private final Set<Object> pendingEvictions = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean clearPending = new AtomicBoolean();
+    private final AtomicBoolean replaying = new AtomicBoolean();
+
+    public ResilientCache(Cache delegate, RedisCircuitBreaker circuitBreaker, Duration timeout,
+                          int maxPendingEvictions) {
+        super(delegate);
+        this.circuitBreaker = circuitBreaker;
+        this.timeout = timeout;
+        this.maxPendingEvictions = maxPendingEvictions;
+        circuitBreaker.addReconnectListener(this::replayEvictions);
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        return execute("cache_get", deadline -> delegate.get(key), () -> null);
+    }
+
+    @Override
+    public <T> T get(Object key, Class<T> type) {
+        return execute("cache_get", deadline -> delegate.get(key, type), () -> null);
+    }
+
+    @Override
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        LoadedValue<T> loaded = new LoadedValue<>();
+        return execute("cache_load",
+                deadline -> delegate.get(key, () -> deadline.excluding(() -> loaded.set(valueLoader.call()))),
+                // If only storing the loaded value failed, there is no need to load it again.
+                () -> loaded.isSet() ? loaded.value : load(key, valueLoader));
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        execute("cache_put", deadline -> {
+            delegate.put(key, value);
+            return null;
+        }, () -> {
+            rememberEviction(key);
+            return null;
+        });
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        return execute("cache_put", deadline -> delegate.putIfAbsent(key, value), () -> null);
+    }
+
+    @Override
+    public void evict(Object key) {
+        execute("cache_evict", deadline -> {
+            delegate.evict(key);
+            return null;
+        }, () -> {
+            rememberEviction(key);
+            return null;
+        });
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        return execute("cache_evict", deadline -> delegate.evictIfPresent(key), () -> {
+            rememberEviction(key);
+            return false;
+        });
+    }
+
+    @Override
+    public void clear() {
+        execute("cache_evict", deadline -> {
+            delegate.clear();
+            return null;
+        }, () -> {
+            rememberClear();
+            return null;
+        });
+    }
+
+    @Override
+    public boolean invalidate() {
+        return execute("cache_evict", deadline -> delegate.invalidate(), () -> {
+            rememberClear();
+            return false;
+        });
+    }
+
+    /**
+     * Runs a call through the breaker. Once it has reached Redis, evictions skipped earlier are
+     * replayed in the background.
+     */
+    private <T> T execute(String operation, Function<Deadline, T> action, Supplier<T> fallback) {
+        return circuitBreaker.execute(operation, timeout, deadline -> {
+            T result = action.apply(deadline);
+            if (!replaying.get() && (clearPending.get() || !pendingEvictions.isEmpty())) {
+                Thread.ofVirtual().name("cache-eviction-replay").start(this::replayEvictions);
+            }
+            return result;
+        }, fallback);
+    }
+
+    private void rememberEviction(Object key) {
+        evictLocal(key);
+        if (pendingEvictions.size() >= maxPendingEvictions) {
+            clearPending.set(true);
+        } else {
+            pendingEvictions.add(key);
+        }
+    }
+
+    private void rememberClear() {
+        clearLocal();
+        clearPending.set(true);
+    }
+
+    /**
+     * Applies the skipped evictions, one replay at a time. Any that fail again are remembered
+     * again, and the rest wait for the next replay once the breaker has opened.
+     */
+    private void replayEvictions() {
+        if (!replaying.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            if (clearPending.getAndSet(false)) {
+                pendingEvictions.clear();
+                log.info("Clearing cache: {} after skipped evictions", getName());
+                clear();
+                return;
+            }
+            int replayed = 0;
+            for (Object key : pendingEvictions) {
+                if (!circuitBreaker.isCallPermitted()) {
+                    break;
+                }
+                pendingEvictions.remove(key);
+                evict(key);
+                replayed++;
+            }
+            if (replayed > 0) {
+                log.info("Replayed {} skipped evictions of cache: {}", replayed, getName());
+            }
+        } finally {
+            replaying.set(false);
+        }
+    }
+
+    private static <T> T load(Object key, Callable<T> valueLoader) {
+        try {
+            return valueLoader.call();
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+    }
+
+    private static final class LoadedValue<T> {
+        private volatile boolean set;
+        private volatile T value;
+
+        T set(T value) {
+            this.value = value;
+            this.set = true;
+            return value;
+        }
+
+        boolean isSet() {
+            return set;
+        }
+    }
+}
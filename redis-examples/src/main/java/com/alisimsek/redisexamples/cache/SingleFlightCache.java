@@ -0,0 +1,235 @@
+package com.alisimsek.redisexamples.cache;
+
+import com.alisimsek.redisexamples.resilience.Deadline;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cache.Cache;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Coalesces concurrent misses for the same key across nodes ({@code @Cacheable(sync = true)}).
+ * Within a node, callers share one in-flight load. Across nodes, the caller holding a short
+ * Redis lease rebuilds the entry while the others get the last known value or wait for the
+ * fill notification, and only load it themselves if the wait times out.
+ * <p>
+ * The last known values are kept in {@code <cache>:stale} for longer than the entries
+ * themselves; they follow every put, evict and clear of this cache, so an updated or deleted
+ * value is never served from there.
+ * <p>
+ * Waits for another caller's load are kept out of the deadline of the surrounding Redis
+ * circuit breaker call, so a slow load does not make its followers time out.
+ */
+public class SingleFlightCache extends AbstractCacheDecorator {
+
+    private static final String LEASE_PREFIX = "cache_fill_lease:";
+    private static final RedisScript<Long> COMPARE_AND_DELETE_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/compare-and-delete.lua"), Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final RedisCacheBatchOperations batchOperations;
+    private final CacheFillNotifier fillNotifier;
+    private final CacheInvalidationPublisher invalidationPublisher;
+    private final Duration leaseTtl;
+    private final Duration waitTimeout;
+    private final Duration staleTtl;
+    private final ConcurrentMap<String, CompletableFuture<Object>> localFlights = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+
+    public SingleFlightCache(Cache delegate, StringRedisTemplate redisTemplate,
+                             RedisCacheBatchOperations batchOperations, CacheFillNotifier fillNotifier,
+                             CacheInvalidationPublisher invalidationPublisher, Duration leaseTtl,
+                             Duration waitTimeout, Duration staleTtl, MeterRegistry meterRegistry) {
+        super(delegate);
+        this.redisTemplate = redisTemplate;
+        this.batchOperations = batchOperations;
+        this.fillNotifier = fillNotifier;
+        this.invalidationPublisher = invalidationPublisher;
+        this.leaseTtl = leaseTtl;
+        this.waitTimeout = waitTimeout;
+        this.staleTtl = staleTtl;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper cached = delegate.get(key);
+        if (cached != null) {
+            return (T) cached.get();
+        }
+        String flightKey = String.valueOf(key);
+        CompletableFuture<Object> flight = new CompletableFuture<>();
+        CompletableFuture<Object> existing = localFlights.putIfAbsent(flightKey, flight);
+        if (existing != null) {
+            outcome("local-follower").increment();
+            try {
+                awaitOutsideDeadline(() -> existing.exceptionally(e -> null).join());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ValueRetrievalException(key, valueLoader, e);
+            }
+            return (T) join(existing);
+        }
+        try {
+            Object value = loadCoordinated(key, flightKey, valueLoader);
+            flight.complete(value);
+            return (T) value;
+        } catch (RuntimeException e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            localFlights.remove(flightKey, flight);
+        }
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        delegate.put(key, value);
+        if (staleTtl != null && value != null) {
+            batchOperations.putAll(staleCacheName(), Map.of(key, value), staleTtl);
+        }
+    }
+
+    @Override
+    public void evict(Object key) {
+        delegate.evict(key);
+        evictStale(key);
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        boolean evicted = delegate.evictIfPresent(key);
+        evictStale(key);
+        return evicted;
+    }
+
+    @Override
+    public void clear() {
+        delegate.clear();
+        if (staleTtl != null) {
+            batchOperations.clear(staleCacheName());
+        }
+    }
+
+    @Override
+    public boolean invalidate() {
+        boolean invalidated = delegate.invalidate();
+        if (staleTtl != null) {
+            batchOperations.clear(staleCacheName());
+        }
+        return invalidated;
+    }
+
+    private void evictStale(Object key) {
+        if (staleTtl != null) {
+            batchOperations.removeAll(staleCacheName(), List.of(key));
+        }
+    }
+
+    private Object loadCoordinated(Object key, String flightKey, Callable<?> valueLoader) {
+        String leaseKey = LEASE_PREFIX + getName() + "::" + flightKey;
+        long deadline = System.nanoTime() + waitTimeout.toNanos();
+        while (true) {
+            String token = UUID.randomUUID().toString();
+            if (Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(leaseKey, token, leaseTtl))) {
+                outcome("leader").increment();
+                return loadAsLeader(key, flightKey, valueLoader, leaseKey, token);
+            }
+            if (staleTtl != null) {
+                Map<Object, Object> stale = batchOperations.getAll(staleCacheName(), List.of(key), Object.class);
+                if (!stale.isEmpty()) {
+                    outcome("stale").increment();
+                    return stale.get(key);
+                }
+            }
+            CompletableFuture<Void> signal = fillNotifier.register(getName(), flightKey);
+            ValueWrapper cached = delegate.get(key);
+            if (cached != null) {
+                outcome("follower").increment();
+                return cached.get();
+            }
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                outcome("timeout").increment();
+                return load(key, valueLoader);
+            }
+            try {
+                Duration wait = Duration.ofNanos(Math.min(remaining, leaseTtl.toNanos()));
+                awaitOutsideDeadline(() -> fillNotifier.await(getName(), flightKey, signal, wait));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ValueRetrievalException(key, valueLoader, e);
+            }
+            cached = delegate.get(key);
+            if (cached != null) {
+                outcome("follower").increment();
+                return cached.get();
+            }
+            // The leader failed or its lease expired; try to take over.
+        }
+    }
+
+    private Object loadAsLeader(Object key, String flightKey, Callable<?> valueLoader, String leaseKey, String token) {
+        try {
+            return load(key, valueLoader);
+        } finally {
+            redisTemplate.execute(COMPARE_AND_DELETE_SCRIPT, List.of(leaseKey), token);
+            invalidationPublisher.publishFilled(getName(), flightKey);
+        }
+    }
+
+    private Object load(Object key, Callable<?> valueLoader) {
+        Object value;
+        try {
+            value = valueLoader.call();
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+        put(key, value);
+        return value;
+    }
+
+    private String staleCacheName() {
+        return getName() + ":stale";
+    }
+
+    private static void awaitOutsideDeadline(Callable<?> wait) throws InterruptedException {
+        try {
+            Deadline.excludingCurrent(wait);
+        } catch (InterruptedException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Object join(CompletableFuture<Object> flight) {
+        try {
+            return flight.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private Counter outcome(String outcome) {
+        return Counter.builder("cache.single.flight")
+                .tag("cache", getName())
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,162 @@
+package com.alisimsek.redisexamples.config;
+
+import com.alisimsek.redisexamples.cache.CacheFillNotifier;
+import com.alisimsek.redisexamples.cache.CacheInvalidationListener;
+import com.alisimsek.redisexamples.cache.CacheInvalidationPublisher;
+import com.alisimsek.redisexamples.cache.CacheLayer;
+import com.alisimsek.redisexamples.cache.ClientSideCache;
+import com.alisimsek.redisexamples.cache.ClientSideCacheStore;
+import com.alisimsek.redisexamples.cache.FrequencySketch;
+import com.alisimsek.redisexamples.cache.HashBucketRedisCache;
+import com.alisimsek.redisexamples.cache.HashBucketStore;
+import com.alisimsek.redisexamples.cache.HotKeyCache;
+import com.alisimsek.redisexamples.cache.HotKeysEndpoint;
+import com.alisimsek.redisexamples.cache.LayeredCacheManager;
+import com.alisimsek.redisexamples.cache.NearCache;
+import com.alisimsek.redisexamples.cache.RedisCacheBatchOperations;
+import com.alisimsek.redisexamples.cache.RefreshAheadCache;
+import com.alisimsek.redisexamples.cache.ResilientCache;
+import com.alisimsek.redisexamples.cache.SingleFlightCache;
+import com.alisimsek.redisexamples.resilience.RedisCircuitBreaker;
+import com.alisimsek.redisexamples.sharding.RedisShards;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.function.Predicate;
+
+@Configuration
+@EnableConfigurationProperties({NearCacheProperties.class, SingleFlightProperties.class, RefreshAheadProperties.class,
+        CacheWarmUpProperties.class, HotKeyProperties.class, HashBucketProperties.class})
+public class CacheConfig {
+
+    @Bean
+    public CacheInvalidationPublisher cacheInvalidationPublisher(StringRedisTemplate stringRedisTemplate,
+                                                                 NearCacheProperties properties) {
+        return new CacheInvalidationPublisher(stringRedisTemplate, properties.getInvalidationChannel());
+    }
+
+    @Bean
+    public CacheFillNotifier cacheFillNotifier() {
+        return new CacheFillNotifier();
+    }
+
+    @Bean
+    public CacheInvalidationListener cacheInvalidationListener(CacheManager cacheManager,
+                                                               CacheInvalidationPublisher publisher,
+                                                               CacheFillNotifier fillNotifier) {
+        return new CacheInvalidationListener(cacheManager, publisher, fillNotifier);
+    }
+
+    /**
+     * Runs refresh-ahead reloads; concurrency is bounded by {@code cache.refresh-ahead.max-concurrent-refreshes}.
+     */
+    @Bean(destroyMethod = "close")
+    public ExecutorService cacheRefreshExecutor() {
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("cache-refresh-", 0).factory());
+    }
+
+    /**
+     * The cache manager used by {@code @Cacheable}. Wraps the Redis caches from
+     * {@link RedisConfig#redisCacheManager} with the layers enabled below, innermost first.
+     */
+    @Bean
+    @Primary
+    public CacheManager cacheManager(RedisCacheManager redisCacheManager,
+                                     NearCacheProperties nearCacheProperties,
+                                     SingleFlightProperties singleFlightProperties,
+                                     RefreshAheadProperties refreshAheadProperties,
+                                     HotKeyProperties hotKeyProperties,
+                                     RedisResilienceProperties resilienceProperties,
+                                     ClientSideCachingProperties clientSideCachingProperties,
+                                     ClientSideCacheStore clientSideCacheStore,
+                                     RedisCircuitBreaker circuitBreaker,
+                                     RedisCacheConfiguration redisCacheConfiguration,
+                                     ExecutorService cacheRefreshExecutor,
+                                     CacheInvalidationPublisher invalidationPublisher,
+                                     CacheFillNotifier fillNotifier,
+                                     RedisCacheBatchOperations batchOperations,
+                                     HashBucketStore hashBucketStore,
+                                     RedisShards redisShards,
+                                     StringRedisTemplate stringRedisTemplate,
+                                     MeterRegistry meterRegistry) {
+        List<CacheLayer> layers = new ArrayList<>();
+        // Replaces the Redis cache itself rather than wrapping it, so every layer above stores through the buckets.
+        // Sharded caches keep one key per entry, so their keys can be spread over the nodes.
+        layers.add(cache -> hashBucketStore.isBucketed(cache.getName()) && !redisShards.isSharded(cache.getName())
+                && cache instanceof RedisCache redisCache
+                ? new HashBucketRedisCache(cache.getName(), hashBucketStore, redisCache.getCacheConfiguration())
+                : cache);
+        Predicate<String> clientSideCached = name -> clientSideCacheStore.isEnabled()
+                && appliesTo(clientSideCachingProperties.getCaches(), name) && !hashBucketStore.isBucketed(name)
+                && !redisShards.isSharded(name);
+        // Reads Redis over its own tracking connection, so it sits right above the Redis cache.
+        layers.add(cache -> clientSideCached.test(cache.getName()) && cache instanceof RedisCache redisCache
+                ? new ClientSideCache(cache, clientSideCacheStore, redisCache.getCacheConfiguration(), meterRegistry)
+                : cache);
+        if (singleFlightProperties.isEnabled()) {
+            layers.add(cache -> appliesTo(singleFlightProperties.getCaches(), cache.getName())
+                    ? new SingleFlightCache(cache, stringRedisTemplate, batchOperations, fillNotifier,
+                    invalidationPublisher, singleFlightProperties.getLeaseTtl(),
+                    singleFlightProperties.getWaitTimeout(),
+                    singleFlightProperties.isServeStale() ? singleFlightProperties.getStaleTtl() : null,
+                    meterRegistry)
+                    : cache);
+        }
+        if (nearCacheProperties.isEnabled()) {
+            // Caches with client-side caching already keep local copies, invalidated by Redis.
+            layers.add(cache -> appliesTo(nearCacheProperties.getCaches(), cache.getName())
+                    && !clientSideCached.test(cache.getName())
+                    ? new NearCache(cache, nearCacheProperties.getMaximumSize(), nearCacheProperties.getTtl(),
+                    invalidationPublisher, meterRegistry)
+                    : cache);
+        }
+        if (refreshAheadProperties.isEnabled()) {
+            Semaphore permits = new Semaphore(refreshAheadProperties.getMaxConcurrentRefreshes());
+            layers.add(cache -> appliesTo(refreshAheadProperties.getCaches(), cache.getName())
+                    ? new RefreshAheadCache(cache, batchOperations,
+                    redisCacheConfiguration.getTtlFunction().getTimeToLive(cache.getName(), null),
+                    refreshAheadProperties.getBeta(), refreshAheadProperties.getDefaultLoadTime(),
+                    refreshAheadProperties.getMaxTrackedKeys(), cacheRefreshExecutor, permits, meterRegistry)
+                    : cache);
+        }
+        if (hotKeyProperties.isEnabled()) {
+            // Above the other layers, so replicated reads skip them.
+            layers.add(cache -> appliesTo(hotKeyProperties.getCaches(), cache.getName())
+                    ? new HotKeyCache(cache,
+                    new FrequencySketch(hotKeyProperties.getSketchWidth(), hotKeyProperties.getSketchDepth()),
+                    hotKeyProperties.getSampleRate(), hotKeyProperties.getThreshold(),
+                    hotKeyProperties.getMaxHotKeys(), hotKeyProperties.getDecayInterval(),
+                    hotKeyProperties.getReplicaTtl(), meterRegistry)
+                    : cache);
+        }
+        if (resilienceProperties.isEnabled()) {
+            // Outermost, so an unavailable Redis is skipped before any layer below calls it.
+            layers.add(cache -> new ResilientCache(cache, circuitBreaker, resilienceProperties.getCacheTimeout(),
+                    resilienceProperties.getMaxPendingEvictions()));
+        }
+        return new LayeredCacheManager(redisCacheManager, layers);
+    }
+
+    @Bean
+    public HotKeysEndpoint hotKeysEndpoint(CacheManager cacheManager) {
+        return new HotKeysEndpoint(cacheManager);
+    }
+
+    private static boolean appliesTo(Set<String> cacheNames, String cacheName) {
+        return cacheNames.isEmpty() || cacheNames.contains(cacheName);
+    }
+}
@@ -0,0 +1,23 @@
+package com.alisimsek.redisexamples.config;
+
+import com.alisimsek.redisexamples.cache.CacheValueFormat;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Encoding of cached values. Entries written in one format cannot be read in another,
+ * so existing cache entries must expire or be flushed when these settings change.
+ */
+@Data
+@ConfigurationProperties(prefix = "cache.serialization")
+public class CacheSerializationProperties {
+    private CacheValueFormat format = CacheValueFormat.JSON;
+
+    /**
+     * Whether values at or above the compression threshold are LZ4-compressed.
+     */
+    private boolean compression = false;
+
+    private DataSize compressionThreshold = DataSize.ofKilobytes(1);
+}
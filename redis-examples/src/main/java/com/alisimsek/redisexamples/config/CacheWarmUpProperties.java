@@ -0,0 +1,60 @@
+package com.alisimsek.redisexamples.config;
+
+import com.alisimsek.redisexamples.warmup.WarmUpSource;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@ConfigurationProperties(prefix = "cache.warm-up")
+public class CacheWarmUpProperties {
+    /**
+     * Whether {@code userById} is preloaded on startup, before the app reports ready.
+     */
+    private boolean enabled = true;
+
+    private WarmUpSource source = WarmUpSource.RECENT;
+
+    /**
+     * User IDs to preload when {@link #source} is {@code list}.
+     */
+    private List<Long> ids = new ArrayList<>();
+
+    /**
+     * Maximum number of users preloaded.
+     */
+    private int maxUsers = 5000;
+
+    /**
+     * Users read and written per round trip.
+     */
+    private int batchSize = 500;
+
+    /**
+     * Batches loaded at the same time.
+     */
+    private int parallelism = 4;
+
+    /**
+     * Startup continues after this long even if the warm-up has not finished.
+     */
+    private Duration timeout = Duration.ofSeconds(30);
+
+    /**
+     * Sorted set of recently read user IDs, scored by the time of the last read.
+     */
+    private String accessKey = "user:recent-access";
+
+    /**
+     * Number of most recently read users kept in {@link #accessKey}.
+     */
+    private int trackedUsers = 10_000;
+
+    /**
+     * How often reads recorded in memory are written to {@link #accessKey}.
+     */
+    private Duration accessFlushInterval = Duration.ofSeconds(5);
+}
@@ -0,0 +1,34 @@
+package com.alisimsek.redisexamples.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
+
+@Data
+@ConfigurationProperties(prefix = "redis.client-side-caching")
+public class ClientSideCachingProperties {
+    /**
+     * Whether the caches below keep local copies of the keys they read, invalidated by Redis
+     * through key tracking. Needs RESP3, i.e. Redis 6 or later.
+     */
+    private boolean enabled = false;
+
+    /**
+     * Cache names read through the tracking connection. Empty means all caches.
+     * These caches get no near cache, which would keep a second local copy.
+     */
+    private Set<String> caches = new HashSet<>(Set.of("userById"));
+
+    /**
+     * Maximum number of local copies, over all caches.
+     */
+    private long maximumSize = 10_000;
+
+    /**
+     * Upper bound on how long a local copy lives, in case an invalidation is lost.
+     */
+    private Duration ttl = Duration.ofMinutes(5);
+}
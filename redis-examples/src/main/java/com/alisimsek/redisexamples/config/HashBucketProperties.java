@@ -0,0 +1,28 @@
+package com.alisimsek.redisexamples.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.HashSet;
+import java.util.Set;
+
+@Data
+@ConfigurationProperties(prefix = "cache.hash-buckets")
+public class HashBucketProperties {
+    /**
+     * Whether the caches below store their entries as fields of Redis hashes, one hash per range
+     * of IDs, instead of one key per entry.
+     */
+    private boolean enabled = false;
+
+    /**
+     * Cache names stored in hash buckets. Their keys must be numeric IDs.
+     */
+    private Set<String> caches = new HashSet<>(Set.of("userById"));
+
+    /**
+     * IDs per bucket. Must not exceed the server's {@code hash-max-listpack-entries}
+     * ({@code hash-max-ziplist-entries} before Redis 7), or buckets lose their compact encoding.
+     */
+    private int bucketSize = 100;
+}
@@ -0,0 +1,58 @@
+package com.alisimsek.redisexamples.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
+
+@Data
+@ConfigurationProperties(prefix = "cache.hot-keys")
+public class HotKeyProperties {
+    /**
+     * Whether frequently read keys are detected and served from an in-process replica.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Cache names that get hot-key detection. Empty means all caches.
+     */
+    private Set<String> caches = new HashSet<>(Set.of("userById"));
+
+    /**
+     * Share of reads counted in the frequency sketch.
+     */
+    private double sampleRate = 0.1;
+
+    /**
+     * Counters per row of the frequency sketch.
+     */
+    private int sketchWidth = 4096;
+
+    /**
+     * Rows of the frequency sketch; more rows mean fewer overestimates.
+     */
+    private int sketchDepth = 4;
+
+    /**
+     * Sampled reads, as estimated by the sketch, at which a key is promoted. A key is demoted
+     * once its estimate falls below half of this.
+     */
+    private int threshold = 20;
+
+    /**
+     * How often all sketch counters are halved, so old traffic fades out.
+     */
+    private Duration decayInterval = Duration.ofSeconds(10);
+
+    /**
+     * How long a replicated value is served before it is read from the layers below again.
+     */
+    private Duration replicaTtl = Duration.ofSeconds(1);
+
+    /**
+     * Maximum number of hot keys per cache.
+     */
+    private int maxHotKeys = 64;
+}
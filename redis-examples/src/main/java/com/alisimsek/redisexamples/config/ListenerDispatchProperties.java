@@ -0,0 +1,43 @@
+package com.alisimsek.redisexamples.config;
+
+import com.alisimsek.redisexamples.redismessaging.listener.OverflowPolicy;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.HashSet;
+import java.util.Set;
+
+@Data
+@ConfigurationProperties(prefix = "redis.listener")
+public class ListenerDispatchProperties {
+    /**
+     * Whether messages on {@link #channels} are queued and handled on virtual threads.
+     * When disabled the container starts an unbounded platform thread per message.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Channels whose messages are queued and handled on virtual threads. Other channels are
+     * handled directly on the subscription thread, in order. Empty means all application
+     * channels; the cache invalidation and lock release channels are never dispatched.
+     */
+    private Set<String> channels = new HashSet<>(Set.of("notification-channel"));
+
+    /**
+     * Maximum number of messages of one channel handled at the same time.
+     */
+    private int maxConcurrencyPerChannel = 8;
+
+    /**
+     * Maximum number of messages queued per channel before the overflow policy applies. Also
+     * bounds the messages waiting for each subscription thread.
+     */
+    private int queueCapacity = 1000;
+
+    private OverflowPolicy overflowPolicy = OverflowPolicy.BLOCK;
+
+    /**
+     * Prefix of the Redis lists that hold spilled messages, followed by the channel name.
+     */
+    private String spillKeyPrefix = "listener_spill:";
+}
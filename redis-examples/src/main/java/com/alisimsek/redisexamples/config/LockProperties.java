@@ -0,0 +1,30 @@
+package com.alisimsek.redisexamples.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "lock")
+public class LockProperties {
+    /**
+     * How long a lock is held before it expires unless the watchdog renews it.
+     */
+    private Duration leaseTime = Duration.ofSeconds(10);
+
+    /**
+     * How long callers queue for a lock by default before giving up.
+     */
+    private Duration waitTimeout = Duration.ofSeconds(5);
+
+    /**
+     * A queued waiter that has not polled for this long loses its place in the queue.
+     */
+    private Duration waiterHeartbeat = Duration.ofSeconds(3);
+
+    /**
+     * Channel on which released locks are announced to waiters on every node.
+     */
+    private String releaseChannel = "lock-released-channel";
+}
@@ -0,0 +1,84 @@
+package com.alisimsek.redisexamples.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+@Configuration
+@EnableConfigurationProperties({NotificationProperties.class, ListenerDispatchProperties.class})
+public class MessagingConfig {
+
+    /**
+     * Handles notification batches read from the stream; concurrency is bounded by
+     * {@code notification.stream.max-in-flight-batches}.
+     */
+    @Bean(destroyMethod = "close")
+    public ExecutorService notificationWorkerExecutor() {
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("notification-worker-", 0).factory());
+    }
+
+    /**
+     * Runs the handlers of dispatched listener channels; concurrency is bounded per channel by
+     * {@code redis.listener.max-concurrency-per-channel}.
+     */
+    @Bean(destroyMethod = "close")
+    public ExecutorService redisListenerExecutor() {
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("redis-listener-", 0).factory());
+    }
+
+    /**
+     * Delivers messages of the application channels one at a time, in order. Dispatched channels
+     * only queue the message here, so under the {@code BLOCK} policy this thread waits for room in
+     * a channel queue. Up to {@code redis.listener.queue-capacity} messages wait for it; beyond
+     * that the connection's reader waits too, and Redis buffers the rest for the subscriber.
+     */
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService redisSubscriptionExecutor(ListenerDispatchProperties properties, MeterRegistry meterRegistry) {
+        return subscriptionExecutor("redis-subscription", properties.getQueueCapacity(), meterRegistry);
+    }
+
+    /**
+     * Delivers messages of the control channels, cache invalidation and lock release, whose
+     * handlers only touch local state. They have their own subscription, so a blocked
+     * application channel does not hold them up.
+     */
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService redisControlSubscriptionExecutor(ListenerDispatchProperties properties,
+                                                            MeterRegistry meterRegistry) {
+        return subscriptionExecutor("redis-control-subscription", properties.getQueueCapacity(), meterRegistry);
+    }
+
+    /**
+     * A single thread with a bounded queue. A full queue makes the submitter wait for room
+     * instead of failing the message.
+     */
+    private static ExecutorService subscriptionExecutor(String name, int capacity, MeterRegistry meterRegistry) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(capacity), Thread.ofPlatform().name(name).daemon().factory(),
+                (task, pool) -> {
+                    if (pool.isShutdown()) {
+                        throw new RejectedExecutionException("Executor " + name + " has been shut down");
+                    }
+                    try {
+                        pool.getQueue().put(task);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new RejectedExecutionException("Interrupted while waiting for " + name, e);
+                    }
+                });
+        Gauge.builder("redis.listener.subscription.queue.depth", executor, pool -> pool.getQueue().size())
+                .description("Messages waiting for the subscription thread")
+                .tag("executor", name)
+                .register(meterRegistry);
+        return executor;
+    }
+}
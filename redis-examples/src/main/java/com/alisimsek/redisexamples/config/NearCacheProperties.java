@@ -0,0 +1,37 @@
+package com.alisimsek.redisexamples.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
+
+@Data
+@ConfigurationProperties(prefix = "cache.near")
+public class NearCacheProperties {
+    /**
+     * Whether an in-process L1 cache is placed in front of Redis.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Maximum number of entries kept in each L1 cache.
+     */
+    private long maximumSize = 10_000;
+
+    /**
+     * Upper bound on how long an L1 entry lives, even if no invalidation arrives.
+     */
+    private Duration ttl = Duration.ofSeconds(30);
+
+    /**
+     * Channel used to broadcast L1 invalidations between nodes.
+     */
+    private String invalidationChannel = "cache-invalidation-channel";
+
+    /**
+     * Cache names that get an L1 tier. Empty means all caches.
+     */
+    private Set<String> caches = new HashSet<>();
+}
@@ -0,0 +1,91 @@
+package com.alisimsek.redisexamples.config;
+
+import com.alisimsek.redisexamples.redismessaging.NotificationTransport;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "notification")
+public class NotificationProperties {
+    /**
+     * Transport used by the notification endpoint when a call does not choose one.
+     */
+    private NotificationTransport transport = NotificationTransport.PUBSUB;
+
+    private Stream stream = new Stream();
+
+    private Publish publish = new Publish();
+
+    @Data
+    public static class Publish {
+        /**
+         * Maximum number of pub/sub messages sent in one pipelined flush.
+         */
+        private int maxBatchSize = 100;
+
+        /**
+         * How long the first message of a batch waits for more messages before the batch is flushed.
+         */
+        private Duration linger = Duration.ofNanos(200_000);
+
+        /**
+         * Maximum number of messages waiting to be flushed; further asynchronous publishes fail fast.
+         */
+        private int queueCapacity = 10_000;
+    }
+
+    @Data
+    public static class Stream {
+        /**
+         * Key of the notification stream.
+         */
+        private String key = "notification-stream";
+
+        /**
+         * Approximate number of entries kept in the stream; older entries are trimmed on add.
+         */
+        private long maxLength = 100_000;
+
+        /**
+         * Consumer group shared by all nodes; each notification is handled by one node.
+         */
+        private String group = "notification-group";
+
+        /**
+         * Name of this node within the group. Defaults to the host name plus a random suffix.
+         */
+        private String consumer;
+
+        /**
+         * Maximum number of entries read per XREADGROUP call.
+         */
+        private int batchSize = 100;
+
+        /**
+         * How long XREADGROUP blocks waiting for new entries.
+         */
+        private Duration block = Duration.ofSeconds(2);
+
+        /**
+         * Maximum number of batches handled at the same time; reading pauses while all are busy.
+         */
+        private int maxInFlightBatches = 4;
+
+        /**
+         * Entries delivered to a consumer but not acknowledged for this long are claimed by another node.
+         */
+        private Duration claimMinIdle = Duration.ofMinutes(1);
+
+        /**
+         * How often pending entries are checked for stalled consumers.
+         */
+        private Duration claimInterval = Duration.ofSeconds(30);
+
+        /**
+         * Entries delivered this many times without success are logged and acknowledged instead of retried.
+         */
+        private int maxDeliveries = 5;
+    }
+}
@@ -0,0 +1,73 @@
+package com.alisimsek.redisexamples.config;
+
+import com.alisimsek.redisexamples.ratelimit.RateLimitAlgorithm;
+import com.alisimsek.redisexamples.ratelimit.RateLimitFailMode;
+import com.alisimsek.redisexamples.ratelimit.RateLimitMode;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+@Data
+@ConfigurationProperties(prefix = "rate-limit")
+public class RateLimitProperties {
+    /**
+     * Per-route overrides of the values declared on {@code @RateLimited}, keyed by route name.
+     */
+    private Map<String, Route> routes = new HashMap<>();
+
+    /**
+     * How calls to exact-mode routes are limited while Redis is unavailable or the circuit breaker is open.
+     */
+    private RateLimitFailMode failMode = RateLimitFailMode.LOCAL;
+
+    private Approximate approximate = new Approximate();
+
+    @Data
+    public static class Limit {
+        private Long limit;
+        private Duration window;
+        private RateLimitAlgorithm algorithm;
+        private RateLimitMode mode;
+    }
+
+    @Data
+    @EqualsAndHashCode(callSuper = true)
+    public static class Route extends Limit {
+        /**
+         * Per-key overrides within the route, keyed by the limited key (client IP).
+         */
+        private Map<String, Limit> keys = new HashMap<>();
+    }
+
+    /**
+     * Settings of {@link RateLimitMode#APPROXIMATE} routes.
+     */
+    @Data
+    public static class Approximate {
+        /**
+         * How often locally counted calls are added to the shared counters in Redis.
+         */
+        private Duration syncInterval = Duration.ofMillis(100);
+
+        /**
+         * Share of the limit a node may allow locally between syncs. With {@code n} nodes a window
+         * can exceed its limit by at most {@code n * max-error * limit} calls.
+         */
+        private double maxError = 0.05;
+
+        /**
+         * Once fewer than this share of the limit is known to be left, every call is checked
+         * against Redis, as in exact mode.
+         */
+        private double strictMargin = 0.1;
+
+        /**
+         * Maximum number of keys counted locally; the least recently used are dropped beyond that.
+         */
+        private long maxTrackedKeys = 100_000;
+    }
+}
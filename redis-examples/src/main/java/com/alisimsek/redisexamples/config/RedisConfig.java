@@ -1,25 +1,45 @@
 package com.alisimsek.redisexamples.config;
 
+import com.alisimsek.redisexamples.cache.CacheInvalidationListener;
+import com.alisimsek.redisexamples.cache.ClientSideCacheStore;
+import com.alisimsek.redisexamples.cache.Lz4CompressingRedisSerializer;
+import com.alisimsek.redisexamples.redismessaging.listener.DispatchingMessageListener;
 import com.alisimsek.redisexamples.redismessaging.listener.RedisMessageListener;
+import com.alisimsek.redisexamples.service.RedisLockService;
+import com.alisimsek.redisexamples.sharding.RedisShards;
+import com.alisimsek.redisexamples.sharding.ShardedRedisCacheWriter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.cache.RedisCacheWriter;
+import org.springframework.data.redis.connection.MessageListener;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.data.redis.listener.ChannelTopic;
 import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 import org.springframework.integration.redis.util.RedisLockRegistry;
 
 import java.time.Duration;
+import java.util.concurrent.ExecutorService;
 
 @Configuration
 @EnableCaching
+@EnableConfigurationProperties({CacheSerializationProperties.class, LockProperties.class, UserUpdateProperties.class,
+        UserCreateProperties.class, UserExistenceProperties.class, RedisResilienceProperties.class,
+        ClientSideCachingProperties.class, ShardingProperties.class})
 public class RedisConfig {
+    public static final String LOCK_REGISTRY_KEY = "myRedisLockRegistry";
+
     @Bean
     public RedisTemplate<String, Object> redisTemplate(RedisConnectionFactory connectionFactory) {
         RedisTemplate<String, Object> template = new RedisTemplate<>();
@@ -50,38 +70,151 @@ public class RedisConfig {
 //        return container;
 //    }
 
+    /**
+     * Subscribes the application channels. Their listeners may be dispatched, see {@link #addListener}.
+     */
     @Bean
     public RedisMessageListenerContainer redisContainer(RedisConnectionFactory connectionFactory,
-                                                        RedisMessageListener listener) {
+                                                        RedisMessageListener listener,
+                                                        ListenerDispatchProperties dispatchProperties,
+                                                        ExecutorService redisListenerExecutor,
+                                                        ExecutorService redisSubscriptionExecutor,
+                                                        StringRedisTemplate stringRedisTemplate,
+                                                        MeterRegistry meterRegistry) {
         RedisMessageListenerContainer container = new RedisMessageListenerContainer();
         container.setConnectionFactory(connectionFactory);
-        container.addMessageListener(listener, topic());
+        if (dispatchProperties.isEnabled()) {
+            container.setTaskExecutor(redisSubscriptionExecutor);
+        }
+        addListener(container, listener, topic(), dispatchProperties, redisListenerExecutor, stringRedisTemplate, meterRegistry);
         return container;
     }
 
+    /**
+     * Subscribes the control channels on a separate connection and thread, so back-pressure on
+     * the application channels never delays cache invalidations, fill notices or lock releases.
+     * Their listeners are never dispatched.
+     */
+    @Bean
+    public RedisMessageListenerContainer redisControlContainer(RedisConnectionFactory connectionFactory,
+                                                               CacheInvalidationListener cacheInvalidationListener,
+                                                               NearCacheProperties nearCacheProperties,
+                                                               RedisLockService redisLockService,
+                                                               LockProperties lockProperties,
+                                                               ExecutorService redisControlSubscriptionExecutor) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.setTaskExecutor(redisControlSubscriptionExecutor);
+        container.addMessageListener(cacheInvalidationListener, new ChannelTopic(nearCacheProperties.getInvalidationChannel()));
+        container.addMessageListener(redisLockService, new ChannelTopic(lockProperties.getReleaseChannel()));
+        return container;
+    }
+
+    /**
+     * Registers a listener, wrapped so its messages are queued and handled on virtual threads
+     * if its channel is configured under {@code redis.listener.channels}.
+     */
+    private static void addListener(RedisMessageListenerContainer container, MessageListener listener, ChannelTopic topic,
+                                    ListenerDispatchProperties properties, ExecutorService executor,
+                                    StringRedisTemplate redisTemplate, MeterRegistry meterRegistry) {
+        boolean dispatched = properties.isEnabled()
+                && (properties.getChannels().isEmpty() || properties.getChannels().contains(topic.getTopic()));
+        container.addMessageListener(dispatched
+                ? new DispatchingMessageListener(listener, executor, redisTemplate,
+                properties.getMaxConcurrencyPerChannel(), properties.getQueueCapacity(),
+                properties.getOverflowPolicy(), properties.getSpillKeyPrefix(), meterRegistry)
+                : listener, topic);
+    }
+
 //    @Bean
 //    public MessageListenerAdapter listenerAdapter(RedisMessageListener listener) {
 //        return new MessageListenerAdapter(listener, "receiveMessage");
 //    }
 
     @Bean
-    RedisCacheManager cacheManager(RedisConnectionFactory connectionFactory) {
-        RedisCacheConfiguration defaults = RedisCacheConfiguration.defaultCacheConfig()
+    RedisCacheConfiguration redisCacheConfiguration(CacheSerializationProperties serializationProperties) {
+        return fixedTtlCacheConfiguration(serializationProperties)
+                .enableTimeToIdle(); // Resets the TTL countdown each time the cache entry is accessed.
+    }
+
+    private static RedisCacheConfiguration fixedTtlCacheConfiguration(CacheSerializationProperties serializationProperties) {
+        return RedisCacheConfiguration.defaultCacheConfig()
                 // Sets the default Time-To-Live (TTL) for all cache entries to 5 minutes.
                 // This means each cache entry will expire and be removed from Redis 5 minutes after being created.
                 // Without specifying TTL, cache entries would never expire and remain in Redis indefinitely.
                 .entryTtl(Duration.ofMinutes(5))
-                .enableTimeToIdle() // Resets the TTL countdown each time the cache entry is accessed.
                 .serializeKeysWith(RedisSerializationContext.SerializationPair.fromSerializer(new StringRedisSerializer()))
-                .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(new GenericJackson2JsonRedisSerializer()));
+                .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(cacheValueSerializer(serializationProperties)));
+    }
+
+    /**
+     * Serializer for cached values, chosen by {@code cache.serialization.*}. Defaults to JSON.
+     */
+    private static RedisSerializer<Object> cacheValueSerializer(CacheSerializationProperties properties) {
+        RedisSerializer<Object> serializer = properties.getFormat().createSerializer();
+        if (properties.isCompression()) {
+            serializer = new Lz4CompressingRedisSerializer(serializer, (int) properties.getCompressionThreshold().toBytes());
+        }
+        return serializer;
+    }
+
+    /**
+     * The shared (L2) tier. Application code goes through the layered {@code cacheManager} in {@link CacheConfig}.
+     */
+    @Bean
+    RedisCacheManager redisCacheManager(RedisConnectionFactory connectionFactory, RedisCacheConfiguration defaults,
+                                        CacheSerializationProperties serializationProperties,
+                                        RefreshAheadProperties refreshAheadProperties,
+                                        UserExistenceProperties userExistenceProperties,
+                                        ShardingProperties shardingProperties,
+                                        RedisShards redisShards) {
+        RedisCacheWriter cacheWriter = RedisCacheWriter.nonLockingRedisCacheWriter(connectionFactory);
+        if (redisShards.isEnabled()) {
+            cacheWriter = new ShardedRedisCacheWriter(cacheWriter,
+                    redisShards.ring().map(shard -> RedisCacheWriter.nonLockingRedisCacheWriter(shard.connectionFactory())),
+                    shardingProperties.getCaches());
+        }
+        RedisCacheManager.RedisCacheManagerBuilder builder = RedisCacheManager.builder(cacheWriter)
+                .cacheDefaults(defaults);
+        if (refreshAheadProperties.isEnabled()) {
+            // Refreshed-ahead entries need a fixed expiry; time-to-idle would keep hot entries alive forever.
+            RedisCacheConfiguration fixedTtl = fixedTtlCacheConfiguration(serializationProperties);
+            if (refreshAheadProperties.getCaches().isEmpty()) {
+                // Every cache is refreshed ahead, see CacheConfig.
+                builder.cacheDefaults(fixedTtl);
+            } else {
+                refreshAheadProperties.getCaches().forEach(name -> builder.withCacheConfiguration(name, fixedTtl));
+            }
+        }
+        // Misses are remembered only briefly, and reads must not extend that.
+        builder.withCacheConfiguration(UserExistenceProperties.USER_MISSING_CACHE,
+                fixedTtlCacheConfiguration(serializationProperties).entryTtl(userExistenceProperties.getNegativeTtl()));
+        return builder.build();
+    }
 
-        return RedisCacheManager.builder(connectionFactory)
-                .cacheDefaults(defaults)
-                .build();
+    /**
+     * Local copies of tracked keys for client-side caching. Opens its own RESP3 connection on the
+     * Lettuce client behind {@code connectionFactory}, only if {@code redis.client-side-caching.enabled}.
+     */
+    @Bean
+    public ClientSideCacheStore clientSideCacheStore(LettuceConnectionFactory connectionFactory,
+                                                     ClientSideCachingProperties properties,
+                                                     MeterRegistry meterRegistry) {
+        return new ClientSideCacheStore(connectionFactory.getRequiredNativeClient(), properties.isEnabled(),
+                properties.getMaximumSize(), properties.getTtl(), meterRegistry);
+    }
+
+    /**
+     * The Redis nodes sharded keys are spread over, if {@code redis.sharding.enabled}.
+     */
+    @Bean
+    public RedisShards redisShards(ShardingProperties properties, LettuceConnectionFactory connectionFactory,
+                                   StringRedisTemplate stringRedisTemplate) {
+        return new RedisShards(properties, connectionFactory, stringRedisTemplate);
     }
 
     @Bean
-    public RedisLockRegistry redisLockRegistry(RedisConnectionFactory connectionFactory) {
-        return new RedisLockRegistry(connectionFactory, "myRedisLockRegistry", 10000);
+    public RedisLockRegistry redisLockRegistry(RedisConnectionFactory connectionFactory, LockProperties lockProperties) {
+        return new RedisLockRegistry(connectionFactory, LOCK_REGISTRY_KEY, lockProperties.getLeaseTime().toMillis());
     }
 }
@@ -0,0 +1,73 @@
+package com.alisimsek.redisexamples.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "redis.resilience")
+public class RedisResilienceProperties {
+    /**
+     * Whether cache and rate limit calls to Redis go through the circuit breaker. When disabled,
+     * calls wait for the Lettuce command timeout and errors reach the caller.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Deadline of a cache read or write. Time spent loading a missing value is not counted.
+     */
+    private Duration cacheTimeout = Duration.ofMillis(100);
+
+    /**
+     * Deadline of a rate limit check.
+     */
+    private Duration rateLimitTimeout = Duration.ofMillis(50);
+
+    /**
+     * Calls slower than this count as slow, even if they finish within their deadline.
+     */
+    private Duration slowCallDuration = Duration.ofMillis(50);
+
+    /**
+     * Number of most recent calls the failure and slow-call rates are computed over.
+     */
+    private int windowSize = 50;
+
+    /**
+     * Calls needed in the window before the breaker may open.
+     */
+    private int minimumCalls = 20;
+
+    /**
+     * Share of failed or timed-out calls in the window at which the breaker opens.
+     */
+    private double failureRateThreshold = 0.5;
+
+    /**
+     * Share of slow calls in the window at which the breaker opens.
+     */
+    private double slowCallRateThreshold = 0.8;
+
+    /**
+     * How often Redis is pinged while the breaker is open.
+     */
+    private Duration probeInterval = Duration.ofSeconds(1);
+
+    /**
+     * Deadline of a probe ping.
+     */
+    private Duration probeTimeout = Duration.ofMillis(200);
+
+    /**
+     * Successful calls needed in the half-open state before the breaker closes. A single failure
+     * opens it again.
+     */
+    private int halfOpenCalls = 10;
+
+    /**
+     * Cache evictions remembered while Redis is unavailable, replayed once it is back. Beyond
+     * that the whole cache is cleared on recovery instead.
+     */
+    private int maxPendingEvictions = 10_000;
+}
@@ -0,0 +1,43 @@
+package com.alisimsek.redisexamples.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
+
+@Data
+@ConfigurationProperties(prefix = "cache.refresh-ahead")
+public class RefreshAheadProperties {
+    /**
+     * Whether entries close to expiry are reloaded in the background on read.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Cache names that are refreshed ahead; empty means every cache. These caches use a fixed TTL
+     * instead of time-to-idle.
+     */
+    private Set<String> caches = new HashSet<>(Set.of("userById", "userList"));
+
+    /**
+     * XFetch beta. Values above 1 favour earlier refreshes, values below 1 later ones.
+     */
+    private double beta = 1.0;
+
+    /**
+     * Maximum number of background reloads running at the same time; further triggers are skipped.
+     */
+    private int maxConcurrentRefreshes = 16;
+
+    /**
+     * Maximum number of entries whose expiry and load time are tracked per cache.
+     */
+    private long maxTrackedKeys = 10_000;
+
+    /**
+     * Load time assumed for entries this node has not loaded itself yet.
+     */
+    private Duration defaultLoadTime = Duration.ofMillis(50);
+}
@@ -0,0 +1,52 @@
+package com.alisimsek.redisexamples.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+@Data
+@ConfigurationProperties(prefix = "redis.sharding")
+public class ShardingProperties {
+    /**
+     * Whether the keys below are spread over {@link #nodes} by consistent hashing. Everything
+     * else stays on the Redis from {@code spring.data.redis}.
+     */
+    private boolean enabled = false;
+
+    /**
+     * Standalone Redis nodes as {@code host:port}. They share the password and database of
+     * {@code spring.data.redis}. A node keeps its keys as long as its entry stays the same.
+     */
+    private List<String> nodes = new ArrayList<>();
+
+    /**
+     * Points on the hash ring per node; more points spread keys more evenly.
+     */
+    private int virtualNodes = 160;
+
+    /**
+     * Cache names whose entries are sharded. These caches are not stored in hash buckets
+     * and get no client-side caching.
+     */
+    private Set<String> caches = new HashSet<>(Set.of("userById"));
+
+    /**
+     * Whether rate limit counters are sharded.
+     */
+    private boolean rateLimits = true;
+
+    /**
+     * Whether lock keys are sharded. Waiters are still woken through the Redis from {@code spring.data.redis}.
+     */
+    private boolean locks = true;
+
+    /**
+     * Key on the Redis from {@code spring.data.redis} that records the nodes the sharded keys
+     * were last placed on, to find out on startup whether nodes changed.
+     */
+    private String nodesKey = "redis:sharding:nodes";
+}
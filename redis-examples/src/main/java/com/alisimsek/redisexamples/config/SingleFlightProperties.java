@@ -0,0 +1,42 @@
+package com.alisimsek.redisexamples.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
+
+@Data
+@ConfigurationProperties(prefix = "cache.single-flight")
+public class SingleFlightProperties {
+    /**
+     * Whether cache misses on {@code @Cacheable(sync = true)} methods are coalesced across nodes.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Cache names that are coalesced. Empty means all caches.
+     */
+    private Set<String> caches = new HashSet<>();
+
+    /**
+     * How long the node rebuilding an entry holds the lease before others may take over.
+     */
+    private Duration leaseTtl = Duration.ofSeconds(10);
+
+    /**
+     * How long a caller waits for another node's rebuild before loading the value itself.
+     */
+    private Duration waitTimeout = Duration.ofSeconds(3);
+
+    /**
+     * Whether waiting callers get the last known value instead of waiting for the rebuild.
+     */
+    private boolean serveStale = true;
+
+    /**
+     * How long the last known value of an entry is kept for {@link #serveStale}.
+     */
+    private Duration staleTtl = Duration.ofHours(1);
+}
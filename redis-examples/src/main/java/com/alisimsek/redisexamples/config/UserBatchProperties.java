@@ -0,0 +1,13 @@
+package com.alisimsek.redisexamples.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "user.batch")
+public class UserBatchProperties {
+    /**
+     * IDs accepted by one batch lookup at most; larger requests are rejected with 400 Bad Request.
+     */
+    private int maxIds = 100;
+}
@@ -0,0 +1,41 @@
+package com.alisimsek.redisexamples.config;
+
+import com.alisimsek.redisexamples.service.CreateMode;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "user.create")
+public class UserCreateProperties {
+    /**
+     * Mode used when a caller does not choose one.
+     */
+    private CreateMode mode = CreateMode.DIRECT;
+
+    /**
+     * Redis list holding users accepted in write-behind mode but not yet inserted.
+     */
+    private String bufferKey = "user:create-buffer";
+
+    /**
+     * Users accepted into the buffer at most; further creates are refused until it drains.
+     */
+    private long maxBufferedUsers = 100_000;
+
+    /**
+     * Users inserted per transaction when the buffer is flushed.
+     */
+    private int batchSize = 500;
+
+    /**
+     * Delay between flushes of the buffer.
+     */
+    private Duration flushInterval = Duration.ofSeconds(1);
+
+    /**
+     * Rows inserted per transaction by the bulk import; progress is reported after each batch.
+     */
+    private int importBatchSize = 1000;
+}
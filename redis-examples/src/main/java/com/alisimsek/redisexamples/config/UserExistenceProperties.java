@@ -0,0 +1,41 @@
+package com.alisimsek.redisexamples.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "cache.user-existence")
+public class UserExistenceProperties {
+
+    /**
+     * Cache of user IDs that were not found in the DB.
+     */
+    public static final String USER_MISSING_CACHE = "userMissing";
+
+    /**
+     * Whether user IDs are checked against a Bloom filter before any cache or DB lookup.
+     */
+    private boolean bloomFilterEnabled = true;
+
+    /**
+     * Number of users the Bloom filter is sized for; beyond this the false-positive rate rises.
+     */
+    private long expectedUsers = 1_000_000;
+
+    /**
+     * Target false-positive rate at {@link #expectedUsers}.
+     */
+    private double falsePositiveRate = 0.01;
+
+    /**
+     * How often the filter is rebuilt from the DB, which clears bits of deleted users.
+     */
+    private Duration rebuildInterval = Duration.ofMinutes(10);
+
+    /**
+     * How long an ID that was not found in the DB is remembered as missing.
+     */
+    private Duration negativeTtl = Duration.ofSeconds(30);
+}
@@ -0,0 +1,36 @@
+package com.alisimsek.redisexamples.config;
+
+import com.alisimsek.redisexamples.service.UpdateMode;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "user.update")
+public class UserUpdateProperties {
+    /**
+     * Mode used when a caller does not choose one.
+     */
+    private UpdateMode mode = UpdateMode.OPTIMISTIC;
+
+    /**
+     * How many times an optimistic update is retried after a version conflict before falling back to the lock.
+     */
+    private int maxRetries = 3;
+
+    /**
+     * Base delay before retrying a conflicting update; doubled on every retry and jittered.
+     */
+    private Duration retryBackoff = Duration.ofMillis(5);
+
+    /**
+     * How long a user whose optimistic retries ran out is updated under the lock directly.
+     */
+    private Duration contendedTtl = Duration.ofSeconds(30);
+
+    /**
+     * Maximum number of contended users remembered at once.
+     */
+    private long maxContendedKeys = 10_000;
+}
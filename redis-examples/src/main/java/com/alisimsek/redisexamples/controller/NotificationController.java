@@ -1,14 +1,20 @@
 package com.alisimsek.redisexamples.controller;
 
 
+import com.alisimsek.redisexamples.config.NotificationProperties;
 import com.alisimsek.redisexamples.redismessaging.Notification;
+import com.alisimsek.redisexamples.redismessaging.NotificationTransport;
 import com.alisimsek.redisexamples.redismessaging.publisher.RedisMessagePublisher;
+import com.alisimsek.redisexamples.redismessaging.stream.NotificationStreamPublisher;
 import lombok.RequiredArgsConstructor;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.concurrent.CompletableFuture;
+
 @RestController
 @RequestMapping("/api/v1/notifications")
 @RequiredArgsConstructor
@@ -16,9 +22,21 @@ public class NotificationController {
 
     private static final String CHANNEL = "notification-channel";
     private final RedisMessagePublisher redisMessagePublisher;
+    private final NotificationStreamPublisher notificationStreamPublisher;
+    private final NotificationProperties notificationProperties;
 
+    /**
+     * Publishes a notification. {@code transport} overrides the configured {@code notification.transport} for this call.
+     * Pub/sub messages are coalesced with other concurrent publishes into one pipelined write.
+     */
     @PostMapping
-    public void publish(@RequestBody Notification notification) {
-        redisMessagePublisher.publish(CHANNEL, notification);
+    public CompletableFuture<Void> publish(@RequestBody Notification notification,
+                                          @RequestParam(required = false) NotificationTransport transport) {
+        NotificationTransport selected = transport == null ? notificationProperties.getTransport() : transport;
+        if (selected == NotificationTransport.STREAM) {
+            notificationStreamPublisher.publish(CHANNEL, notification);
+            return CompletableFuture.completedFuture(null);
+        }
+        return redisMessagePublisher.publishAsync(CHANNEL, notification).thenAccept(receivers -> { });
     }
 }
@@ -0,0 +1,76 @@
+package com.alisimsek.redisexamples.controller;
+
+import com.alisimsek.redisexamples.config.UserBatchProperties;
+import com.alisimsek.redisexamples.config.UserCreateProperties;
+import com.alisimsek.redisexamples.entity.User;
+import com.alisimsek.redisexamples.exception.BatchTooLargeException;
+import com.alisimsek.redisexamples.exception.RateLimitException;
+import com.alisimsek.redisexamples.ratelimit.RateLimitAlgorithm;
+import com.alisimsek.redisexamples.ratelimit.RateLimitMode;
+import com.alisimsek.redisexamples.ratelimit.RateLimitRule;
+import com.alisimsek.redisexamples.ratelimit.ReactiveRateLimiter;
+import com.alisimsek.redisexamples.service.CreateMode;
+import com.alisimsek.redisexamples.service.ReactiveUserService;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Reactive variant of the user reads and creation in {@link UserController}. Handlers return
+ * {@link Mono}, so Spring MVC hands the Tomcat thread back while Redis is awaited and writes the
+ * response once the reply arrives. Unknown users are answered with 404.
+ */
+@RestController
+@RequestMapping("/api/v2/users")
+@RequiredArgsConstructor
+public class ReactiveUserController {
+    // The limit of POST /api/v1/users, with the algorithm and mode @RateLimited defaults to.
+    private static final RateLimitRule CREATE_LIMIT = new RateLimitRule(UserController.CREATE_LIMIT,
+            DurationStyle.detectAndParse(UserController.CREATE_WINDOW), RateLimitAlgorithm.SLIDING_WINDOW_LOG,
+            RateLimitMode.EXACT);
+    private final ReactiveUserService reactiveUserService;
+    private final ReactiveRateLimiter reactiveRateLimiter;
+    private final UserCreateProperties userCreateProperties;
+    private final UserBatchProperties userBatchProperties;
+
+    @GetMapping("/{id}")
+    public Mono<ResponseEntity<User>> getUser(@PathVariable Long id) {
+        return reactiveUserService.getUser(id)
+                .map(ResponseEntity::ok)
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Returns the users with the given IDs; at most {@code user.batch.max-ids} IDs per call.
+     */
+    @GetMapping("/batch")
+    public Mono<List<User>> getUsers(@RequestParam List<Long> ids) {
+        if (ids.size() > userBatchProperties.getMaxIds()) {
+            throw new BatchTooLargeException("At most " + userBatchProperties.getMaxIds() + " IDs per batch");
+        }
+        return reactiveUserService.getUsers(ids);
+    }
+
+    /**
+     * Creates a user, see {@link UserController#createUser}.
+     */
+    @PostMapping
+    public Mono<ResponseEntity<User>> createUser(@RequestBody User user, @RequestParam(required = false) CreateMode mode,
+                                                 HttpServletRequest request) {
+        boolean writeBehind = (mode == null ? userCreateProperties.getMode() : mode) == CreateMode.WRITE_BEHIND;
+        return reactiveRateLimiter.tryAcquire(UserController.CREATE_ROUTE, CREATE_LIMIT, request.getRemoteAddr())
+                .flatMap(allowed -> {
+                    if (!allowed) {
+                        return Mono.error(new RateLimitException("Rate limit exceeded"));
+                    }
+                    return writeBehind
+                            ? reactiveUserService.acceptUser(user).map(accepted -> ResponseEntity.accepted().body(accepted))
+                            : reactiveUserService.createUser(user).map(ResponseEntity::ok);
+                });
+    }
+}
@@ -1,50 +1,129 @@
 package com.alisimsek.redisexamples.controller;
+import com.alisimsek.redisexamples.config.UserBatchProperties;
+import com.alisimsek.redisexamples.config.UserCreateProperties;
 import com.alisimsek.redisexamples.entity.User;
-import com.alisimsek.redisexamples.exception.RateLimitException;
+import com.alisimsek.redisexamples.exception.BatchTooLargeException;
+import com.alisimsek.redisexamples.ratelimit.RateLimited;
+import com.alisimsek.redisexamples.service.CreateMode;
 import com.alisimsek.redisexamples.service.RedisLockService;
+import com.alisimsek.redisexamples.service.UpdateMode;
+import com.alisimsek.redisexamples.service.UserImportService;
 import com.alisimsek.redisexamples.service.UserService;
+import com.alisimsek.redisexamples.service.UserWriteBehindBuffer;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
-import jakarta.servlet.http.HttpServletRequest;
-import org.springframework.data.redis.core.RedisTemplate;
 
 @RestController
 @RequestMapping("/api/v1/users")
 @RequiredArgsConstructor
 @Slf4j
 public class UserController {
+    // Also applied by POST /api/v2/users, so both versions share one limit per client.
+    public static final String CREATE_ROUTE = "user-create";
+    public static final long CREATE_LIMIT = 3;
+    public static final String CREATE_WINDOW = "1m";
+    private static final int MAX_SEARCH_RESULTS = 50;
+    private static final String NDJSON = "application/x-ndjson";
     private final UserService userService;
     private final RedisLockService redisLockService;
-
-    private final RedisTemplate<String, Object> redisTemplate;
+    private final UserWriteBehindBuffer userWriteBehindBuffer;
+    private final UserCreateProperties userCreateProperties;
+    private final UserBatchProperties userBatchProperties;
+    private final UserImportService userImportService;
+    private final ObjectMapper objectMapper;
 
     @GetMapping("/{id}")
     public User getUser(@PathVariable Long id) {
         return userService.getUser(id);
     }
 
-    @PostMapping
-    public User createUser(@RequestBody User user, HttpServletRequest request) {
-        String ip = request.getRemoteAddr();
-        String key = "rate_limit_" + ip;
-        Long count = redisTemplate.opsForValue().increment(key);
-        if (count == 1) {
-            redisTemplate.expire(key, java.time.Duration.ofMinutes(1));
+    /**
+     * Returns a page of users, e.g. {@code ?page=0&size=20}. Pages ordered by ID are served from Redis.
+     */
+    @GetMapping("/page")
+    public Page<User> getUsers(Pageable pageable) {
+        return userService.getUsers(pageable);
+    }
+
+    @GetMapping("/by-email")
+    public User getUserByEmail(@RequestParam String email) {
+        return userService.getUserByEmail(email);
+    }
+
+    /**
+     * Type-ahead search by name, name word or email prefix, e.g. {@code ?q=jo&limit=10}.
+     */
+    @GetMapping("/search")
+    public List<User> searchUsers(@RequestParam String q, @RequestParam(defaultValue = "10") int limit) {
+        return userService.searchUsers(q, Math.min(limit, MAX_SEARCH_RESULTS));
+    }
+
+    /**
+     * Returns the users with the given IDs, e.g. {@code ?ids=1,2,3}; at most {@code user.batch.max-ids} IDs per call.
+     */
+    @GetMapping("/batch")
+    public List<User> getUsers(@RequestParam List<Long> ids) {
+        if (ids.size() > userBatchProperties.getMaxIds()) {
+            throw new BatchTooLargeException("At most " + userBatchProperties.getMaxIds() + " IDs per batch");
         }
-        if (count > 3) {
-            log.warn("Rate limit reached for {}", ip);
-            throw new RateLimitException("Rate limit exceeded");
+        return userService.getUsers(ids);
+    }
+
+    /**
+     * Creates a user. {@code mode} overrides the configured {@code user.create.mode} for this call;
+     * in write-behind mode the user is only queued and 202 Accepted is returned.
+     */
+    @PostMapping
+    @RateLimited(route = CREATE_ROUTE, limit = CREATE_LIMIT, window = CREATE_WINDOW)
+    public ResponseEntity<User> createUser(@RequestBody User user, @RequestParam(required = false) CreateMode mode) {
+        if ((mode == null ? userCreateProperties.getMode() : mode) == CreateMode.WRITE_BEHIND) {
+            return ResponseEntity.accepted().body(userWriteBehindBuffer.accept(user));
         }
-        return userService.createUser(user);
+        return ResponseEntity.ok(userService.createUser(user));
     }
 
+    /**
+     * Bulk import from an NDJSON body with one user object per line. The response is NDJSON too:
+     * an {@code error} line per rejected row and a {@code progress} line per inserted batch,
+     * written as the import goes, followed by a {@code done} line with the totals.
+     */
+    @PostMapping(value = "/import", consumes = NDJSON)
+    @RateLimited(route = "user-import", limit = 5, window = "1m")
+    public void importUsers(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        response.setContentType(NDJSON);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        PrintWriter writer = response.getWriter();
+        userImportService.importUsers(request.getInputStream(), event -> {
+            try {
+                writer.println(objectMapper.writeValueAsString(event));
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException(e);
+            }
+            writer.flush();
+        });
+    }
+
+    /**
+     * Updates a user. {@code mode} overrides the configured {@code user.update.mode} for this call.
+     */
     @PutMapping("/{id}")
-    public User updateUser(@PathVariable Long id, @RequestBody User user) {
-        return userService.updateUser(id, user);
+    public User updateUser(@PathVariable Long id, @RequestBody User user,
+                           @RequestParam(required = false) UpdateMode mode) {
+        return mode == null ? userService.updateUser(id, user) : userService.updateUser(id, user, mode);
     }
 
     @PutMapping("/update-without-redis-unlock/{id}")
@@ -63,16 +142,14 @@ public class UserController {
     }
 
     /**
-     * Tries to forcefully unlock the Redis lock by key.
+     * Forcefully releases the Redis lock by key, regardless of which node holds it.
      */
     @DeleteMapping("/unlock")
     public ResponseEntity<String> unlock(@RequestParam String lockKey) {
-        try {
-            redisLockService.unlock(lockKey);
-            return ResponseEntity.ok("Lock released for key: " + lockKey);
-        } catch (IllegalStateException ex) {
+        if (!redisLockService.forceUnlock(lockKey)) {
             return ResponseEntity.status(HttpStatus.CONFLICT)
-                    .body("Could not unlock. " + ex.getMessage());
+                    .body("Could not unlock. No lock is held for key: " + lockKey);
         }
+        return ResponseEntity.ok("Lock released for key: " + lockKey);
     }
 }
\ No newline at end of file
@@ -1,5 +1,6 @@
 package com.alisimsek.redisexamples.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.*;
 
@@ -11,7 +12,9 @@ import lombok.*;
 //@RedisHash("user") //for using redis as a db
 public class User {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // A pooled sequence hands out IDs without a round trip per insert, which lets Hibernate batch inserts.
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "user_seq")
+    @SequenceGenerator(name = "user_seq", sequenceName = "user_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -19,4 +22,17 @@ public class User {
 
     @Column(nullable = false, unique = true)
     private String email;
+
+    @Version
+    private Long version;
+
+    /**
+     * Fencing token of the last update made under the Redis lock; updates with older tokens are rejected.
+     */
+    @JsonIgnore
+    private Long lockFence;
+
+    public User(Long id, String name, String email, Long version) {
+        this(id, name, email, version, null);
+    }
 }
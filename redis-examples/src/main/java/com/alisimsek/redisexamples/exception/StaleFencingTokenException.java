@@ -0,0 +1,15 @@
+package com.alisimsek.redisexamples.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * A write made under a distributed lock was rejected because a holder with a newer fencing
+ * token had already written, i.e. the lease of this holder expired before its write.
+ */
+@ResponseStatus(HttpStatus.CONFLICT)
+public class StaleFencingTokenException extends RuntimeException {
+    public StaleFencingTokenException(String message) {
+        super(message);
+    }
+}
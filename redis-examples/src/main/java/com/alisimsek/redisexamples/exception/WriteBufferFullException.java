@@ -0,0 +1,11 @@
+package com.alisimsek.redisexamples.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class WriteBufferFullException extends RuntimeException {
+    public WriteBufferFullException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,127 @@
+package com.alisimsek.redisexamples.index;
+
+import com.alisimsek.redisexamples.entity.User;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Maps lowercase emails to user IDs in one Redis hash, so a user can be found by email
+ * through the {@code userById} cache without querying the database.
+ * <p>
+ * While a rebuild runs, emails set and removed on any node are recorded in a side hash and
+ * applied to the rebuilt index before it replaces the current one.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class UserEmailIndex implements UserIndex {
+
+    static final String KEY = "user:email-index";
+    private static final String REBUILD_KEY = KEY + ":rebuild";
+    private static final String REBUILD_MARKER_KEY = KEY + ":rebuilding";
+    private static final String REBUILD_CHANGES_KEY = KEY + ":rebuild:changes";
+    private static final List<String> UPDATE_KEYS = List.of(KEY, REBUILD_MARKER_KEY, REBUILD_CHANGES_KEY);
+    /**
+     * A rebuild that takes longer is abandoned, since changes are no longer recorded for it.
+     */
+    private static final Duration REBUILD_TIMEOUT = Duration.ofMinutes(10);
+    private static final RedisScript<Long> ADD_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/user-email-index-add.lua"), Long.class);
+    private static final RedisScript<Long> SWAP_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/user-email-index-swap.lua"), Long.class);
+    private static final RedisScript<Long> FINISH_REBUILD_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/user-email-index-finish-rebuild.lua"), Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private volatile String rebuildToken;
+
+    /**
+     * @return the ID the email maps to, or null if it is not indexed
+     */
+    public Long find(String email) {
+        String id = (String) redisTemplate.opsForHash().get(KEY, normalize(email));
+        return id == null ? null : Long.valueOf(id);
+    }
+
+    @Override
+    public void added(User user) {
+        swap(null, user.getEmail(), user.getId());
+    }
+
+    /**
+     * New users cannot have an older mapping to clear, so they are set in one script call.
+     */
+    @Override
+    public void addedAll(List<User> users) {
+        redisTemplate.execute(ADD_SCRIPT, UPDATE_KEYS, users.stream()
+                .flatMap(user -> Stream.of(normalize(user.getEmail()), user.getId().toString()))
+                .toArray());
+    }
+
+    @Override
+    public void changed(User before, User after) {
+        swap(before.getEmail(), after.getEmail(), after.getId());
+    }
+
+    @Override
+    public void removed(User user) {
+        swap(user.getEmail(), null, user.getId());
+    }
+
+    /**
+     * Clears leftovers of an earlier rebuild, then marks the rebuild as running. The database is
+     * read afterwards, so changes made before the marker is set are still picked up from there.
+     */
+    @Override
+    public void beginRebuild() {
+        redisTemplate.delete(REBUILD_CHANGES_KEY);
+        rebuildToken = UUID.randomUUID().toString();
+        redisTemplate.opsForValue().set(REBUILD_MARKER_KEY, rebuildToken, REBUILD_TIMEOUT);
+    }
+
+    @Override
+    public void rebuild(List<User> batch) {
+        String rebuildKey = REBUILD_KEY + ":" + rebuildToken;
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection stringConnection = (StringRedisConnection) connection;
+            batch.forEach(user ->
+                    stringConnection.hSet(rebuildKey, normalize(user.getEmail()), user.getId().toString()));
+            return null;
+        });
+    }
+
+    /**
+     * Applies the changes recorded since {@link #beginRebuild()} to the rebuilt index and renames
+     * it over the old one in one script. If the rebuild timed out or another node started one
+     * since, the current index is kept; it has been updated on every write.
+     */
+    @Override
+    public void finishRebuild() {
+        Long swapped = redisTemplate.execute(FINISH_REBUILD_SCRIPT, List.of(REBUILD_MARKER_KEY,
+                REBUILD_KEY + ":" + rebuildToken, REBUILD_CHANGES_KEY, KEY), rebuildToken);
+        if (!Long.valueOf(1).equals(swapped)) {
+            log.warn("Email index rebuild was superseded or took longer than {}, keeping the current index",
+                    REBUILD_TIMEOUT);
+        }
+    }
+
+    private void swap(String oldEmail, String newEmail, Long id) {
+        redisTemplate.execute(SWAP_SCRIPT, UPDATE_KEYS, normalize(oldEmail), normalize(newEmail), id.toString());
+    }
+
+    private static String normalize(String email) {
+        return email == null ? "" : email.trim().toLowerCase(Locale.ROOT);
+    }
+}
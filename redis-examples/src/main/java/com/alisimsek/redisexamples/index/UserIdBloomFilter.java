@@ -0,0 +1,324 @@
+package com.alisimsek.redisexamples.index;
+
+import com.alisimsek.redisexamples.config.RedisResilienceProperties;
+import com.alisimsek.redisexamples.config.UserExistenceProperties;
+import com.alisimsek.redisexamples.entity.User;
+import com.alisimsek.redisexamples.repository.UserRepository;
+import com.alisimsek.redisexamples.resilience.RedisCircuitBreaker;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bloom filter over all user IDs, kept in a Redis bitmap so every node shares it.
+ * An ID the filter rules out certainly does not exist and needs no cache or DB lookup.
+ * <p>
+ * Bits cannot be cleared, so deleted users keep passing the filter until the next rebuild,
+ * which runs on startup and every {@code cache.user-existence.rebuild-interval}.
+ * Bit offsets are derived in Java with double hashing; the scripts only set and test them.
+ * <p>
+ * If adding a user fails, the filter could reject that user on any node, so the bitmap is deleted
+ * and every node lets all IDs through until the next rebuild. A running rebuild is abandoned too,
+ * since the user's bits may be missing from it. If Redis cannot be reached to delete the bitmap,
+ * this node lets all IDs through and retries the delete as soon as Redis is back.
+ * <p>
+ * While a rebuild runs, the bit offsets of users added on any node are recorded in a side set
+ * and set in the rebuilt bitmap before it replaces the filter. IDs are allocated in blocks and
+ * can commit out of order, so catching up on higher IDs after the swap would not be enough.
+ */
+@Component
+@Slf4j
+public class UserIdBloomFilter implements UserIndex {
+
+    static final String KEY = "user:bloom";
+    private static final String REBUILD_KEY = KEY + ":rebuild";
+    private static final String REBUILD_LOCK_KEY = KEY + ":rebuild-lock";
+    private static final String REBUILD_MARKER_KEY = KEY + ":rebuilding";
+    private static final String REBUILD_ADDED_KEY = KEY + ":rebuild:added";
+    private static final List<String> ADD_KEYS = List.of(KEY, REBUILD_MARKER_KEY, REBUILD_ADDED_KEY);
+    /**
+     * A rebuild that takes longer is abandoned, since additions are no longer recorded for it.
+     */
+    private static final Duration REBUILD_TIMEOUT = Duration.ofMinutes(10);
+    private static final int BATCH_SIZE = 1000;
+    private static final RedisScript<Long> ADD_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/bloom-add.lua"), Long.class);
+    private static final RedisScript<Long> FINISH_REBUILD_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/bloom-finish-rebuild.lua"), Long.class);
+    private static final RedisScript<Long> CHECK_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/bloom-check.lua"), Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final UserRepository userRepository;
+    private final UserExistenceProperties properties;
+    private final RedisCircuitBreaker circuitBreaker;
+    private final RedisResilienceProperties resilienceProperties;
+    private final long bits;
+    private final int hashes;
+    private final Counter rejected;
+    private final Counter falsePositives;
+    // Elements added since the last rebuild, including deleted ones; used for the estimated rate.
+    private final AtomicLong elements = new AtomicLong();
+    // Set while the filter is invalidated on this node only, because the bitmap could not be deleted.
+    private volatile boolean stale;
+
+    private byte[] rebuildBitmap;
+    private long rebuildElements;
+    private String rebuildToken;
+
+    public UserIdBloomFilter(StringRedisTemplate redisTemplate, UserRepository userRepository,
+                             UserExistenceProperties properties, RedisCircuitBreaker circuitBreaker,
+                             RedisResilienceProperties resilienceProperties, MeterRegistry meterRegistry) {
+        this.redisTemplate = redisTemplate;
+        this.userRepository = userRepository;
+        this.properties = properties;
+        this.circuitBreaker = circuitBreaker;
+        this.resilienceProperties = resilienceProperties;
+        double ln2 = Math.log(2);
+        this.bits = (long) Math.ceil(-properties.getExpectedUsers() * Math.log(properties.getFalsePositiveRate()) / (ln2 * ln2));
+        this.hashes = Math.max(1, (int) Math.round((double) bits / properties.getExpectedUsers() * ln2));
+        this.rejected = resultCounter(meterRegistry, "rejected");
+        this.falsePositives = resultCounter(meterRegistry, "false_positive");
+        Gauge.builder("user.existence.bloom.false.positive.rate", this, UserIdBloomFilter::estimatedFalsePositiveRate)
+                .description("False-positive rate expected from the filter's size and fill")
+                .tag("kind", "estimated")
+                .register(meterRegistry);
+        // Of all lookups for IDs that do not exist, the share the filter let through.
+        Gauge.builder("user.existence.bloom.false.positive.rate", this, filter -> {
+                    double passed = filter.falsePositives.count();
+                    double total = passed + filter.rejected.count();
+                    return total == 0 ? 0 : passed / total;
+                })
+                .description("False-positive rate observed on lookups of nonexistent users")
+                .tag("kind", "observed")
+                .register(meterRegistry);
+        log.info("User ID Bloom filter sized at {} bits with {} hashes", bits, hashes);
+        circuitBreaker.addReconnectListener(() -> {
+            if (stale && invalidate()) {
+                rebuildFromDb();
+            }
+        });
+    }
+
+    /**
+     * @return false only if no user with the ID exists; true if it may exist, or if the filter
+     * is disabled, invalidated, unreachable or has not been built yet
+     */
+    public boolean mightContain(Long id) {
+        if (!properties.isBloomFilterEnabled() || stale) {
+            return true;
+        }
+        Long result = circuitBreaker.execute("bloom_check", resilienceProperties.getCacheTimeout(),
+                () -> redisTemplate.execute(CHECK_SCRIPT, List.of(KEY), offsets(id)), () -> null);
+        if (Long.valueOf(0).equals(result)) {
+            rejected.increment();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Records that an ID passed the filter but was not found in the DB.
+     */
+    public void recordFalsePositive() {
+        if (properties.isBloomFilterEnabled()) {
+            falsePositives.increment();
+        }
+    }
+
+    @Override
+    public void added(User user) {
+        if (properties.isBloomFilterEnabled()) {
+            try {
+                redisTemplate.execute(ADD_SCRIPT, ADD_KEYS, offsets(user.getId()));
+            } catch (RuntimeException e) {
+                invalidate();
+                throw e;
+            }
+            elements.incrementAndGet();
+        }
+    }
+
+    /**
+     * Sets the bits of all users in one script call.
+     */
+    @Override
+    public void addedAll(List<User> users) {
+        if (!properties.isBloomFilterEnabled() || users.isEmpty()) {
+            return;
+        }
+        Object[] offsets = users.stream().flatMap(user -> Arrays.stream(offsets(user.getId()))).toArray();
+        try {
+            redisTemplate.execute(ADD_SCRIPT, ADD_KEYS, offsets);
+        } catch (RuntimeException e) {
+            invalidate();
+            throw e;
+        }
+        elements.addAndGet(users.size());
+    }
+
+    @Override
+    public void removed(User user) {
+        // Bloom filters cannot forget; the bits are dropped on the next rebuild.
+    }
+
+    /**
+     * Starts a rebuild. The bitmap is assembled in memory and written to Redis in one SET.
+     * Additions are recorded from here on, before the DB is read.
+     */
+    @Override
+    public synchronized void beginRebuild() {
+        rebuildToken = UUID.randomUUID().toString();
+        redisTemplate.delete(REBUILD_ADDED_KEY);
+        redisTemplate.opsForValue().set(REBUILD_MARKER_KEY, rebuildToken, REBUILD_TIMEOUT);
+        rebuildBitmap = new byte[(int) ((bits + 7) / 8)];
+        rebuildElements = 0;
+    }
+
+    @Override
+    public synchronized void rebuild(List<User> batch) {
+        batch.forEach(user -> addToRebuild(user.getId()));
+    }
+
+    /**
+     * Writes the rebuilt bitmap, sets the bits recorded since {@link #beginRebuild()} and renames
+     * it over the old one in one script, so no user added meanwhile is rejected. If the rebuild
+     * timed out or another node started one since, the current filter is kept.
+     */
+    @Override
+    public synchronized void finishRebuild() {
+        String rebuildKey = REBUILD_KEY + ":" + rebuildToken;
+        byte[] bitmap = rebuildBitmap;
+        rebuildBitmap = null;
+        redisTemplate.execute((RedisCallback<Object>) connection ->
+                connection.stringCommands().set(rebuildKey.getBytes(StandardCharsets.UTF_8), bitmap));
+        Long swapped = redisTemplate.execute(FINISH_REBUILD_SCRIPT,
+                List.of(REBUILD_MARKER_KEY, rebuildKey, REBUILD_ADDED_KEY, KEY), rebuildToken);
+        if (!Long.valueOf(1).equals(swapped)) {
+            log.warn("Bloom filter rebuild was superseded or took longer than {}, keeping the current filter",
+                    REBUILD_TIMEOUT);
+            return;
+        }
+        stale = false;
+        elements.set(rebuildElements);
+    }
+
+    /**
+     * Rebuilds the filter from the DB so deleted users stop passing it. Only one node rebuilds
+     * per interval.
+     */
+    @Scheduled(initialDelayString = "${cache.user-existence.rebuild-interval:10m}",
+            fixedDelayString = "${cache.user-existence.rebuild-interval:10m}")
+    public void rebuildPeriodically() {
+        if (!properties.isBloomFilterEnabled()) {
+            return;
+        }
+        if (stale) {
+            invalidate();
+        }
+        // Held for half an interval and not released, so other nodes skip this round.
+        Boolean acquired = redisTemplate.opsForValue().setIfAbsent(REBUILD_LOCK_KEY, UUID.randomUUID().toString(),
+                properties.getRebuildInterval().dividedBy(2));
+        if (Boolean.TRUE.equals(acquired)) {
+            rebuildFromDb();
+        }
+    }
+
+    /**
+     * Deletes the bitmap, so every node lets all IDs through, and the rebuild marker, so a running
+     * rebuild does not replace it. Until that succeeds only this node lets all IDs through.
+     *
+     * @return true if the filter was invalidated on all nodes
+     */
+    private boolean invalidate() {
+        try {
+            redisTemplate.delete(List.of(KEY, REBUILD_MARKER_KEY));
+            stale = false;
+            return true;
+        } catch (RuntimeException e) {
+            log.warn("Could not invalidate user ID Bloom filter, letting all IDs through on this node: {}",
+                    e.getMessage());
+            stale = true;
+            return false;
+        }
+    }
+
+    private void rebuildFromDb() {
+        long start = System.currentTimeMillis();
+        try {
+            beginRebuild();
+            List<Long> ids;
+            long after = 0;
+            while (!(ids = userRepository.findIdsAfter(after, PageRequest.of(0, BATCH_SIZE))).isEmpty()) {
+                synchronized (this) {
+                    ids.forEach(this::addToRebuild);
+                }
+                after = ids.getLast();
+            }
+            finishRebuild();
+            log.info("Rebuilt user ID Bloom filter from {} users in {} ms", elements.get(),
+                    System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            log.error("Failed to rebuild user ID Bloom filter", e);
+        }
+    }
+
+    private void addToRebuild(Long id) {
+        for (long offset : bitOffsets(id)) {
+            // Redis numbers bitmap bits from the most significant bit of the first byte.
+            rebuildBitmap[(int) (offset >>> 3)] |= (byte) (0x80 >>> (offset & 7));
+        }
+        rebuildElements++;
+    }
+
+    private double estimatedFalsePositiveRate() {
+        return Math.pow(1 - Math.exp(-(double) hashes * elements.get() / bits), hashes);
+    }
+
+    private Object[] offsets(Long id) {
+        return Arrays.stream(bitOffsets(id)).mapToObj(Long::toString).toArray();
+    }
+
+    private long[] bitOffsets(Long id) {
+        long hash = mix(id);
+        long h1 = hash & 0xFFFFFFFFL;
+        long h2 = hash >>> 32;
+        long[] offsets = new long[hashes];
+        for (int i = 0; i < hashes; i++) {
+            offsets[i] = Math.floorMod(h1 + i * h2, bits);
+        }
+        return offsets;
+    }
+
+    /**
+     * SplitMix64 finalizer; spreads sequential IDs evenly over the bitmap.
+     */
+    private static long mix(long value) {
+        long z = value + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    private static Counter resultCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("user.existence")
+                .description("Lookups of users that do not exist, by how they were answered")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
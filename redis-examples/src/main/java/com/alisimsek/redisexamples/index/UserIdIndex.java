@@ -0,0 +1,133 @@
+package com.alisimsek.redisexamples.index;
+
+import com.alisimsek.redisexamples.entity.User;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * All user IDs in ascending order, kept in a Redis sorted set scored by ID.
+ * Lets pages of users be resolved by rank without querying the database.
+ * <p>
+ * While a rebuild runs, writes from any node also go to the index being rebuilt, and removed IDs
+ * are recorded so a database page read before the delete cannot bring them back.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class UserIdIndex implements UserIndex {
+
+    static final String KEY = "user:ids";
+    private static final String REBUILD_KEY = KEY + ":rebuild";
+    private static final String REBUILD_MARKER_KEY = KEY + ":rebuilding";
+    private static final String REBUILD_REMOVED_KEY = KEY + ":rebuild:removed";
+    // Set by the first rebuild; writes alone would leave an index missing every older user.
+    private static final String BUILT_KEY = KEY + ":built";
+    /**
+     * A rebuild that takes longer is abandoned, since writes are no longer mirrored to it.
+     */
+    private static final Duration REBUILD_TIMEOUT = Duration.ofMinutes(10);
+    private static final RedisScript<Long> ADD_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/user-id-index-add.lua"), Long.class);
+    private static final RedisScript<Long> REMOVE_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/user-id-index-remove.lua"), Long.class);
+    private static final RedisScript<Long> FINISH_REBUILD_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/user-id-index-finish-rebuild.lua"), Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private volatile String rebuildToken;
+
+    @Override
+    public void added(User user) {
+        addedAll(List.of(user));
+    }
+
+    @Override
+    public void addedAll(List<User> users) {
+        redisTemplate.execute(ADD_SCRIPT, List.of(KEY, REBUILD_MARKER_KEY, REBUILD_KEY),
+                users.stream().map(user -> user.getId().toString()).toArray());
+    }
+
+    @Override
+    public void removed(User user) {
+        redisTemplate.execute(REMOVE_SCRIPT, List.of(KEY, REBUILD_MARKER_KEY, REBUILD_REMOVED_KEY),
+                user.getId().toString());
+    }
+
+    /**
+     * @return the zero-based position of the ID, or null if it is not indexed
+     */
+    public Long rank(Long id) {
+        return redisTemplate.opsForZSet().rank(KEY, id.toString());
+    }
+
+    /**
+     * @return the number of indexed IDs, or null if the index has not been built from the DB
+     */
+    public Long count() {
+        List<Object> results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection stringConnection = (StringRedisConnection) connection;
+            stringConnection.exists(BUILT_KEY);
+            stringConnection.zCard(KEY);
+            return null;
+        });
+        return Boolean.TRUE.equals(results.get(0)) ? (Long) results.get(1) : null;
+    }
+
+    /**
+     * @return the IDs at positions {@code start} to {@code end}, both inclusive
+     */
+    public List<Long> range(long start, long end) {
+        Set<String> ids = redisTemplate.opsForZSet().range(KEY, start, end);
+        return ids == null ? List.of() : ids.stream().map(Long::valueOf).toList();
+    }
+
+    /**
+     * Clears leftovers of an earlier rebuild, then marks the rebuild as running. The database is
+     * read afterwards, so writes made before the marker is set are still picked up from there.
+     */
+    @Override
+    public void beginRebuild() {
+        redisTemplate.delete(List.of(REBUILD_KEY, REBUILD_REMOVED_KEY));
+        rebuildToken = UUID.randomUUID().toString();
+        redisTemplate.opsForValue().set(REBUILD_MARKER_KEY, rebuildToken, REBUILD_TIMEOUT);
+    }
+
+    @Override
+    public void rebuild(List<User> batch) {
+        zAddAll(REBUILD_KEY, batch);
+    }
+
+    /**
+     * Renames the rebuilt set over the old one, so readers never see a partial index. IDs removed
+     * during the rebuild are dropped from it first. If the rebuild timed out or another node
+     * started one since, the current index is kept; it has been updated on every write.
+     */
+    @Override
+    public void finishRebuild() {
+        Long swapped = redisTemplate.execute(FINISH_REBUILD_SCRIPT,
+                List.of(REBUILD_MARKER_KEY, REBUILD_KEY, REBUILD_REMOVED_KEY, KEY, BUILT_KEY), rebuildToken);
+        if (!Long.valueOf(1).equals(swapped)) {
+            log.warn("ID index rebuild was superseded or took longer than {}, keeping the current index",
+                    REBUILD_TIMEOUT);
+        }
+    }
+
+    private void zAddAll(String key, List<User> users) {
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection stringConnection = (StringRedisConnection) connection;
+            users.forEach(user -> stringConnection.zAdd(key, user.getId(), user.getId().toString()));
+            return null;
+        });
+    }
+}
@@ -0,0 +1,38 @@
+package com.alisimsek.redisexamples.index;
+
+import com.alisimsek.redisexamples.entity.User;
+
+import java.util.List;
+
+/**
+ * A Redis structure derived from the user table. Kept up to date by {@code UserService}
+ * on every write and rebuilt from the database on startup by {@link UserIndexInitializer}.
+ */
+public interface UserIndex {
+
+    void added(User user);
+
+    /**
+     * Adds many new users at once; implementations pipeline the writes.
+     */
+    default void addedAll(List<User> users) {
+        users.forEach(this::added);
+    }
+
+    /**
+     * @param before a copy of the user as it was before the update
+     */
+    default void changed(User before, User after) {
+    }
+
+    void removed(User user);
+
+    /**
+     * Starts a rebuild; the index keeps serving its current content until {@link #finishRebuild()}.
+     */
+    void beginRebuild();
+
+    void rebuild(List<User> batch);
+
+    void finishRebuild();
+}
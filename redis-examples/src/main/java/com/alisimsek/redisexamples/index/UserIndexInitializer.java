@@ -0,0 +1,57 @@
+package com.alisimsek.redisexamples.index;
+
+import com.alisimsek.redisexamples.entity.User;
+import com.alisimsek.redisexamples.repository.UserRepository;
+import com.alisimsek.redisexamples.service.UserService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Rebuilds every {@link UserIndex} from the database on startup, reading users in batches.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class UserIndexInitializer implements ApplicationRunner {
+
+    private static final int BATCH_SIZE = 1000;
+
+    private final UserRepository userRepository;
+    private final List<UserIndex> indexes;
+    private final UserService userService;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        long start = System.currentTimeMillis();
+        try {
+            indexes.forEach(UserIndex::beginRebuild);
+            long count = 0;
+            Pageable pageable = PageRequest.of(0, BATCH_SIZE, Sort.by("id"));
+            Page<User> page;
+            do {
+                page = userRepository.findAll(pageable);
+                List<User> batch = page.getContent();
+                indexes.forEach(index -> index.rebuild(batch));
+                count += batch.size();
+                pageable = page.nextPageable();
+            } while (page.hasNext());
+            indexes.forEach(UserIndex::finishRebuild);
+            // Cached page chunks were cut from the previous ID index.
+            userService.clearPageCache();
+            log.info("Rebuilt {} user indexes from {} users in {} ms", indexes.size(), count,
+                    System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            // The indexes keep their previous content and are still updated on every write.
+            log.error("Failed to rebuild user indexes", e);
+        }
+    }
+}
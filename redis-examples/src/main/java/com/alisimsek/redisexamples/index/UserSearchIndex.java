@@ -0,0 +1,180 @@
+package com.alisimsek.redisexamples.index;
+
+import com.alisimsek.redisexamples.entity.User;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.Limit;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Prefix index over lowercase user names, name words and emails, kept in one Redis sorted set
+ * where every member has score 0 and the form {@code <term>\0<id>}. A prefix lookup is a single
+ * ZRANGEBYLEX over {@code [prefix, prefix\xff]}.
+ * <p>
+ * While a rebuild runs, members added and removed on any node are recorded in side sets and
+ * applied to the rebuilt index before it replaces the current one.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class UserSearchIndex implements UserIndex {
+
+    static final String KEY = "user:search";
+    private static final String REBUILD_KEY = KEY + ":rebuild";
+    private static final String REBUILD_MARKER_KEY = KEY + ":rebuilding";
+    private static final String REBUILD_ADDED_KEY = KEY + ":rebuild:added";
+    private static final String REBUILD_REMOVED_KEY = KEY + ":rebuild:removed";
+    private static final List<String> UPDATE_KEYS =
+            List.of(KEY, REBUILD_MARKER_KEY, REBUILD_ADDED_KEY, REBUILD_REMOVED_KEY);
+    /**
+     * A rebuild that takes longer is abandoned, since changes are no longer recorded for it.
+     */
+    private static final Duration REBUILD_TIMEOUT = Duration.ofMinutes(10);
+    private static final RedisScript<Long> UPDATE_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/user-search-index-update.lua"), Long.class);
+    private static final RedisScript<Long> FINISH_REBUILD_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/user-search-index-finish-rebuild.lua"), Long.class);
+    private static final char SEPARATOR = '\0';
+    // Terms can have several members per user, so read ahead before de-duplicating IDs.
+    private static final int READ_AHEAD = 4;
+
+    private final StringRedisTemplate redisTemplate;
+    private volatile String rebuildToken;
+
+    /**
+     * @return IDs of users with a name, name word or email starting with the prefix, in term order
+     */
+    public List<Long> search(String prefix, int limit) {
+        String normalized = normalize(prefix);
+        if (normalized.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        byte[] min = normalized.getBytes(StandardCharsets.UTF_8);
+        byte[] max = Arrays.copyOf(min, min.length + 1);
+        max[min.length] = (byte) 0xFF;
+        Set<byte[]> members = redisTemplate.execute((RedisCallback<Set<byte[]>>) connection ->
+                connection.zSetCommands().zRangeByLex(KEY.getBytes(StandardCharsets.UTF_8),
+                        Range.closed(min, max), Limit.limit().count(limit * READ_AHEAD)));
+        if (members == null) {
+            return List.of();
+        }
+        Set<Long> ids = new LinkedHashSet<>();
+        for (byte[] member : members) {
+            String value = new String(member, StandardCharsets.UTF_8);
+            ids.add(Long.valueOf(value.substring(value.lastIndexOf(SEPARATOR) + 1)));
+            if (ids.size() == limit) {
+                break;
+            }
+        }
+        return List.copyOf(ids);
+    }
+
+    @Override
+    public void added(User user) {
+        update(List.of(), members(user));
+    }
+
+    @Override
+    public void addedAll(List<User> users) {
+        List<String> members = new ArrayList<>();
+        users.forEach(user -> members.addAll(members(user)));
+        update(List.of(), members);
+    }
+
+    @Override
+    public void changed(User before, User after) {
+        Set<String> oldMembers = members(before);
+        Set<String> newMembers = members(after);
+        if (oldMembers.equals(newMembers)) {
+            return;
+        }
+        update(oldMembers.stream().filter(member -> !newMembers.contains(member)).toList(), newMembers);
+    }
+
+    @Override
+    public void removed(User user) {
+        update(members(user), List.of());
+    }
+
+    /**
+     * Clears leftovers of an earlier rebuild, then marks the rebuild as running. The database is
+     * read afterwards, so changes made before the marker is set are still picked up from there.
+     */
+    @Override
+    public void beginRebuild() {
+        redisTemplate.delete(List.of(REBUILD_ADDED_KEY, REBUILD_REMOVED_KEY));
+        rebuildToken = UUID.randomUUID().toString();
+        redisTemplate.opsForValue().set(REBUILD_MARKER_KEY, rebuildToken, REBUILD_TIMEOUT);
+    }
+
+    @Override
+    public void rebuild(List<User> batch) {
+        String rebuildKey = REBUILD_KEY + ":" + rebuildToken;
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection stringConnection = (StringRedisConnection) connection;
+            batch.forEach(user -> members(user).forEach(member -> stringConnection.zAdd(rebuildKey, 0, member)));
+            return null;
+        });
+    }
+
+    /**
+     * Applies the changes recorded since {@link #beginRebuild()} to the rebuilt index and renames
+     * it over the old one in one script, so readers never see a partial index. If the rebuild
+     * timed out or another node started one since, the current index is kept; it has been updated
+     * on every write.
+     */
+    @Override
+    public void finishRebuild() {
+        Long swapped = redisTemplate.execute(FINISH_REBUILD_SCRIPT, List.of(REBUILD_MARKER_KEY,
+                REBUILD_KEY + ":" + rebuildToken, REBUILD_ADDED_KEY, REBUILD_REMOVED_KEY, KEY), rebuildToken);
+        if (!Long.valueOf(1).equals(swapped)) {
+            log.warn("Search index rebuild was superseded or took longer than {}, keeping the current index",
+                    REBUILD_TIMEOUT);
+        }
+    }
+
+    private void update(Collection<String> removed, Collection<String> added) {
+        List<Object> args = new ArrayList<>(removed.size() + added.size() + 1);
+        args.add(String.valueOf(removed.size()));
+        args.addAll(removed);
+        args.addAll(added);
+        redisTemplate.execute(UPDATE_SCRIPT, UPDATE_KEYS, args.toArray());
+    }
+
+    private static Set<String> members(User user) {
+        Set<String> terms = new LinkedHashSet<>();
+        String name = normalize(user.getName());
+        if (!name.isEmpty()) {
+            terms.add(name);
+            terms.addAll(Arrays.asList(name.split("\\s+")));
+        }
+        String email = normalize(user.getEmail());
+        if (!email.isEmpty()) {
+            terms.add(email);
+        }
+        Set<String> members = new LinkedHashSet<>();
+        terms.forEach(term -> members.add(term + SEPARATOR + user.getId()));
+        return members;
+    }
+
+    private static String normalize(String value) {
+        return value == null ? "" : value.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,260 @@
+package com.alisimsek.redisexamples.ratelimit;
+
+import com.alisimsek.redisexamples.config.RateLimitProperties;
+import com.alisimsek.redisexamples.config.RedisResilienceProperties;
+import com.alisimsek.redisexamples.resilience.RedisCircuitBreaker;
+import com.alisimsek.redisexamples.sharding.RedisShards;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rate limiter that answers most calls from memory. Each node counts the calls it allows per
+ * key and fixed window, and every {@code sync-interval} adds those counts to a shared counter
+ * in Redis with one pipeline for all keys, learning the cluster-wide count in return.
+ * <p>
+ * A call is allowed locally while the known count (last synced count plus calls allowed since)
+ * is clearly below the limit and the node has not allowed more than {@code max-error} of the
+ * limit since its last sync. Otherwise it is checked against Redis with a script, like in exact
+ * mode. Windows follow each node's clock, so nodes should keep their clocks in sync.
+ * <p>
+ * While Redis is unavailable, decisions are made from the local counts alone and syncs are
+ * skipped; the calls allowed meanwhile are added to the shared counters once Redis is back.
+ */
+@Component
+@Slf4j
+public class ApproximateRateLimiter {
+
+    private static final RedisScript<Long> STRICT_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/rate-limit-approximate-strict.lua"), Long.class);
+
+    private final RedisShards redisShards;
+    private final RateLimitProperties.Approximate properties;
+    private final RedisCircuitBreaker circuitBreaker;
+    private final RedisResilienceProperties resilienceProperties;
+    private final Cache<String, LocalBucket> buckets;
+    private final Counter localDecisions;
+    private final Counter strictDecisions;
+    private final Timer syncLatency;
+
+    public ApproximateRateLimiter(RedisShards redisShards, RateLimitProperties properties,
+                                  RedisCircuitBreaker circuitBreaker, RedisResilienceProperties resilienceProperties,
+                                  MeterRegistry meterRegistry) {
+        this.redisShards = redisShards;
+        this.properties = properties.getApproximate();
+        this.circuitBreaker = circuitBreaker;
+        this.resilienceProperties = resilienceProperties;
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(this.properties.getMaxTrackedKeys())
+                .expireAfterAccess(Duration.ofMinutes(10))
+                .build();
+        this.localDecisions = decisionCounter(meterRegistry, "local");
+        this.strictDecisions = decisionCounter(meterRegistry, "redis");
+        this.syncLatency = Timer.builder("rate.limit.approximate.sync")
+                .description("Time to sync locally counted calls with Redis")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Consumes one call for the key.
+     *
+     * @param key the Redis key prefix of the limited route and client
+     * @return true if the call is within the limit
+     */
+    public boolean tryAcquire(String key, RateLimitRule rule) {
+        long windowMillis = rule.window().toMillis();
+        long window = System.currentTimeMillis() / windowMillis;
+        LocalBucket bucket = buckets.get(key, k -> new LocalBucket());
+        long pending;
+        synchronized (bucket) {
+            bucket.roll(window, windowMillis);
+            long remaining = rule.limit() - bucket.synced - bucket.pending;
+            if (remaining <= 0) {
+                // Counters only grow within a window, so no other node can have freed anything up.
+                localDecisions.increment();
+                return false;
+            }
+            if (remaining > properties.getStrictMargin() * rule.limit()
+                    && bucket.pending < properties.getMaxError() * rule.limit()) {
+                bucket.pending++;
+                localDecisions.increment();
+                return true;
+            }
+            // Near the limit, or too much allowed since the last sync: ask Redis. The pending calls
+            // go with the check, as with a sync.
+            pending = bucket.pending;
+            bucket.pending = 0;
+        }
+        // Called without holding the bucket's monitor, which would pin a virtual thread for the
+        // round trip and hold up every other call for the key.
+        String counterKey = counterKey(key, window);
+        Long result = circuitBreaker.execute("rate_limit", resilienceProperties.getRateLimitTimeout(),
+                () -> redisShards.forRateLimitKey(counterKey).execute(STRICT_SCRIPT, List.of(counterKey),
+                        String.valueOf(pending), String.valueOf(rule.limit()), String.valueOf(2 * windowMillis)),
+                () -> null);
+        synchronized (bucket) {
+            boolean sameWindow = bucket.window == window && bucket.windowMillis == windowMillis;
+            if (result == null) {
+                // Redis is unavailable, and the limit is not known to be reached yet. The pending
+                // calls stay for the next sync.
+                if (sameWindow) {
+                    bucket.pending += pending + 1;
+                }
+                localDecisions.increment();
+                return true;
+            }
+            strictDecisions.increment();
+            if (sameWindow) {
+                bucket.synced = Math.max(bucket.synced, Math.abs(result));
+            }
+            return result > 0;
+        }
+    }
+
+    /**
+     * Consumes one call for the key based on this node's count alone, without calling Redis.
+     * Used for exact-mode routes while Redis is unavailable; each node then allows up to the full
+     * limit. The calls are added to the shared counter of approximate mode with the next sync.
+     *
+     * @param key the Redis key prefix of the limited route and client
+     * @return true if the call is within the limit
+     */
+    public boolean tryAcquireLocally(String key, RateLimitRule rule) {
+        long windowMillis = rule.window().toMillis();
+        long window = System.currentTimeMillis() / windowMillis;
+        LocalBucket bucket = buckets.get(key, k -> new LocalBucket());
+        synchronized (bucket) {
+            bucket.roll(window, windowMillis);
+            localDecisions.increment();
+            if (bucket.synced + bucket.pending >= rule.limit()) {
+                return false;
+            }
+            bucket.pending++;
+            return true;
+        }
+    }
+
+    /**
+     * Adds the calls counted locally to the shared counters and refreshes the cluster-wide
+     * counts of every key used in the current window, in one pipeline per Redis node.
+     */
+    @Scheduled(fixedDelayString = "${rate-limit.approximate.sync-interval:100ms}")
+    @PreDestroy
+    public void sync() {
+        if (!circuitBreaker.isCallPermitted()) {
+            return;
+        }
+        Map<StringRedisTemplate, List<Sync>> syncsByNode = new LinkedHashMap<>();
+        long now = System.currentTimeMillis();
+        buckets.asMap().forEach((key, bucket) -> {
+            synchronized (bucket) {
+                if (bucket.windowMillis == 0 || now / bucket.windowMillis != bucket.window) {
+                    return;
+                }
+                String counterKey = counterKey(key, bucket.window);
+                syncsByNode.computeIfAbsent(redisShards.forRateLimitKey(counterKey), template -> new ArrayList<>())
+                        .add(new Sync(bucket, bucket.window, counterKey, bucket.pending, 2 * bucket.windowMillis));
+                bucket.pending = 0;
+            }
+        });
+        if (syncsByNode.isEmpty()) {
+            return;
+        }
+        long start = System.nanoTime();
+        syncsByNode.forEach(this::sync);
+        syncLatency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    private void sync(StringRedisTemplate redisTemplate, List<Sync> syncs) {
+        List<Object> results = circuitBreaker.execute("rate_limit_sync", resilienceProperties.getCacheTimeout(),
+                () -> redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                    StringRedisConnection stringConnection = (StringRedisConnection) connection;
+                    for (Sync sync : syncs) {
+                        if (sync.pending() > 0) {
+                            stringConnection.incrBy(sync.counterKey(), sync.pending());
+                            stringConnection.pExpire(sync.counterKey(), sync.ttlMillis());
+                        } else {
+                            stringConnection.get(sync.counterKey());
+                        }
+                    }
+                    return null;
+                }),
+                () -> null);
+        if (results == null) {
+            log.warn("Failed to sync {} rate limit counters, keeping them for the next sync", syncs.size());
+            syncs.forEach(sync -> {
+                synchronized (sync.bucket()) {
+                    if (sync.bucket().window == sync.window()) {
+                        sync.bucket().pending += sync.pending();
+                    }
+                }
+            });
+            return;
+        }
+        int index = 0;
+        for (Sync sync : syncs) {
+            Object result = results.get(index);
+            index += sync.pending() > 0 ? 2 : 1;
+            long count = result instanceof Number number ? number.longValue()
+                    : result instanceof String value ? Long.parseLong(value) : 0;
+            synchronized (sync.bucket()) {
+                if (sync.bucket().window == sync.window()) {
+                    sync.bucket().synced = Math.max(sync.bucket().synced, count);
+                }
+            }
+        }
+    }
+
+    private static String counterKey(String key, long window) {
+        return key + ":approx:" + window;
+    }
+
+    private static Counter decisionCounter(MeterRegistry meterRegistry, String source) {
+        return Counter.builder("rate.limit.approximate.decisions")
+                .description("Approximate rate limit decisions by where they were made")
+                .tag("source", source)
+                .register(meterRegistry);
+    }
+
+    /**
+     * What this node knows about one key in its current window. Guarded by its own monitor.
+     */
+    private static final class LocalBucket {
+        private long window = -1;
+        private long windowMillis;
+        // Cluster-wide count of the window as of the last sync or strict check.
+        private long synced;
+        // Calls allowed here and not yet added to the shared counter.
+        private long pending;
+
+        void roll(long currentWindow, long currentWindowMillis) {
+            if (window != currentWindow || windowMillis != currentWindowMillis) {
+                window = currentWindow;
+                windowMillis = currentWindowMillis;
+                synced = 0;
+                pending = 0;
+            }
+        }
+    }
+
+    private record Sync(LocalBucket bucket, long window, String counterKey, long pending, long ttlMillis) {
+    }
+}
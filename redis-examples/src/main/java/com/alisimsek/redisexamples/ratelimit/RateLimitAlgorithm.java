@@ -0,0 +1,12 @@
+package com.alisimsek.redisexamples.ratelimit;
+
+public enum RateLimitAlgorithm {
+    /**
+     * Refills the limit evenly over the window, allowing short bursts up to the limit.
+     */
+    TOKEN_BUCKET,
+    /**
+     * Keeps a timestamp per request and allows at most the limit in any window.
+     */
+    SLIDING_WINDOW_LOG
+}
@@ -0,0 +1,17 @@
+package com.alisimsek.redisexamples.ratelimit;
+
+/**
+ * How calls to {@link RateLimitMode#EXACT} routes are limited while Redis is unavailable.
+ * Approximate routes always fall back to their local counts.
+ */
+public enum RateLimitFailMode {
+    /**
+     * Every call is allowed.
+     */
+    ALLOW,
+    /**
+     * Each node counts calls against the full limit on its own; see
+     * {@link ApproximateRateLimiter#tryAcquireLocally}.
+     */
+    LOCAL
+}
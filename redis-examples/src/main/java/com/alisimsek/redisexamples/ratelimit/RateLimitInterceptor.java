@@ -0,0 +1,31 @@
+package com.alisimsek.redisexamples.ratelimit;
+
+import com.alisimsek.redisexamples.exception.RateLimitException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * Enforces {@link RateLimited} on controller methods before they are invoked.
+ */
+@Component
+@RequiredArgsConstructor
+public class RateLimitInterceptor implements HandlerInterceptor {
+
+    private final RateLimiter rateLimiter;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!(handler instanceof HandlerMethod handlerMethod)) {
+            return true;
+        }
+        RateLimited rateLimited = handlerMethod.getMethodAnnotation(RateLimited.class);
+        if (rateLimited != null && !rateLimiter.tryAcquire(rateLimited, request.getRemoteAddr())) {
+            throw new RateLimitException("Rate limit exceeded");
+        }
+        return true;
+    }
+}
@@ -0,0 +1,12 @@
+package com.alisimsek.redisexamples.ratelimit;
+
+public enum RateLimitMode {
+    /**
+     * Every call is checked against Redis.
+     */
+    EXACT,
+    /**
+     * Calls are counted locally and synced with Redis periodically; see {@link ApproximateRateLimiter}.
+     */
+    APPROXIMATE
+}
@@ -0,0 +1,6 @@
+package com.alisimsek.redisexamples.ratelimit;
+
+import java.time.Duration;
+
+public record RateLimitRule(long limit, Duration window, RateLimitAlgorithm algorithm, RateLimitMode mode) {
+}
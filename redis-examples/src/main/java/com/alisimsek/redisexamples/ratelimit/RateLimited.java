@@ -0,0 +1,35 @@
+package com.alisimsek.redisexamples.ratelimit;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Applies a Redis-backed rate limit to a controller method, keyed by client IP.
+ * The values here are defaults; {@code rate-limit.routes.<route>} in the configuration overrides them.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface RateLimited {
+    /**
+     * Name of the limited route, used in the Redis key, configuration and metrics.
+     */
+    String route();
+
+    /**
+     * Maximum number of calls per window.
+     */
+    long limit();
+
+    /**
+     * Window length, e.g. {@code 1m} or {@code 30s}.
+     */
+    String window() default "1m";
+
+    RateLimitAlgorithm algorithm() default RateLimitAlgorithm.SLIDING_WINDOW_LOG;
+
+    RateLimitMode mode() default RateLimitMode.EXACT;
+}
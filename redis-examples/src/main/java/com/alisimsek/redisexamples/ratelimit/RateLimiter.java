@@ -0,0 +1,121 @@
+package com.alisimsek.redisexamples.ratelimit;
+
+import com.alisimsek.redisexamples.config.RateLimitProperties;
+import com.alisimsek.redisexamples.config.RedisResilienceProperties;
+import com.alisimsek.redisexamples.resilience.RedisCircuitBreaker;
+import com.alisimsek.redisexamples.sharding.RedisShards;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Redis-backed rate limiter. Each check is a single Lua script call, so the
+ * read-modify-write and the expiry are applied atomically in one round trip.
+ * Routes in {@link RateLimitMode#APPROXIMATE} mode are checked by {@link ApproximateRateLimiter} instead.
+ * If Redis does not answer within {@code redis.resilience.rate-limit-timeout}, or the circuit breaker
+ * is open, the call is limited according to {@code rate-limit.fail-mode}.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RateLimiter {
+
+    static final String KEY_PREFIX = "rate_limit:";
+    static final RedisScript<Long> TOKEN_BUCKET_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/rate-limit-token-bucket.lua"), Long.class);
+    static final RedisScript<Long> SLIDING_WINDOW_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/rate-limit-sliding-window.lua"), Long.class);
+
+    private final RedisShards redisShards;
+    private final ApproximateRateLimiter approximateRateLimiter;
+    private final RateLimitProperties properties;
+    private final RedisCircuitBreaker circuitBreaker;
+    private final RedisResilienceProperties resilienceProperties;
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * Consumes one call for the given route and key.
+     *
+     * @return true if the call is within the limit
+     */
+    public boolean tryAcquire(RateLimited annotation, String key) {
+        RateLimitRule rule = resolveRule(annotation, key);
+        boolean allowed = tryAcquire(annotation.route(), key, rule);
+        if (!allowed) {
+            log.warn("Rate limit reached for route: {}, key: {}", annotation.route(), key);
+        }
+        return allowed;
+    }
+
+    public boolean tryAcquire(String route, String key, RateLimitRule rule) {
+        if (rule.mode() == RateLimitMode.APPROXIMATE) {
+            boolean allowed = approximateRateLimiter.tryAcquire(KEY_PREFIX + route + ":" + key, rule);
+            decisionCounter(route, allowed).increment();
+            return allowed;
+        }
+        String redisKey = KEY_PREFIX + route + ":" + key;
+        List<String> keys = List.of(redisKey);
+        String limit = String.valueOf(rule.limit());
+        String window = String.valueOf(rule.window().toMillis());
+        StringRedisTemplate redisTemplate = redisShards.forRateLimitKey(redisKey);
+        boolean allowed = circuitBreaker.execute("rate_limit", resilienceProperties.getRateLimitTimeout(), () -> {
+            Long result = switch (rule.algorithm()) {
+                case TOKEN_BUCKET -> redisTemplate.execute(TOKEN_BUCKET_SCRIPT, keys, limit, window);
+                case SLIDING_WINDOW_LOG -> redisTemplate.execute(SLIDING_WINDOW_SCRIPT, keys, limit, window,
+                        UUID.randomUUID().toString());
+            };
+            return result != null && result == 1L;
+        }, () -> properties.getFailMode() == RateLimitFailMode.ALLOW
+                || approximateRateLimiter.tryAcquireLocally(redisKey, rule));
+        decisionCounter(route, allowed).increment();
+        return allowed;
+    }
+
+    /**
+     * Resolves the effective rule: annotation defaults, then route overrides, then key overrides.
+     */
+    RateLimitRule resolveRule(RateLimited annotation, String key) {
+        return resolveRule(annotation.route(), new RateLimitRule(annotation.limit(),
+                DurationStyle.detectAndParse(annotation.window()), annotation.algorithm(), annotation.mode()), key);
+    }
+
+    /**
+     * Resolves the effective rule from the given defaults, then route overrides, then key overrides.
+     */
+    RateLimitRule resolveRule(String routeName, RateLimitRule defaults, String key) {
+        RateLimitRule rule = defaults;
+        RateLimitProperties.Route route = properties.getRoutes().get(routeName);
+        if (route != null) {
+            rule = override(rule, route);
+            rule = override(rule, route.getKeys().get(key));
+        }
+        return rule;
+    }
+
+    private static RateLimitRule override(RateLimitRule rule, RateLimitProperties.Limit override) {
+        if (override == null) {
+            return rule;
+        }
+        return new RateLimitRule(
+                override.getLimit() != null ? override.getLimit() : rule.limit(),
+                override.getWindow() != null ? override.getWindow() : rule.window(),
+                override.getAlgorithm() != null ? override.getAlgorithm() : rule.algorithm(),
+                override.getMode() != null ? override.getMode() : rule.mode());
+    }
+
+    Counter decisionCounter(String route, boolean allowed) {
+        return Counter.builder("rate.limit.decisions")
+                .tag("route", route)
+                .tag("result", allowed ? "allowed" : "denied")
+                .register(meterRegistry);
+    }
+}
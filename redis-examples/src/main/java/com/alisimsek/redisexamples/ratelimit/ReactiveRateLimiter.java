@@ -0,0 +1,75 @@
+package com.alisimsek.redisexamples.ratelimit;
+
+import com.alisimsek.redisexamples.config.RateLimitProperties;
+import com.alisimsek.redisexamples.config.RedisResilienceProperties;
+import com.alisimsek.redisexamples.resilience.RedisCircuitBreaker;
+import com.alisimsek.redisexamples.sharding.RedisShards;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Non-blocking counterpart of {@link RateLimiter} for reactive handlers, which cannot go through
+ * {@link RateLimitInterceptor}. Exact limits run the same Lua scripts on the same keys over
+ * {@link ReactiveStringRedisTemplate}, so a route limited here and through {@link RateLimited}
+ * shares one limit per key. Rules, route overrides, fail mode and metrics are those of {@link RateLimiter}.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ReactiveRateLimiter {
+
+    private final RateLimiter rateLimiter;
+    private final RedisShards redisShards;
+    private final ApproximateRateLimiter approximateRateLimiter;
+    private final RateLimitProperties properties;
+    private final RedisCircuitBreaker circuitBreaker;
+    private final RedisResilienceProperties resilienceProperties;
+    private final Map<LettuceConnectionFactory, ReactiveStringRedisTemplate> templates = new ConcurrentHashMap<>();
+
+    /**
+     * Consumes one call for the given route and key.
+     *
+     * @param defaults the rule applied unless {@code rate-limit.routes.<route>} overrides it
+     * @return true if the call is within the limit
+     */
+    public Mono<Boolean> tryAcquire(String route, RateLimitRule defaults, String key) {
+        RateLimitRule rule = rateLimiter.resolveRule(route, defaults, key);
+        if (rule.mode() == RateLimitMode.APPROXIMATE) {
+            // Mostly decided in memory, but may sync with Redis on the calling thread.
+            return Mono.fromCallable(() -> rateLimiter.tryAcquire(route, key, rule))
+                    .subscribeOn(Schedulers.boundedElastic());
+        }
+        String redisKey = RateLimiter.KEY_PREFIX + route + ":" + key;
+        List<String> keys = List.of(redisKey);
+        String limit = String.valueOf(rule.limit());
+        String window = String.valueOf(rule.window().toMillis());
+        ReactiveStringRedisTemplate redisTemplate = templates.computeIfAbsent(
+                redisShards.connectionFactoryForRateLimitKey(redisKey), ReactiveStringRedisTemplate::new);
+        Flux<Long> result = switch (rule.algorithm()) {
+            case TOKEN_BUCKET -> redisTemplate.execute(RateLimiter.TOKEN_BUCKET_SCRIPT, keys, List.of(limit, window));
+            case SLIDING_WINDOW_LOG -> redisTemplate.execute(RateLimiter.SLIDING_WINDOW_SCRIPT, keys,
+                    List.of(limit, window, UUID.randomUUID().toString()));
+        };
+        return circuitBreaker.execute("rate_limit", resilienceProperties.getRateLimitTimeout(),
+                        result.next().map(allowed -> allowed == 1L).defaultIfEmpty(false),
+                        Mono.fromSupplier(() -> properties.getFailMode() == RateLimitFailMode.ALLOW
+                                || approximateRateLimiter.tryAcquireLocally(redisKey, rule)))
+                .doOnNext(allowed -> {
+                    rateLimiter.decisionCounter(route, allowed).increment();
+                    if (!allowed) {
+                        log.warn("Rate limit reached for route: {}, key: {}", route, key);
+                    }
+                });
+    }
+}
@@ -0,0 +1,17 @@
+package com.alisimsek.redisexamples.redismessaging;
+
+/**
+ * How notifications travel between nodes.
+ */
+public enum NotificationTransport {
+    /**
+     * Fire-and-forget pub/sub. Lowest latency, but messages published while no node listens are lost.
+     */
+    PUBSUB,
+
+    /**
+     * A Redis Stream read through a consumer group. Messages survive restarts and are
+     * redelivered until a node acknowledges them.
+     */
+    STREAM
+}
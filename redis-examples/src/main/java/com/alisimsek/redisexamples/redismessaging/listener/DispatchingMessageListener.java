@@ -0,0 +1,187 @@
+package com.alisimsek.redisexamples.redismessaging.listener;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Queues messages per channel and handles them on virtual threads, at most
+ * {@code maxConcurrency} at a time per channel, so a slow handler neither holds up the
+ * subscription nor starts an unbounded number of threads.
+ */
+@Slf4j
+public class DispatchingMessageListener implements MessageListener {
+
+    private final MessageListener delegate;
+    private final Executor executor;
+    private final StringRedisTemplate redisTemplate;
+    private final int maxConcurrency;
+    private final int queueCapacity;
+    private final OverflowPolicy overflowPolicy;
+    private final String spillKeyPrefix;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, ChannelQueue> queues = new ConcurrentHashMap<>();
+
+    public DispatchingMessageListener(MessageListener delegate, Executor executor, StringRedisTemplate redisTemplate,
+                                      int maxConcurrency, int queueCapacity, OverflowPolicy overflowPolicy,
+                                      String spillKeyPrefix, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.executor = executor;
+        this.redisTemplate = redisTemplate;
+        this.maxConcurrency = maxConcurrency;
+        this.queueCapacity = queueCapacity;
+        this.overflowPolicy = overflowPolicy;
+        this.spillKeyPrefix = spillKeyPrefix;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String channel = new String(message.getChannel(), StandardCharsets.UTF_8);
+        queues.computeIfAbsent(channel, ChannelQueue::new).submit(message, pattern);
+    }
+
+    private record Delivery(Message message, byte[] pattern) {
+    }
+
+    private final class ChannelQueue {
+        private final String channel;
+        private final byte[] spillKey;
+        private final LinkedBlockingDeque<Delivery> queue = new LinkedBlockingDeque<>(queueCapacity);
+        private final Semaphore permits = new Semaphore(maxConcurrency);
+        // Assume leftovers from a previous run until the spill list has been found empty once.
+        private final AtomicBoolean spilled = new AtomicBoolean(overflowPolicy == OverflowPolicy.SPILL);
+        private final Timer latency;
+        private final Counter dropped;
+        private final Counter spills;
+
+        ChannelQueue(String channel) {
+            this.channel = channel;
+            this.spillKey = (spillKeyPrefix + channel).getBytes(StandardCharsets.UTF_8);
+            this.latency = Timer.builder("redis.listener.handler.latency")
+                    .description("Time spent in the message handler")
+                    .tag("channel", channel)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry);
+            this.dropped = overflowCounter("dropped");
+            this.spills = overflowCounter("spilled");
+            Gauge.builder("redis.listener.queue.depth", queue, LinkedBlockingDeque::size)
+                    .description("Messages waiting for a handler")
+                    .tag("channel", channel)
+                    .register(meterRegistry);
+        }
+
+        void submit(Message message, byte[] pattern) {
+            Delivery delivery = new Delivery(message, pattern);
+            if (!queue.offer(delivery)) {
+                switch (overflowPolicy) {
+                    case BLOCK -> {
+                        try {
+                            queue.put(delivery);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            return;
+                        }
+                    }
+                    case DROP_OLDEST -> {
+                        while (!queue.offer(delivery)) {
+                            if (queue.pollFirst() != null) {
+                                dropped.increment();
+                            }
+                        }
+                    }
+                    case SPILL -> spill(message);
+                }
+            }
+            schedule();
+        }
+
+        private void schedule() {
+            if (permits.tryAcquire()) {
+                try {
+                    executor.execute(this::drain);
+                } catch (RuntimeException e) {
+                    permits.release();
+                    log.error("Could not start a handler for channel: {}", channel, e);
+                }
+            }
+        }
+
+        private void drain() {
+            try {
+                Delivery delivery;
+                while ((delivery = next()) != null) {
+                    handle(delivery);
+                }
+            } finally {
+                permits.release();
+            }
+            // A message may have been queued after the last poll but before the permit was released.
+            if (!queue.isEmpty()) {
+                schedule();
+            }
+        }
+
+        private Delivery next() {
+            Delivery delivery = queue.poll();
+            if (delivery == null && spilled.get()) {
+                byte[] body = redisTemplate.execute((RedisCallback<byte[]>) connection ->
+                        connection.listCommands().lPop(spillKey));
+                if (body == null) {
+                    spilled.set(false);
+                    return null;
+                }
+                byte[] channelBytes = channel.getBytes(StandardCharsets.UTF_8);
+                delivery = new Delivery(new DefaultMessage(channelBytes, body), channelBytes);
+            }
+            return delivery;
+        }
+
+        private void handle(Delivery delivery) {
+            long start = System.nanoTime();
+            try {
+                delegate.onMessage(delivery.message(), delivery.pattern());
+            } catch (Exception e) {
+                log.error("Error handling message from channel: {}", channel, e);
+            } finally {
+                latency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        }
+
+        private void spill(Message message) {
+            try {
+                redisTemplate.execute((RedisCallback<Long>) connection ->
+                        connection.listCommands().rPush(spillKey, message.getBody()));
+                spilled.set(true);
+                spills.increment();
+            } catch (Exception e) {
+                dropped.increment();
+                log.error("Could not spill message from channel: {}, dropping it", channel, e);
+            }
+        }
+
+        private Counter overflowCounter(String result) {
+            return Counter.builder("redis.listener.overflow")
+                    .description("Messages that did not fit in the queue")
+                    .tag("channel", channel)
+                    .tag("result", result)
+                    .register(meterRegistry);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.alisimsek.redisexamples.redismessaging.listener;
+
+/**
+ * What a dispatched channel does with a new message when its queue is full.
+ */
+public enum OverflowPolicy {
+    /**
+     * Waits for room, which pauses delivery on the subscription until handlers catch up.
+     */
+    BLOCK,
+
+    /**
+     * Discards the oldest queued message to make room.
+     */
+    DROP_OLDEST,
+
+    /**
+     * Pushes the message to a Redis list; it is handled once the queue has drained.
+     */
+    SPILL
+}
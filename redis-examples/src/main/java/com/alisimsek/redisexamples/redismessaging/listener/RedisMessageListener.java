@@ -14,6 +14,13 @@ public class RedisMessageListener implements MessageListener {
     public void onMessage(Message message, byte[] pattern) {
         String channel = new String(pattern, StandardCharsets.UTF_8);
         String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        handle(channel, body);
+    }
+
+    /**
+     * Handles a notification, whether it arrived over pub/sub or from the notification stream.
+     */
+    public void handle(String channel, String body) {
         log.info("Received message: '{}' from channel: '{}'", body, channel);
         log.info("Business code");
     }
@@ -1,17 +1,58 @@
 package com.alisimsek.redisexamples.redismessaging.publisher;
 
+import com.alisimsek.redisexamples.config.NotificationProperties;
 import com.alisimsek.redisexamples.redismessaging.Notification;
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class RedisMessagePublisher {
 
     private final RedisTemplate<String, String> redisTemplate;
+    private final NotificationProperties.Publish properties;
+    private final BlockingQueue<PendingMessage> queue;
+    private final Timer latency;
+    private final DistributionSummary batchSize;
+    private final Counter failures;
+    private volatile boolean running = true;
+    private Thread flusher;
+
+    public RedisMessagePublisher(RedisTemplate<String, String> redisTemplate, NotificationProperties properties,
+                                 MeterRegistry meterRegistry) {
+        this.redisTemplate = redisTemplate;
+        this.properties = properties.getPublish();
+        this.queue = new LinkedBlockingQueue<>(this.properties.getQueueCapacity());
+        this.latency = Timer.builder("notification.publish.latency")
+                .description("Time from publishAsync until Redis accepted the message")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.batchSize = DistributionSummary.builder("notification.publish.batch.size")
+                .description("Messages sent per pipelined flush")
+                .register(meterRegistry);
+        this.failures = Counter.builder("notification.publish.failures")
+                .description("Messages that could not be published")
+                .register(meterRegistry);
+    }
 
     public void publish(String channel, Notification notification) {
         try {
@@ -21,4 +62,96 @@ public class RedisMessagePublisher {
             log.error("Error publishing message", e);
         }
     }
+
+    /**
+     * Queues a message for the next pipelined flush. Messages are flushed once
+     * {@code notification.publish.max-batch-size} are queued or the first one has waited
+     * {@code notification.publish.linger}, whichever comes first.
+     *
+     * @return completes with the number of subscribers that received the message,
+     * or exceptionally if it could not be published
+     */
+    public CompletableFuture<Long> publishAsync(String channel, Notification notification) {
+        PendingMessage pending = new PendingMessage(channel, notification.getMessage(), System.nanoTime(),
+                new CompletableFuture<>());
+        if (!running || !queue.offer(pending)) {
+            failures.increment();
+            pending.result().completeExceptionally(new RejectedExecutionException("Publish queue is full"));
+        }
+        return pending.result();
+    }
+
+    @PostConstruct
+    void startFlusher() {
+        flusher = Thread.ofPlatform().name("notification-publisher").daemon().start(this::flushLoop);
+    }
+
+    @PreDestroy
+    void stopFlusher() throws InterruptedException {
+        running = false;
+        flusher.interrupt();
+        flusher.join(1000);
+        List<PendingMessage> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        if (!remaining.isEmpty()) {
+            flush(remaining);
+        }
+    }
+
+    private void flushLoop() {
+        List<PendingMessage> batch = new ArrayList<>(properties.getMaxBatchSize());
+        while (running) {
+            try {
+                batch.add(queue.take());
+                long deadline = System.nanoTime() + properties.getLinger().toNanos();
+                while (batch.size() < properties.getMaxBatchSize()) {
+                    long remaining = deadline - System.nanoTime();
+                    PendingMessage next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                // Still flush what was collected; stopFlusher drains the rest.
+                running = false;
+            }
+            if (!batch.isEmpty()) {
+                flush(batch);
+                batch = new ArrayList<>(properties.getMaxBatchSize());
+            }
+        }
+    }
+
+    /**
+     * Sends the batch with one pipeline per channel and completes each message's future.
+     */
+    private void flush(List<PendingMessage> batch) {
+        batchSize.record(batch.size());
+        Map<String, List<PendingMessage>> byChannel = new LinkedHashMap<>();
+        batch.forEach(pending -> byChannel.computeIfAbsent(pending.channel(), c -> new ArrayList<>()).add(pending));
+        byChannel.forEach((channel, messages) -> {
+            byte[] rawChannel = channel.getBytes(StandardCharsets.UTF_8);
+            try {
+                List<Object> receivers = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                    messages.forEach(pending -> connection.publish(rawChannel, pending.message().getBytes(StandardCharsets.UTF_8)));
+                    return null;
+                });
+                long now = System.nanoTime();
+                for (int i = 0; i < messages.size(); i++) {
+                    PendingMessage pending = messages.get(i);
+                    latency.record(now - pending.enqueuedAt(), TimeUnit.NANOSECONDS);
+                    pending.result().complete(receivers.get(i) instanceof Long count ? count : 0L);
+                }
+            } catch (Exception e) {
+                log.error("Error publishing {} messages to channel: {}", messages.size(), channel, e);
+                failures.increment(messages.size());
+                messages.forEach(pending -> pending.result().completeExceptionally(e));
+            }
+        });
+    }
+
+    private record PendingMessage(String channel, String message, long enqueuedAt, CompletableFuture<Long> result) {
+    }
 }
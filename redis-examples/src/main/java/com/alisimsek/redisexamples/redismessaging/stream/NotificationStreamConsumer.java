@@ -0,0 +1,294 @@
+package com.alisimsek.redisexamples.redismessaging.stream;
+
+import com.alisimsek.redisexamples.config.NotificationProperties;
+import com.alisimsek.redisexamples.redismessaging.listener.RedisMessageListener;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.stream.Consumer;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.PendingMessage;
+import org.springframework.data.redis.connection.stream.PendingMessages;
+import org.springframework.data.redis.connection.stream.ReadOffset;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.connection.stream.StreamOffset;
+import org.springframework.data.redis.connection.stream.StreamReadOptions;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StreamOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads the notification stream through a consumer group and hands each batch to a
+ * virtual-thread worker. Entries of a batch are acknowledged with a single XACK once handled;
+ * entries that fail stay pending and are claimed again after {@code claim-min-idle},
+ * by this node or another one.
+ */
+@Component
+@Slf4j
+public class NotificationStreamConsumer implements SmartLifecycle {
+
+    private final StringRedisTemplate redisTemplate;
+    private final NotificationProperties properties;
+    private final RedisMessageListener handler;
+    private final ExecutorService workerExecutor;
+    private final Semaphore inFlightBatches;
+    private final String consumerName;
+    private final Counter processed;
+    private final Counter failed;
+    private final Counter claimed;
+    private final Counter deadLettered;
+    private final DistributionSummary batchSize;
+
+    private volatile boolean running;
+    private Thread poller;
+
+    public NotificationStreamConsumer(StringRedisTemplate redisTemplate, NotificationProperties properties,
+                                      RedisMessageListener handler, ExecutorService notificationWorkerExecutor,
+                                      MeterRegistry meterRegistry) {
+        this.redisTemplate = redisTemplate;
+        this.properties = properties;
+        this.handler = handler;
+        this.workerExecutor = notificationWorkerExecutor;
+        this.inFlightBatches = new Semaphore(properties.getStream().getMaxInFlightBatches());
+        this.consumerName = StringUtils.hasText(properties.getStream().getConsumer())
+                ? properties.getStream().getConsumer()
+                : hostName() + "-" + UUID.randomUUID().toString().substring(0, 8);
+        this.processed = resultCounter(meterRegistry, "processed");
+        this.failed = resultCounter(meterRegistry, "failed");
+        this.claimed = resultCounter(meterRegistry, "claimed");
+        this.deadLettered = resultCounter(meterRegistry, "dead_lettered");
+        this.batchSize = DistributionSummary.builder("notification.stream.batch.size")
+                .description("Entries returned per stream read")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void start() {
+        // Runs whatever the configured transport is: callers can pick the stream per call.
+        createGroup();
+        running = true;
+        poller = Thread.ofPlatform().name("notification-stream-poller").daemon().start(this::poll);
+        log.info("Consuming stream: {} as consumer: {} in group: {}",
+                properties.getStream().getKey(), consumerName, properties.getStream().getGroup());
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (poller != null) {
+            poller.interrupt();
+            try {
+                poller.join(properties.getStream().getBlock().toMillis() + 1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void poll() {
+        NotificationProperties.Stream stream = properties.getStream();
+        StreamReadOptions readOptions = StreamReadOptions.empty().count(stream.getBatchSize()).block(stream.getBlock());
+        Consumer consumer = Consumer.from(stream.getGroup(), consumerName);
+        long nextClaim = System.nanoTime();
+        while (running) {
+            try {
+                if (System.nanoTime() - nextClaim >= 0) {
+                    claimStalled();
+                    nextClaim = System.nanoTime() + stream.getClaimInterval().toNanos();
+                }
+                // Stop reading while every worker is busy; unread entries wait in Redis instead of in memory.
+                inFlightBatches.acquire();
+                List<MapRecord<String, Object, Object>> records;
+                try {
+                    records = streamOperations().read(consumer, readOptions,
+                            StreamOffset.create(stream.getKey(), ReadOffset.lastConsumed()));
+                } catch (RuntimeException e) {
+                    inFlightBatches.release();
+                    throw e;
+                }
+                if (records == null || records.isEmpty()) {
+                    inFlightBatches.release();
+                    continue;
+                }
+                dispatch(records);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                if (!running) {
+                    return;
+                }
+                if (isMissingGroup(e) && recreateGroup()) {
+                    continue;
+                }
+                log.error("Error reading notification stream: {}", stream.getKey(), e);
+                try {
+                    TimeUnit.SECONDS.sleep(1);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Hands a batch to a worker. The caller must hold an in-flight permit; the worker releases it.
+     */
+    private void dispatch(List<MapRecord<String, Object, Object>> records) {
+        batchSize.record(records.size());
+        try {
+            workerExecutor.execute(() -> {
+                try {
+                    handle(records);
+                } finally {
+                    inFlightBatches.release();
+                }
+            });
+        } catch (RuntimeException e) {
+            // Entries stay pending and are claimed again later.
+            inFlightBatches.release();
+            throw e;
+        }
+    }
+
+    private void handle(List<MapRecord<String, Object, Object>> records) {
+        List<RecordId> handled = new ArrayList<>(records.size());
+        for (MapRecord<String, Object, Object> record : records) {
+            try {
+                handler.handle(String.valueOf(record.getValue().get(NotificationStreamPublisher.CHANNEL_FIELD)),
+                        (String) record.getValue().get(NotificationStreamPublisher.MESSAGE_FIELD));
+                handled.add(record.getId());
+                processed.increment();
+            } catch (Exception e) {
+                failed.increment();
+                log.error("Error handling notification: {}, it will be redelivered", record.getId(), e);
+            }
+        }
+        acknowledge(handled);
+    }
+
+    private void acknowledge(List<RecordId> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        NotificationProperties.Stream stream = properties.getStream();
+        streamOperations().acknowledge(stream.getKey(), stream.getGroup(), ids.toArray(RecordId[]::new));
+    }
+
+    /**
+     * Takes over entries left unacknowledged by consumers that crashed or stalled, and gives up
+     * on entries that keep failing.
+     */
+    private void claimStalled() throws InterruptedException {
+        NotificationProperties.Stream stream = properties.getStream();
+        PendingMessages pending = streamOperations().pending(stream.getKey(), stream.getGroup(),
+                Range.unbounded(), stream.getBatchSize());
+        List<RecordId> stalled = new ArrayList<>();
+        List<RecordId> exhausted = new ArrayList<>();
+        for (PendingMessage message : pending) {
+            if (message.getElapsedTimeSinceLastDelivery().compareTo(stream.getClaimMinIdle()) < 0) {
+                continue;
+            }
+            if (message.getTotalDeliveryCount() >= stream.getMaxDeliveries()) {
+                log.error("Giving up on notification: {} after {} deliveries",
+                        message.getId(), message.getTotalDeliveryCount());
+                exhausted.add(message.getId());
+            } else {
+                stalled.add(message.getId());
+            }
+        }
+        acknowledge(exhausted);
+        deadLettered.increment(exhausted.size());
+        if (stalled.isEmpty()) {
+            return;
+        }
+        // XCLAIM re-checks the idle time, so entries another node claimed meanwhile are skipped.
+        List<MapRecord<String, Object, Object>> records = streamOperations().claim(stream.getKey(),
+                stream.getGroup(), consumerName, stream.getClaimMinIdle(), stalled.toArray(RecordId[]::new));
+        if (records.isEmpty()) {
+            return;
+        }
+        log.info("Claimed {} stalled notifications", records.size());
+        claimed.increment(records.size());
+        inFlightBatches.acquire();
+        dispatch(records);
+    }
+
+    private void createGroup() {
+        NotificationProperties.Stream stream = properties.getStream();
+        byte[] key = stream.getKey().getBytes(StandardCharsets.UTF_8);
+        try {
+            redisTemplate.execute((RedisCallback<String>) connection -> connection.streamCommands()
+                    .xGroupCreate(key, stream.getGroup(), ReadOffset.from("0"), true));
+        } catch (DataAccessException e) {
+            String message = e.getMostSpecificCause().getMessage();
+            if (message == null || !message.startsWith("BUSYGROUP")) {
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Creates the consumer group again after the stream was deleted, or Redis restarted without it.
+     *
+     * @return whether the group exists now
+     */
+    private boolean recreateGroup() {
+        NotificationProperties.Stream stream = properties.getStream();
+        log.warn("Consumer group: {} of stream: {} is gone, creating it again", stream.getGroup(), stream.getKey());
+        try {
+            createGroup();
+            return true;
+        } catch (DataAccessException e) {
+            return false;
+        }
+    }
+
+    private static boolean isMissingGroup(Exception e) {
+        if (!(e instanceof DataAccessException dataAccessException)) {
+            return false;
+        }
+        String message = dataAccessException.getMostSpecificCause().getMessage();
+        return message != null && message.startsWith("NOGROUP");
+    }
+
+    private StreamOperations<String, Object, Object> streamOperations() {
+        return redisTemplate.opsForStream();
+    }
+
+    private static Counter resultCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("notification.stream")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            return "node";
+        }
+    }
+}
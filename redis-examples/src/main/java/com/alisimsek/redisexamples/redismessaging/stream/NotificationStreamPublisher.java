@@ -0,0 +1,45 @@
+package com.alisimsek.redisexamples.redismessaging.stream;
+
+import com.alisimsek.redisexamples.config.NotificationProperties;
+import com.alisimsek.redisexamples.redismessaging.Notification;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.RedisStreamCommands.XAddOptions;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.connection.stream.StreamRecords;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Appends notifications to a Redis Stream, trimming it to roughly
+ * {@code notification.stream.max-length} entries.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class NotificationStreamPublisher {
+
+    static final String CHANNEL_FIELD = "channel";
+    static final String MESSAGE_FIELD = "message";
+
+    private final StringRedisTemplate redisTemplate;
+    private final NotificationProperties properties;
+
+    public RecordId publish(String channel, Notification notification) {
+        NotificationProperties.Stream stream = properties.getStream();
+        Map<String, String> fields = new HashMap<>();
+        fields.put(CHANNEL_FIELD, channel);
+        // A notification without a message is stored without the field, which stream entries allow.
+        if (notification.getMessage() != null) {
+            fields.put(MESSAGE_FIELD, notification.getMessage());
+        }
+        RecordId id = redisTemplate.opsForStream().add(
+                StreamRecords.string(fields).withStreamKey(stream.getKey()),
+                XAddOptions.maxlen(stream.getMaxLength()).approximateTrimming(true));
+        log.info("Message added to stream: {} with id: {}", notification.getMessage(), id);
+        return id;
+    }
+}
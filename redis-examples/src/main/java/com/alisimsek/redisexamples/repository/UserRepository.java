@@ -1,13 +1,42 @@
 package com.alisimsek.redisexamples.repository;
 
 import com.alisimsek.redisexamples.entity.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
     User findByEmail(String email);
+    User findByEmailIgnoreCase(String email);
     List<User> findByNameContainingIgnoreCaseOrEmailContainingIgnoreCase(String name, String email);
+
+    /**
+     * Reads user IDs in ascending order, starting after the given ID; used to page through all IDs.
+     */
+    @Query("select u.id from User u where u.id > :after order by u.id")
+    List<Long> findIdsAfter(@Param("after") Long after, Pageable pageable);
+
+    /**
+     * Updates a user under the Redis lock, unless an update with the same or a newer fencing
+     * token was already applied. The persistence context is cleared afterwards.
+     *
+     * @return 1 if the update was applied, 0 if it was rejected or the user does not exist
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update User u set u.name = :name, u.email = :email, u.lockFence = :fence, u.version = u.version + 1 "
+            + "where u.id = :id and (u.lockFence is null or u.lockFence < :fence)")
+    int updateFenced(@Param("id") Long id, @Param("name") String name, @Param("email") String email,
+                     @Param("fence") long fence);
+
+    @Query("select u.email from User u where u.email in :emails")
+    List<String> findExistingEmails(@Param("emails") Collection<String> emails);
+
+    List<User> findByEmailIn(Collection<String> emails);
 }
@@ -0,0 +1,16 @@
+package com.alisimsek.redisexamples.resilience;
+
+public enum CircuitState {
+    /**
+     * Calls go to Redis; failures and slow calls are counted.
+     */
+    CLOSED,
+    /**
+     * A probe reached Redis again; calls go to Redis, and one failure opens the breaker again.
+     */
+    HALF_OPEN,
+    /**
+     * Calls skip Redis and use their fallback while Redis is probed in the background.
+     */
+    OPEN
+}
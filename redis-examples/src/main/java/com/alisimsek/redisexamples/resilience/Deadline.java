@@ -0,0 +1,104 @@
+package com.alisimsek.redisexamples.resilience;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.function.Supplier;
+
+/**
+ * Time budget of one call through {@link RedisCircuitBreaker}. Work that does not touch Redis,
+ * such as loading a missing cache value from the DB, can be run through {@link #excluding}
+ * so it neither counts against the budget nor makes the call look slow.
+ * <p>
+ * Layers further down that wait on other callers rather than on Redis, such as single-flight
+ * followers, can use {@link #excludingCurrent} without being handed the deadline.
+ */
+public final class Deadline {
+
+    private static final ThreadLocal<Deadline> CURRENT = new ThreadLocal<>();
+
+    private final long budgetNanos;
+    private final long startedAt = System.nanoTime();
+    private long excludedNanos;
+    private long pausedAt = -1;
+    private int pauseDepth;
+    private Throwable excludedFailure;
+
+    Deadline(Duration budget) {
+        this.budgetNanos = budget.toNanos();
+    }
+
+    /**
+     * Runs work outside the budget of the breaker call running on this thread, or just runs it
+     * if there is none.
+     */
+    public static <T> T excludingCurrent(Callable<T> work) throws Exception {
+        Deadline deadline = CURRENT.get();
+        return deadline != null ? deadline.excluding(work) : work.call();
+    }
+
+    /**
+     * Runs work that does not count against the budget. Exceptions it throws are passed on to the
+     * caller of the breaker as they are, instead of being treated as Redis failures.
+     */
+    public <T> T excluding(Callable<T> work) throws Exception {
+        synchronized (this) {
+            // Nested exclusions are part of the outer one.
+            if (pauseDepth++ == 0) {
+                pausedAt = System.nanoTime();
+            }
+        }
+        try {
+            return work.call();
+        } catch (Exception | Error e) {
+            synchronized (this) {
+                excludedFailure = e;
+            }
+            throw e;
+        } finally {
+            synchronized (this) {
+                if (--pauseDepth == 0) {
+                    excludedNanos += System.nanoTime() - pausedAt;
+                    pausedAt = -1;
+                }
+            }
+        }
+    }
+
+    /**
+     * Runs the action of a breaker call with this as the current deadline of the calling thread.
+     */
+    <T> T runAsCurrent(Supplier<T> action) {
+        Deadline previous = CURRENT.get();
+        CURRENT.set(this);
+        try {
+            return action.get();
+        } finally {
+            if (previous != null) {
+                CURRENT.set(previous);
+            } else {
+                CURRENT.remove();
+            }
+        }
+    }
+
+    synchronized boolean isPaused() {
+        return pausedAt >= 0;
+    }
+
+    synchronized Throwable excludedFailure() {
+        return excludedFailure;
+    }
+
+    /**
+     * @return time spent so far, not counting excluded work
+     */
+    synchronized long elapsedNanos() {
+        long now = System.nanoTime();
+        long excluded = excludedNanos + (pausedAt >= 0 ? now - pausedAt : 0);
+        return now - startedAt - excluded;
+    }
+
+    long remainingNanos() {
+        return budgetNanos - elapsedNanos();
+    }
+}
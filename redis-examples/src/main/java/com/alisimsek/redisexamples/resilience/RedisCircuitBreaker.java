@@ -0,0 +1,329 @@
+package com.alisimsek.redisexamples.resilience;
+
+import com.alisimsek.redisexamples.config.RedisResilienceProperties;
+import com.alisimsek.redisexamples.sharding.RedisShards;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Circuit breaker around the Redis calls of the cache and the rate limiter, so a slow or
+ * unreachable Redis costs callers a short deadline instead of the Lettuce command timeout.
+ * <p>
+ * Each call runs on a virtual thread and is abandoned once its deadline passes. The breaker
+ * opens when too many of the last {@code window-size} calls failed, timed out or were slow.
+ * While it is open, calls go straight to their fallback and Redis is pinged every
+ * {@code probe-interval}; once every node answers, the primary and any shards, the breaker is
+ * half-open, and it closes once {@code half-open-calls} calls in a row succeeded. Waiting for
+ * every node keeps one unreachable shard from letting the breaker flap between open and
+ * half-open, replaying skipped writes each time.
+ */
+@Component
+@Slf4j
+public class RedisCircuitBreaker {
+
+    // A thread blocked on a paused deadline is woken up this often to check the budget again.
+    private static final long MIN_WAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final RedisShards redisShards;
+    private final RedisResilienceProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final ExecutorService executor =
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("redis-call-", 0).factory());
+    private final List<Runnable> reconnectListeners = new CopyOnWriteArrayList<>();
+
+    // Outcomes of the most recent calls in the closed state, as a ring buffer. Guarded by this.
+    private final Outcome[] window;
+    private int windowIndex;
+    private int windowCalls;
+    private int windowFailures;
+    private int windowSlowCalls;
+    private int halfOpenSuccesses;
+    private volatile CircuitState state = CircuitState.CLOSED;
+
+    public RedisCircuitBreaker(RedisShards redisShards, RedisResilienceProperties properties,
+                               MeterRegistry meterRegistry) {
+        this.redisShards = redisShards;
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.window = new Outcome[properties.getWindowSize()];
+        Gauge.builder("redis.circuit.state", this, breaker -> breaker.state.ordinal())
+                .description("State of the Redis circuit breaker: 0 closed, 1 half-open, 2 open")
+                .register(meterRegistry);
+    }
+
+    public CircuitState getState() {
+        return state;
+    }
+
+    /**
+     * @return false while calls are being short-circuited to their fallback
+     */
+    public boolean isCallPermitted() {
+        return !properties.isEnabled() || state != CircuitState.OPEN;
+    }
+
+    /**
+     * Registers a task run when a probe first reaches Redis again after an outage, e.g. to
+     * replay writes that were skipped meanwhile.
+     */
+    public void addReconnectListener(Runnable listener) {
+        reconnectListeners.add(listener);
+    }
+
+    public <T> T execute(String operation, Duration timeout, Supplier<T> action, Supplier<T> fallback) {
+        return execute(operation, timeout, deadline -> action.get(), fallback);
+    }
+
+    /**
+     * Runs a Redis call within the given deadline.
+     *
+     * @param action   the call; work it wraps in {@link Deadline#excluding} is not timed
+     * @param fallback supplies the result if the breaker is open, or the call fails or times out
+     * @return the result of the call, or of the fallback
+     */
+    public <T> T execute(String operation, Duration timeout, Function<Deadline, T> action, Supplier<T> fallback) {
+        Deadline deadline = new Deadline(timeout);
+        if (!properties.isEnabled()) {
+            return action.apply(deadline);
+        }
+        if (state == CircuitState.OPEN) {
+            callCounter(operation, "rejected").increment();
+            return fallback.get();
+        }
+        Future<T> future = executor.submit(() -> deadline.runAsCurrent(() -> action.apply(deadline)));
+        try {
+            T result = await(future, deadline);
+            record(operation, deadline.elapsedNanos() >= properties.getSlowCallDuration().toNanos()
+                    ? Outcome.SLOW : Outcome.SUCCESS);
+            return result;
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            record(operation, Outcome.TIMEOUT);
+            log.debug("Redis {} call exceeded its deadline of {}", operation, timeout);
+            return fallback.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (deadline.excludedFailure() != null) {
+                // The excluded work failed, not Redis; the caller handles that.
+                record(operation, Outcome.SUCCESS);
+                if (cause instanceof Error error) {
+                    throw error;
+                }
+                throw cause instanceof RuntimeException runtime ? runtime : new IllegalStateException(cause);
+            }
+            record(operation, Outcome.FAILURE);
+            log.debug("Redis {} call failed", operation, cause);
+            return fallback.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            return fallback.get();
+        }
+    }
+
+    /**
+     * Runs a reactive Redis call within the given deadline. Unlike the blocking variants, the call
+     * stays on the thread it completes on; it is cancelled once the deadline passes.
+     *
+     * @param fallback subscribed to instead if the breaker is open, or the call fails or times out
+     */
+    public <T> Mono<T> execute(String operation, Duration timeout, Mono<T> action, Mono<T> fallback) {
+        if (!properties.isEnabled()) {
+            return action;
+        }
+        return Mono.defer(() -> {
+            if (state == CircuitState.OPEN) {
+                callCounter(operation, "rejected").increment();
+                return fallback;
+            }
+            long start = System.nanoTime();
+            return action.timeout(timeout)
+                    .doOnSuccess(result -> record(operation,
+                            System.nanoTime() - start >= properties.getSlowCallDuration().toNanos()
+                                    ? Outcome.SLOW : Outcome.SUCCESS))
+                    .onErrorResume(e -> {
+                        if (e instanceof TimeoutException) {
+                            record(operation, Outcome.TIMEOUT);
+                            log.debug("Redis {} call exceeded its deadline of {}", operation, timeout);
+                        } else {
+                            record(operation, Outcome.FAILURE);
+                            log.debug("Redis {} call failed", operation, e);
+                        }
+                        return fallback;
+                    });
+        });
+    }
+
+    /**
+     * Pings every Redis node while the breaker is open, and lets calls through again once they all answer.
+     */
+    @Scheduled(fixedDelayString = "${redis.resilience.probe-interval:1s}")
+    public void probe() {
+        if (!properties.isEnabled() || state != CircuitState.OPEN) {
+            return;
+        }
+        List<Future<String>> pings = redisShards.allNodes().stream()
+                .map(template -> executor.submit(() -> template.execute((RedisCallback<String>) RedisConnection::ping)))
+                .toList();
+        long deadline = System.nanoTime() + properties.getProbeTimeout().toNanos();
+        try {
+            for (Future<String> ping : pings) {
+                ping.get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+            }
+        } catch (TimeoutException e) {
+            log.debug("Redis probe timed out");
+            return;
+        } catch (ExecutionException e) {
+            log.debug("Redis probe failed", e.getCause());
+            return;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        } finally {
+            pings.forEach(ping -> ping.cancel(true));
+        }
+        boolean reconnected;
+        synchronized (this) {
+            reconnected = state == CircuitState.OPEN;
+            if (reconnected) {
+                transition(CircuitState.HALF_OPEN);
+            }
+        }
+        if (reconnected) {
+            reconnectListeners.forEach(listener -> executor.execute(() -> {
+                try {
+                    listener.run();
+                } catch (Exception e) {
+                    log.error("Redis reconnect listener failed", e);
+                }
+            }));
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private static <T> T await(Future<T> future, Deadline deadline)
+            throws TimeoutException, ExecutionException, InterruptedException {
+        while (true) {
+            long remaining = deadline.remainingNanos();
+            if (remaining <= 0 && !deadline.isPaused() && !future.isDone()) {
+                throw new TimeoutException();
+            }
+            try {
+                return future.get(Math.max(remaining, MIN_WAIT_NANOS), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                // Check again; the deadline may have been paused meanwhile.
+            }
+        }
+    }
+
+    private void record(String operation, Outcome outcome) {
+        callCounter(operation, outcome.name().toLowerCase(Locale.ROOT)).increment();
+        synchronized (this) {
+            switch (state) {
+                case CLOSED -> {
+                    Outcome evicted = window[windowIndex];
+                    if (evicted != null) {
+                        count(evicted, -1);
+                    } else {
+                        windowCalls++;
+                    }
+                    window[windowIndex] = outcome;
+                    windowIndex = (windowIndex + 1) % window.length;
+                    count(outcome, 1);
+                    if (windowCalls >= properties.getMinimumCalls()
+                            && (windowFailures >= properties.getFailureRateThreshold() * windowCalls
+                            || windowSlowCalls >= properties.getSlowCallRateThreshold() * windowCalls)) {
+                        transition(CircuitState.OPEN);
+                    }
+                }
+                case HALF_OPEN -> {
+                    if (outcome.failed) {
+                        transition(CircuitState.OPEN);
+                    } else if (++halfOpenSuccesses >= properties.getHalfOpenCalls()) {
+                        transition(CircuitState.CLOSED);
+                    }
+                }
+                case OPEN -> {
+                    // A call that started before the breaker opened.
+                }
+            }
+        }
+    }
+
+    private void count(Outcome outcome, int delta) {
+        if (outcome.failed) {
+            windowFailures += delta;
+        } else if (outcome == Outcome.SLOW) {
+            windowSlowCalls += delta;
+        }
+    }
+
+    /**
+     * Moves to a new state and starts counting afresh. Must be called holding this monitor.
+     */
+    private void transition(CircuitState to) {
+        CircuitState from = state;
+        state = to;
+        Arrays.fill(window, null);
+        windowIndex = 0;
+        windowCalls = 0;
+        windowFailures = 0;
+        windowSlowCalls = 0;
+        halfOpenSuccesses = 0;
+        Counter.builder("redis.circuit.transitions")
+                .description("State changes of the Redis circuit breaker")
+                .tag("from", from.name().toLowerCase(Locale.ROOT))
+                .tag("to", to.name().toLowerCase(Locale.ROOT))
+                .register(meterRegistry)
+                .increment();
+        if (to == CircuitState.OPEN) {
+            log.warn("Redis circuit breaker opened (was {}); cache and rate limit calls bypass Redis", from);
+        } else {
+            log.info("Redis circuit breaker moved from {} to {}", from, to);
+        }
+    }
+
+    private Counter callCounter(String operation, String result) {
+        return Counter.builder("redis.circuit.calls")
+                .description("Calls through the Redis circuit breaker by outcome")
+                .tag("operation", operation)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private enum Outcome {
+        SUCCESS(false), SLOW(false), FAILURE(true), TIMEOUT(true);
+
+        private final boolean failed;
+
+        Outcome(boolean failed) {
+            this.failed = failed;
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.alisimsek.redisexamples.service;
+
+/**
+ * How a new user is written to the database.
+ */
+public enum CreateMode {
+    /**
+     * Inserted immediately; the caller gets the user with its ID.
+     */
+    DIRECT,
+    /**
+     * Queued in a Redis list and inserted in batches by {@link UserWriteBehindBuffer};
+     * the caller gets the user without an ID.
+     */
+    WRITE_BEHIND
+}
@@ -0,0 +1,13 @@
+package com.alisimsek.redisexamples.service;
+
+/**
+ * A held distributed lock.
+ *
+ * @param key           the lock key
+ * @param token         identifies this holder; only the holder can release or renew the lock
+ * @param fencingToken  increases with every acquisition of the key, so a write path can reject
+ *                      writes from a holder whose lease has already expired
+ * @param acquiredAtNanos {@link System#nanoTime()} at acquisition, used for hold-time metrics
+ */
+public record FencedLock(String key, String token, long fencingToken, long acquiredAtNanos) {
+}
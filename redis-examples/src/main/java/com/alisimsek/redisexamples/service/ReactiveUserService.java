@@ -0,0 +1,104 @@
+package com.alisimsek.redisexamples.service;
+
+import com.alisimsek.redisexamples.cache.ReactiveCacheAside;
+import com.alisimsek.redisexamples.config.UserExistenceProperties;
+import com.alisimsek.redisexamples.entity.User;
+import com.alisimsek.redisexamples.repository.UserRepository;
+import com.alisimsek.redisexamples.warmup.UserAccessRecorder;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Non-blocking variants of the user reads and creation in {@link UserService}. Redis is read and
+ * written through {@link ReactiveCacheAside}; the repository is still blocking JPA, so DB calls
+ * run on the bounded elastic scheduler. Creation delegates to {@link UserService} there, so the
+ * indexes and caches are maintained exactly as for the blocking API.
+ * <p>
+ * Reads differ from {@link UserService#getUser}: concurrent misses share one load per node, but
+ * not across nodes, and there is no near cache, hot-key replica, stale fallback or Bloom filter
+ * check in front of Redis.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ReactiveUserService {
+    private static final String USER_BY_ID_CACHE = "userById";
+
+    private final ReactiveCacheAside cacheAside;
+    private final UserRepository userRepository;
+    private final UserService userService;
+    private final UserWriteBehindBuffer userWriteBehindBuffer;
+    private final UserAccessRecorder userAccessRecorder;
+
+    /**
+     * Retrieves a user by ID through {@code userById}. IDs that were recently not found in the DB
+     * are remembered in {@code userMissing}, as by {@link UserService#getUser}.
+     *
+     * @return the user, or empty if it does not exist
+     */
+    public Mono<User> getUser(Long id) {
+        return cacheAside.get(USER_BY_ID_CACHE, id, User.class, () -> loadUnlessMissing(id))
+                .doOnNext(user -> userAccessRecorder.record(id));
+    }
+
+    private Mono<User> loadUnlessMissing(Long id) {
+        return cacheAside.get(UserExistenceProperties.USER_MISSING_CACHE, id, Boolean.class)
+                .hasElement()
+                .flatMap(missing -> missing ? Mono.<User>empty() : blocking(() -> {
+                    log.info("Fetching user from DB with id: {}", id);
+                    return userRepository.findById(id).orElse(null);
+                }).switchIfEmpty(Mono.defer(() ->
+                        cacheAside.put(UserExistenceProperties.USER_MISSING_CACHE, id, Boolean.TRUE).then(Mono.empty()))));
+    }
+
+    /**
+     * Retrieves several users at once, in the order of the given IDs, like {@link UserService#getUsers(List)}.
+     * Unknown IDs are skipped.
+     */
+    public Mono<List<User>> getUsers(List<Long> ids) {
+        List<Long> distinctIds = ids.stream().filter(Objects::nonNull).distinct().toList();
+        return cacheAside.getAll(USER_BY_ID_CACHE, distinctIds, User.class)
+                .flatMap(cached -> {
+                    List<Long> missingIds = distinctIds.stream().filter(id -> !cached.containsKey(id)).toList();
+                    if (missingIds.isEmpty()) {
+                        return Mono.just(cached);
+                    }
+                    return blocking(() -> {
+                        log.info("Fetching {} users from DB with ids: {}", missingIds.size(), missingIds);
+                        return userRepository.findAllById(missingIds).stream()
+                                .collect(Collectors.toMap(User::getId, Function.identity()));
+                    }).flatMap(loaded -> cacheAside.putAll(USER_BY_ID_CACHE, loaded).then(Mono.fromSupplier(() -> {
+                        Map<Long, User> users = new HashMap<>(cached);
+                        users.putAll(loaded);
+                        return users;
+                    })));
+                })
+                .map(users -> distinctIds.stream().map(users::get).filter(Objects::nonNull).toList());
+    }
+
+    public Mono<User> createUser(User user) {
+        return blocking(() -> userService.createUser(user));
+    }
+
+    /**
+     * Queues a user for insertion by {@link UserWriteBehindBuffer}.
+     */
+    public Mono<User> acceptUser(User user) {
+        return blocking(() -> userWriteBehindBuffer.accept(user));
+    }
+
+    private static <T> Mono<T> blocking(Callable<T> call) {
+        return Mono.fromCallable(call).subscribeOn(Schedulers.boundedElastic());
+    }
+}
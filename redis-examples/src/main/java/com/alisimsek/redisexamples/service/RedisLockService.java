@@ -1,19 +1,68 @@
 package com.alisimsek.redisexamples.service;
 
+import com.alisimsek.redisexamples.config.LockProperties;
+import com.alisimsek.redisexamples.config.RedisConfig;
 import com.alisimsek.redisexamples.exception.RedisLockException;
 import com.alisimsek.redisexamples.exception.RedisUnlockException;
+import com.alisimsek.redisexamples.sharding.RedisShards;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
 import org.springframework.integration.redis.util.RedisLockRegistry;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.locks.Lock;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
-public class RedisLockService {
+public class RedisLockService implements MessageListener {
+    private static final String FAIR_LOCK_PREFIX = "fair_lock:";
+    private static final RedisScript<Long> ACQUIRE_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/fair-lock-acquire.lua"), Long.class);
+    private static final RedisScript<Long> RELEASE_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/fair-lock-release.lua"), Long.class);
+    private static final RedisScript<Long> RENEW_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/fair-lock-renew.lua"), Long.class);
+    private static final RedisScript<Long> CANCEL_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/fair-lock-cancel.lua"), Long.class);
+    private static final RedisScript<Long> FENCE_ADVANCE_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/fence-advance.lua"), Long.class);
+
     private final RedisLockRegistry redisLockRegistry;
+    private final StringRedisTemplate redisTemplate;
+    private final RedisShards redisShards;
+    private final LockProperties lockProperties;
+    private final MeterRegistry meterRegistry;
+
+    // Registries for the lock keys sharded to other nodes than the primary one, by node.
+    private final Map<RedisConnectionFactory, RedisLockRegistry> shardLockRegistries = new ConcurrentHashMap<>();
+
+    private final Map<String, CompletableFuture<Void>> releaseSignals = new ConcurrentHashMap<>();
+    private final Map<String, FencedLock> renewedLocks = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService watchdog = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("lock-watchdog").daemon().factory());
+    private volatile boolean watchdogStarted;
 
     /**
      * Attempts to acquire a distributed lock with the given key.
@@ -24,7 +73,7 @@ public class RedisLockService {
      */
     public void lock(String key) throws RedisLockException {
         log.info("Trying to acquire lock for key: {}", key);
-        Lock lock = redisLockRegistry.obtain(key);
+        Lock lock = lockRegistry(key).obtain(key);
         boolean acquired = lock.tryLock();
         if (!acquired) {
             log.warn("Failed to acquire lock for key: {}", key);
@@ -42,7 +91,7 @@ public class RedisLockService {
      */
     public void unlock(String key) throws RedisUnlockException {
         log.info("Releasing lock for key: {}", key);
-        Lock lock = redisLockRegistry.obtain(key);
+        Lock lock = lockRegistry(key).obtain(key);
         try {
             lock.unlock();
             log.info("Lock released for key: {}", key);
@@ -51,4 +100,229 @@ public class RedisLockService {
             throw new RedisUnlockException("Unable to release lock for key: " + key, e);
         }
     }
+
+    /**
+     * Acquires a fair lock, waiting up to the configured wait timeout.
+     * The lease is renewed by a watchdog until {@link #release(FencedLock)} is called.
+     *
+     * @see #acquire(String, Duration, boolean)
+     */
+    public FencedLock acquire(String key) throws RedisLockException {
+        return acquire(key, lockProperties.getWaitTimeout(), true);
+    }
+
+    /**
+     * Acquires a fair distributed lock. Callers queue in arrival order across all nodes and
+     * are woken through pub/sub when the lock is released instead of polling for it.
+     *
+     * @param key         the lock key
+     * @param waitTimeout how long to queue; zero tries once without queueing
+     * @param renewLease  whether a watchdog keeps extending the lease until the lock is released
+     * @return the held lock, including its fencing token
+     * @throws RedisLockException if the lock could not be acquired within the wait timeout
+     */
+    public FencedLock acquire(String key, Duration waitTimeout, boolean renewLease) throws RedisLockException {
+        log.info("Trying to acquire fair lock for key: {}", key);
+        String token = UUID.randomUUID().toString();
+        List<String> keys = List.of(lockKey(key), queueKey(key), deadlinesKey(key), fenceKey(key));
+        String lease = String.valueOf(lockProperties.getLeaseTime().toMillis());
+        String heartbeat = String.valueOf(lockProperties.getWaiterHeartbeat().toMillis());
+        String enqueue = waitTimeout.isZero() ? "0" : "1";
+        StringRedisTemplate lockTemplate = redisShards.forLockKey(lockKey(key));
+        long start = System.nanoTime();
+        long deadline = start + waitTimeout.toNanos();
+        boolean queued = false;
+        try {
+            while (true) {
+                CompletableFuture<Void> signal = releaseSignals.computeIfAbsent(key, k -> new CompletableFuture<>());
+                Long fencingToken = lockTemplate.execute(ACQUIRE_SCRIPT, keys, token, lease, heartbeat, enqueue);
+                if (fencingToken != null && fencingToken > 0) {
+                    queued = false;
+                    waitTimer("acquired").record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                    FencedLock lock = new FencedLock(key, token, fencingToken, System.nanoTime());
+                    if (renewLease) {
+                        startWatchdog(lock);
+                    }
+                    log.info("Fair lock acquired for key: {} with fencing token: {}", key, fencingToken);
+                    return lock;
+                }
+                queued = enqueue.equals("1");
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    waitTimer("timeout").record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                    log.warn("Failed to acquire fair lock for key: {}", key);
+                    throw new RedisLockException("Unable to acquire lock for key: " + key);
+                }
+                // Poll well within the heartbeat so this waiter keeps its place in the queue.
+                long pollNanos = Math.min(remaining, lockProperties.getWaiterHeartbeat().toNanos() / 3);
+                try {
+                    signal.get(pollNanos, TimeUnit.NANOSECONDS);
+                } catch (TimeoutException | ExecutionException ignored) {
+                    // Retry on timeout as well, in case the release message was missed.
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RedisLockException("Interrupted while waiting for lock for key: " + key);
+        } finally {
+            if (queued) {
+                Long removed = lockTemplate.execute(CANCEL_SCRIPT, List.of(lockKey(key), queueKey(key), deadlinesKey(key)),
+                        token, lockProperties.getReleaseChannel(), key);
+                if (removed != null && removed > 0) {
+                    wakeShardedWaiters(key);
+                }
+            }
+        }
+    }
+
+    /**
+     * Releases a lock obtained from {@link #acquire}.
+     *
+     * @throws RedisUnlockException if the lease had already expired and the lock was lost
+     */
+    public void release(FencedLock lock) throws RedisUnlockException {
+        log.info("Releasing fair lock for key: {}", lock.key());
+        renewedLocks.remove(lock.token());
+        Timer.builder("redis.lock.hold")
+                .description("Time fair locks are held")
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(System.nanoTime() - lock.acquiredAtNanos(), TimeUnit.NANOSECONDS);
+        Long released = redisShards.forLockKey(lockKey(lock.key())).execute(RELEASE_SCRIPT,
+                List.of(lockKey(lock.key())), lock.token(), lockProperties.getReleaseChannel(), lock.key());
+        if (released == null || released == 0) {
+            log.error("Fair lock for key: {} expired before it was released", lock.key());
+            throw new RedisUnlockException("Lock for key: " + lock.key() + " expired before it was released", null);
+        }
+        wakeShardedWaiters(lock.key());
+        log.info("Fair lock released for key: {}", lock.key());
+    }
+
+    /**
+     * Releases a lock without masking the outcome of the work done under it. A lease that
+     * expired first is only logged; writes made after that were already checked by their fencing token.
+     */
+    public void releaseQuietly(FencedLock lock) {
+        try {
+            release(lock);
+        } catch (Exception e) {
+            log.warn("Could not release lock for key: {}: {}", lock.key(), e.getMessage());
+        }
+    }
+
+    /**
+     * Raises the fencing counter of a key to at least the given token, so the next acquisition
+     * gets a newer one. Needed when the counter was lost while tokens it handed out are still
+     * stored with the data they protect; a counter that is ahead already is left alone.
+     */
+    public void advanceFencingToken(String key, long token) {
+        redisShards.forLockKey(lockKey(key)).execute(FENCE_ADVANCE_SCRIPT, List.of(fenceKey(key)), String.valueOf(token));
+    }
+
+    /**
+     * Deletes the fair lock for the given key regardless of its holder and wakes waiters.
+     *
+     * @return true if a lock was held
+     */
+    public boolean forceUnlock(String key) {
+        log.warn("Force releasing fair lock for key: {}", key);
+        boolean deleted = Boolean.TRUE.equals(redisShards.forLockKey(lockKey(key)).delete(lockKey(key)));
+        redisTemplate.convertAndSend(lockProperties.getReleaseChannel(), key);
+        return deleted;
+    }
+
+    /**
+     * Wakes local waiters when a lock is released on any node.
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String key = new String(message.getBody(), StandardCharsets.UTF_8);
+        CompletableFuture<Void> signal = releaseSignals.remove(key);
+        if (signal != null) {
+            signal.complete(null);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        watchdog.shutdownNow();
+        shardLockRegistries.values().forEach(RedisLockRegistry::destroy);
+    }
+
+    /**
+     * The registry for the node that owns the given lock, see {@code redis.sharding.locks}.
+     */
+    private RedisLockRegistry lockRegistry(String key) {
+        if (!redisShards.isLockSharded()) {
+            return redisLockRegistry;
+        }
+        RedisConnectionFactory connectionFactory =
+                redisShards.connectionFactoryForLockKey(RedisConfig.LOCK_REGISTRY_KEY + ":" + key);
+        return shardLockRegistries.computeIfAbsent(connectionFactory, factory -> new RedisLockRegistry(factory,
+                RedisConfig.LOCK_REGISTRY_KEY, lockProperties.getLeaseTime().toMillis()));
+    }
+
+    /**
+     * The scripts publish releases on the node that owns the lock, but waiters subscribe on the
+     * primary Redis; with sharded locks the release is published there too.
+     */
+    private void wakeShardedWaiters(String key) {
+        if (redisShards.isLockSharded()) {
+            redisTemplate.convertAndSend(lockProperties.getReleaseChannel(), key);
+        }
+    }
+
+    private void startWatchdog(FencedLock lock) {
+        renewedLocks.put(lock.token(), lock);
+        if (!watchdogStarted) {
+            synchronized (this) {
+                if (!watchdogStarted) {
+                    long period = Math.max(1, lockProperties.getLeaseTime().toMillis() / 3);
+                    watchdog.scheduleAtFixedRate(this::renewLeases, period, period, TimeUnit.MILLISECONDS);
+                    watchdogStarted = true;
+                }
+            }
+        }
+    }
+
+    private void renewLeases() {
+        String lease = String.valueOf(lockProperties.getLeaseTime().toMillis());
+        renewedLocks.values().forEach(lock -> {
+            try {
+                Long renewed = redisShards.forLockKey(lockKey(lock.key()))
+                        .execute(RENEW_SCRIPT, List.of(lockKey(lock.key())), lock.token(), lease);
+                if (renewed == null || renewed == 0) {
+                    renewedLocks.remove(lock.token());
+                    log.warn("Fair lock for key: {} was lost before it could be renewed", lock.key());
+                }
+            } catch (Exception e) {
+                log.error("Failed to renew fair lock for key: {}", lock.key(), e);
+            }
+        });
+    }
+
+    private Timer waitTimer(String outcome) {
+        return Timer.builder("redis.lock.wait")
+                .description("Time spent waiting for fair locks")
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    // The hash tag keeps all keys of one lock on the same node when Redis is sharded.
+    private static String lockKey(String key) {
+        return FAIR_LOCK_PREFIX + "{" + key + "}";
+    }
+
+    private static String queueKey(String key) {
+        return lockKey(key) + ":queue";
+    }
+
+    private static String deadlinesKey(String key) {
+        return lockKey(key) + ":deadlines";
+    }
+
+    private static String fenceKey(String key) {
+        return lockKey(key) + ":fence";
+    }
 }
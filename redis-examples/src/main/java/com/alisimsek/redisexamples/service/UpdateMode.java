@@ -0,0 +1,17 @@
+package com.alisimsek.redisexamples.service;
+
+/**
+ * How {@link UserService#updateUser} protects concurrent updates of the same user.
+ */
+public enum UpdateMode {
+    /**
+     * Serializes updates with a Redis lock. Costs extra Redis round trips on every update.
+     */
+    LOCK,
+
+    /**
+     * Relies on the version column and retries on conflict. Falls back to {@link #LOCK}
+     * for users that keep conflicting.
+     */
+    OPTIMISTIC
+}
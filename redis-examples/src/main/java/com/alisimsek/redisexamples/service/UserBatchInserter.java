@@ -0,0 +1,88 @@
+package com.alisimsek.redisexamples.service;
+
+import com.alisimsek.redisexamples.entity.User;
+import com.alisimsek.redisexamples.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Inserts many new users in one transaction, which Hibernate sends as JDBC batches.
+ * Users whose email is taken, in the DB or earlier in the same batch, are rejected up front.
+ * If the batch still hits a constraint, e.g. an email created concurrently, the users are
+ * inserted one by one so only the offending rows are rejected.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class UserBatchInserter {
+
+    private final UserRepository userRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * Inserts the users; they are copied, so the given instances are left untouched.
+     */
+    public Result insert(List<User> users) {
+        List<Rejected> rejected = new ArrayList<>();
+        Set<String> existing = new HashSet<>(userRepository.findExistingEmails(
+                users.stream().map(User::getEmail).toList()));
+        Set<String> seen = new HashSet<>();
+        List<Integer> accepted = new ArrayList<>();
+        for (int i = 0; i < users.size(); i++) {
+            String email = users.get(i).getEmail();
+            if (existing.contains(email)) {
+                rejected.add(new Rejected(i, "Email already exists: " + email, true));
+            } else if (!seen.add(email)) {
+                rejected.add(new Rejected(i, "Email appears earlier in the batch: " + email, true));
+            } else {
+                accepted.add(i);
+            }
+        }
+        if (accepted.isEmpty()) {
+            return new Result(List.of(), rejected);
+        }
+        try {
+            List<User> created = transactionTemplate.execute(status ->
+                    userRepository.saveAll(accepted.stream().map(i -> copyOf(users.get(i))).toList()));
+            return new Result(created, rejected);
+        } catch (DataIntegrityViolationException e) {
+            log.warn("Batch insert of {} users failed, inserting them one by one", accepted.size(), e);
+        }
+        List<User> created = new ArrayList<>();
+        for (int i : accepted) {
+            try {
+                created.add(userRepository.save(copyOf(users.get(i))));
+            } catch (DataIntegrityViolationException e) {
+                rejected.add(new Rejected(i, e.getMostSpecificCause().getMessage(), false));
+            }
+        }
+        return new Result(created, rejected);
+    }
+
+    // A failed transaction leaves IDs assigned to the entities it tried to persist.
+    private static User copyOf(User user) {
+        return new User(null, user.getName(), user.getEmail(), null);
+    }
+
+    /**
+     * @param created  the inserted users, with their IDs
+     * @param rejected the users that were not inserted
+     */
+    public record Result(List<User> created, List<Rejected> rejected) {
+    }
+
+    /**
+     * @param index     position of the user in the list passed to {@link #insert}
+     * @param duplicate whether the email was already taken
+     */
+    public record Rejected(int index, String reason, boolean duplicate) {
+    }
+}
@@ -0,0 +1,27 @@
+package com.alisimsek.redisexamples.service;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * One line of the bulk import response: a rejected row, progress after a batch, or the final totals.
+ *
+ * @param line    1-based line of the request body the error refers to
+ * @param lines   lines read so far
+ * @param millis  time taken so far
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record UserImportEvent(String type, Long line, String message, Long lines, Long imported, Long failed,
+                              Long millis) {
+
+    static UserImportEvent error(long line, String message) {
+        return new UserImportEvent("error", line, message, null, null, null, null);
+    }
+
+    static UserImportEvent progress(long lines, long imported, long failed, long millis) {
+        return new UserImportEvent("progress", null, null, lines, imported, failed, millis);
+    }
+
+    static UserImportEvent done(long lines, long imported, long failed, long millis) {
+        return new UserImportEvent("done", null, null, lines, imported, failed, millis);
+    }
+}
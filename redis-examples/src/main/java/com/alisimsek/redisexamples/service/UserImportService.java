@@ -0,0 +1,125 @@
+package com.alisimsek.redisexamples.service;
+
+import com.alisimsek.redisexamples.cache.RedisCacheBatchOperations;
+import com.alisimsek.redisexamples.config.UserCreateProperties;
+import com.alisimsek.redisexamples.entity.User;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Imports users from NDJSON, one {@code {"name": ..., "email": ...}} object per line.
+ * The body is read line by line, so only one batch is held in memory at a time. Each batch is
+ * inserted in one transaction and the new users are written to {@code userById} in one pipeline,
+ * so the first reads after an import do not all miss.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class UserImportService {
+
+    private static final String USER_BY_ID_CACHE = "userById";
+
+    private final UserBatchInserter userBatchInserter;
+    private final UserService userService;
+    private final RedisCacheBatchOperations cacheBatchOperations;
+    private final ObjectMapper objectMapper;
+    private final UserCreateProperties properties;
+
+    /**
+     * @param events receives an error for every rejected row, progress after every batch and the totals at the end
+     */
+    public void importUsers(InputStream body, Consumer<UserImportEvent> events) throws IOException {
+        long start = System.currentTimeMillis();
+        Progress progress = new Progress();
+        List<User> batch = new ArrayList<>(properties.getImportBatchSize());
+        List<Long> batchLines = new ArrayList<>(properties.getImportBatchSize());
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                progress.lines++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                User user;
+                try {
+                    user = parse(line);
+                } catch (IllegalArgumentException e) {
+                    progress.failed++;
+                    events.accept(UserImportEvent.error(progress.lines, e.getMessage()));
+                    continue;
+                }
+                batch.add(user);
+                batchLines.add(progress.lines);
+                if (batch.size() == properties.getImportBatchSize()) {
+                    insert(batch, batchLines, progress, events);
+                    events.accept(UserImportEvent.progress(progress.lines, progress.imported, progress.failed,
+                            System.currentTimeMillis() - start));
+                    batch.clear();
+                    batchLines.clear();
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            insert(batch, batchLines, progress, events);
+        }
+        long millis = System.currentTimeMillis() - start;
+        log.info("Imported {} users from {} lines in {} ms, {} rejected", progress.imported, progress.lines, millis,
+                progress.failed);
+        events.accept(UserImportEvent.done(progress.lines, progress.imported, progress.failed, millis));
+    }
+
+    private void insert(List<User> batch, List<Long> batchLines, Progress progress, Consumer<UserImportEvent> events) {
+        UserBatchInserter.Result result = userBatchInserter.insert(batch);
+        result.rejected().forEach(rejected ->
+                events.accept(UserImportEvent.error(batchLines.get(rejected.index()), rejected.reason())));
+        progress.failed += result.rejected().size();
+        List<User> created = result.created();
+        progress.imported += created.size();
+        if (created.isEmpty()) {
+            return;
+        }
+        try {
+            Map<Long, User> byId = created.stream().collect(Collectors.toMap(User::getId, Function.identity()));
+            cacheBatchOperations.putAll(USER_BY_ID_CACHE, byId);
+        } catch (Exception e) {
+            // Only a warm-up; the users are read from the DB on first access instead.
+            log.warn("Failed to cache {} imported users", created.size(), e);
+        }
+        userService.usersCreated(created);
+    }
+
+    private User parse(String line) {
+        User user;
+        try {
+            user = objectMapper.readValue(line, User.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Invalid JSON: " + e.getOriginalMessage());
+        }
+        if (!StringUtils.hasText(user.getName()) || !StringUtils.hasText(user.getEmail())) {
+            throw new IllegalArgumentException("Both name and email are required");
+        }
+        return new User(null, user.getName().trim(), user.getEmail().trim(), null);
+    }
+
+    private static final class Progress {
+        private long lines;
+        private long imported;
+        private long failed;
+    }
+}
@@ -1,16 +1,46 @@
 package com.alisimsek.redisexamples.service;
 
+import com.alisimsek.redisexamples.cache.RedisCacheBatchOperations;
+import com.alisimsek.redisexamples.config.UserExistenceProperties;
+import com.alisimsek.redisexamples.config.UserUpdateProperties;
 import com.alisimsek.redisexamples.entity.User;
+import com.alisimsek.redisexamples.exception.StaleFencingTokenException;
+import com.alisimsek.redisexamples.index.UserEmailIndex;
+import com.alisimsek.redisexamples.index.UserIdBloomFilter;
+import com.alisimsek.redisexamples.index.UserIdIndex;
+import com.alisimsek.redisexamples.index.UserIndex;
+import com.alisimsek.redisexamples.index.UserSearchIndex;
 import com.alisimsek.redisexamples.repository.UserRepository;
+import com.alisimsek.redisexamples.warmup.UserAccessRecorder;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.cache.annotation.Caching;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -18,15 +48,41 @@ import java.util.List;
 public class UserService {
     private final UserRepository userRepository;
     private final RedisLockService redisLockService;
+    private final RedisCacheBatchOperations cacheBatchOperations;
+    private final UserUpdateProperties updateProperties;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final CacheManager cacheManager;
+    private final UserIdIndex userIdIndex;
+    private final UserSearchIndex userSearchIndex;
+    private final UserEmailIndex userEmailIndex;
+    private final UserIdBloomFilter userIdBloomFilter;
+    private final List<UserIndex> userIndexes;
+    private final UserAccessRecorder userAccessRecorder;
+
+    /**
+     * Users whose optimistic updates recently ran out of retries; these go straight to the lock.
+     */
+    private Cache<Long, Boolean> contendedUsers;
 
     private static final String USER_LIST_CACHE = "userList";
     private static final String USER_BY_ID_CACHE = "userById";
+    private static final String USER_PAGE_CACHE = "userPage";
+    private static final int PAGE_CHUNK_SIZE = 50;
+
+    @PostConstruct
+    void initContendedUsers() {
+        contendedUsers = Caffeine.newBuilder()
+                .maximumSize(updateProperties.getMaxContendedKeys())
+                .expireAfterWrite(updateProperties.getContendedTtl())
+                .build();
+    }
 
     /**
      * Retrieves all users and caches the result.
-     * Does not cache if the result is empty.
+     * Concurrent misses are coalesced so only one caller across all nodes queries the DB.
      */
-    @Cacheable(value = USER_LIST_CACHE, unless = "#result.isEmpty()")
+    @Cacheable(value = USER_LIST_CACHE, sync = true)
     public List<User> getAllUsers() {
         log.info("Fetching all users from DB");
         return userRepository.findAll();
@@ -34,12 +90,167 @@ public class UserService {
 
     /**
      * Retrieves a user by ID and caches the result.
-     * Does not cache if the result is null.
+     * Concurrent misses are coalesced so only one caller across all nodes queries the DB.
+     * On a miss in every cache layer, IDs ruled out by the Bloom filter are rejected without a
+     * DB query, and IDs that were recently not found in the DB are remembered in
+     * {@code userMissing}. Both are checked only then, so hits served by the local layers
+     * make no Redis call.
      */
-    @Cacheable(value = USER_BY_ID_CACHE, key = "#id", unless = "#result == null")
     public User getUser(Long id) {
+        try {
+            User user = userByIdCache().get(id, () -> loadUser(id));
+            userAccessRecorder.record(id);
+            return user;
+        } catch (org.springframework.cache.Cache.ValueRetrievalException e) {
+            if (e.getCause() instanceof EntityNotFoundException notFound) {
+                throw notFound;
+            }
+            throw e;
+        }
+    }
+
+    private User loadUser(Long id) {
+        if (!userIdBloomFilter.mightContain(id)) {
+            throw new EntityNotFoundException();
+        }
+        org.springframework.cache.Cache missingCache = missingCache();
+        if (missingCache.get(id) != null) {
+            existenceCounter("negative_hit").increment();
+            throw new EntityNotFoundException();
+        }
         log.info("Fetching user from DB with id: {}", id);
-        return userRepository.findById(id).orElseThrow(EntityNotFoundException::new);
+        return userRepository.findById(id).orElseThrow(() -> {
+            userIdBloomFilter.recordFalsePositive();
+            missingCache.put(id, Boolean.TRUE);
+            return new EntityNotFoundException();
+        });
+    }
+
+    /**
+     * Retrieves several users at once, in the order of the given IDs.
+     * Cached users are read with one MGET, the rest are loaded with one query
+     * and written back to the cache in one pipeline. The write-back does not overwrite users
+     * cached meanwhile, e.g. by a read after an update. Unknown IDs are skipped.
+     */
+    public List<User> getUsers(List<Long> ids) {
+        List<Long> distinctIds = ids.stream().filter(Objects::nonNull).distinct().toList();
+        Map<Long, User> users = cacheBatchOperations.getAll(USER_BY_ID_CACHE, distinctIds, User.class);
+        List<Long> missingIds = distinctIds.stream().filter(id -> !users.containsKey(id)).toList();
+        if (!missingIds.isEmpty()) {
+            log.info("Fetching {} users from DB with ids: {}", missingIds.size(), missingIds);
+            Map<Long, User> loaded = userRepository.findAllById(missingIds).stream()
+                    .collect(Collectors.toMap(User::getId, Function.identity()));
+            cacheBatchOperations.putAllIfAbsent(USER_BY_ID_CACHE, loaded);
+            users.putAll(loaded);
+        }
+        return distinctIds.stream().map(users::get).filter(Objects::nonNull).toList();
+    }
+
+    /**
+     * Retrieves a user by email, ignoring case.
+     * The email is resolved to an ID through the Redis email index and the user is read from
+     * {@code userById}; only emails missing from the index are looked up in the DB.
+     */
+    public User getUserByEmail(String email) {
+        String trimmed = email.trim();
+        Long id = userEmailIndex.find(trimmed);
+        if (id != null) {
+            try {
+                User user = userByIdCache().get(id,
+                        () -> userRepository.findById(id).orElseThrow(EntityNotFoundException::new));
+                if (user != null && user.getEmail().equalsIgnoreCase(trimmed)) {
+                    userAccessRecorder.record(id);
+                    return user;
+                }
+            } catch (org.springframework.cache.Cache.ValueRetrievalException e) {
+                // The index is out of date and points at a deleted user; look the email up in the DB.
+                if (!(e.getCause() instanceof EntityNotFoundException)) {
+                    throw e;
+                }
+            }
+        }
+        log.info("Fetching user from DB with email: {}", trimmed);
+        User user = userRepository.findByEmailIgnoreCase(trimmed);
+        if (user == null) {
+            throw new EntityNotFoundException();
+        }
+        maintainIndexes(user.getId(), () -> {
+            userEmailIndex.added(user);
+            userByIdCache().putIfAbsent(user.getId(), user);
+        });
+        return user;
+    }
+
+    /**
+     * Finds users whose name, any word of their name, or email starts with the given prefix,
+     * ignoring case. IDs come from the Redis search index and users from {@code userById}.
+     */
+    public List<User> searchUsers(String prefix, int limit) {
+        return getUsers(userSearchIndex.search(prefix, limit));
+    }
+
+    /**
+     * Retrieves a page of users ordered by ID.
+     * Pages are assembled from fixed-size chunks cached in {@code userPage}. A chunk that is not
+     * cached is resolved through the ID index and {@code userById}, so only users missing from
+     * both are read from the DB. Other sort orders are read from the DB directly.
+     * <p>
+     * The page's IDs are always read from the ID index. A create or delete shifts the users of
+     * every later chunk by one position, so rather than evicting all of them on each write, a
+     * cached chunk whose IDs no longer match the index is rebuilt when it is read.
+     * <p>
+     * Until the ID index has been built, or if it was lost, e.g. evicted from Redis, pages are
+     * read from the DB.
+     */
+    public Page<User> getUsers(Pageable pageable) {
+        if (pageable.isUnpaged() || !isSortedById(pageable.getSort())) {
+            return userRepository.findAll(pageable);
+        }
+        Long indexed = userIdIndex.count();
+        if (indexed == null || (indexed == 0 && userRepository.count() > 0)) {
+            log.info("Fetching page {} of users from DB, the ID index is not built", pageable.getPageNumber());
+            return userRepository.findAll(pageable);
+        }
+        long total = indexed;
+        long offset = pageable.getOffset();
+        List<Long> pageIds = offset < total ? userIdIndex.range(offset, offset + pageable.getPageSize() - 1) : List.of();
+        long end = offset + pageIds.size();
+        List<User> users = new ArrayList<>();
+        org.springframework.cache.Cache pageCache = pageCache();
+        for (long chunk = offset / PAGE_CHUNK_SIZE; offset < end && chunk <= (end - 1) / PAGE_CHUNK_SIZE; chunk++) {
+            long chunkStart = chunk * PAGE_CHUNK_SIZE;
+            int from = (int) Math.max(0, offset - chunkStart);
+            int to = (int) Math.min(PAGE_CHUNK_SIZE, end - chunkStart);
+            List<Long> expectedIds = pageIds.subList((int) (chunkStart + from - offset), (int) (chunkStart + to - offset));
+            List<User> chunkUsers = pageCache.get(chunk, () -> loadPageChunk(chunkStart));
+            if (!expectedIds.equals(idsOf(chunkUsers, from, to))) {
+                chunkUsers = loadPageChunk(chunkStart);
+                pageCache.put(chunk, chunkUsers);
+            }
+            users.addAll(chunkUsers.subList(Math.min(from, chunkUsers.size()), Math.min(to, chunkUsers.size())));
+        }
+        return new PageImpl<>(users, pageable, total);
+    }
+
+    private static List<Long> idsOf(List<User> users, int from, int to) {
+        return users.subList(Math.min(from, users.size()), Math.min(to, users.size())).stream().map(User::getId).toList();
+    }
+
+    private List<User> loadPageChunk(long chunkStart) {
+        List<Long> ids = userIdIndex.range(chunkStart, chunkStart + PAGE_CHUNK_SIZE - 1);
+        return new ArrayList<>(getUsers(ids));
+    }
+
+    /**
+     * Drops every cached page chunk, e.g. after the ID index has been rebuilt.
+     */
+    @CacheEvict(value = USER_PAGE_CACHE, allEntries = true)
+    public void clearPageCache() {
+        log.info("Clearing cached user pages");
+    }
+
+    private static boolean isSortedById(Sort sort) {
+        return sort.isUnsorted() || sort.equals(Sort.by(Sort.Direction.ASC, "id"));
     }
 
     /**
@@ -49,52 +260,178 @@ public class UserService {
     @CacheEvict(value = {USER_LIST_CACHE}, allEntries = true)
     public User createUser(User user) {
         log.info("Creating new user: {}", user);
-        return userRepository.save(user);
+        User created = userRepository.save(user);
+        afterCreate(List.of(created));
+        return created;
     }
 
     /**
-     * Updates an existing user.
-     * Uses distributed locking to prevent concurrent updates.
+     * Updates indexes and caches for users inserted in bulk, e.g. by {@link UserWriteBehindBuffer}.
+     * {@code userList} is evicted once for the whole batch.
+     */
+    @CacheEvict(value = {USER_LIST_CACHE}, allEntries = true)
+    public void usersCreated(List<User> created) {
+        afterCreate(created);
+    }
+
+    private void afterCreate(List<User> created) {
+        if (created.isEmpty()) {
+            return;
+        }
+        Long firstId = created.stream().map(User::getId).min(Long::compare).orElseThrow();
+        maintainIndexes(firstId, () -> {
+            if (created.size() == 1) {
+                missingCache().evict(firstId);
+            } else {
+                // Misses are only remembered briefly; clearing them beats one eviction per user.
+                missingCache().clear();
+            }
+            updateIndexes(firstId, index -> index.addedAll(created));
+            // Later chunks have shifted too; getUsers(Pageable) rebuilds them when it finds their IDs out of date.
+            evictPageChunk(userIdIndex.rank(firstId));
+        });
+    }
+
+    /**
+     * Updates an existing user in the configured {@link UpdateMode}.
      * Evicts relevant caches after update.
      */
-    @CacheEvict(value = {USER_LIST_CACHE, USER_BY_ID_CACHE}, allEntries = true)
+    @CacheEvict(value = {USER_LIST_CACHE}, allEntries = true)
     public User updateUser(Long id, User user) {
-        User existing = userRepository.findById(id).orElseThrow(EntityNotFoundException::new);
+        return updateUser(id, user, updateProperties.getMode());
+    }
+
+    /**
+     * Updates an existing user.
+     * In {@link UpdateMode#OPTIMISTIC} mode conflicting updates are detected by the version column
+     * and retried; users that keep conflicting are updated under the Redis lock for a while.
+     * In {@link UpdateMode#LOCK} mode a fair distributed lock is used: concurrent updates of
+     * the same user queue up instead of failing.
+     * Evicts relevant caches after update.
+     */
+    @CacheEvict(value = {USER_LIST_CACHE}, allEntries = true)
+    public User updateUser(Long id, User user, UpdateMode mode) {
+        if (mode == UpdateMode.OPTIMISTIC && contendedUsers.getIfPresent(id) == null) {
+            User updated = updateOptimistically(id, user);
+            if (updated != null) {
+                return updated;
+            }
+            log.info("updateUser || User with ID {} is contended, falling back to the Redis lock", id);
+            contendedUsers.put(id, Boolean.TRUE);
+            updateCounter("fallback").increment();
+        }
+        return updateWithLock(id, user);
+    }
+
+    /**
+     * Returns the updated user, or null if every attempt ran into a concurrent update.
+     */
+    private User updateOptimistically(Long id, User user) {
+        long backoffMillis = updateProperties.getRetryBackoff().toMillis();
+        for (int attempt = 0; attempt <= updateProperties.getMaxRetries(); attempt++) {
+            try {
+                UserChange change = transactionTemplate.execute(status -> {
+                    User existing = userRepository.findById(id).orElseThrow(EntityNotFoundException::new);
+                    User before = copyOf(existing);
+                    log.info("Updating user: {} (version {})", user, existing.getVersion());
+                    existing.setName(user.getName());
+                    existing.setEmail(user.getEmail());
+                    return new UserChange(before, userRepository.saveAndFlush(existing));
+                });
+                updateCounter(attempt == 0 ? "optimistic" : "optimistic_retried").increment();
+                return afterUpdate(change);
+            } catch (ObjectOptimisticLockingFailureException e) {
+                updateCounter("conflict").increment();
+                log.info("updateUser || Version conflict on user with ID {} (attempt {})", id, attempt + 1);
+                try {
+                    long backoff = backoffMillis << attempt;
+                    Thread.sleep(backoff + ThreadLocalRandom.current().nextLong(backoff + 1));
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException(String.format("updateUser || Interrupted while updating user with ID %d", id));
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Updates a user under the fair Redis lock. The write carries the lock's fencing token and is
+     * rejected if a newer holder already wrote the user, e.g. because this holder was paused past its lease.
+     */
+    private User updateWithLock(Long id, User user) {
         String lockKey = "user_update_" + id;
-        boolean lockAcquired = false;
+        FencedLock lock = null;
         try {
-            redisLockService.lock(lockKey);
-            lockAcquired = true;
-
-            log.info("Updating user: {}", user);
-            existing.setName(user.getName());
-            existing.setEmail(user.getEmail());
-            return userRepository.save(existing);
+            lock = redisLockService.acquire(lockKey);
+            long fencingToken = lock.fencingToken();
+            UserChange change = transactionTemplate.execute(status -> {
+                User existing = userRepository.findById(id).orElseThrow(EntityNotFoundException::new);
+                User before = copyOf(existing);
+                log.info("Updating user: {} (fencing token {})", user, fencingToken);
+                if (userRepository.updateFenced(id, user.getName(), user.getEmail(), fencingToken) == 0) {
+                    if (existing.getLockFence() != null) {
+                        // Also covers a fencing counter lost in Redis; the next holder gets a newer token.
+                        redisLockService.advanceFencingToken(lockKey, existing.getLockFence());
+                    }
+                    throw new StaleFencingTokenException(String.format(
+                            "Update of user with ID %d rejected: fencing token %d, last applied %d",
+                            id, fencingToken, existing.getLockFence()));
+                }
+                return new UserChange(before, userRepository.findById(id).orElseThrow(EntityNotFoundException::new));
+            });
+            updateCounter("locked").increment();
+            return afterUpdate(change);
+        } catch (StaleFencingTokenException e) {
+            updateCounter("fenced").increment();
+            log.warn("updateUser || {}", e.getMessage());
+            throw e;
         } catch (Exception e) {
             log.error("updateUser || Failed to update user with ID {}: {}", id, e.getMessage(), e);
             throw new RuntimeException(String.format("updateUser || Failed to update user with ID %d", id));
         } finally {
-            if (lockAcquired) {
-                redisLockService.unlock(lockKey);
+            if (lock != null) {
+                redisLockService.releaseQuietly(lock);
             }
         }
     }
 
+    private User afterUpdate(UserChange change) {
+        User after = change.after();
+        maintainIndexes(after.getId(), () -> {
+            // Drop the old userById entry first so the chunk is not rebuilt from it. Evicting
+            // before touching the indexes also means it is remembered if Redis is unavailable.
+            userByIdCache().evict(after.getId());
+            updateIndexes(after.getId(), index -> index.changed(change.before(), after));
+            evictPageChunk(userIdIndex.rank(after.getId()));
+        });
+        return after;
+    }
+
+    private Counter updateCounter(String result) {
+        return Counter.builder("user.update")
+                .description("User updates by how they were applied")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
     /**
      * Updates an existing user without releasing the Redis lock.
      * This simulates a scenario where the lock is not released,
      * preventing further access with the same lock key until it expires.
      */
-    @CacheEvict(value = {USER_LIST_CACHE, USER_BY_ID_CACHE}, allEntries = true)
+    @CacheEvict(value = {USER_LIST_CACHE}, allEntries = true)
     public User updateUserWithoutRedisUnlock(Long id, User user) {
         User existing = userRepository.findById(id).orElseThrow(EntityNotFoundException::new);
         String lockKey = "user_update_" + id;
         try {
-            redisLockService.lock(lockKey);
+            // Without lease renewal the lock simply expires after the configured lease time.
+            redisLockService.acquire(lockKey, Duration.ZERO, false);
+            User before = copyOf(existing);
             log.info("Updating user (without unlocking): {}", user);
             existing.setName(user.getName());
             existing.setEmail(user.getEmail());
-            return userRepository.save(existing);
+            return afterUpdate(new UserChange(before, userRepository.save(existing)));
         } catch (Exception e) {
             log.error("updateUserWithoutRedisUnlock || Failed to update user with ID {}: {}", id, e.getMessage(), e);
             throw new RuntimeException(String.format("updateUserWithoutRedisUnlock || Failed to update user with ID %d", id));
@@ -112,6 +449,75 @@ public class UserService {
             @CacheEvict(value = USER_LIST_CACHE, allEntries = true)
     })
     public void deleteUser(Long id) {
-        userRepository.deleteById(id);
+        userRepository.findById(id).ifPresent(user -> {
+            userRepository.delete(user);
+            maintainIndexes(id, () -> {
+                Long rank = userIdIndex.rank(id);
+                updateIndexes(id, index -> index.removed(user));
+                // Later chunks are rebuilt when read, as after a create.
+                evictPageChunk(rank);
+            });
+        });
+    }
+
+    /**
+     * Evicts the page chunk holding the given rank.
+     */
+    private void evictPageChunk(Long rank) {
+        if (rank != null) {
+            pageCache().evict(rank / PAGE_CHUNK_SIZE);
+        }
+    }
+
+    private org.springframework.cache.Cache userByIdCache() {
+        return Objects.requireNonNull(cacheManager.getCache(USER_BY_ID_CACHE));
+    }
+
+    private org.springframework.cache.Cache missingCache() {
+        return Objects.requireNonNull(cacheManager.getCache(UserExistenceProperties.USER_MISSING_CACHE));
+    }
+
+    private Counter existenceCounter(String result) {
+        return Counter.builder("user.existence")
+                .description("Lookups of users that do not exist, by how they were answered")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private org.springframework.cache.Cache pageCache() {
+        return Objects.requireNonNull(cacheManager.getCache(USER_PAGE_CACHE));
+    }
+
+    /**
+     * Index maintenance runs after the DB write has succeeded. A failure is logged rather than
+     * failing the write; the indexes are rebuilt from the DB on the next startup.
+     */
+    private void maintainIndexes(Long id, Runnable maintenance) {
+        try {
+            maintenance.run();
+        } catch (Exception e) {
+            log.error("Failed to update user indexes for user with ID {}", id, e);
+        }
+    }
+
+    /**
+     * Applies a change to each index separately, so one failing index does not leave the others
+     * without it.
+     */
+    private void updateIndexes(Long id, Consumer<UserIndex> update) {
+        for (UserIndex index : userIndexes) {
+            try {
+                update.accept(index);
+            } catch (Exception e) {
+                log.error("Failed to update {} for user with ID {}", index.getClass().getSimpleName(), id, e);
+            }
+        }
+    }
+
+    private static User copyOf(User user) {
+        return new User(user.getId(), user.getName(), user.getEmail(), user.getVersion());
+    }
+
+    private record UserChange(User before, User after) {
     }
 }
\ No newline at end of file
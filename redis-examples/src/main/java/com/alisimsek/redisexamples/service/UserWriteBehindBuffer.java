@@ -0,0 +1,233 @@
+package com.alisimsek.redisexamples.service;
+
+import com.alisimsek.redisexamples.config.UserCreateProperties;
+import com.alisimsek.redisexamples.entity.User;
+import com.alisimsek.redisexamples.exception.RedisLockException;
+import com.alisimsek.redisexamples.exception.WriteBufferFullException;
+import com.alisimsek.redisexamples.repository.UserRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Write-behind path for user creation. Accepted users are appended to a Redis list and
+ * inserted by a scheduled flush, {@code user.create.batch-size} per transaction, so inserts are
+ * sent as JDBC batches and {@code userList} is evicted once per flush instead of once per user.
+ * <p>
+ * A flush first moves a batch to a processing list and removes it only after the insert
+ * has been committed, so a node that dies mid-flush loses nothing: the next flush, on any
+ * node, inserts the processing list again. Users whose email already exists are skipped,
+ * which makes that replay safe. The indexes and caches are still updated for the existing
+ * rows, since the interrupted flush may have committed them without getting that far.
+ */
+@Service
+@Slf4j
+public class UserWriteBehindBuffer {
+
+    private static final String FLUSH_LOCK_KEY = "user_create_flush";
+    private static final RedisScript<Long> PUSH_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/user-buffer-push.lua"), Long.class);
+    private static final RedisScript<Long> CLAIM_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/user-buffer-claim.lua"), Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final UserBatchInserter userBatchInserter;
+    private final UserRepository userRepository;
+    private final UserService userService;
+    private final RedisLockService redisLockService;
+    private final ObjectMapper objectMapper;
+    private final UserCreateProperties properties;
+    private final String processingKey;
+    private final String failedKey;
+    private final Counter accepted;
+    private final Counter rejected;
+    private final Counter inserted;
+    private final Counter duplicates;
+    private final Counter failed;
+    private final DistributionSummary batchSize;
+    private final Timer flushLatency;
+
+    public UserWriteBehindBuffer(StringRedisTemplate redisTemplate, UserBatchInserter userBatchInserter,
+                                 UserRepository userRepository, UserService userService,
+                                 RedisLockService redisLockService, ObjectMapper objectMapper,
+                                 UserCreateProperties properties, MeterRegistry meterRegistry) {
+        this.redisTemplate = redisTemplate;
+        this.userBatchInserter = userBatchInserter;
+        this.userRepository = userRepository;
+        this.userService = userService;
+        this.redisLockService = redisLockService;
+        this.objectMapper = objectMapper;
+        this.properties = properties;
+        this.processingKey = properties.getBufferKey() + ":processing";
+        this.failedKey = properties.getBufferKey() + ":failed";
+        this.accepted = resultCounter(meterRegistry, "accepted");
+        this.rejected = resultCounter(meterRegistry, "rejected");
+        this.inserted = resultCounter(meterRegistry, "inserted");
+        this.duplicates = resultCounter(meterRegistry, "duplicate");
+        this.failed = resultCounter(meterRegistry, "failed");
+        this.batchSize = DistributionSummary.builder("user.create.buffer.batch.size")
+                .description("Users inserted per transaction")
+                .register(meterRegistry);
+        this.flushLatency = Timer.builder("user.create.buffer.flush")
+                .description("Time to insert one batch and update indexes and caches")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Queues a user for insertion.
+     *
+     * @return the accepted user; it has no ID until the buffer has been flushed
+     * @throws WriteBufferFullException if {@code user.create.max-buffered-users} are already waiting
+     */
+    public User accept(User user) {
+        User pending = new User(null, user.getName(), user.getEmail(), null);
+        Long length = redisTemplate.execute(PUSH_SCRIPT, List.of(properties.getBufferKey()), toJson(pending),
+                String.valueOf(properties.getMaxBufferedUsers()));
+        if (length == null || length < 0) {
+            rejected.increment();
+            throw new WriteBufferFullException("User create buffer is full");
+        }
+        accepted.increment();
+        log.info("Buffered new user: {}", pending);
+        return pending;
+    }
+
+    @Scheduled(fixedDelayString = "${user.create.flush-interval:1s}")
+    public void flush() {
+        if (isEmpty(processingKey) && isEmpty(properties.getBufferKey())) {
+            return;
+        }
+        FencedLock lock;
+        try {
+            lock = redisLockService.acquire(FLUSH_LOCK_KEY, Duration.ZERO, true);
+        } catch (RedisLockException e) {
+            // Another node is flushing.
+            return;
+        }
+        try {
+            // Left over by a flush that did not finish.
+            if (!isEmpty(processingKey)) {
+                log.info("Resuming an interrupted flush of buffered users");
+                flushProcessing();
+            }
+            Long claimed;
+            do {
+                claimed = redisTemplate.execute(CLAIM_SCRIPT, List.of(properties.getBufferKey(), processingKey),
+                        String.valueOf(properties.getBatchSize()));
+                if (claimed != null && claimed > 0) {
+                    flushProcessing();
+                }
+            } while (claimed != null && claimed == properties.getBatchSize());
+        } catch (Exception e) {
+            log.error("Failed to flush buffered users, retrying on the next flush", e);
+        } finally {
+            // The lease may have expired during a long flush; that must not fail the scheduled task.
+            redisLockService.releaseQuietly(lock);
+        }
+    }
+
+    private void flushProcessing() {
+        long start = System.nanoTime();
+        List<String> entries = redisTemplate.opsForList().range(processingKey, 0, -1);
+        if (entries != null && !entries.isEmpty()) {
+            List<User> stored = insert(entries);
+            if (!stored.isEmpty()) {
+                userService.usersCreated(stored);
+            }
+        }
+        redisTemplate.delete(processingKey);
+        flushLatency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @return the inserted users, followed by the existing users whose emails made entries be skipped
+     */
+    private List<User> insert(List<String> entries) {
+        List<String> parsedEntries = new ArrayList<>();
+        List<User> users = new ArrayList<>();
+        for (String entry : entries) {
+            try {
+                users.add(fromJson(entry));
+                parsedEntries.add(entry);
+            } catch (IllegalStateException e) {
+                park(entry, e.getMessage());
+            }
+        }
+        if (users.isEmpty()) {
+            return List.of();
+        }
+        UserBatchInserter.Result result = userBatchInserter.insert(users);
+        Set<String> skippedEmails = new HashSet<>();
+        for (UserBatchInserter.Rejected rejection : result.rejected()) {
+            if (rejection.duplicate()) {
+                duplicates.increment();
+                skippedEmails.add(users.get(rejection.index()).getEmail());
+                log.info("Skipping buffered user: {}", rejection.reason());
+            } else {
+                park(parsedEntries.get(rejection.index()), rejection.reason());
+            }
+        }
+        batchSize.record(result.created().size());
+        inserted.increment(result.created().size());
+        log.info("Inserted {} buffered users", result.created().size());
+        List<User> stored = new ArrayList<>(result.created());
+        if (!skippedEmails.isEmpty()) {
+            Set<Long> createdIds = result.created().stream().map(User::getId).collect(Collectors.toSet());
+            userRepository.findByEmailIn(skippedEmails).stream()
+                    .filter(user -> !createdIds.contains(user.getId()))
+                    .forEach(stored::add);
+        }
+        return stored;
+    }
+
+    private void park(String entry, String reason) {
+        failed.increment();
+        log.error("Could not insert buffered user: {} ({}), moving it to {}", entry, reason, failedKey);
+        redisTemplate.opsForList().rightPush(failedKey, entry);
+    }
+
+    private boolean isEmpty(String key) {
+        Long size = redisTemplate.opsForList().size(key);
+        return size == null || size == 0;
+    }
+
+    private String toJson(User user) {
+        try {
+            return objectMapper.writeValueAsString(user);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Could not serialize user: " + user, e);
+        }
+    }
+
+    private User fromJson(String entry) {
+        try {
+            return objectMapper.readValue(entry, User.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not read buffered user: " + entry, e);
+        }
+    }
+
+    private static Counter resultCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("user.create.buffer")
+                .description("Users going through the write-behind buffer, by outcome")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,96 @@
+package com.alisimsek.redisexamples.sharding;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+/**
+ * Maps keys to nodes by consistent hashing. Each node is placed on a 64-bit ring at
+ * {@code virtualNodes} points derived from its name, and a key belongs to the first point at
+ * or after its own hash. Adding a node therefore only moves the keys it takes over, about
+ * 1/n of them, and the virtual nodes keep the share of each node close to even.
+ * <p>
+ * As in Redis Cluster, only the part of a key between the first {@code {} and the next
+ * {@code }} is hashed if it is not empty, so keys sharing such a hash tag stay on one node.
+ */
+public class ConsistentHashRing<T> {
+
+    private final Map<String, T> nodes;
+    private final int virtualNodes;
+    private final NavigableMap<Long, T> ring = new TreeMap<>();
+
+    /**
+     * @param nodes        the nodes by name; a node keeps its place on the ring as long as its name does
+     * @param virtualNodes points on the ring per node
+     */
+    public ConsistentHashRing(Map<String, T> nodes, int virtualNodes) {
+        if (nodes.isEmpty()) {
+            throw new IllegalArgumentException("A hash ring needs at least one node");
+        }
+        if (virtualNodes < 1) {
+            throw new IllegalArgumentException("Virtual nodes must be positive, got: " + virtualNodes);
+        }
+        this.nodes = new LinkedHashMap<>(nodes);
+        this.virtualNodes = virtualNodes;
+        this.nodes.forEach((name, node) -> {
+            for (int i = 0; i < virtualNodes; i++) {
+                // On the rare collision the later node wins the point; lookups stay deterministic.
+                ring.put(hash(name + "#" + i), node);
+            }
+        });
+    }
+
+    public T nodeFor(String key) {
+        Map.Entry<Long, T> entry = ring.ceilingEntry(hash(hashTag(key)));
+        return entry != null ? entry.getValue() : ring.firstEntry().getValue();
+    }
+
+    public Collection<T> nodes() {
+        return nodes.values();
+    }
+
+    /**
+     * @return a ring with the same layout whose nodes are derived from this one's
+     */
+    public <R> ConsistentHashRing<R> map(Function<T, R> mapper) {
+        Map<String, R> mapped = new LinkedHashMap<>();
+        nodes.forEach((name, node) -> mapped.put(name, mapper.apply(node)));
+        return new ConsistentHashRing<>(mapped, virtualNodes);
+    }
+
+    /**
+     * @return the part of the key that is hashed
+     */
+    static String hashTag(String key) {
+        int start = key.indexOf('{');
+        if (start >= 0) {
+            int end = key.indexOf('}', start + 1);
+            if (end > start + 1) {
+                return key.substring(start + 1, end);
+            }
+        }
+        return key;
+    }
+
+    /**
+     * 64-bit FNV-1a over the UTF-8 bytes, finished with the MurmurHash3 mix so that similar
+     * keys such as {@code userById::1} and {@code userById::2} land far apart.
+     */
+    static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,157 @@
+package com.alisimsek.redisexamples.sharding;
+
+import com.alisimsek.redisexamples.config.ShardingProperties;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The Redis nodes that sharded keys are spread over (see {@code redis.sharding}), and the
+ * routing of cache, rate limit and lock keys to them. With sharding disabled, or for keys that
+ * are not sharded, every method answers with the Redis from {@code spring.data.redis}.
+ */
+@Slf4j
+public class RedisShards {
+
+    private final ShardingProperties properties;
+    private final LettuceConnectionFactory primaryConnectionFactory;
+    private final StringRedisTemplate primaryTemplate;
+    private final ConsistentHashRing<Shard> ring;
+
+    public RedisShards(ShardingProperties properties, LettuceConnectionFactory primaryConnectionFactory,
+                       StringRedisTemplate primaryTemplate) {
+        this.properties = properties;
+        this.primaryConnectionFactory = primaryConnectionFactory;
+        this.primaryTemplate = primaryTemplate;
+        this.ring = properties.isEnabled() ? new ConsistentHashRing<>(connect(properties.getNodes()),
+                properties.getVirtualNodes()) : null;
+    }
+
+    public boolean isEnabled() {
+        return ring != null;
+    }
+
+    public boolean isSharded(String cacheName) {
+        return ring != null && properties.getCaches().contains(cacheName);
+    }
+
+    public ConsistentHashRing<Shard> ring() {
+        return ring;
+    }
+
+    public StringRedisTemplate forCacheKey(String cacheName, String redisKey) {
+        return isSharded(cacheName) ? ring.nodeFor(redisKey).template() : primaryTemplate;
+    }
+
+    /**
+     * @return the templates of every node holding entries of the cache
+     */
+    public List<StringRedisTemplate> forCache(String cacheName) {
+        return isSharded(cacheName) ? ring.nodes().stream().map(Shard::template).toList() : List.of(primaryTemplate);
+    }
+
+    /**
+     * @return the templates of the Redis from {@code spring.data.redis} and of every shard
+     */
+    public List<StringRedisTemplate> allNodes() {
+        if (ring == null) {
+            return List.of(primaryTemplate);
+        }
+        List<StringRedisTemplate> templates = new ArrayList<>();
+        templates.add(primaryTemplate);
+        ring.nodes().forEach(shard -> templates.add(shard.template()));
+        return templates;
+    }
+
+    public LettuceConnectionFactory connectionFactoryForCacheKey(String cacheName, String redisKey) {
+        return isSharded(cacheName) ? ring.nodeFor(redisKey).connectionFactory() : primaryConnectionFactory;
+    }
+
+    public StringRedisTemplate forRateLimitKey(String redisKey) {
+        return isRateLimitSharded() ? ring.nodeFor(redisKey).template() : primaryTemplate;
+    }
+
+    public LettuceConnectionFactory connectionFactoryForRateLimitKey(String redisKey) {
+        return isRateLimitSharded() ? ring.nodeFor(redisKey).connectionFactory() : primaryConnectionFactory;
+    }
+
+    private boolean isRateLimitSharded() {
+        return ring != null && properties.isRateLimits();
+    }
+
+    public boolean isLockSharded() {
+        return ring != null && properties.isLocks();
+    }
+
+    public StringRedisTemplate forLockKey(String redisKey) {
+        return isLockSharded() ? ring.nodeFor(redisKey).template() : primaryTemplate;
+    }
+
+    public RedisConnectionFactory connectionFactoryForLockKey(String redisKey) {
+        return isLockSharded() ? ring.nodeFor(redisKey).connectionFactory() : primaryConnectionFactory;
+    }
+
+    @PreDestroy
+    void close() {
+        if (ring != null) {
+            ring.nodes().forEach(shard -> shard.connectionFactory().destroy());
+        }
+    }
+
+    /**
+     * Opens a connection factory per node, configured like the primary one.
+     */
+    private Map<String, Shard> connect(List<String> nodes) {
+        if (nodes.isEmpty()) {
+            throw new IllegalStateException("redis.sharding.nodes must list at least one node when sharding is enabled");
+        }
+        RedisStandaloneConfiguration primary = primaryConnectionFactory.getStandaloneConfiguration();
+        Map<String, Shard> shards = new LinkedHashMap<>();
+        for (String node : nodes) {
+            int separator = node.lastIndexOf(':');
+            if (separator < 1) {
+                throw new IllegalStateException("Redis shard must be given as host:port, got: " + node);
+            }
+            RedisStandaloneConfiguration configuration = new RedisStandaloneConfiguration(
+                    node.substring(0, separator), Integer.parseInt(node.substring(separator + 1)));
+            configuration.setUsername(primary.getUsername());
+            configuration.setPassword(primary.getPassword());
+            configuration.setDatabase(primary.getDatabase());
+            LettuceConnectionFactory connectionFactory =
+                    new LettuceConnectionFactory(configuration, primaryConnectionFactory.getClientConfiguration());
+            connectionFactory.afterPropertiesSet();
+            connectionFactory.start();
+            // Fails fast on a wrong node, and opens a connection before the first call needs one.
+            try (RedisConnection connection = connectionFactory.getConnection()) {
+                connection.ping();
+            }
+            shards.put(node, new Shard(node, connectionFactory, new StringRedisTemplate(connectionFactory)));
+        }
+        log.info("Sharding {} over Redis nodes {} with {} virtual nodes each", describe(), nodes,
+                properties.getVirtualNodes());
+        return shards;
+    }
+
+    private String describe() {
+        StringBuilder keys = new StringBuilder("caches " + properties.getCaches());
+        if (properties.isRateLimits()) {
+            keys.append(", rate limits");
+        }
+        if (properties.isLocks()) {
+            keys.append(", locks");
+        }
+        return keys.toString();
+    }
+
+    public record Shard(String name, LettuceConnectionFactory connectionFactory, StringRedisTemplate template) {
+    }
+}
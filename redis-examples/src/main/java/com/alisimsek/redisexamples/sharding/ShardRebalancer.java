@@ -0,0 +1,148 @@
+package com.alisimsek.redisexamples.sharding;
+
+import com.alisimsek.redisexamples.config.ShardingProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Moves the entries of the sharded caches after the node list changed, before the cache
+ * warm-up runs. Once a node is added, the entries it now owns are still on the nodes that
+ * owned them before, where they would linger unread until they expire, and reads of them miss.
+ * <p>
+ * On startup the nodes are compared with the ones recorded on the primary Redis by the last
+ * rebalance. If they differ, every node that was already in use is scanned for cache entries
+ * it no longer owns; those are deleted there and their keys are handed to the warm-up, which
+ * reloads them onto their new node together with the hot users. They are reloaded from the
+ * database rather than copied, so an entry evicted on its new node meanwhile cannot come back stale.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@Slf4j
+public class ShardRebalancer implements ApplicationRunner {
+
+    private static final int BATCH_SIZE = 1000;
+
+    private final RedisShards redisShards;
+    private final ShardingProperties properties;
+    private final StringRedisTemplate redisTemplate;
+    private final RedisCacheConfiguration cacheConfiguration;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, List<String>> movedKeys = new ConcurrentHashMap<>();
+
+    public ShardRebalancer(RedisShards redisShards, ShardingProperties properties, StringRedisTemplate redisTemplate,
+                           RedisCacheConfiguration cacheConfiguration, MeterRegistry meterRegistry) {
+        this.redisShards = redisShards;
+        this.properties = properties;
+        this.redisTemplate = redisTemplate;
+        this.cacheConfiguration = cacheConfiguration;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!redisShards.isEnabled()) {
+            return;
+        }
+        String nodes = String.join(",", new TreeSet<>(properties.getNodes()));
+        String previousNodes;
+        try {
+            previousNodes = redisTemplate.opsForValue().get(properties.getNodesKey());
+        } catch (Exception e) {
+            log.error("Skipping shard rebalancing, could not read the previous Redis nodes", e);
+            return;
+        }
+        if (nodes.equals(previousNodes)) {
+            return;
+        }
+        if (previousNodes != null) {
+            rebalance(Set.of(previousNodes.split(",")));
+        }
+        redisTemplate.opsForValue().set(properties.getNodesKey(), nodes);
+    }
+
+    /**
+     * Returns, once, the keys of the given cache that moved to another node on startup,
+     * without the cache's key prefix.
+     */
+    public List<String> takeMovedKeys(String cacheName) {
+        List<String> keys = movedKeys.remove(cacheName);
+        return keys != null ? keys : List.of();
+    }
+
+    private void rebalance(Set<String> previousNodes) {
+        Set<String> removed = new HashSet<>(previousNodes);
+        properties.getNodes().forEach(removed::remove);
+        if (!removed.isEmpty()) {
+            log.warn("Redis nodes {} were removed from the shards; their entries are not moved and reload on demand",
+                    removed);
+        }
+        for (String cacheName : properties.getCaches()) {
+            String prefix = cacheConfiguration.getKeyPrefixFor(cacheName);
+            List<String> moved = new ArrayList<>();
+            for (RedisShards.Shard shard : redisShards.ring().nodes()) {
+                if (previousNodes.contains(shard.name())) {
+                    moved.addAll(removeMoved(shard, prefix));
+                }
+            }
+            Counter.builder("redis.sharding.rebalanced.keys")
+                    .description("Cache entries found on a node that no longer owns them after the Redis nodes changed")
+                    .tag("cache", cacheName)
+                    .register(meterRegistry)
+                    .increment(moved.size());
+            log.info("Rebalanced {} over Redis nodes {}: {} entries moved to another node",
+                    cacheName, properties.getNodes(), moved.size());
+            movedKeys.put(cacheName, moved.stream().map(key -> key.substring(prefix.length())).toList());
+        }
+    }
+
+    /**
+     * Deletes the entries the shard no longer owns.
+     *
+     * @return their keys
+     */
+    private List<String> removeMoved(RedisShards.Shard shard, String prefix) {
+        ScanOptions options = ScanOptions.scanOptions().match(prefix + "*").count(BATCH_SIZE).build();
+        return shard.template().execute((RedisCallback<List<String>>) connection -> {
+            List<String> moved = new ArrayList<>();
+            List<byte[]> batch = new ArrayList<>();
+            try (Cursor<byte[]> cursor = connection.keyCommands().scan(options)) {
+                while (cursor.hasNext()) {
+                    byte[] rawKey = cursor.next();
+                    String key = new String(rawKey, StandardCharsets.UTF_8);
+                    if (redisShards.ring().nodeFor(key) != shard) {
+                        moved.add(key);
+                        batch.add(rawKey);
+                        if (batch.size() == BATCH_SIZE) {
+                            connection.keyCommands().unlink(batch.toArray(byte[][]::new));
+                            batch.clear();
+                        }
+                    }
+                }
+            }
+            if (!batch.isEmpty()) {
+                connection.keyCommands().unlink(batch.toArray(byte[][]::new));
+            }
+            return moved;
+        });
+    }
+}
@@ -0,0 +1,110 @@
+package com.alisimsek.redisexamples.sharding;
+
+import org.springframework.data.redis.cache.CacheStatistics;
+import org.springframework.data.redis.cache.CacheStatisticsCollector;
+import org.springframework.data.redis.cache.RedisCacheWriter;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * {@link RedisCacheWriter} that sends the entries of the sharded caches to the writer of the
+ * node owning their key on a {@link ConsistentHashRing}, and those of every other cache to the
+ * primary writer. Clearing a sharded cache clears it on every node. Statistics are collected
+ * by the primary writer's collector, which the node writers share.
+ */
+public class ShardedRedisCacheWriter implements RedisCacheWriter {
+
+    private final RedisCacheWriter primary;
+    private final ConsistentHashRing<RedisCacheWriter> ring;
+    private final Set<String> shardedCaches;
+
+    public ShardedRedisCacheWriter(RedisCacheWriter primary, ConsistentHashRing<RedisCacheWriter> ring,
+                                   Set<String> shardedCaches) {
+        this.primary = primary;
+        this.ring = ring;
+        this.shardedCaches = Set.copyOf(shardedCaches);
+    }
+
+    @Override
+    public byte[] get(String name, byte[] key) {
+        return writerFor(name, key).get(name, key);
+    }
+
+    @Override
+    public byte[] get(String name, byte[] key, Duration ttl) {
+        return writerFor(name, key).get(name, key, ttl);
+    }
+
+    @Override
+    public byte[] get(String name, byte[] key, Supplier<byte[]> valueLoader, Duration ttl, boolean timeToIdleEnabled) {
+        return writerFor(name, key).get(name, key, valueLoader, ttl, timeToIdleEnabled);
+    }
+
+    @Override
+    public boolean supportsAsyncRetrieve() {
+        return primary.supportsAsyncRetrieve() && ring.nodes().stream().allMatch(RedisCacheWriter::supportsAsyncRetrieve);
+    }
+
+    @Override
+    public CompletableFuture<byte[]> retrieve(String name, byte[] key) {
+        return writerFor(name, key).retrieve(name, key);
+    }
+
+    @Override
+    public CompletableFuture<byte[]> retrieve(String name, byte[] key, Duration ttl) {
+        return writerFor(name, key).retrieve(name, key, ttl);
+    }
+
+    @Override
+    public void put(String name, byte[] key, byte[] value, Duration ttl) {
+        writerFor(name, key).put(name, key, value, ttl);
+    }
+
+    @Override
+    public CompletableFuture<Void> store(String name, byte[] key, byte[] value, Duration ttl) {
+        return writerFor(name, key).store(name, key, value, ttl);
+    }
+
+    @Override
+    public byte[] putIfAbsent(String name, byte[] key, byte[] value, Duration ttl) {
+        return writerFor(name, key).putIfAbsent(name, key, value, ttl);
+    }
+
+    @Override
+    public void remove(String name, byte[] key) {
+        writerFor(name, key).remove(name, key);
+    }
+
+    @Override
+    public void clean(String name, byte[] pattern) {
+        if (shardedCaches.contains(name)) {
+            ring.nodes().forEach(writer -> writer.clean(name, pattern));
+        } else {
+            primary.clean(name, pattern);
+        }
+    }
+
+    @Override
+    public void clearStatistics(String name) {
+        primary.clearStatistics(name);
+    }
+
+    @Override
+    public RedisCacheWriter withStatisticsCollector(CacheStatisticsCollector cacheStatisticsCollector) {
+        return new ShardedRedisCacheWriter(primary.withStatisticsCollector(cacheStatisticsCollector),
+                ring.map(writer -> writer.withStatisticsCollector(cacheStatisticsCollector)), shardedCaches);
+    }
+
+    @Override
+    public CacheStatistics getCacheStatistics(String cacheName) {
+        return primary.getCacheStatistics(cacheName);
+    }
+
+    private RedisCacheWriter writerFor(String name, byte[] key) {
+        return shardedCaches.contains(name) ? ring.nodeFor(new String(key, StandardCharsets.UTF_8)) : primary;
+    }
+}
@@ -0,0 +1,73 @@
+package com.alisimsek.redisexamples.warmup;
+
+import com.alisimsek.redisexamples.config.CacheWarmUpProperties;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Records which users are read, so a restarted node knows what to preload. Reads are collected
+ * in memory and written to a Redis sorted set in one pipeline per flush, which is then trimmed
+ * to the {@code cache.warm-up.tracked-users} most recent IDs.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class UserAccessRecorder {
+
+    private final StringRedisTemplate redisTemplate;
+    private final CacheWarmUpProperties properties;
+    private final Map<Long, Long> pending = new ConcurrentHashMap<>();
+
+    public void record(Long id) {
+        // Between flushes at most one set's worth of reads is kept; beyond that reads are not recorded.
+        if (properties.isEnabled() && (pending.size() < properties.getTrackedUsers() || pending.containsKey(id))) {
+            pending.put(id, System.currentTimeMillis());
+        }
+    }
+
+    /**
+     * @return up to {@code max} user IDs, most recently read first
+     */
+    public List<Long> recent(int max) {
+        Set<String> ids = redisTemplate.opsForZSet().reverseRange(properties.getAccessKey(), 0, max - 1L);
+        return ids == null ? List.of() : ids.stream().map(Long::valueOf).toList();
+    }
+
+    @Scheduled(fixedDelayString = "${cache.warm-up.access-flush-interval:5s}")
+    @PreDestroy
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        Map<Long, Long> accesses = new HashMap<>();
+        pending.keySet().forEach(id -> {
+            Long accessedAt = pending.remove(id);
+            if (accessedAt != null) {
+                accesses.put(id, accessedAt);
+            }
+        });
+        String key = properties.getAccessKey();
+        try {
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection stringConnection = (StringRedisConnection) connection;
+                accesses.forEach((id, accessedAt) -> stringConnection.zAdd(key, accessedAt, id.toString()));
+                stringConnection.zRemRange(key, 0, -properties.getTrackedUsers() - 1L);
+                return null;
+            });
+        } catch (Exception e) {
+            log.warn("Failed to record {} user reads", accesses.size(), e);
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.alisimsek.redisexamples.warmup;
+
+import com.alisimsek.redisexamples.cache.AbstractCacheDecorator;
+import com.alisimsek.redisexamples.cache.RedisCacheBatchOperations;
+import com.alisimsek.redisexamples.config.CacheWarmUpProperties;
+import com.alisimsek.redisexamples.entity.User;
+import com.alisimsek.redisexamples.repository.UserRepository;
+import com.alisimsek.redisexamples.sharding.ShardRebalancer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Preloads the hot users into {@code userById} on startup. Runs as an {@link ApplicationRunner},
+ * so the app only reports ready (readiness state {@code ACCEPTING_TRAFFIC}) once it is done.
+ * <p>
+ * Batches are loaded in parallel. Each batch reads what Redis already holds with one MGET,
+ * loads the rest with one query and writes it back with SET NX in one pipeline, then fills this
+ * node's near cache with the users it read or wrote. Users cached by another node in between
+ * are left to be read on demand.
+ * <p>
+ * After the Redis shards changed, the users whose entries {@link ShardRebalancer} moved to
+ * another node are preloaded too, after the hot ones.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class UserCacheWarmer implements ApplicationRunner {
+
+    private static final String USER_BY_ID_CACHE = "userById";
+
+    private final CacheWarmUpProperties properties;
+    private final UserAccessRecorder accessRecorder;
+    private final UserRepository userRepository;
+    private final RedisCacheBatchOperations cacheBatchOperations;
+    private final CacheManager cacheManager;
+    private final ShardRebalancer shardRebalancer;
+    private final MeterRegistry meterRegistry;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        long start = System.nanoTime();
+        List<Long> ids;
+        try {
+            ids = hotIds();
+        } catch (Exception e) {
+            log.error("Skipping cache warm-up, could not read the hot users", e);
+            return;
+        }
+        if (ids.isEmpty()) {
+            log.info("Skipping cache warm-up, no hot users known");
+            return;
+        }
+        AtomicLong fromCache = new AtomicLong();
+        AtomicLong fromDb = new AtomicLong();
+        boolean complete = load(ids, fromCache, fromDb);
+        long nanos = System.nanoTime() - start;
+        Timer.builder("cache.warmup.duration")
+                .description("Time taken by the startup cache warm-up")
+                .tag("cache", USER_BY_ID_CACHE)
+                .register(meterRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+        keyCounter("cache").increment(fromCache.get());
+        keyCounter("db").increment(fromDb.get());
+        log.info("Warmed up {} with {} of {} hot users ({} already in Redis, {} loaded from DB) in {} ms{}",
+                USER_BY_ID_CACHE, fromCache.get() + fromDb.get(), ids.size(), fromCache.get(), fromDb.get(),
+                TimeUnit.NANOSECONDS.toMillis(nanos), complete ? "" : ", stopped at the timeout");
+    }
+
+    private List<Long> hotIds() {
+        List<Long> hotIds = switch (properties.getSource()) {
+            case RECENT -> accessRecorder.recent(properties.getMaxUsers());
+            case LIST -> properties.getIds();
+        };
+        Stream<Long> movedIds = shardRebalancer.takeMovedKeys(USER_BY_ID_CACHE).stream().map(Long::valueOf);
+        return Stream.concat(hotIds.stream(), movedIds).distinct().limit(properties.getMaxUsers()).toList();
+    }
+
+    /**
+     * @return whether every batch finished within the timeout
+     */
+    private boolean load(List<Long> ids, AtomicLong fromCache, AtomicLong fromDb) {
+        Cache cache = cacheManager.getCache(USER_BY_ID_CACHE);
+        long deadline = System.nanoTime() + properties.getTimeout().toNanos();
+        try (ExecutorService executor = Executors.newFixedThreadPool(properties.getParallelism(),
+                Thread.ofPlatform().name("cache-warmup-", 0).daemon().factory())) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int from = 0; from < ids.size(); from += properties.getBatchSize()) {
+                List<Long> batch = ids.subList(from, Math.min(from + properties.getBatchSize(), ids.size()));
+                futures.add(executor.submit(() -> loadBatch(batch, cache, fromCache, fromDb)));
+            }
+            boolean complete = true;
+            for (Future<?> future : futures) {
+                try {
+                    future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                } catch (TimeoutException e) {
+                    complete = false;
+                    future.cancel(true);
+                } catch (Exception e) {
+                    log.warn("Cache warm-up batch failed", e);
+                }
+            }
+            executor.shutdownNow();
+            return complete;
+        }
+    }
+
+    private void loadBatch(List<Long> ids, Cache cache, AtomicLong fromCache, AtomicLong fromDb) {
+        Map<Long, User> users = cacheBatchOperations.getAll(USER_BY_ID_CACHE, ids, User.class);
+        fromCache.addAndGet(users.size());
+        List<Long> missingIds = ids.stream().filter(id -> !users.containsKey(id)).toList();
+        if (!missingIds.isEmpty()) {
+            Map<Long, User> loaded = userRepository.findAllById(missingIds).stream()
+                    .collect(Collectors.toMap(User::getId, Function.identity()));
+            // Other nodes serve traffic meanwhile; a user they cached since the MGET may be newer than this copy.
+            Set<Long> written = cacheBatchOperations.putAllIfAbsent(USER_BY_ID_CACHE, loaded);
+            fromDb.addAndGet(written.size());
+            written.forEach(id -> users.put(id, loaded.get(id)));
+        }
+        if (cache instanceof AbstractCacheDecorator decorator) {
+            users.forEach(decorator::putLocal);
+        }
+    }
+
+    private Counter keyCounter(String source) {
+        return Counter.builder("cache.warmup.keys")
+                .description("Users preloaded on startup, by where they were found")
+                .tag("cache", USER_BY_ID_CACHE)
+                .tag("source", source)
+                .register(meterRegistry);
+    }
+}
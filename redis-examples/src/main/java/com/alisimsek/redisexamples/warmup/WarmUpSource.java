@@ -0,0 +1,15 @@
+package com.alisimsek.redisexamples.warmup;
+
+/**
+ * Where the IDs of the users preloaded on startup come from.
+ */
+public enum WarmUpSource {
+    /**
+     * The most recently read users, as recorded by {@link UserAccessRecorder}.
+     */
+    RECENT,
+    /**
+     * The IDs listed in {@code cache.warm-up.ids}.
+     */
+    LIST
+}
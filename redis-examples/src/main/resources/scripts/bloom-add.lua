@@ -0,0 +1,17 @@
+-- Sets the Bloom filter bits of one or more elements.
+-- KEYS[1] filter bitmap, KEYS[2] rebuild marker, KEYS[3] offsets set while a rebuild runs (set)
+-- ARGV bit offsets
+-- While a rebuild runs the offsets are also recorded, so the rebuilt filter includes them.
+-- Bits are not set while the filter has not been built, since a partial filter would reject existing elements.
+if redis.call('EXISTS', KEYS[2]) == 1 then
+    for i = 1, #ARGV do
+        redis.call('SADD', KEYS[3], ARGV[i])
+    end
+end
+if redis.call('EXISTS', KEYS[1]) == 0 then
+    return 0
+end
+for i = 1, #ARGV do
+    redis.call('SETBIT', KEYS[1], ARGV[i], 1)
+end
+return 1
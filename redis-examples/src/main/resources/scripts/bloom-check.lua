@@ -0,0 +1,12 @@
+-- Checks whether an element may be in the Bloom filter.
+-- KEYS[1] filter bitmap, ARGV bit offsets
+-- Returns 0 only if the element is definitely absent; 1 if it may be present or the filter is not built yet.
+if redis.call('EXISTS', KEYS[1]) == 0 then
+    return 1
+end
+for i = 1, #ARGV do
+    if redis.call('GETBIT', KEYS[1], ARGV[i]) == 0 then
+        return 0
+    end
+end
+return 1
@@ -0,0 +1,15 @@
+-- Replaces the Bloom filter with the rebuilt bitmap, after setting the bits recorded while it was built.
+-- KEYS[1] rebuild marker, KEYS[2] rebuilt bitmap, KEYS[3] offsets set during the rebuild, KEYS[4] filter bitmap
+-- ARGV[1] token of the rebuild
+-- Returns 0 and drops the rebuilt bitmap if the marker expired or another rebuild took over, as
+-- elements added since then were not recorded.
+if redis.call('GET', KEYS[1]) ~= ARGV[1] then
+    redis.call('DEL', KEYS[2])
+    return 0
+end
+for _, offset in ipairs(redis.call('SMEMBERS', KEYS[3])) do
+    redis.call('SETBIT', KEYS[2], offset, 1)
+end
+redis.call('RENAME', KEYS[2], KEYS[4])
+redis.call('DEL', KEYS[1], KEYS[3])
+return 1
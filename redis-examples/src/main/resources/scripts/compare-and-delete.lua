@@ -0,0 +1,6 @@
+-- Deletes KEYS[1] only if it still holds ARGV[1], so an expired lease is never released by its old owner.
+-- Returns 1 when the key was deleted, 0 otherwise.
+if redis.call('GET', KEYS[1]) == ARGV[1] then
+    return redis.call('DEL', KEYS[1])
+end
+return 0
@@ -0,0 +1,43 @@
+-- Fair lock acquisition. Waiters queue in arrival order and only the head of the queue
+-- may take the lock once it is free. Waiters that stop polling are dropped from the queue.
+-- KEYS[1] lock, KEYS[2] waiter queue (list), KEYS[3] waiter deadlines (zset), KEYS[4] fencing counter
+-- ARGV[1] owner token, ARGV[2] lease (ms), ARGV[3] waiter heartbeat (ms), ARGV[4] 1 to queue up, 0 to give up
+-- Returns the fencing token when the lock was acquired, 0 otherwise.
+local time = redis.call('TIME')
+local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+
+while true do
+    local head = redis.call('LINDEX', KEYS[2], 0)
+    if not head then
+        break
+    end
+    local deadline = tonumber(redis.call('ZSCORE', KEYS[3], head))
+    if deadline ~= nil and deadline >= now then
+        break
+    end
+    redis.call('LPOP', KEYS[2])
+    redis.call('ZREM', KEYS[3], head)
+end
+
+if redis.call('EXISTS', KEYS[1]) == 0 then
+    local head = redis.call('LINDEX', KEYS[2], 0)
+    if not head or head == ARGV[1] then
+        if head then
+            redis.call('LPOP', KEYS[2])
+        end
+        redis.call('ZREM', KEYS[3], ARGV[1])
+        redis.call('SET', KEYS[1], ARGV[1], 'PX', ARGV[2])
+        return redis.call('INCR', KEYS[4])
+    end
+end
+
+if ARGV[4] == '1' then
+    if not redis.call('ZSCORE', KEYS[3], ARGV[1]) then
+        redis.call('RPUSH', KEYS[2], ARGV[1])
+    end
+    local heartbeat = tonumber(ARGV[3])
+    redis.call('ZADD', KEYS[3], now + heartbeat, ARGV[1])
+    redis.call('PEXPIRE', KEYS[2], heartbeat * 2)
+    redis.call('PEXPIRE', KEYS[3], heartbeat * 2)
+end
+return 0
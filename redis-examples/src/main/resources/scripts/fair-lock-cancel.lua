@@ -0,0 +1,9 @@
+-- Removes a waiter that gave up from the queue so it does not hold up the ones behind it.
+-- KEYS[1] lock, KEYS[2] waiter queue (list), KEYS[3] waiter deadlines (zset)
+-- ARGV[1] owner token, ARGV[2] release channel, ARGV[3] lock name
+local removed = redis.call('LREM', KEYS[2], 0, ARGV[1])
+redis.call('ZREM', KEYS[3], ARGV[1])
+if removed > 0 and redis.call('EXISTS', KEYS[1]) == 0 then
+    redis.call('PUBLISH', ARGV[2], ARGV[3])
+end
+return removed
@@ -0,0 +1,9 @@
+-- Releases the lock if ARGV[1] still owns it and wakes waiters on every node.
+-- KEYS[1] lock, ARGV[1] owner token, ARGV[2] release channel, ARGV[3] lock name
+-- Returns 1 when the lock was released, 0 if it had already expired or changed owner.
+if redis.call('GET', KEYS[1]) == ARGV[1] then
+    redis.call('DEL', KEYS[1])
+    redis.call('PUBLISH', ARGV[2], ARGV[3])
+    return 1
+end
+return 0
@@ -0,0 +1,7 @@
+-- Extends the lease if ARGV[1] still owns the lock.
+-- KEYS[1] lock, ARGV[1] owner token, ARGV[2] lease (ms)
+-- Returns 1 when the lease was extended, 0 otherwise.
+if redis.call('GET', KEYS[1]) == ARGV[1] then
+    return redis.call('PEXPIRE', KEYS[1], ARGV[2])
+end
+return 0
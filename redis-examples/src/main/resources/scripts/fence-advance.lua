@@ -0,0 +1,11 @@
+-- Raises a fencing counter to at least the given value; it never moves backwards.
+-- KEYS[1] fencing counter
+-- ARGV[1] minimum value
+-- Returns the counter's value afterwards.
+local minimum = tonumber(ARGV[1])
+local current = tonumber(redis.call('GET', KEYS[1]) or '0')
+if current < minimum then
+    redis.call('SET', KEYS[1], minimum)
+    return minimum
+end
+return current
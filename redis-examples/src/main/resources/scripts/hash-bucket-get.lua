@@ -0,0 +1,26 @@
+-- Reads one field of a cache hash bucket. Stored values start with their expiry time in epoch
+-- milliseconds as 13 digits, 0 meaning never; an expired field is deleted and read as missing.
+-- KEYS[1]: bucket key
+-- ARGV[1]: field
+-- ARGV[2]: time-to-idle in milliseconds; a read entry with less than half of it left gets it
+--          back. 0 to leave the expiry alone.
+-- Returns the stored value, including its expiry prefix, or nil.
+local value = redis.call('HGET', KEYS[1], ARGV[1])
+if not value then
+    return false
+end
+local time = redis.call('TIME')
+local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+local expiresAt = tonumber(string.sub(value, 1, 13))
+if expiresAt > 0 and expiresAt <= now then
+    redis.call('HDEL', KEYS[1], ARGV[1])
+    return false
+end
+local idle = tonumber(ARGV[2])
+if idle > 0 and expiresAt > 0 and expiresAt - now < idle / 2 then
+    redis.call('HSET', KEYS[1], ARGV[1], string.format('%013d', now + idle) .. string.sub(value, 14))
+    if redis.call('PTTL', KEYS[1]) < idle then
+        redis.call('PEXPIRE', KEYS[1], idle)
+    end
+end
+return value
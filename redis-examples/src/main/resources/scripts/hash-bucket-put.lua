@@ -0,0 +1,45 @@
+-- Writes fields of a cache hash bucket, each prefixed with its expiry time (see
+-- hash-bucket-get.lua), drops fields that have expired, and lets the bucket itself expire
+-- with its longest-lived field.
+-- KEYS[1]: bucket key
+-- ARGV[1]: 'nx' to write only if the first field is missing or expired, 'set' otherwise
+-- ARGV[2..]: field, TTL in milliseconds (0 for none), value; repeated per field
+-- Returns the stored value of the first field if 'nx' found it, otherwise nil.
+local time = redis.call('TIME')
+local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+if ARGV[1] == 'nx' then
+    local existing = redis.call('HGET', KEYS[1], ARGV[2])
+    if existing then
+        local expiresAt = tonumber(string.sub(existing, 1, 13))
+        if expiresAt == 0 or expiresAt > now then
+            return existing
+        end
+    end
+end
+for i = 2, #ARGV, 3 do
+    local ttl = tonumber(ARGV[i + 1])
+    local expiresAt = 0
+    if ttl > 0 then
+        expiresAt = now + ttl
+    end
+    redis.call('HSET', KEYS[1], ARGV[i], string.format('%013d', expiresAt) .. ARGV[i + 2])
+end
+local fields = redis.call('HGETALL', KEYS[1])
+local latest = 0
+local persistent = false
+for i = 1, #fields, 2 do
+    local expiresAt = tonumber(string.sub(fields[i + 1], 1, 13))
+    if expiresAt == 0 then
+        persistent = true
+    elseif expiresAt <= now then
+        redis.call('HDEL', KEYS[1], fields[i])
+    elseif expiresAt > latest then
+        latest = expiresAt
+    end
+end
+if persistent then
+    redis.call('PERSIST', KEYS[1])
+elseif latest > 0 then
+    redis.call('PEXPIREAT', KEYS[1], latest)
+end
+return false
@@ -0,0 +1,14 @@
+-- Strict check for the approximate limiter: adds the calls a node counted locally, then
+-- takes one more call if the fixed window still has room.
+-- KEYS[1] window counter, ARGV[1] locally counted calls, ARGV[2] limit, ARGV[3] counter TTL (ms)
+-- Returns the window's count including this call when it is allowed, or minus the count when it is not.
+local count = redis.call('INCRBY', KEYS[1], ARGV[1])
+local allowed = count < tonumber(ARGV[2])
+if allowed then
+    count = redis.call('INCR', KEYS[1])
+end
+redis.call('PEXPIRE', KEYS[1], ARGV[3])
+if allowed then
+    return count
+end
+return -count
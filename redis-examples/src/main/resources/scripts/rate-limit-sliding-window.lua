@@ -0,0 +1,16 @@
+-- Sliding window log. Allows at most `limit` calls in any `window` ms.
+-- KEYS[1] log sorted set, ARGV[1] limit, ARGV[2] window (ms), ARGV[3] unique request id
+-- Returns 1 when the call is allowed, 0 otherwise.
+local limit = tonumber(ARGV[1])
+local window = tonumber(ARGV[2])
+local time = redis.call('TIME')
+local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+
+redis.call('ZREMRANGEBYSCORE', KEYS[1], '-inf', now - window)
+if redis.call('ZCARD', KEYS[1]) >= limit then
+    return 0
+end
+
+redis.call('ZADD', KEYS[1], now, now .. '-' .. ARGV[3])
+redis.call('PEXPIRE', KEYS[1], window)
+return 1
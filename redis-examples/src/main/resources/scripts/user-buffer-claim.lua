@@ -0,0 +1,11 @@
+-- Moves up to ARGV[1] entries from the head of the buffer to the processing list,
+-- so they survive a crash until the flush has been committed.
+-- KEYS[1] buffer, KEYS[2] processing list
+-- Returns the number of entries moved.
+local entries = redis.call('LRANGE', KEYS[1], 0, tonumber(ARGV[1]) - 1)
+if #entries == 0 then
+    return 0
+end
+redis.call('RPUSH', KEYS[2], unpack(entries))
+redis.call('LTRIM', KEYS[1], #entries, -1)
+return #entries
@@ -0,0 +1,7 @@
+-- Appends an entry to a bounded buffer list.
+-- KEYS[1] buffer, ARGV[1] entry, ARGV[2] maximum length
+-- Returns the new length, or -1 if the buffer is full.
+if redis.call('LLEN', KEYS[1]) >= tonumber(ARGV[2]) then
+    return -1
+end
+return redis.call('RPUSH', KEYS[1], ARGV[1])
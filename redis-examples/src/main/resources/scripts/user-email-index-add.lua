@@ -0,0 +1,14 @@
+-- Adds new users to the email index, and records them while a rebuild is running.
+-- KEYS[1] email index (hash: email -> user ID), KEYS[2] rebuild marker,
+-- KEYS[3] changes made during the rebuild (hash: email -> user ID, or -ID if removed)
+-- ARGV email and user ID pairs
+local rebuilding = redis.call('EXISTS', KEYS[2]) == 1
+for i = 1, #ARGV, 2 do
+    if ARGV[i] ~= '' then
+        redis.call('HSET', KEYS[1], ARGV[i], ARGV[i + 1])
+        if rebuilding then
+            redis.call('HSET', KEYS[3], ARGV[i], ARGV[i + 1])
+        end
+    end
+end
+return #ARGV / 2
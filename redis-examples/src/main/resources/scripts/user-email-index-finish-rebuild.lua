@@ -0,0 +1,28 @@
+-- Replaces the email index with the rebuilt one, after applying the changes made while it was built.
+-- KEYS[1] rebuild marker, KEYS[2] index being rebuilt, KEYS[3] changes made during the rebuild
+-- (hash: email -> user ID, or -ID if removed), KEYS[4] email index
+-- ARGV[1] token of the rebuild
+-- Returns 0 and drops the rebuilt index if the marker expired or another rebuild took over, as
+-- changes made since then were not recorded.
+if redis.call('GET', KEYS[1]) ~= ARGV[1] then
+    redis.call('DEL', KEYS[2])
+    return 0
+end
+local changes = redis.call('HGETALL', KEYS[3])
+for i = 1, #changes, 2 do
+    local email, id = changes[i], changes[i + 1]
+    if string.sub(id, 1, 1) == '-' then
+        if redis.call('HGET', KEYS[2], email) == string.sub(id, 2) then
+            redis.call('HDEL', KEYS[2], email)
+        end
+    else
+        redis.call('HSET', KEYS[2], email, id)
+    end
+end
+if redis.call('EXISTS', KEYS[2]) == 1 then
+    redis.call('RENAME', KEYS[2], KEYS[4])
+else
+    redis.call('DEL', KEYS[4])
+end
+redis.call('DEL', KEYS[1], KEYS[3])
+return 1
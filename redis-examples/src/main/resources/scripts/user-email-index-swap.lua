@@ -0,0 +1,25 @@
+-- Moves a user's entry in the email index in one step, so a lookup never sees both or neither.
+-- KEYS[1] email index (hash: email -> user ID), KEYS[2] rebuild marker,
+-- KEYS[3] changes made during the rebuild (hash: email -> user ID, or -ID if removed)
+-- ARGV[1] old email ('' if none), ARGV[2] new email ('' to only remove), ARGV[3] user ID
+-- The old email is only removed while it still points at this user; the rebuild applies the same rule.
+local rebuilding = redis.call('EXISTS', KEYS[2]) == 1
+if ARGV[1] ~= '' and ARGV[1] ~= ARGV[2] then
+    if redis.call('HGET', KEYS[1], ARGV[1]) == ARGV[3] then
+        redis.call('HDEL', KEYS[1], ARGV[1])
+    end
+    if rebuilding then
+        -- Do not override another user taking the email during the rebuild.
+        local recorded = redis.call('HGET', KEYS[3], ARGV[1])
+        if not recorded or recorded == ARGV[3] or string.sub(recorded, 1, 1) == '-' then
+            redis.call('HSET', KEYS[3], ARGV[1], '-' .. ARGV[3])
+        end
+    end
+end
+if ARGV[2] ~= '' then
+    redis.call('HSET', KEYS[1], ARGV[2], ARGV[3])
+    if rebuilding then
+        redis.call('HSET', KEYS[3], ARGV[2], ARGV[3])
+    end
+end
+return 1
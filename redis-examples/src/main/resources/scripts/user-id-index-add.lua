@@ -0,0 +1,11 @@
+-- Adds user IDs to the ID index, and to the index being rebuilt while a rebuild is running.
+-- KEYS[1] ID index (sorted set scored by ID), KEYS[2] rebuild marker, KEYS[3] index being rebuilt
+-- ARGV user IDs
+local rebuilding = redis.call('EXISTS', KEYS[2]) == 1
+for _, id in ipairs(ARGV) do
+    redis.call('ZADD', KEYS[1], id, id)
+    if rebuilding then
+        redis.call('ZADD', KEYS[3], id, id)
+    end
+end
+return #ARGV
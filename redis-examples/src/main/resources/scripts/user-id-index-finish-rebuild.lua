@@ -0,0 +1,20 @@
+-- Replaces the ID index with the rebuilt one, without the IDs removed while it was being built.
+-- KEYS[1] rebuild marker, KEYS[2] index being rebuilt, KEYS[3] IDs removed during the rebuild,
+-- KEYS[4] ID index, KEYS[5] flag marking the index as built
+-- ARGV[1] token of the rebuild
+-- Returns 0 and leaves the index alone if the marker expired or another rebuild took over, as
+-- writes may then have missed the rebuilt index.
+if redis.call('GET', KEYS[1]) ~= ARGV[1] then
+    return 0
+end
+for _, id in ipairs(redis.call('SMEMBERS', KEYS[3])) do
+    redis.call('ZREM', KEYS[2], id)
+end
+if redis.call('EXISTS', KEYS[2]) == 1 then
+    redis.call('RENAME', KEYS[2], KEYS[4])
+else
+    redis.call('DEL', KEYS[4])
+end
+redis.call('DEL', KEYS[1], KEYS[3])
+redis.call('SET', KEYS[5], '1')
+return 1
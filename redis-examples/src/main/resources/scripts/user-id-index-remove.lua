@@ -0,0 +1,9 @@
+-- Removes a user ID from the ID index. While a rebuild is running the ID is also recorded, since
+-- the rebuild may still copy it from a database page read before the delete.
+-- KEYS[1] ID index, KEYS[2] rebuild marker, KEYS[3] IDs removed during the rebuild (set)
+-- ARGV[1] user ID
+redis.call('ZREM', KEYS[1], ARGV[1])
+if redis.call('EXISTS', KEYS[2]) == 1 then
+    redis.call('SADD', KEYS[3], ARGV[1])
+end
+return 1
@@ -0,0 +1,23 @@
+-- Replaces the search index with the rebuilt one, after applying the changes made while it was built.
+-- KEYS[1] rebuild marker, KEYS[2] index being rebuilt, KEYS[3] members added during the rebuild,
+-- KEYS[4] members removed during the rebuild, KEYS[5] search index
+-- ARGV[1] token of the rebuild
+-- Returns 0 and drops the rebuilt index if the marker expired or another rebuild took over, as
+-- changes made since then were not recorded.
+if redis.call('GET', KEYS[1]) ~= ARGV[1] then
+    redis.call('DEL', KEYS[2])
+    return 0
+end
+for _, member in ipairs(redis.call('SMEMBERS', KEYS[4])) do
+    redis.call('ZREM', KEYS[2], member)
+end
+for _, member in ipairs(redis.call('SMEMBERS', KEYS[3])) do
+    redis.call('ZADD', KEYS[2], 0, member)
+end
+if redis.call('EXISTS', KEYS[2]) == 1 then
+    redis.call('RENAME', KEYS[2], KEYS[5])
+else
+    redis.call('DEL', KEYS[5])
+end
+redis.call('DEL', KEYS[1], KEYS[3], KEYS[4])
+return 1
@@ -0,0 +1,24 @@
+-- Removes and adds search index members, and records them while a rebuild is running.
+-- KEYS[1] search index (sorted set), KEYS[2] rebuild marker, KEYS[3] members added during the rebuild (set),
+-- KEYS[4] members removed during the rebuild (set)
+-- ARGV[1] number of members to remove, followed by the members to remove, then the members to add
+-- A member's latest change wins, so it is only kept in one of the two sets.
+local rebuilding = redis.call('EXISTS', KEYS[2]) == 1
+local removeCount = tonumber(ARGV[1])
+for i = 2, #ARGV do
+    local member = ARGV[i]
+    if i <= removeCount + 1 then
+        redis.call('ZREM', KEYS[1], member)
+        if rebuilding then
+            redis.call('SREM', KEYS[3], member)
+            redis.call('SADD', KEYS[4], member)
+        end
+    else
+        redis.call('ZADD', KEYS[1], 0, member)
+        if rebuilding then
+            redis.call('SREM', KEYS[4], member)
+            redis.call('SADD', KEYS[3], member)
+        end
+    end
+end
+return 1
@@ -0,0 +1,82 @@
+package com.alisimsek.redisexamples.cache;
+
+import com.alisimsek.redisexamples.entity.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares bytes per entry and encode/decode time of the cache value serializers
+ * for the values stored in {@code userById} and {@code userList}.
+ * Not part of the regular build; run with
+ * {@code mvn test -Dtest=CacheValueSerializerBenchmark}.
+ */
+class CacheValueSerializerBenchmark {
+
+    private static final int ITERATIONS = 50_000;
+
+    @Test
+    void compareSerializers() {
+        Map<String, RedisSerializer<Object>> serializers = new LinkedHashMap<>();
+        serializers.put("json", CacheValueFormat.JSON.createSerializer());
+        serializers.put("json+lz4", new Lz4CompressingRedisSerializer(CacheValueFormat.JSON.createSerializer(), 1024));
+        serializers.put("smile", CacheValueFormat.SMILE.createSerializer());
+        serializers.put("smile+lz4", new Lz4CompressingRedisSerializer(CacheValueFormat.SMILE.createSerializer(), 1024));
+
+        Map<String, Object> values = new LinkedHashMap<>();
+        values.put("User", user(1));
+        values.put("List<User> x20", users(20));
+        values.put("List<User> x1000", users(1000));
+
+        // Warm up every code path before measuring anything.
+        values.forEach((valueName, value) -> serializers.forEach((serializerName, serializer) -> {
+            byte[] bytes = serializer.serialize(value);
+            assertThat(serializer.deserialize(bytes)).isEqualTo(value);
+            run(serializer, value, bytes, iterations(value));
+        }));
+
+        System.out.printf("%-18s %-10s %10s %14s %14s%n", "value", "serializer", "bytes", "encode ns/op", "decode ns/op");
+        values.forEach((valueName, value) -> serializers.forEach((serializerName, serializer) -> {
+            byte[] bytes = serializer.serialize(value);
+            int iterations = iterations(value);
+            long[] nanos = run(serializer, value, bytes, iterations);
+            System.out.printf("%-18s %-10s %10d %14d %14d%n", valueName, serializerName, bytes.length,
+                    nanos[0] / iterations, nanos[1] / iterations);
+        }));
+    }
+
+    private static int iterations(Object value) {
+        return value instanceof List<?> list ? ITERATIONS / list.size() : ITERATIONS;
+    }
+
+    private static long[] run(RedisSerializer<Object> serializer, Object value, byte[] bytes, int iterations) {
+        long sink = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            sink += serializer.serialize(value).length;
+        }
+        long encode = System.nanoTime() - start;
+        start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            sink += serializer.deserialize(bytes) != null ? 1 : 0;
+        }
+        long decode = System.nanoTime() - start;
+        assertThat(sink).isPositive();
+        return new long[]{encode, decode};
+    }
+
+    private static User user(long id) {
+        return new User(id, "User " + id, "user" + id + "@example.com", 0L);
+    }
+
+    private static List<User> users(int count) {
+        return new ArrayList<>(IntStream.rangeClosed(1, count).mapToObj(CacheValueSerializerBenchmark::user).toList());
+    }
+}
@@ -0,0 +1,114 @@
+package com.alisimsek.redisexamples.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tracks keys on its own RESP3 connection to the Redis instance from {@code application.yml},
+ * changes them through the application's connections in database 14, and flushes it.
+ */
+@SpringBootTest(properties = {"logging.level.com.alisimsek.redisexamples=WARN", "spring.data.redis.database=14",
+        "cache.warm-up.enabled=false"})
+class ClientSideCacheStoreTest {
+
+    private static final Function<byte[], Object> READER = raw -> new String(raw, StandardCharsets.UTF_8);
+
+    @Autowired
+    private LettuceConnectionFactory connectionFactory;
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    private ClientSideCacheStore store;
+
+    @BeforeEach
+    void startStore() {
+        store = new ClientSideCacheStore(connectionFactory.getRequiredNativeClient(), true, 100,
+                Duration.ofMinutes(1), new SimpleMeterRegistry());
+        store.start();
+    }
+
+    @AfterEach
+    void closeStoreAndFlushDb() {
+        store.close();
+        redisTemplate.execute((RedisCallback<Object>) connection -> {
+            connection.serverCommands().flushDb();
+            return null;
+        });
+    }
+
+    @Test
+    void keepsReadValueUntilAnotherClientChangesIt() throws InterruptedException {
+        redisTemplate.opsForValue().set("tracked:1", "before");
+
+        assertThat(store.read("tracked:1", READER, Duration.ZERO)).isEqualTo("before");
+        assertThat(store.getLocal("tracked:1")).isEqualTo("before");
+
+        redisTemplate.opsForValue().set("tracked:1", "after");
+
+        awaitDropped("tracked:1");
+        assertThat(store.read("tracked:1", READER, Duration.ZERO)).isEqualTo("after");
+        assertThat(store.getLocal("tracked:1")).isEqualTo("after");
+    }
+
+    @Test
+    void dropsCopyOfDeletedOrExpiredKey() throws InterruptedException {
+        redisTemplate.opsForValue().set("tracked:deleted", "value");
+        redisTemplate.opsForValue().set("tracked:expiring", "value", Duration.ofMillis(200));
+        store.read("tracked:deleted", READER, Duration.ZERO);
+        store.read("tracked:expiring", READER, Duration.ZERO);
+
+        redisTemplate.delete("tracked:deleted");
+
+        awaitDropped("tracked:deleted");
+        awaitDropped("tracked:expiring");
+        assertThat(store.read("tracked:expiring", READER, Duration.ZERO)).isNull();
+    }
+
+    @Test
+    void dropsEveryCopyWhenServerIsFlushed() throws InterruptedException {
+        redisTemplate.opsForValue().set("tracked:a", "a");
+        redisTemplate.opsForValue().set("tracked:b", "b");
+        store.read("tracked:a", READER, Duration.ZERO);
+        store.read("tracked:b", READER, Duration.ZERO);
+
+        redisTemplate.execute((RedisCallback<Object>) connection -> {
+            connection.serverCommands().flushDb();
+            return null;
+        });
+
+        awaitDropped("tracked:a");
+        awaitDropped("tracked:b");
+    }
+
+    @Test
+    void readResetsIdleExpiry() {
+        redisTemplate.opsForValue().set("tracked:idle", "value", Duration.ofSeconds(5));
+
+        store.read("tracked:idle", READER, Duration.ofMinutes(1));
+
+        assertThat(redisTemplate.getExpire("tracked:idle", TimeUnit.SECONDS)).isGreaterThan(50L);
+    }
+
+    private void awaitDropped(String key) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(2).toNanos();
+        while (store.getLocal(key) != null && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(store.getLocal(key)).isNull();
+    }
+}
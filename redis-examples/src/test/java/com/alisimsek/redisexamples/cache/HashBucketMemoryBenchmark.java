@@ -0,0 +1,145 @@
+package com.alisimsek.redisexamples.cache;
+
+import com.alisimsek.redisexamples.config.HashBucketProperties;
+import com.alisimsek.redisexamples.entity.User;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.types.Expiration;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares the Redis memory used by 1M {@code userById} entries stored the way
+ * {@code RedisCacheManager} stores them (one key with a TTL per entry) and in hash buckets.
+ * Uses database 15 of the Redis instance from {@code application.yml} and flushes it; raises
+ * the server's {@code hash-max-listpack-value} for the run if needed, as buckets require.
+ * Not part of the regular build; run with
+ * {@code mvn test -Dtest=HashBucketMemoryBenchmark}.
+ */
+@SpringBootTest(properties = {"logging.level.com.alisimsek.redisexamples=WARN", "spring.data.redis.database=15",
+        "cache.warm-up.enabled=false"})
+class HashBucketMemoryBenchmark {
+
+    private static final String CACHE_NAME = "userById";
+    private static final int ENTRIES = 1_000_000;
+    private static final int BATCH_SIZE = 1000;
+    private static final Duration TTL = Duration.ofMinutes(5);
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @Autowired
+    private RedisCacheBatchOperations batchOperations;
+
+    @Autowired
+    private RedisCacheConfiguration cacheConfiguration;
+
+    @Test
+    void compareLayouts() {
+        String valueLimit = config("hash-max-ziplist-value");
+        if (Integer.parseInt(valueLimit) < 256) {
+            setConfig("hash-max-ziplist-value", "256");
+        }
+        try {
+            HashBucketProperties properties = new HashBucketProperties();
+            properties.setEnabled(true);
+            properties.setCaches(Set.of(CACHE_NAME));
+            HashBucketStore store = new HashBucketStore(redisTemplate, cacheConfiguration, properties,
+                    new SimpleMeterRegistry());
+            store.readServerLimits();
+
+            long keys = measure(this::writeKeys);
+            long buckets = measure(() -> writeBuckets(store));
+            assertThat(store.getAll(CACHE_NAME, List.of(1L, (long) ENTRIES))).hasSize(2);
+
+            System.out.printf("%-14s %14s %16s%n", "layout", "used memory", "bytes per entry");
+            print("keys", keys);
+            print("hash buckets", buckets);
+            System.out.printf("hash buckets use %.0f%% less memory%n", 100.0 * (keys - buckets) / keys);
+        } finally {
+            flushDb();
+            setConfig("hash-max-ziplist-value", valueLimit);
+        }
+    }
+
+    private static void print(String layout, long bytes) {
+        System.out.printf("%-14s %11.1f MB %16d%n", layout, bytes / 1024.0 / 1024.0, bytes / ENTRIES);
+    }
+
+    private long measure(Runnable write) {
+        flushDb();
+        long before = usedMemory();
+        write.run();
+        return usedMemory() - before;
+    }
+
+    /**
+     * Writes every entry with SET ... PX, as {@code RedisCache} does.
+     */
+    private void writeKeys() {
+        for (int from = 1; from <= ENTRIES; from += BATCH_SIZE) {
+            int start = from;
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                for (long id = start; id < start + BATCH_SIZE; id++) {
+                    connection.stringCommands().set(batchOperations.rawKey(CACHE_NAME, id),
+                            batchOperations.rawValue(user(id)), Expiration.from(TTL),
+                            RedisStringCommands.SetOption.upsert());
+                }
+                return null;
+            });
+        }
+    }
+
+    private void writeBuckets(HashBucketStore store) {
+        for (int from = 1; from <= ENTRIES; from += BATCH_SIZE) {
+            Map<Long, byte[]> values = new LinkedHashMap<>();
+            for (long id = from; id < from + BATCH_SIZE; id++) {
+                values.put(id, batchOperations.rawValue(user(id)));
+            }
+            store.putAll(CACHE_NAME, values, key -> TTL);
+        }
+    }
+
+    private long usedMemory() {
+        Properties info = redisTemplate.execute((RedisCallback<Properties>) connection ->
+                connection.serverCommands().info("memory"));
+        return Long.parseLong(info.getProperty("used_memory"));
+    }
+
+    private void flushDb() {
+        redisTemplate.execute((RedisCallback<Object>) connection -> {
+            connection.serverCommands().flushDb();
+            return null;
+        });
+    }
+
+    private String config(String name) {
+        Properties config = redisTemplate.execute((RedisCallback<Properties>) connection ->
+                connection.serverCommands().getConfig(name));
+        return config.getProperty(name);
+    }
+
+    private void setConfig(String name, String value) {
+        redisTemplate.execute((RedisCallback<Object>) connection -> {
+            connection.serverCommands().setConfig(name, value);
+            return null;
+        });
+    }
+
+    private static User user(long id) {
+        return new User(id, "User " + id, "user" + id + "@example.com", 0L);
+    }
+}
@@ -0,0 +1,134 @@
+package com.alisimsek.redisexamples.cache;
+
+import com.alisimsek.redisexamples.config.HashBucketProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs against database 14 of the Redis instance from {@code application.yml} and flushes it.
+ */
+@SpringBootTest(properties = {"logging.level.com.alisimsek.redisexamples=WARN", "spring.data.redis.database=14",
+        "cache.warm-up.enabled=false"})
+class HashBucketStoreTest {
+
+    private static final String CACHE = "userById";
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @Autowired
+    private RedisCacheConfiguration cacheConfiguration;
+
+    private HashBucketStore store;
+
+    @BeforeEach
+    void createStore() {
+        HashBucketProperties properties = new HashBucketProperties();
+        properties.setEnabled(true);
+        properties.setCaches(Set.of(CACHE));
+        properties.setBucketSize(100);
+        store = new HashBucketStore(redisTemplate, cacheConfiguration, properties, new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void flushDb() {
+        redisTemplate.execute((RedisCallback<Object>) connection -> {
+            connection.serverCommands().flushDb();
+            return null;
+        });
+    }
+
+    @Test
+    void storesEntriesInBucketThatExpiresWithLongestLivedField() {
+        store.put(CACHE, 4201L, bytes("a"), Duration.ofSeconds(10));
+        store.put(CACHE, 4299L, bytes("b"), Duration.ofMinutes(1));
+
+        assertThat(store.bucketKey(CACHE, 4201L)).isEqualTo("userById::bucket:42");
+        assertThat(redisTemplate.opsForHash().keys("userById::bucket:42")).containsExactlyInAnyOrder("4201", "4299");
+        assertThat(string(store.get(CACHE, 4201L, Duration.ZERO))).isEqualTo("a");
+        assertThat(redisTemplate.getExpire("userById::bucket:42")).isBetween(50L, 60L);
+        assertThat(store.pTtl(CACHE, 4201L)).isBetween(9_000L, 10_000L);
+
+        store.put(CACHE, 4250L, bytes("c"), null);
+
+        assertThat(redisTemplate.getExpire("userById::bucket:42")).isEqualTo(-1L);
+        assertThat(store.pTtl(CACHE, 4250L)).isEqualTo(-1L);
+    }
+
+    @Test
+    void expiredEntryReadsAsMissingAndIsDeleted() throws InterruptedException {
+        store.put(CACHE, 7L, bytes("short"), Duration.ofMillis(50));
+        store.put(CACHE, 8L, bytes("long"), Duration.ofMinutes(1));
+        Thread.sleep(100);
+
+        assertThat(store.getAll(CACHE, List.of(7L, 8L))).containsOnlyKeys(8L);
+        assertThat(store.get(CACHE, 7L, Duration.ZERO)).isNull();
+        assertThat(redisTemplate.opsForHash().hasKey("userById::bucket:0", "7")).isFalse();
+        assertThat(store.pTtl(CACHE, 7L)).isEqualTo(-2L);
+    }
+
+    @Test
+    void readPushesBackExpiryOnceLessThanHalfOfIdleTtlIsLeft() throws InterruptedException {
+        Duration idleTtl = Duration.ofSeconds(1);
+        store.put(CACHE, 1L, bytes("idle"), idleTtl);
+
+        store.get(CACHE, 1L, idleTtl);
+        assertThat(store.pTtl(CACHE, 1L)).isLessThanOrEqualTo(1_000L);
+        Thread.sleep(600);
+        assertThat(store.pTtl(CACHE, 1L)).isLessThan(500L);
+
+        assertThat(string(store.get(CACHE, 1L, idleTtl))).isEqualTo("idle");
+        assertThat(store.pTtl(CACHE, 1L)).isGreaterThan(800L);
+        assertThat(redisTemplate.getExpire("userById::bucket:0", TimeUnit.MILLISECONDS))
+                .isGreaterThan(800L);
+    }
+
+    @Test
+    void putIfAbsentKeepsLiveEntryAndReplacesExpiredOne() throws InterruptedException {
+        assertThat(store.putIfAbsent(CACHE, 5L, bytes("first"), Duration.ofMillis(500))).isNull();
+        assertThat(string(store.putIfAbsent(CACHE, 5L, bytes("second"), Duration.ofMinutes(1)))).isEqualTo("first");
+        Thread.sleep(600);
+
+        assertThat(store.putIfAbsent(CACHE, 5L, bytes("third"), Duration.ofMinutes(1))).isNull();
+        assertThat(string(store.get(CACHE, 5L, Duration.ZERO))).isEqualTo("third");
+    }
+
+    @Test
+    void readsAndWritesSeveralBucketsAtOnce() {
+        store.putAll(CACHE, Map.of(1L, bytes("one"), 150L, bytes("one fifty"), 999L, bytes("nine nine nine")),
+                key -> Duration.ofMinutes(1));
+
+        Map<Long, byte[]> values = store.getAll(CACHE, List.of(1L, 150L, 2L, 999L));
+
+        assertThat(values).containsOnlyKeys(1L, 150L, 999L);
+        assertThat(string(values.get(150L))).isEqualTo("one fifty");
+        assertThat(redisTemplate.keys("userById::bucket:*"))
+                .containsExactlyInAnyOrder("userById::bucket:0", "userById::bucket:1", "userById::bucket:9");
+        assertThat(store.evict(CACHE, 150L)).isTrue();
+        assertThat(store.evict(CACHE, 150L)).isFalse();
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String string(byte[] value) {
+        return value == null ? null : new String(value, StandardCharsets.UTF_8);
+    }
+}
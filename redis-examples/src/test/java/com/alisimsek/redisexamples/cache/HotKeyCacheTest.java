@@ -0,0 +1,75 @@
+package com.alisimsek.redisexamples.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the cache over an in-memory stand-in for the layers below, with every read sampled.
+ */
+class HotKeyCacheTest {
+
+    private static final int THRESHOLD = 3;
+
+    private final ConcurrentMapCache below = new ConcurrentMapCache("userById");
+
+    @Test
+    void promotesKeyOnceItCrossesThresholdAndServesItFromReplica() {
+        HotKeyCache cache = hotKeyCache(Duration.ofMinutes(1));
+        cache.put(1, "v1");
+        cache.put(2, "cold");
+
+        for (int i = 0; i < THRESHOLD; i++) {
+            assertThat(cache.get(1).get()).isEqualTo("v1");
+        }
+        cache.get(2);
+
+        assertThat(cache.snapshot().hotKeys()).extracting(HotKeyCache.HotKey::key).containsExactly("1");
+        // Changed below without going through this node, so only the replica still has the old value.
+        below.put(1, "v2");
+        assertThat(cache.get(1).get()).isEqualTo("v1");
+        assertThat(cache.snapshot().replicaHits()).isPositive();
+    }
+
+    @Test
+    void invalidationsDropReplicatedValue() {
+        HotKeyCache cache = hotKeyCache(Duration.ofMinutes(1));
+        cache.put(1, "v1");
+        for (int i = 0; i < THRESHOLD; i++) {
+            cache.get(1);
+        }
+        below.put(1, "v2");
+
+        // As on an invalidation message from the node that wrote v2.
+        cache.evictLocal(1);
+        assertThat(cache.get(1).get()).isEqualTo("v2");
+
+        cache.evict(1);
+        assertThat(cache.get(1)).isNull();
+        assertThat(below.get(1)).isNull();
+    }
+
+    @Test
+    void demotesKeyOnceItsCountDecays() throws InterruptedException {
+        HotKeyCache cache = hotKeyCache(Duration.ofMillis(50));
+        cache.put(1, "v1");
+        for (int i = 0; i < THRESHOLD; i++) {
+            cache.get(1);
+        }
+        assertThat(cache.snapshot().hotKeys()).isNotEmpty();
+
+        Thread.sleep(200);
+        cache.get(2);
+
+        assertThat(cache.snapshot().hotKeys()).isEmpty();
+    }
+
+    private HotKeyCache hotKeyCache(Duration decayInterval) {
+        return new HotKeyCache(below, new FrequencySketch(1024, 4), 1.0, THRESHOLD, 8, decayInterval,
+                Duration.ofMinutes(1), new SimpleMeterRegistry());
+    }
+}
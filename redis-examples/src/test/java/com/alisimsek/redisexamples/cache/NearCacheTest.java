@@ -0,0 +1,77 @@
+package com.alisimsek.redisexamples.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the cache over an in-memory stand-in for Redis. Invalidations arrive through
+ * {@link NearCache#evictLocal(Object)}, as from the invalidation channel, so nothing is published.
+ */
+class NearCacheTest {
+
+    private final AtomicReference<Runnable> duringRead = new AtomicReference<>(() -> {
+    });
+
+    private final ConcurrentMapCache below = new ConcurrentMapCache("userById") {
+        @Override
+        public ValueWrapper get(Object key) {
+            ValueWrapper wrapper = super.get(key);
+            duringRead.get().run();
+            return wrapper;
+        }
+
+        @Override
+        public <T> T get(Object key, Callable<T> valueLoader) {
+            T value = super.get(key, valueLoader);
+            duringRead.get().run();
+            return value;
+        }
+    };
+
+    private final NearCache cache = new NearCache(below, 100, Duration.ofMinutes(1),
+            new CacheInvalidationPublisher(null, "test"), new SimpleMeterRegistry());
+
+    @Test
+    void readOverlappingInvalidationIsNotKept() {
+        below.put(1, "v1");
+        // Another node writes v2 after this read fetched v1, and its invalidation arrives before the fill.
+        duringRead.set(() -> {
+            below.put(1, "v2");
+            cache.evictLocal(1);
+        });
+        assertThat(cache.get(1).get()).isEqualTo("v1");
+
+        duringRead.set(() -> {
+        });
+        assertThat(cache.get(1).get()).isEqualTo("v2");
+    }
+
+    @Test
+    void loadOverlappingInvalidationIsNotKept() {
+        duringRead.set(() -> {
+            below.put(1, "v2");
+            cache.evictLocal(1);
+        });
+        assertThat(cache.get(1, () -> "v1")).isEqualTo("v1");
+
+        duringRead.set(() -> {
+        });
+        assertThat(cache.get(1, () -> "v3")).isEqualTo("v2");
+    }
+
+    @Test
+    void readWithoutInvalidationIsKept() {
+        below.put(1, "v1");
+        assertThat(cache.get(1).get()).isEqualTo("v1");
+
+        below.put(1, "v2");
+        assertThat(cache.get(1).get()).isEqualTo("v1");
+    }
+}
@@ -0,0 +1,123 @@
+package com.alisimsek.redisexamples.cache;
+
+import com.alisimsek.redisexamples.entity.User;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs against database 14 of the Redis instance from {@code application.yml} and flushes it.
+ */
+@SpringBootTest(properties = {"logging.level.com.alisimsek.redisexamples=WARN", "spring.data.redis.database=14",
+        "cache.warm-up.enabled=false"})
+class ReactiveCacheAsideTest {
+
+    private static final String CACHE = "userById";
+    private static final Long ID = 42L;
+
+    @Autowired
+    private ReactiveCacheAside cacheAside;
+
+    @Autowired
+    private RedisCacheManager redisCacheManager;
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    /**
+     * The first reactive calls connect and load classes, and can miss the circuit breaker's deadline.
+     */
+    @BeforeEach
+    void warmUp() {
+        for (int i = 0; i < 3; i++) {
+            cacheAside.get(CACHE, -1L, User.class).block();
+        }
+    }
+
+    @AfterEach
+    void flushDb() {
+        redisTemplate.execute((RedisCallback<Object>) connection -> {
+            connection.serverCommands().flushDb();
+            return null;
+        });
+    }
+
+    @Test
+    void hitIsServedWithoutLoading() {
+        AtomicInteger loads = new AtomicInteger();
+        redisCacheManager.getCache(CACHE).put(ID, user("cached"));
+
+        StepVerifier.create(cacheAside.get(CACHE, ID, User.class, () -> {
+                    loads.incrementAndGet();
+                    return Mono.just(user("loaded"));
+                }))
+                .assertNext(user -> assertThat(user.getName()).isEqualTo("cached"))
+                .verifyComplete();
+        assertThat(loads).hasValue(0);
+    }
+
+    @Test
+    void missLoadsAndCachesValue() {
+        StepVerifier.create(cacheAside.get(CACHE, ID, User.class, () -> Mono.just(user("loaded"))))
+                .assertNext(user -> assertThat(user.getName()).isEqualTo("loaded"))
+                .verifyComplete();
+
+        StepVerifier.create(cacheAside.get(CACHE, ID, User.class))
+                .assertNext(user -> assertThat(user.getName()).isEqualTo("loaded"))
+                .verifyComplete();
+    }
+
+    @Test
+    void emptyLoaderLeavesCacheUntouched() {
+        StepVerifier.create(cacheAside.get(CACHE, ID, User.class, Mono::empty)).verifyComplete();
+
+        StepVerifier.create(cacheAside.get(CACHE, ID, User.class)).verifyComplete();
+    }
+
+    @Test
+    void concurrentMissesShareOneLoad() {
+        AtomicInteger loads = new AtomicInteger();
+        Mono<User> get = cacheAside.get(CACHE, ID, User.class, () -> Mono.defer(() -> {
+            loads.incrementAndGet();
+            return Mono.just(user("loaded")).delayElement(Duration.ofMillis(300));
+        }));
+
+        StepVerifier.create(Flux.range(0, 8).flatMap(i -> get).map(User::getName))
+                .expectNextCount(8)
+                .verifyComplete();
+
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void loadDoesNotOverwriteValueCachedMeanwhile() {
+        // A writer caches a newer value while the load runs.
+        Mono<User> staleLoad = cacheAside.put(CACHE, ID, user("written meanwhile"))
+                .then(Mono.just(user("loaded before the write")));
+
+        StepVerifier.create(cacheAside.get(CACHE, ID, User.class, () -> staleLoad))
+                .assertNext(user -> assertThat(user.getName()).isEqualTo("loaded before the write"))
+                .verifyComplete();
+
+        StepVerifier.create(cacheAside.get(CACHE, ID, User.class))
+                .assertNext(user -> assertThat(user.getName()).isEqualTo("written meanwhile"))
+                .verifyComplete();
+    }
+
+    private static User user(String name) {
+        return new User(ID, name, "user" + ID + "@example.com", 0L);
+    }
+}
@@ -0,0 +1,33 @@
+package com.alisimsek.redisexamples.cache;
+
+import com.alisimsek.redisexamples.config.RedisResilienceProperties;
+import com.alisimsek.redisexamples.resilience.RedisCircuitBreaker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Runs without any Redis node, so every call fails; the breaker is never probed.
+ */
+class RedisCacheBatchOperationsTest {
+
+    private final RedisCircuitBreaker circuitBreaker =
+            new RedisCircuitBreaker(null, new RedisResilienceProperties(), new SimpleMeterRegistry());
+    private final RedisCacheBatchOperations batchOperations = new RedisCacheBatchOperations(null,
+            RedisCacheConfiguration.defaultCacheConfig(), circuitBreaker, new RedisResilienceProperties(), null);
+
+    @Test
+    void pTtlReportsMissingEntryWhenRedisFails() {
+        assertThat(batchOperations.pTtl("userById", 1L)).isEqualTo(-2);
+    }
+
+    @Test
+    void clearFailsSoItCanBeRetried() {
+        assertThatThrownBy(() -> batchOperations.clear("userById"))
+                .isInstanceOf(RedisConnectionFailureException.class);
+    }
+}
@@ -0,0 +1,86 @@
+package com.alisimsek.redisexamples.cache;
+
+import com.alisimsek.redisexamples.config.RedisResilienceProperties;
+import com.alisimsek.redisexamples.resilience.CircuitState;
+import com.alisimsek.redisexamples.resilience.RedisCircuitBreaker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs over an in-memory cache whose evictions fail on demand; the breaker is never probed.
+ */
+class ResilientCacheTest {
+
+    private final FlakyCache flaky = new FlakyCache();
+    private final RedisCircuitBreaker circuitBreaker =
+            new RedisCircuitBreaker(null, new RedisResilienceProperties(), new SimpleMeterRegistry());
+    private final ResilientCache cache = new ResilientCache(flaky, circuitBreaker, Duration.ofMillis(100), 100);
+
+    @Test
+    void failedEvictionIsReplayedAfterNextSuccessfulCall() throws InterruptedException {
+        cache.put("a", "stale");
+        flaky.failingEvictions.set(1);
+
+        cache.evict("a");
+        assertThat(flaky.get("a")).isNotNull();
+        assertThat(circuitBreaker.getState()).isEqualTo(CircuitState.CLOSED);
+
+        cache.get("b");
+
+        awaitEvicted("a");
+    }
+
+    @Test
+    void tooManyFailedEvictionsClearTheCacheOnReplay() throws InterruptedException {
+        ResilientCache small = new ResilientCache(flaky, circuitBreaker, Duration.ofMillis(100), 1);
+        small.put("a", "stale");
+        small.put("b", "stale");
+        flaky.failingEvictions.set(2);
+
+        small.evict("a");
+        small.evict("b");
+        small.get("c");
+
+        awaitEvicted("a");
+        awaitEvicted("b");
+    }
+
+    private void awaitEvicted(Object key) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(2).toNanos();
+        while (flaky.get(key) != null && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(flaky.get(key)).isNull();
+    }
+
+    private static final class FlakyCache extends ConcurrentMapCache {
+
+        private final AtomicInteger failingEvictions = new AtomicInteger();
+
+        FlakyCache() {
+            super("flaky");
+        }
+
+        @Override
+        public void evict(Object key) {
+            if (failingEvictions.getAndDecrement() > 0) {
+                throw new IllegalStateException("Redis is unreachable");
+            }
+            super.evict(key);
+        }
+
+        @Override
+        public void clear() {
+            if (failingEvictions.get() > 0) {
+                throw new IllegalStateException("Redis is unreachable");
+            }
+            super.clear();
+        }
+    }
+}
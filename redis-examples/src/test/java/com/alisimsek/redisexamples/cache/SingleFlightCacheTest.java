@@ -0,0 +1,161 @@
+package com.alisimsek.redisexamples.cache;
+
+import com.alisimsek.redisexamples.entity.User;
+import com.alisimsek.redisexamples.resilience.CircuitState;
+import com.alisimsek.redisexamples.resilience.RedisCircuitBreaker;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs against database 14 of the Redis instance from {@code application.yml} and flushes it.
+ */
+@SpringBootTest(properties = {"logging.level.com.alisimsek.redisexamples=WARN", "spring.data.redis.database=14",
+        "cache.warm-up.enabled=false"})
+class SingleFlightCacheTest {
+
+    private static final Long ID = 42L;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private RedisCacheBatchOperations batchOperations;
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @Autowired
+    private CacheInvalidationPublisher invalidationPublisher;
+
+    @Autowired
+    private RedisCircuitBreaker circuitBreaker;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @AfterEach
+    void flushDb() {
+        redisTemplate.execute((RedisCallback<Object>) connection -> {
+            connection.serverCommands().flushDb();
+            return null;
+        });
+    }
+
+    @Test
+    void staleCopyFollowsPutsAndEvictions() {
+        Cache cache = userById();
+        cache.put(ID, user("before update"));
+        assertThat(stale(ID)).extracting(User::getName).isEqualTo("before update");
+        cache.put(ID, user("after update"));
+        assertThat(stale(ID)).extracting(User::getName).isEqualTo("after update");
+        cache.evict(ID);
+        assertThat(stale(ID)).isNull();
+    }
+
+    @Test
+    void clearRemovesStaleCopies() {
+        Cache cache = userById();
+        cache.put(1L, user("one"));
+        cache.put(2L, user("two"));
+        cache.clear();
+        assertThat(batchOperations.getAll("userById:stale", List.of(1L, 2L), User.class)).isEmpty();
+    }
+
+    @Test
+    void contendedMissAfterEvictionDoesNotServeEvictedValue() {
+        Cache cache = userById();
+        cache.put(ID, user("deleted"));
+        cache.evict(ID);
+        // Another node is loading the entry, so this caller would fall back to the stale copy.
+        redisTemplate.opsForValue().set("cache_fill_lease:userById::" + ID, "other-node", Duration.ofSeconds(10));
+
+        User user = cache.get(ID, () -> user("reloaded"));
+
+        assertThat(user.getName()).isEqualTo("reloaded");
+    }
+
+    @Test
+    void slowLoadIsSharedByConcurrentCallersWithinDeadline() throws Exception {
+        Cache cache = userById();
+        double timeoutsBefore = loadTimeouts();
+        AtomicInteger loads = new AtomicInteger();
+        List<Future<User>> callers = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 8; i++) {
+                // Far longer than redis.resilience.cache-timeout.
+                callers.add(executor.submit(() -> cache.get(ID, () -> {
+                    loads.incrementAndGet();
+                    Thread.sleep(400);
+                    return user("loaded");
+                })));
+            }
+            for (Future<User> caller : callers) {
+                assertThat(caller.get().getName()).isEqualTo("loaded");
+            }
+        }
+
+        assertThat(loads).hasValue(1);
+        assertThat(loadTimeouts()).isEqualTo(timeoutsBefore);
+        assertThat(circuitBreaker.getState()).isEqualTo(CircuitState.CLOSED);
+    }
+
+    @Test
+    void followerWaitsForSlowFillOnAnotherNode() throws Exception {
+        Cache cache = userById();
+        double timeoutsBefore = loadTimeouts();
+        redisTemplate.opsForValue().set("cache_fill_lease:userById::" + ID, "other-node", Duration.ofSeconds(10));
+        AtomicInteger loads = new AtomicInteger();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<User> follower = executor.submit(() -> cache.get(ID, () -> {
+                loads.incrementAndGet();
+                return user("loaded here");
+            }));
+            Thread.sleep(400);
+            // The other node stores its value and announces it.
+            batchOperations.putAll("userById", Map.of(ID, user("loaded elsewhere")));
+            invalidationPublisher.publishFilled("userById", String.valueOf(ID));
+
+            assertThat(follower.get().getName()).isEqualTo("loaded elsewhere");
+        }
+
+        assertThat(loads).hasValue(0);
+        assertThat(loadTimeouts()).isEqualTo(timeoutsBefore);
+    }
+
+    private double loadTimeouts() {
+        Counter counter = meterRegistry.find("redis.circuit.calls")
+                .tags("operation", "cache_load", "result", "timeout").counter();
+        return counter == null ? 0 : counter.count();
+    }
+
+    private Cache userById() {
+        return cacheManager.getCache("userById");
+    }
+
+    private User stale(Long id) {
+        return batchOperations.getAll("userById:stale", List.of(id), User.class).get(id);
+    }
+
+    private static User user(String name) {
+        return new User(ID, name, "user" + ID + "@example.com", 0L);
+    }
+}
@@ -0,0 +1,180 @@
+package com.alisimsek.redisexamples.controller;
+
+import com.alisimsek.redisexamples.entity.User;
+import com.alisimsek.redisexamples.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.LongFunction;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares the throughput and latency of the blocking {@code /api/v1/users} reads with the
+ * reactive {@code /api/v2/users} ones over HTTP, at moderate and high numbers of concurrent
+ * clients. The near cache and hot-key replicas are disabled so that both APIs wait on Redis
+ * for every read. Uses database 15 of the Redis instance from {@code application.yml} and flushes it.
+ * Not part of the regular build; run with
+ * {@code mvn test -Dtest=UserApiThroughputBenchmark}.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "logging.level.com.alisimsek.redisexamples=WARN", "spring.data.redis.database=15",
+        "cache.warm-up.enabled=false", "cache.near.enabled=false", "cache.hot-keys.enabled=false",
+        "cache.user-existence.bloom-filter-enabled=false"})
+class UserApiThroughputBenchmark {
+
+    private static final int USERS = 1000;
+    private static final int BATCH_SIZE = 20;
+    private static final int[] CONCURRENCY = {50, 1000};
+    private static final Duration WARM_UP = Duration.ofSeconds(3);
+    private static final Duration MEASURE = Duration.ofSeconds(10);
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .build();
+
+    @Test
+    void compareApis() throws Exception {
+        flushDb();
+        try {
+            List<Long> ids = userRepository.saveAll(LongStream.range(0, USERS)
+                    .mapToObj(i -> new User(null, "User " + i, "throughput" + i + "@example.com", null))
+                    .toList()).stream().map(User::getId).toList();
+            // Caches every user, so both APIs are measured on cache hits.
+            for (Long id : ids) {
+                assertThat(get("/api/v1/users/" + id)).isEqualTo(200);
+            }
+
+            System.out.printf("%-28s %11s %12s %9s %9s %8s%n",
+                    "endpoint", "concurrency", "requests/s", "p50 ms", "p99 ms", "errors");
+            for (String version : List.of("v1", "v2")) {
+                for (int concurrency : CONCURRENCY) {
+                    print("GET /api/" + version + "/users/{id}", concurrency,
+                            run(concurrency, i -> "/api/" + version + "/users/" + random(ids)));
+                    print("GET /api/" + version + "/users/batch", concurrency,
+                            run(concurrency, i -> "/api/" + version + "/users/batch?ids=" + randomBatch(ids)));
+                }
+            }
+        } finally {
+            flushDb();
+        }
+    }
+
+    private static void print(String endpoint, int concurrency, Result result) {
+        System.out.printf("%-28s %11d %12.0f %9.1f %9.1f %8d%n", endpoint, concurrency,
+                result.requests() / (double) MEASURE.toSeconds(), result.percentile(0.5), result.percentile(0.99),
+                result.errors());
+    }
+
+    /**
+     * Sends requests from {@code concurrency} clients, each waiting for its response before the
+     * next request, and records those completed after the warm-up.
+     */
+    private Result run(int concurrency, LongFunction<String> path) throws Exception {
+        long start = System.nanoTime();
+        long measureFrom = start + WARM_UP.toNanos();
+        long end = measureFrom + MEASURE.toNanos();
+        List<Future<long[]>> clients = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < concurrency; c++) {
+                clients.add(executor.submit(() -> {
+                    List<Long> latencies = new ArrayList<>();
+                    long errors = 0;
+                    for (long i = 0; System.nanoTime() < end; i++) {
+                        long sent = System.nanoTime();
+                        int status;
+                        try {
+                            status = get(path.apply(i));
+                        } catch (Exception e) {
+                            status = -1;
+                        }
+                        long received = System.nanoTime();
+                        if (sent >= measureFrom && received <= end) {
+                            if (status == 200) {
+                                latencies.add(received - sent);
+                            } else {
+                                errors++;
+                            }
+                        }
+                    }
+                    long[] result = new long[latencies.size() + 1];
+                    result[0] = errors;
+                    for (int i = 0; i < latencies.size(); i++) {
+                        result[i + 1] = latencies.get(i);
+                    }
+                    return result;
+                }));
+            }
+        }
+        long errors = 0;
+        List<long[]> latencies = new ArrayList<>();
+        for (Future<long[]> future : clients) {
+            long[] result = future.get();
+            errors += result[0];
+            latencies.add(Arrays.copyOfRange(result, 1, result.length));
+        }
+        long[] all = latencies.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+        return new Result(all, errors);
+    }
+
+    private int get(String path) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path)).GET().build();
+        return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    private static Long random(List<Long> ids) {
+        return ids.get(ThreadLocalRandom.current().nextInt(ids.size()));
+    }
+
+    private static String randomBatch(List<Long> ids) {
+        return ThreadLocalRandom.current().ints(BATCH_SIZE, 0, ids.size())
+                .mapToObj(i -> String.valueOf(ids.get(i)))
+                .collect(Collectors.joining(","));
+    }
+
+    private void flushDb() {
+        redisTemplate.execute((RedisCallback<Object>) connection -> {
+            connection.serverCommands().flushDb();
+            return null;
+        });
+    }
+
+    private record Result(long[] latencies, long errors) {
+
+        long requests() {
+            return latencies.length;
+        }
+
+        double percentile(double percentile) {
+            return latencies.length == 0 ? 0
+                    : latencies[(int) Math.min(latencies.length - 1, percentile * latencies.length)] / 1e6;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.alisimsek.redisexamples.index;
+
+import com.alisimsek.redisexamples.entity.User;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs against database 14 of the Redis instance from {@code application.yml} and flushes it.
+ */
+@SpringBootTest(properties = {"logging.level.com.alisimsek.redisexamples=WARN", "spring.data.redis.database=14",
+        "cache.warm-up.enabled=false"})
+class UserEmailIndexTest {
+
+    @Autowired
+    private UserEmailIndex userEmailIndex;
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @AfterEach
+    void flushDb() {
+        redisTemplate.execute((RedisCallback<Object>) connection -> {
+            connection.serverCommands().flushDb();
+            return null;
+        });
+    }
+
+    @Test
+    void rebuildKeepsWritesMadeWhileItRuns() {
+        userEmailIndex.addedAll(List.of(user(1L, "ada@example.com"), user(2L, "alan@example.com")));
+
+        userEmailIndex.beginRebuild();
+        // The rebuild read a database page holding both users before they were changed.
+        userEmailIndex.changed(user(1L, "ada@example.com"), user(1L, "countess@example.com"));
+        userEmailIndex.removed(user(2L, "alan@example.com"));
+        userEmailIndex.addedAll(List.of(user(3L, "grace@example.com")));
+        userEmailIndex.rebuild(List.of(user(1L, "ada@example.com"), user(2L, "alan@example.com")));
+        userEmailIndex.finishRebuild();
+
+        assertThat(userEmailIndex.find("countess@example.com")).isEqualTo(1L);
+        assertThat(userEmailIndex.find("ada@example.com")).isNull();
+        assertThat(userEmailIndex.find("alan@example.com")).isNull();
+        assertThat(userEmailIndex.find("grace@example.com")).isEqualTo(3L);
+    }
+
+    @Test
+    void removalDuringRebuildKeepsEmailTakenByAnotherUser() {
+        userEmailIndex.beginRebuild();
+        userEmailIndex.changed(user(1L, "shared@example.com"), user(1L, "other@example.com"));
+        // The rebuild read the email after it had moved to user 2.
+        userEmailIndex.rebuild(List.of(user(1L, "other@example.com"), user(2L, "shared@example.com")));
+        userEmailIndex.finishRebuild();
+
+        assertThat(userEmailIndex.find("shared@example.com")).isEqualTo(2L);
+    }
+
+    @Test
+    void supersededRebuildKeepsCurrentIndex() {
+        userEmailIndex.added(user(1L, "ada@example.com"));
+
+        userEmailIndex.beginRebuild();
+        userEmailIndex.rebuild(List.of(user(1L, "ada@example.com")));
+        // Another node started a rebuild, so this one may have missed changes recorded only for that one.
+        redisTemplate.opsForValue().set(UserEmailIndex.KEY + ":rebuilding", "other-node");
+        userEmailIndex.added(user(2L, "alan@example.com"));
+        userEmailIndex.finishRebuild();
+
+        assertThat(userEmailIndex.find("ada@example.com")).isEqualTo(1L);
+        assertThat(userEmailIndex.find("alan@example.com")).isEqualTo(2L);
+    }
+
+    private static User user(Long id, String email) {
+        return new User(id, "User " + id, email, 0L);
+    }
+}
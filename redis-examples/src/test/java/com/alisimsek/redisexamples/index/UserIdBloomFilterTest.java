@@ -0,0 +1,101 @@
+package com.alisimsek.redisexamples.index;
+
+import com.alisimsek.redisexamples.config.RedisResilienceProperties;
+import com.alisimsek.redisexamples.config.UserExistenceProperties;
+import com.alisimsek.redisexamples.entity.User;
+import com.alisimsek.redisexamples.repository.UserRepository;
+import com.alisimsek.redisexamples.resilience.RedisCircuitBreaker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.RedisSystemException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Runs against database 14 of the Redis instance from {@code application.yml} and flushes it.
+ */
+@SpringBootTest(properties = {"logging.level.com.alisimsek.redisexamples=WARN", "spring.data.redis.database=14",
+        "cache.warm-up.enabled=false"})
+class UserIdBloomFilterTest {
+
+    @Autowired
+    private UserIdBloomFilter bloomFilter;
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserExistenceProperties properties;
+
+    @Autowired
+    private RedisCircuitBreaker circuitBreaker;
+
+    @Autowired
+    private RedisResilienceProperties resilienceProperties;
+
+    @AfterEach
+    void flushDb() {
+        redisTemplate.execute((RedisCallback<Object>) connection -> {
+            connection.serverCommands().flushDb();
+            return null;
+        });
+    }
+
+    @Test
+    void rebuildKeepsLowerIdCommittedWhileItRuns() {
+        bloomFilter.beginRebuild();
+        bloomFilter.rebuild(List.of(user(1000L)));
+        // Committed by another transaction after the rebuild read past its ID.
+        bloomFilter.added(user(7L));
+        bloomFilter.finishRebuild();
+
+        assertThat(bloomFilter.mightContain(1000L)).isTrue();
+        assertThat(bloomFilter.mightContain(7L)).isTrue();
+    }
+
+    @Test
+    void addsUsersInBulk() {
+        bloomFilter.beginRebuild();
+        bloomFilter.finishRebuild();
+        bloomFilter.addedAll(List.of(user(11L), user(12L)));
+
+        assertThat(bloomFilter.mightContain(11L)).isTrue();
+        assertThat(bloomFilter.mightContain(12L)).isTrue();
+    }
+
+    @Test
+    void failedAddLetsIdThroughOnEveryNode() {
+        bloomFilter.beginRebuild();
+        bloomFilter.finishRebuild();
+        assertThat(bloomFilter.mightContain(21L)).isFalse();
+
+        // Another node whose scripts fail, while plain commands still reach Redis.
+        StringRedisTemplate failingTemplate = new StringRedisTemplate(redisTemplate.getRequiredConnectionFactory()) {
+            @Override
+            public <T> T execute(RedisScript<T> script, List<String> keys, Object... args) {
+                throw new RedisSystemException("Script failed", null);
+            }
+        };
+        UserIdBloomFilter otherNode = new UserIdBloomFilter(failingTemplate, userRepository, properties,
+                circuitBreaker, resilienceProperties, new SimpleMeterRegistry());
+        assertThatThrownBy(() -> otherNode.added(user(21L))).isInstanceOf(RedisSystemException.class);
+
+        assertThat(bloomFilter.mightContain(21L)).isTrue();
+    }
+
+    private static User user(Long id) {
+        return new User(id, "User " + id, "user" + id + "@example.com", 0L);
+    }
+}
@@ -0,0 +1,67 @@
+package com.alisimsek.redisexamples.index;
+
+import com.alisimsek.redisexamples.entity.User;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs against database 14 of the Redis instance from {@code application.yml} and flushes it.
+ */
+@SpringBootTest(properties = {"logging.level.com.alisimsek.redisexamples=WARN", "spring.data.redis.database=14",
+        "cache.warm-up.enabled=false"})
+class UserIdIndexTest {
+
+    @Autowired
+    private UserIdIndex userIdIndex;
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @AfterEach
+    void flushDb() {
+        redisTemplate.execute((RedisCallback<Object>) connection -> {
+            connection.serverCommands().flushDb();
+            return null;
+        });
+    }
+
+    @Test
+    void rebuildKeepsWritesMadeWhileItRuns() {
+        userIdIndex.addedAll(List.of(user(1L), user(2L), user(3L)));
+
+        userIdIndex.beginRebuild();
+        // The rebuild read a database page holding users 1 to 3 before user 2 was deleted.
+        userIdIndex.removed(user(2L));
+        userIdIndex.added(user(4L));
+        userIdIndex.rebuild(List.of(user(1L), user(2L), user(3L)));
+        userIdIndex.finishRebuild();
+
+        assertThat(userIdIndex.range(0, -1)).containsExactly(1L, 3L, 4L);
+    }
+
+    @Test
+    void supersededRebuildKeepsCurrentIndex() {
+        userIdIndex.added(user(1L));
+
+        userIdIndex.beginRebuild();
+        userIdIndex.rebuild(List.of(user(1L)));
+        // Another node started a rebuild, so this one may have missed writes mirrored only to that one.
+        redisTemplate.opsForValue().set(UserIdIndex.KEY + ":rebuilding", "other-node");
+        userIdIndex.added(user(2L));
+        userIdIndex.finishRebuild();
+
+        assertThat(userIdIndex.range(0, -1)).containsExactly(1L, 2L);
+    }
+
+    private static User user(Long id) {
+        return new User(id, "User " + id, "user" + id + "@example.com", 0L);
+    }
+}
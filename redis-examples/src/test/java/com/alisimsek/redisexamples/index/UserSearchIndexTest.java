@@ -0,0 +1,74 @@
+package com.alisimsek.redisexamples.index;
+
+import com.alisimsek.redisexamples.entity.User;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs against database 14 of the Redis instance from {@code application.yml} and flushes it.
+ */
+@SpringBootTest(properties = {"logging.level.com.alisimsek.redisexamples=WARN", "spring.data.redis.database=14",
+        "cache.warm-up.enabled=false"})
+class UserSearchIndexTest {
+
+    @Autowired
+    private UserSearchIndex userSearchIndex;
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @AfterEach
+    void flushDb() {
+        redisTemplate.execute((RedisCallback<Object>) connection -> {
+            connection.serverCommands().flushDb();
+            return null;
+        });
+    }
+
+    @Test
+    void rebuildKeepsWritesMadeWhileItRuns() {
+        userSearchIndex.addedAll(List.of(user(1L, "Ada Lovelace"), user(2L, "Alan Turing")));
+
+        userSearchIndex.beginRebuild();
+        // The rebuild read a database page holding both users before they were changed.
+        userSearchIndex.changed(user(1L, "Ada Lovelace"), user(1L, "Ada King"));
+        userSearchIndex.removed(user(2L, "Alan Turing"));
+        userSearchIndex.added(user(3L, "Grace Hopper"));
+        userSearchIndex.rebuild(List.of(user(1L, "Ada Lovelace"), user(2L, "Alan Turing")));
+        userSearchIndex.finishRebuild();
+
+        assertThat(userSearchIndex.search("king", 10)).containsExactly(1L);
+        assertThat(userSearchIndex.search("lovelace", 10)).isEmpty();
+        assertThat(userSearchIndex.search("alan", 10)).isEmpty();
+        assertThat(userSearchIndex.search("grace", 10)).containsExactly(3L);
+    }
+
+    @Test
+    void supersededRebuildKeepsCurrentIndex() {
+        userSearchIndex.added(user(1L, "Ada Lovelace"));
+
+        userSearchIndex.beginRebuild();
+        userSearchIndex.rebuild(List.of(user(1L, "Ada Lovelace")));
+        // Another node started a rebuild, so this one may have missed changes recorded only for that one.
+        redisTemplate.opsForValue().set(UserSearchIndex.KEY + ":rebuilding", "other-node");
+        userSearchIndex.added(user(2L, "Alan Turing"));
+        userSearchIndex.finishRebuild();
+
+        assertThat(userSearchIndex.search("a", 10)).containsExactlyInAnyOrder(1L, 2L);
+        // Only the other rebuild's record of the change is left; this one's rebuilt index was dropped.
+        assertThat(redisTemplate.keys(UserSearchIndex.KEY + ":rebuild:*"))
+                .containsOnly(UserSearchIndex.KEY + ":rebuild:added");
+    }
+
+    private static User user(Long id, String name) {
+        return new User(id, name, "user" + id + "@example.com", 0L);
+    }
+}
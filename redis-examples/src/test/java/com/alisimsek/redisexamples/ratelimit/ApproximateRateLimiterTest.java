@@ -0,0 +1,108 @@
+package com.alisimsek.redisexamples.ratelimit;
+
+import com.alisimsek.redisexamples.config.RateLimitProperties;
+import com.alisimsek.redisexamples.config.RedisResilienceProperties;
+import com.alisimsek.redisexamples.resilience.RedisCircuitBreaker;
+import com.alisimsek.redisexamples.sharding.RedisShards;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs two limiters, standing in for two nodes, against database 14 of the Redis instance from
+ * {@code application.yml} and flushes it.
+ */
+@SpringBootTest(properties = {"logging.level.com.alisimsek.redisexamples=WARN", "spring.data.redis.database=14",
+        "cache.warm-up.enabled=false"})
+class ApproximateRateLimiterTest {
+
+    private static final String KEY = "rate_limit:approximate-test:client";
+    private static final RateLimitRule RULE = new RateLimitRule(1000, Duration.ofHours(1),
+            RateLimitAlgorithm.SLIDING_WINDOW_LOG, RateLimitMode.APPROXIMATE);
+
+    @Autowired
+    private RedisShards redisShards;
+
+    @Autowired
+    private RateLimitProperties properties;
+
+    @Autowired
+    private RedisCircuitBreaker circuitBreaker;
+
+    @Autowired
+    private RedisResilienceProperties resilienceProperties;
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    /**
+     * Windows are aligned to the epoch; waits for the next one if the current one ends too soon
+     * for a test to run within it.
+     */
+    @BeforeEach
+    void startInFreshWindow() throws InterruptedException {
+        long windowMillis = RULE.window().toMillis();
+        long remaining = windowMillis - System.currentTimeMillis() % windowMillis;
+        if (remaining < Duration.ofMinutes(1).toMillis()) {
+            Thread.sleep(remaining + 10);
+        }
+    }
+
+    @AfterEach
+    void flushDb() {
+        redisTemplate.execute((RedisCallback<Object>) connection -> {
+            connection.serverCommands().flushDb();
+            return null;
+        });
+    }
+
+    @Test
+    void twoNodesTogetherAllowExactlyTheLimit() {
+        MeterRegistry registry = new SimpleMeterRegistry();
+        List<ApproximateRateLimiter> nodes = List.of(limiter(registry), limiter(registry));
+        long allowed = 0;
+        for (int call = 0; call < 3 * RULE.limit(); call++) {
+            if (nodes.get(call % 2).tryAcquire(KEY, RULE)) {
+                allowed++;
+            }
+            if (call % 20 == 0) {
+                nodes.forEach(ApproximateRateLimiter::sync);
+            }
+        }
+
+        // Each node allows at most max-error of the limit unsynced, and stops trusting its count
+        // strict-margin below the limit, so two nodes cannot overshoot.
+        assertThat(allowed).isEqualTo(RULE.limit());
+        double local = registry.get("rate.limit.approximate.decisions").tag("source", "local").counter().count();
+        double strict = registry.get("rate.limit.approximate.decisions").tag("source", "redis").counter().count();
+        assertThat(local).isGreaterThan(strict);
+    }
+
+    @Test
+    void syncPublishesLocallyAllowedCalls() {
+        ApproximateRateLimiter node = limiter(new SimpleMeterRegistry());
+        for (int call = 0; call < 10; call++) {
+            assertThat(node.tryAcquire(KEY, RULE)).isTrue();
+        }
+
+        node.sync();
+
+        long window = System.currentTimeMillis() / RULE.window().toMillis();
+        assertThat(redisTemplate.opsForValue().get(KEY + ":approx:" + window)).isEqualTo("10");
+    }
+
+    private ApproximateRateLimiter limiter(MeterRegistry registry) {
+        return new ApproximateRateLimiter(redisShards, properties, circuitBreaker, resilienceProperties, registry);
+    }
+}
@@ -0,0 +1,88 @@
+package com.alisimsek.redisexamples.ratelimit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs against database 14 of the Redis instance from {@code application.yml} and flushes it.
+ */
+@SpringBootTest(properties = {"logging.level.com.alisimsek.redisexamples=WARN", "spring.data.redis.database=14",
+        "cache.warm-up.enabled=false"})
+class ReactiveRateLimiterTest {
+
+    private static final String ROUTE = "reactive-test";
+    private static final String CLIENT = "10.0.0.1";
+
+    @Autowired
+    private ReactiveRateLimiter reactiveRateLimiter;
+
+    @Autowired
+    private RateLimiter rateLimiter;
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    /**
+     * The first reactive calls connect and load the scripts, and can miss the 50ms rate limit
+     * timeout, which would let the local fallback limiter answer.
+     */
+    @BeforeEach
+    void warmUp() {
+        for (RateLimitAlgorithm algorithm : RateLimitAlgorithm.values()) {
+            for (int i = 0; i < 3; i++) {
+                reactiveRateLimiter.tryAcquire("warm-up-" + algorithm, rule(algorithm), CLIENT).block();
+                rateLimiter.tryAcquire("warm-up-" + algorithm, CLIENT, rule(algorithm));
+            }
+        }
+    }
+
+    @AfterEach
+    void flushDb() {
+        redisTemplate.execute((RedisCallback<Object>) connection -> {
+            connection.serverCommands().flushDb();
+            return null;
+        });
+    }
+
+    @Test
+    void slidingWindowRejectsCallsOverLimit() {
+        RateLimitRule rule = rule(RateLimitAlgorithm.SLIDING_WINDOW_LOG);
+
+        StepVerifier.create(reactiveRateLimiter.tryAcquire(ROUTE, rule, CLIENT)).expectNext(true).verifyComplete();
+        StepVerifier.create(reactiveRateLimiter.tryAcquire(ROUTE, rule, CLIENT)).expectNext(true).verifyComplete();
+        StepVerifier.create(reactiveRateLimiter.tryAcquire(ROUTE, rule, CLIENT)).expectNext(false).verifyComplete();
+        StepVerifier.create(reactiveRateLimiter.tryAcquire(ROUTE, rule, "10.0.0.2")).expectNext(true).verifyComplete();
+    }
+
+    @Test
+    void tokenBucketRejectsCallsOverLimit() {
+        RateLimitRule rule = rule(RateLimitAlgorithm.TOKEN_BUCKET);
+
+        StepVerifier.create(reactiveRateLimiter.tryAcquire(ROUTE, rule, CLIENT)).expectNext(true).verifyComplete();
+        StepVerifier.create(reactiveRateLimiter.tryAcquire(ROUTE, rule, CLIENT)).expectNext(true).verifyComplete();
+        StepVerifier.create(reactiveRateLimiter.tryAcquire(ROUTE, rule, CLIENT)).expectNext(false).verifyComplete();
+    }
+
+    @Test
+    void sharesLimitWithBlockingLimiter() {
+        RateLimitRule rule = rule(RateLimitAlgorithm.SLIDING_WINDOW_LOG);
+        assertThat(rateLimiter.tryAcquire(ROUTE, CLIENT, rule)).isTrue();
+        assertThat(rateLimiter.tryAcquire(ROUTE, CLIENT, rule)).isTrue();
+
+        StepVerifier.create(reactiveRateLimiter.tryAcquire(ROUTE, rule, CLIENT)).expectNext(false).verifyComplete();
+    }
+
+    private static RateLimitRule rule(RateLimitAlgorithm algorithm) {
+        return new RateLimitRule(2, Duration.ofMinutes(1), algorithm, RateLimitMode.EXACT);
+    }
+}
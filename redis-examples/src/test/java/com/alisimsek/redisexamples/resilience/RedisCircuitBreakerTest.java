@@ -0,0 +1,221 @@
+package com.alisimsek.redisexamples.resilience;
+
+import com.alisimsek.redisexamples.config.RedisResilienceProperties;
+import com.alisimsek.redisexamples.config.ShardingProperties;
+import com.alisimsek.redisexamples.sharding.RedisShards;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Probes the Redis instance from {@code application.yml}; stores nothing.
+ */
+@SpringBootTest(properties = {"logging.level.com.alisimsek.redisexamples=WARN", "spring.data.redis.database=14",
+        "cache.warm-up.enabled=false"})
+class RedisCircuitBreakerTest {
+
+    private static final Duration TIMEOUT = Duration.ofMillis(50);
+
+    @Autowired
+    private RedisShards redisShards;
+
+    @Autowired
+    private LettuceConnectionFactory connectionFactory;
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    private RedisCircuitBreaker breaker;
+
+    @BeforeEach
+    void createBreaker() {
+        breaker = breaker(redisShards);
+    }
+
+    @AfterEach
+    void shutdownBreaker() {
+        breaker.shutdown();
+    }
+
+    @Test
+    void opensOnFailuresAndClosesAfterProbeAndSuccessfulCalls() throws InterruptedException {
+        CountDownLatch reconnected = new CountDownLatch(1);
+        breaker.addReconnectListener(reconnected::countDown);
+        for (int i = 0; i < 4; i++) {
+            assertThat(call(() -> {
+                throw new IllegalStateException("Redis is down");
+            })).isEqualTo("fallback");
+        }
+        assertThat(breaker.getState()).isEqualTo(CircuitState.OPEN);
+
+        AtomicInteger attempts = new AtomicInteger();
+        assertThat(call(() -> "v" + attempts.incrementAndGet())).isEqualTo("fallback");
+        assertThat(attempts).hasValue(0);
+
+        breaker.probe();
+        assertThat(breaker.getState()).isEqualTo(CircuitState.HALF_OPEN);
+        assertThat(reconnected.await(1, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(call(() -> "v1")).isEqualTo("v1");
+        assertThat(breaker.getState()).isEqualTo(CircuitState.HALF_OPEN);
+        assertThat(call(() -> "v2")).isEqualTo("v2");
+        assertThat(breaker.getState()).isEqualTo(CircuitState.CLOSED);
+    }
+
+    @Test
+    void failureWhileHalfOpenOpensAgain() {
+        for (int i = 0; i < 4; i++) {
+            call(() -> {
+                throw new IllegalStateException("Redis is down");
+            });
+        }
+        breaker.probe();
+        assertThat(breaker.getState()).isEqualTo(CircuitState.HALF_OPEN);
+
+        call(() -> {
+            throw new IllegalStateException("Redis is still down");
+        });
+
+        assertThat(breaker.getState()).isEqualTo(CircuitState.OPEN);
+    }
+
+    @Test
+    void staysOpenWhileAnyShardIsUnreachable() {
+        LettuceConnectionFactory unreachable = new LettuceConnectionFactory(new RedisStandaloneConfiguration("localhost", 1));
+        unreachable.afterPropertiesSet();
+        unreachable.start();
+        RedisShards shards = new RedisShards(new ShardingProperties(), connectionFactory, redisTemplate) {
+            @Override
+            public List<StringRedisTemplate> allNodes() {
+                return List.of(redisTemplate, new StringRedisTemplate(unreachable));
+            }
+        };
+        RedisCircuitBreaker shardedBreaker = breaker(shards);
+        AtomicInteger reconnects = new AtomicInteger();
+        shardedBreaker.addReconnectListener(reconnects::incrementAndGet);
+        try {
+            for (int i = 0; i < 4; i++) {
+                shardedBreaker.execute("test", TIMEOUT, () -> {
+                    throw new IllegalStateException("Shard is down");
+                }, () -> "fallback");
+            }
+
+            shardedBreaker.probe();
+            shardedBreaker.probe();
+
+            assertThat(shardedBreaker.getState()).isEqualTo(CircuitState.OPEN);
+            assertThat(reconnects).hasValue(0);
+        } finally {
+            shardedBreaker.shutdown();
+            unreachable.destroy();
+        }
+    }
+
+    @Test
+    void timedOutCallsFallBackAndOpenBreaker() {
+        for (int i = 0; i < 4; i++) {
+            long start = System.nanoTime();
+            assertThat(call(() -> {
+                sleep(500);
+                return "late";
+            })).isEqualTo("fallback");
+            assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofMillis(400));
+        }
+        assertThat(breaker.getState()).isEqualTo(CircuitState.OPEN);
+    }
+
+    @Test
+    void excludedWorkIsNotTimed() {
+        for (int i = 0; i < 4; i++) {
+            String result = breaker.execute("test", TIMEOUT, deadline -> {
+                try {
+                    return deadline.excluding(() -> {
+                        sleep(200);
+                        return "loaded";
+                    });
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            }, () -> "fallback");
+            assertThat(result).isEqualTo("loaded");
+        }
+        assertThat(breaker.getState()).isEqualTo(CircuitState.CLOSED);
+    }
+
+    @Test
+    void reactiveCallReturnsResultOrFallback() {
+        StepVerifier.create(breaker.execute("test", TIMEOUT, Mono.just("result"), Mono.just("fallback")))
+                .expectNext("result")
+                .verifyComplete();
+        StepVerifier.create(breaker.execute("test", TIMEOUT,
+                        Mono.<String>error(new IllegalStateException("Redis is down")), Mono.just("fallback")))
+                .expectNext("fallback")
+                .verifyComplete();
+    }
+
+    @Test
+    void reactiveCallFallsBackOnceDeadlinePasses() {
+        StepVerifier.create(breaker.execute("test", TIMEOUT,
+                        Mono.just("late").delayElement(Duration.ofMillis(500)), Mono.just("fallback")))
+                .expectNext("fallback")
+                .expectComplete()
+                .verify(Duration.ofMillis(400));
+    }
+
+    @Test
+    void reactiveCallGoesStraightToFallbackWhileOpen() {
+        for (int i = 0; i < 4; i++) {
+            StepVerifier.create(breaker.execute("test", TIMEOUT,
+                            Mono.just("late").delayElement(Duration.ofMillis(500)), Mono.just("fallback")))
+                    .expectNext("fallback")
+                    .verifyComplete();
+        }
+        assertThat(breaker.getState()).isEqualTo(CircuitState.OPEN);
+        AtomicInteger subscriptions = new AtomicInteger();
+
+        StepVerifier.create(breaker.execute("test", TIMEOUT,
+                        Mono.fromSupplier(() -> "v" + subscriptions.incrementAndGet()), Mono.just("fallback")))
+                .expectNext("fallback")
+                .verifyComplete();
+        assertThat(subscriptions).hasValue(0);
+    }
+
+    private static RedisCircuitBreaker breaker(RedisShards shards) {
+        RedisResilienceProperties properties = new RedisResilienceProperties();
+        properties.setWindowSize(10);
+        properties.setMinimumCalls(4);
+        properties.setHalfOpenCalls(2);
+        properties.setSlowCallDuration(Duration.ofSeconds(1));
+        return new RedisCircuitBreaker(shards, properties, new SimpleMeterRegistry());
+    }
+
+    private String call(Supplier<String> action) {
+        return breaker.execute("test", TIMEOUT, action, () -> "fallback");
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
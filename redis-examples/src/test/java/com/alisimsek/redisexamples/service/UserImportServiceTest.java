@@ -0,0 +1,69 @@
+package com.alisimsek.redisexamples.service;
+
+import com.alisimsek.redisexamples.entity.User;
+import com.alisimsek.redisexamples.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs against database 14 of the Redis instance from {@code application.yml} and flushes it.
+ */
+@SpringBootTest(properties = {"logging.level.com.alisimsek.redisexamples=WARN", "spring.data.redis.database=14",
+        "cache.warm-up.enabled=false"})
+class UserImportServiceTest {
+
+    @Autowired
+    private UserImportService userImportService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @AfterEach
+    void flushDb() {
+        redisTemplate.execute((RedisCallback<Object>) connection -> {
+            connection.serverCommands().flushDb();
+            return null;
+        });
+    }
+
+    @Test
+    void reportsRejectedRowsByLine() throws Exception {
+        userRepository.save(new User(null, "Existing", "import-existing@example.com", null));
+        String body = String.join("\n",
+                "{\"name\": \"Ada\", \"email\": \"import-ada@example.com\"}",
+                "{\"name\": \"Broken\"",
+                "",
+                "{\"name\": \"No email\"}",
+                "{\"name\": \"Existing again\", \"email\": \"import-existing@example.com\"}",
+                "{\"name\": \"Ada twice\", \"email\": \"import-ada@example.com\"}",
+                "{\"name\": \"Grace\", \"email\": \"import-grace@example.com\"}");
+        List<UserImportEvent> events = new ArrayList<>();
+
+        userImportService.importUsers(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), events::add);
+
+        assertThat(events).filteredOn(event -> event.type().equals("error"))
+                .extracting(UserImportEvent::line)
+                .containsExactly(2L, 4L, 5L, 6L);
+        assertThat(events.getLast()).satisfies(done -> {
+            assertThat(done.type()).isEqualTo("done");
+            assertThat(done.lines()).isEqualTo(7L);
+            assertThat(done.imported()).isEqualTo(2L);
+            assertThat(done.failed()).isEqualTo(4L);
+        });
+        assertThat(userRepository.findByEmail("import-grace@example.com")).isNotNull();
+    }
+}
@@ -0,0 +1,96 @@
+package com.alisimsek.redisexamples.service;
+
+import com.alisimsek.redisexamples.config.UserExistenceProperties;
+import com.alisimsek.redisexamples.entity.User;
+import com.alisimsek.redisexamples.index.UserEmailIndex;
+import com.alisimsek.redisexamples.index.UserIdBloomFilter;
+import com.alisimsek.redisexamples.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs against database 14 of the Redis instance from {@code application.yml} and flushes it.
+ */
+@SpringBootTest(properties = {"logging.level.com.alisimsek.redisexamples=WARN", "spring.data.redis.database=14",
+        "cache.warm-up.enabled=false"})
+class UserServiceGetUserTest {
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserIdBloomFilter bloomFilter;
+
+    @Autowired
+    private UserEmailIndex userEmailIndex;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @AfterEach
+    void flushDb() {
+        redisTemplate.execute((RedisCallback<Object>) connection -> {
+            connection.serverCommands().flushDb();
+            return null;
+        });
+    }
+
+    @Test
+    void cachedUserIsServedWithoutExistenceChecks() {
+        User user = userRepository.save(new User(null, "Grace", "cached-existence@example.com", null));
+        userService.usersCreated(List.of(user));
+        assertThat(userService.getUser(user.getId()).getName()).isEqualTo("Grace");
+
+        // Both checks would now reject the ID, but they only run once every cache layer missed.
+        bloomFilter.beginRebuild();
+        bloomFilter.finishRebuild();
+        cacheManager.getCache(UserExistenceProperties.USER_MISSING_CACHE).put(user.getId(), Boolean.TRUE);
+
+        assertThat(userService.getUser(user.getId()).getName()).isEqualTo("Grace");
+    }
+
+    @Test
+    void emailMissingFromIndexIsFoundIgnoringCase() {
+        User user = userRepository.save(new User(null, "Ada", "Mixed-Case@Example.com", null));
+
+        assertThat(userService.getUserByEmail(" mixed-case@example.com ").getId()).isEqualTo(user.getId());
+    }
+
+    @Test
+    void emailIndexedForDeletedUserFallsBackToDb() {
+        User user = userRepository.save(new User(null, "Alan", "reused@example.com", null));
+        // Left behind by a deleted user that had the same email.
+        userEmailIndex.added(new User(999_999L, "Deleted", "reused@example.com", 0L));
+
+        assertThat(userService.getUserByEmail("reused@example.com").getId()).isEqualTo(user.getId());
+        assertThat(cacheManager.getCache("userById").get(999_999L)).isNull();
+    }
+
+    @Test
+    void updateEvictsOnlyUpdatedUser() {
+        User updated = userRepository.save(new User(null, "Ada", "evict-updated@example.com", null));
+        User other = userRepository.save(new User(null, "Alan", "evict-other@example.com", null));
+        userService.getUser(updated.getId());
+        userService.getUser(other.getId());
+
+        userService.updateUser(updated.getId(), new User(null, "Ada King", updated.getEmail(), null));
+
+        assertThat(userService.getUser(updated.getId()).getName()).isEqualTo("Ada King");
+        assertThat(cacheManager.getCache("userById").get(other.getId())).isNotNull();
+    }
+}
@@ -0,0 +1,60 @@
+package com.alisimsek.redisexamples.service;
+
+import com.alisimsek.redisexamples.entity.User;
+import com.alisimsek.redisexamples.exception.StaleFencingTokenException;
+import com.alisimsek.redisexamples.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Runs against database 14 of the Redis instance from {@code application.yml} and flushes it.
+ */
+@SpringBootTest(properties = {"logging.level.com.alisimsek.redisexamples=WARN", "spring.data.redis.database=14",
+        "cache.warm-up.enabled=false"})
+class UserServiceLockUpdateTest {
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @AfterEach
+    void flushDb() {
+        redisTemplate.execute((RedisCallback<Object>) connection -> {
+            connection.serverCommands().flushDb();
+            return null;
+        });
+    }
+
+    @Test
+    void rejectsWriteWithOlderFencingTokenAndRecovers() {
+        User user = userRepository.save(new User(null, "Ada", "fenced@example.com", null));
+        String fenceKey = "fair_lock:{user_update_" + user.getId() + "}:fence";
+        // Holders of earlier acquisitions have written, so the stored token is ahead of a fresh counter.
+        redisTemplate.opsForValue().set(fenceKey, "5");
+        userService.updateUser(user.getId(), new User(null, "Ada 6", user.getEmail(), null), UpdateMode.LOCK);
+        redisTemplate.delete(fenceKey);
+
+        assertThatThrownBy(() -> userService.updateUser(user.getId(),
+                new User(null, "Ada stale", user.getEmail(), null), UpdateMode.LOCK))
+                .isInstanceOf(StaleFencingTokenException.class);
+        assertThat(userRepository.findById(user.getId())).get().extracting(User::getName).isEqualTo("Ada 6");
+
+        // The rejection moved the counter past the stored token.
+        User updated = userService.updateUser(user.getId(),
+                new User(null, "Ada 7", user.getEmail(), null), UpdateMode.LOCK);
+        assertThat(updated.getName()).isEqualTo("Ada 7");
+        assertThat(updated.getLockFence()).isEqualTo(7L);
+    }
+}
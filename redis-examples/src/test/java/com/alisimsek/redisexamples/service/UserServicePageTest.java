@@ -0,0 +1,85 @@
+package com.alisimsek.redisexamples.service;
+
+import com.alisimsek.redisexamples.entity.User;
+import com.alisimsek.redisexamples.index.UserIdIndex;
+import com.alisimsek.redisexamples.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs against database 14 of the Redis instance from {@code application.yml} and flushes it.
+ */
+@SpringBootTest(properties = {"logging.level.com.alisimsek.redisexamples=WARN", "spring.data.redis.database=14",
+        "cache.warm-up.enabled=false"})
+class UserServicePageTest {
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserIdIndex userIdIndex;
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @AfterEach
+    void cleanUp() {
+        userRepository.deleteAll();
+        redisTemplate.execute((RedisCallback<Object>) connection -> {
+            connection.serverCommands().flushDb();
+            return null;
+        });
+    }
+
+    @Test
+    void laterChunksFollowDeleteInEarlierChunk() {
+        userRepository.deleteAll();
+        userIdIndex.beginRebuild();
+        userIdIndex.finishRebuild();
+        List<User> created = saveUsers(120);
+        userService.usersCreated(created);
+        List<Long> ids = created.stream().map(User::getId).sorted().toList();
+        PageRequest secondPage = PageRequest.of(1, 60, Sort.by("id"));
+        // Caches the chunks holding ranks 60 to 119.
+        assertThat(pageIds(secondPage)).isEqualTo(ids.subList(60, 120));
+
+        userService.deleteUser(ids.get(0));
+
+        assertThat(pageIds(secondPage)).isEqualTo(ids.subList(61, 120));
+    }
+
+    @Test
+    void pagesAreReadFromDbUntilIdIndexIsBuilt() {
+        userRepository.deleteAll();
+        List<User> created = saveUsers(3);
+        // Only the newest user reached the index, which was never built from the DB.
+        userService.usersCreated(created.subList(2, 3));
+
+        assertThat(pageIds(PageRequest.of(0, 10, Sort.by("id"))))
+                .isEqualTo(created.stream().map(User::getId).sorted().toList());
+    }
+
+    private List<User> saveUsers(int count) {
+        return userRepository.saveAll(IntStream.range(0, count)
+                .mapToObj(i -> new User(null, "Paged " + i, "paged" + i + "@example.com", null))
+                .toList());
+    }
+
+    private List<Long> pageIds(PageRequest pageable) {
+        return userService.getUsers(pageable).getContent().stream().map(User::getId).toList();
+    }
+}
@@ -0,0 +1,92 @@
+package com.alisimsek.redisexamples.service;
+
+import com.alisimsek.redisexamples.entity.User;
+import com.alisimsek.redisexamples.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares update throughput of {@link UpdateMode#LOCK} and {@link UpdateMode#OPTIMISTIC}
+ * with all threads writing one user (high contention) and with threads spread over many users
+ * (low contention). Needs the Redis instance from {@code application.yml}.
+ * Not part of the regular build; run with
+ * {@code mvn test -Dtest=UserUpdateContentionBenchmark}.
+ */
+@SpringBootTest(properties = "logging.level.com.alisimsek.redisexamples=WARN")
+class UserUpdateContentionBenchmark {
+
+    private static final int THREADS = 16;
+    private static final int UPDATES_PER_THREAD = 50;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void compareModes() throws Exception {
+        List<User> users = IntStream.range(0, THREADS)
+                .mapToObj(i -> userRepository.save(new User(null, "user" + i, "bench" + i + "@example.com", null)))
+                .toList();
+
+        // Warm up both paths before measuring anything.
+        run(UpdateMode.LOCK, users);
+        run(UpdateMode.OPTIMISTIC, users);
+
+        System.out.printf("%-12s %-16s %12s %10s%n", "mode", "contention", "updates/s", "failed");
+        for (UpdateMode mode : UpdateMode.values()) {
+            Result high = run(mode, users.subList(0, 1));
+            print(mode, "high (1 user)", high);
+            Result low = run(mode, users);
+            print(mode, "low (16 users)", low);
+            assertThat(high.failed() + low.failed()).isZero();
+        }
+    }
+
+    private static void print(UpdateMode mode, String contention, Result result) {
+        int updates = THREADS * UPDATES_PER_THREAD;
+        System.out.printf("%-12s %-16s %12.0f %10d%n", mode, contention,
+                updates / (result.nanos() / 1e9), result.failed());
+    }
+
+    private Result run(UpdateMode mode, List<User> users) throws Exception {
+        AtomicInteger failed = new AtomicInteger();
+        long start = System.nanoTime();
+        try (ExecutorService executor = Executors.newFixedThreadPool(THREADS)) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                User user = users.get(t % users.size());
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < UPDATES_PER_THREAD; i++) {
+                        try {
+                            userService.updateUser(user.getId(), new User(null, "name" + thread + "-" + i,
+                                    user.getEmail(), null), mode);
+                        } catch (RuntimeException e) {
+                            failed.incrementAndGet();
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+        return new Result(System.nanoTime() - start, failed.get());
+    }
+
+    private record Result(long nanos, int failed) {
+    }
+}
@@ -0,0 +1,82 @@
+package com.alisimsek.redisexamples.service;
+
+import com.alisimsek.redisexamples.config.UserCreateProperties;
+import com.alisimsek.redisexamples.entity.User;
+import com.alisimsek.redisexamples.index.UserIdBloomFilter;
+import com.alisimsek.redisexamples.index.UserIdIndex;
+import com.alisimsek.redisexamples.repository.UserRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs against database 14 of the Redis instance from {@code application.yml} and flushes it.
+ */
+@SpringBootTest(properties = {"logging.level.com.alisimsek.redisexamples=WARN", "spring.data.redis.database=14",
+        "cache.warm-up.enabled=false"})
+class UserWriteBehindBufferTest {
+
+    @Autowired
+    private UserWriteBehindBuffer buffer;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserIdIndex userIdIndex;
+
+    @Autowired
+    private UserIdBloomFilter bloomFilter;
+
+    @Autowired
+    private UserCreateProperties properties;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @AfterEach
+    void flushDb() {
+        redisTemplate.execute((RedisCallback<Object>) connection -> {
+            connection.serverCommands().flushDb();
+            return null;
+        });
+    }
+
+    @Test
+    void flushInsertsAcceptedUsers() {
+        buffer.accept(new User(null, "Buffered", "buffered@example.com", null));
+
+        buffer.flush();
+
+        User user = userRepository.findByEmail("buffered@example.com");
+        assertThat(user).isNotNull();
+        assertThat(userIdIndex.rank(user.getId())).isNotNull();
+    }
+
+    @Test
+    void replayIndexesUsersCommittedByInterruptedFlush() throws Exception {
+        // Built empty, so it rejects every ID it has not been told about.
+        bloomFilter.beginRebuild();
+        bloomFilter.finishRebuild();
+        // The interrupted flush committed the insert but died before updating the indexes.
+        User user = userRepository.save(new User(null, "Replayed", "replayed@example.com", null));
+        redisTemplate.opsForList().rightPush(properties.getBufferKey() + ":processing",
+                objectMapper.writeValueAsString(new User(null, "Replayed", "replayed@example.com", null)));
+
+        buffer.flush();
+
+        assertThat(userRepository.findAll()).filteredOn(u -> u.getEmail().equals("replayed@example.com")).hasSize(1);
+        assertThat(userIdIndex.rank(user.getId())).isNotNull();
+        assertThat(bloomFilter.mightContain(user.getId())).isTrue();
+        assertThat(redisTemplate.hasKey(properties.getBufferKey() + ":processing")).isFalse();
+    }
+}
@@ -0,0 +1,86 @@
+package com.alisimsek.redisexamples.sharding;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ConsistentHashRingTest {
+
+    private static final int KEYS = 100_000;
+
+    @Test
+    void spreadsKeysEvenly() {
+        ConsistentHashRing<String> ring = ring("node-a", "node-b", "node-c");
+        Map<String, Integer> counts = new HashMap<>();
+        for (int id = 0; id < KEYS; id++) {
+            counts.merge(ring.nodeFor("userById::" + id), 1, Integer::sum);
+        }
+        assertThat(counts).hasSize(3);
+        // With 160 virtual nodes each node's share stays within about 15% of an even split.
+        counts.values().forEach(count -> assertThat(count).isBetween((int) (KEYS / 3 * 0.85), (int) (KEYS / 3 * 1.15)));
+    }
+
+    @Test
+    void addingNodeOnlyMovesKeysToIt() {
+        ConsistentHashRing<String> before = ring("node-a", "node-b", "node-c");
+        ConsistentHashRing<String> after = ring("node-a", "node-b", "node-c", "node-d");
+        int moved = 0;
+        for (int id = 0; id < KEYS; id++) {
+            String key = "userById::" + id;
+            String owner = after.nodeFor(key);
+            if (!owner.equals(before.nodeFor(key))) {
+                assertThat(owner).isEqualTo("node-d");
+                moved++;
+            }
+        }
+        assertThat(moved).isBetween((int) (KEYS / 4 * 0.8), (int) (KEYS / 4 * 1.2));
+    }
+
+    @Test
+    void keysWithSameHashTagShareNode() {
+        ConsistentHashRing<String> ring = ring("node-a", "node-b", "node-c", "node-d");
+        String owner = ring.nodeFor("fair_lock:{user-42}");
+        assertThat(ring.nodeFor("fair_lock:{user-42}:queue")).isEqualTo(owner);
+        assertThat(ring.nodeFor("fair_lock:{user-42}:deadlines")).isEqualTo(owner);
+        assertThat(ring.nodeFor("fair_lock:{user-42}:fence")).isEqualTo(owner);
+    }
+
+    @Test
+    void followsRedisClusterHashTagRules() {
+        assertThat(ConsistentHashRing.hashTag("fair_lock:{user-42}:queue")).isEqualTo("user-42");
+        assertThat(ConsistentHashRing.hashTag("{a}{b}")).isEqualTo("a");
+        // An empty tag, or one that is never closed, does not count; the whole key is hashed.
+        assertThat(ConsistentHashRing.hashTag("{}user")).isEqualTo("{}user");
+        assertThat(ConsistentHashRing.hashTag("user{42")).isEqualTo("user{42");
+    }
+
+    @Test
+    void placementDependsOnNodeNamesOnly() {
+        ConsistentHashRing<String> ring = ring("node-a", "node-b", "node-c");
+        ConsistentHashRing<String> reordered = ring("node-c", "node-a", "node-b");
+        ConsistentHashRing<Integer> mapped = ring.map(String::length);
+        for (int id = 0; id < 1000; id++) {
+            String key = "rate_limit:user-create:" + id;
+            assertThat(reordered.nodeFor(key)).isEqualTo(ring.nodeFor(key));
+            assertThat(mapped.nodeFor(key)).isEqualTo(ring.nodeFor(key).length());
+        }
+    }
+
+    @Test
+    void rejectsEmptyRing() {
+        assertThatThrownBy(() -> new ConsistentHashRing<>(Map.of(), 160)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static ConsistentHashRing<String> ring(String... names) {
+        Map<String, String> nodes = new LinkedHashMap<>();
+        for (String name : names) {
+            nodes.put(name, name);
+        }
+        return new ConsistentHashRing<>(nodes, 160);
+    }
+}
@@ -0,0 +1,143 @@
+package com.alisimsek.redisexamples.sharding;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.cache.CacheStatistics;
+import org.springframework.data.redis.cache.CacheStatisticsCollector;
+import org.springframework.data.redis.cache.RedisCacheWriter;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the writer against in-memory stand-ins for the Redis nodes.
+ */
+class ShardedRedisCacheWriterTest {
+
+    private final InMemoryCacheWriter primary = new InMemoryCacheWriter();
+    private final Map<String, InMemoryCacheWriter> nodes = new LinkedHashMap<>();
+    private final ConsistentHashRing<InMemoryCacheWriter> ring;
+    private final ShardedRedisCacheWriter writer;
+
+    ShardedRedisCacheWriterTest() {
+        for (String name : new String[]{"localhost:16380", "localhost:16381", "localhost:16382"}) {
+            nodes.put(name, new InMemoryCacheWriter());
+        }
+        ring = new ConsistentHashRing<>(nodes, 160);
+        writer = new ShardedRedisCacheWriter(primary, ring.map(node -> node), Set.of("userById"));
+    }
+
+    @Test
+    void storesShardedEntriesOnOwningNode() {
+        for (int id = 0; id < 300; id++) {
+            writer.put("userById", key("userById::" + id), key("user " + id), Duration.ofMinutes(5));
+        }
+        for (int id = 0; id < 300; id++) {
+            String key = "userById::" + id;
+            assertThat(ring.nodeFor(key).entries).containsKey(key);
+            assertThat(writer.get("userById", key(key))).isEqualTo(key("user " + id));
+        }
+        nodes.values().forEach(node -> assertThat(node.entries).isNotEmpty());
+        assertThat(primary.entries).isEmpty();
+    }
+
+    @Test
+    void keepsOtherCachesOnPrimary() {
+        writer.put("userList", key("userList::all"), key("[]"), Duration.ofMinutes(5));
+        assertThat(primary.entries).containsKey("userList::all");
+        nodes.values().forEach(node -> assertThat(node.entries).isEmpty());
+    }
+
+    @Test
+    void putIfAbsentAndRemoveUseOwningNode() {
+        byte[] key = key("userById::7");
+        assertThat(writer.putIfAbsent("userById", key, key("first"), null)).isNull();
+        assertThat(writer.putIfAbsent("userById", key, key("second"), null)).isEqualTo(key("first"));
+        writer.remove("userById", key);
+        assertThat(ring.nodeFor("userById::7").entries).isEmpty();
+    }
+
+    @Test
+    void cleanClearsShardedCacheOnEveryNode() {
+        for (int id = 0; id < 100; id++) {
+            writer.put("userById", key("userById::" + id), key("user"), null);
+        }
+        writer.put("userList", key("userList::all"), key("[]"), null);
+        writer.clean("userById", key("userById::*"));
+        nodes.values().forEach(node -> assertThat(node.entries).isEmpty());
+        assertThat(primary.entries).containsKey("userList::all");
+    }
+
+    private static byte[] key(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Stand-in for the cache writer of one Redis node; TTLs are ignored.
+     */
+    private static class InMemoryCacheWriter implements RedisCacheWriter {
+
+        private final Map<String, byte[]> entries = new ConcurrentHashMap<>();
+
+        @Override
+        public byte[] get(String name, byte[] key) {
+            return entries.get(string(key));
+        }
+
+        @Override
+        public CompletableFuture<byte[]> retrieve(String name, byte[] key, Duration ttl) {
+            return CompletableFuture.completedFuture(get(name, key));
+        }
+
+        @Override
+        public void put(String name, byte[] key, byte[] value, Duration ttl) {
+            entries.put(string(key), value);
+        }
+
+        @Override
+        public CompletableFuture<Void> store(String name, byte[] key, byte[] value, Duration ttl) {
+            put(name, key, value, ttl);
+            return CompletableFuture.completedFuture(null);
+        }
+
+        @Override
+        public byte[] putIfAbsent(String name, byte[] key, byte[] value, Duration ttl) {
+            return entries.putIfAbsent(string(key), value);
+        }
+
+        @Override
+        public void remove(String name, byte[] key) {
+            entries.remove(string(key));
+        }
+
+        @Override
+        public void clean(String name, byte[] pattern) {
+            String prefix = string(pattern).replace("*", "");
+            entries.keySet().removeIf(key -> key.startsWith(prefix));
+        }
+
+        @Override
+        public void clearStatistics(String name) {
+        }
+
+        @Override
+        public RedisCacheWriter withStatisticsCollector(CacheStatisticsCollector cacheStatisticsCollector) {
+            return this;
+        }
+
+        @Override
+        public CacheStatistics getCacheStatistics(String cacheName) {
+            return CacheStatisticsCollector.none().getCacheStatistics(cacheName);
+        }
+
+        private static String string(byte[] bytes) {
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.alisimsek.redisexamples.warmup;
+
+import com.alisimsek.redisexamples.cache.RedisCacheBatchOperations;
+import com.alisimsek.redisexamples.config.CacheWarmUpProperties;
+import com.alisimsek.redisexamples.entity.User;
+import com.alisimsek.redisexamples.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.DefaultApplicationArguments;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs against database 14 of the Redis instance from {@code application.yml} and flushes it.
+ */
+@SpringBootTest(properties = {"logging.level.com.alisimsek.redisexamples=WARN", "spring.data.redis.database=14",
+        "cache.warm-up.enabled=false"})
+class UserCacheWarmerTest {
+
+    @Autowired
+    private UserCacheWarmer warmer;
+
+    @Autowired
+    private CacheWarmUpProperties properties;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RedisCacheBatchOperations batchOperations;
+
+    @Autowired
+    private RedisCacheManager redisCacheManager;
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @AfterEach
+    void cleanUp() {
+        properties.setEnabled(false);
+        properties.setSource(WarmUpSource.RECENT);
+        properties.setIds(List.of());
+        redisTemplate.execute((RedisCallback<Object>) connection -> {
+            connection.serverCommands().flushDb();
+            return null;
+        });
+    }
+
+    @Test
+    void loadsListedUsersAndKeepsCachedOnes() {
+        User cold = userRepository.save(new User(null, "Cold", "warmup-cold@example.com", null));
+        User updated = userRepository.save(new User(null, "Before update", "warmup-updated@example.com", null));
+        // Another node cached the user after an update the warm-up's DB read did not see.
+        cacheInRedis(new User(updated.getId(), "After update", updated.getEmail(), 1L));
+        properties.setEnabled(true);
+        properties.setSource(WarmUpSource.LIST);
+        properties.setIds(List.of(cold.getId(), updated.getId()));
+
+        warmer.run(new DefaultApplicationArguments());
+
+        Map<Long, User> cached = batchOperations.getAll("userById", List.of(cold.getId(), updated.getId()), User.class);
+        assertThat(cached.get(cold.getId()).getName()).isEqualTo("Cold");
+        assertThat(cached.get(updated.getId()).getName()).isEqualTo("After update");
+    }
+
+    /**
+     * An entry cached between the warm-up's MGET and its write back is not overwritten.
+     */
+    @Test
+    void fillsOnlyEntriesThatAreStillMissing() {
+        User first = userRepository.save(new User(null, "First", "warmup-first@example.com", null));
+        User second = userRepository.save(new User(null, "Second", "warmup-second@example.com", null));
+        cacheInRedis(new User(second.getId(), "Cached", second.getEmail(), 1L));
+
+        assertThat(batchOperations.putAllIfAbsent("userById", Map.of(first.getId(), first, second.getId(), second)))
+                .containsExactly(first.getId());
+    }
+
+    /**
+     * Writes straight to the Redis tier, not through the circuit breaker, whose deadline a cold
+     * first call can miss.
+     */
+    private void cacheInRedis(User user) {
+        redisCacheManager.getCache("userById").put(user.getId(), user);
+    }
+}